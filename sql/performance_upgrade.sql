@@ -0,0 +1,803 @@
+-- =====================================================================
+-- UninaFoodLab - Aggiornamento prestazioni
+-- Da eseguire DOPO structure_with_views_triggers.sql (o setup_with_predata.sql)
+-- NOTE:
+--  * Script idempotente: puo' essere rieseguito senza effetti collaterali
+--  * Non modifica i dati esistenti, aggiunge solo oggetti di supporto
+--  * Ogni sezione e' indipendente e documentata in README.md
+-- =====================================================================
+
+SET client_encoding = 'UTF8';
+SET standard_conforming_strings = on;
+SET client_min_messages = warning;
+
+-- =====================================================================
+-- 1. Contatore posti occupati per corso
+--    Sostituisce il COUNT(*) su iscrizioni in verifica_posti_disponibili:
+--    il contatore e' mantenuto da trigger_log_iscrizioni e la riga del
+--    corso viene bloccata (FOR UPDATE) prima di ogni nuova prenotazione,
+--    cosi' iscrizioni concorrenti sullo stesso corso vengono serializzate.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS public.corsi_occupazione (
+    corso_id integer NOT NULL,
+    posti_totali integer DEFAULT 20 NOT NULL,
+    posti_occupati integer DEFAULT 0 NOT NULL,
+    modified_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT corsi_occupazione_pkey PRIMARY KEY (corso_id),
+    CONSTRAINT corsi_occupazione_corso_id_fkey FOREIGN KEY (corso_id) REFERENCES public.corsi(id) ON DELETE CASCADE,
+    CONSTRAINT chk_posti_occupati_validi CHECK (posti_occupati >= 0)
+);
+
+COMMENT ON TABLE public.corsi_occupazione IS 'Contatore dei posti occupati (iscrizioni ATTIVA) per ogni corso';
+
+-- Allineamento iniziale con le iscrizioni esistenti
+INSERT INTO public.corsi_occupazione (corso_id, posti_occupati)
+SELECT c.id, COUNT(i.id) FILTER (WHERE i.stato = 'ATTIVA')
+FROM public.corsi c
+LEFT JOIN public.iscrizioni i ON i.corso_id = c.id
+GROUP BY c.id
+ON CONFLICT (corso_id) DO UPDATE
+SET posti_occupati = EXCLUDED.posti_occupati,
+    modified_at = CURRENT_TIMESTAMP;
+
+
+CREATE OR REPLACE FUNCTION public.trigger_inizializza_occupazione_corso() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO corsi_occupazione (corso_id) VALUES (NEW.id)
+    ON CONFLICT (corso_id) DO NOTHING;
+    RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trigger_occupazione_corso ON public.corsi;
+CREATE TRIGGER trigger_occupazione_corso AFTER INSERT ON public.corsi FOR EACH ROW EXECUTE FUNCTION public.trigger_inizializza_occupazione_corso();
+
+
+CREATE OR REPLACE FUNCTION public.verifica_posti_disponibili(corso_id integer) RETURNS integer
+    LANGUAGE plpgsql STABLE
+    AS $$
+DECLARE
+    posti_disponibili INTEGER;
+BEGIN
+    SELECT GREATEST(o.posti_totali - o.posti_occupati, 0) INTO posti_disponibili
+    FROM corsi_occupazione o
+    WHERE o.corso_id = verifica_posti_disponibili.corso_id;
+
+    -- Corso senza contatore: nessun posto ancora occupato
+    RETURN COALESCE(posti_disponibili, 20);
+END;
+$$;
+
+COMMENT ON FUNCTION public.verifica_posti_disponibili(corso_id integer) IS 'Verifica il numero di posti disponibili per un corso (lettura O(1) dal contatore)';
+
+
+CREATE OR REPLACE FUNCTION public.trigger_controlla_posti_disponibili() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    occupazione RECORD;
+BEGIN
+    -- Controllo solo quando la riga inizia a occupare un posto
+    IF NEW.stato = 'ATTIVA' AND (TG_OP = 'INSERT'
+            OR OLD.stato IS DISTINCT FROM 'ATTIVA'
+            OR OLD.corso_id <> NEW.corso_id) THEN
+
+        INSERT INTO corsi_occupazione (corso_id) VALUES (NEW.corso_id)
+        ON CONFLICT (corso_id) DO NOTHING;
+
+        -- Il lock resta fino al commit: il contatore viene incrementato
+        -- da trigger_log_iscrizioni nella stessa transazione
+        SELECT posti_totali, posti_occupati INTO occupazione
+        FROM corsi_occupazione
+        WHERE corso_id = NEW.corso_id
+        FOR UPDATE;
+
+        IF occupazione.posti_occupati >= occupazione.posti_totali THEN
+            RAISE EXCEPTION 'Corso pieno: non ci sono posti disponibili per il corso ID %', NEW.corso_id;
+        END IF;
+    END IF;
+
+    RETURN NEW;
+END;
+$$;
+
+
+CREATE OR REPLACE FUNCTION public.aggiorna_occupazione_corso(corso_id integer, delta integer) RETURNS void
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    UPDATE corsi_occupazione o
+    SET posti_occupati = GREATEST(o.posti_occupati + delta, 0),
+        modified_at = CURRENT_TIMESTAMP
+    WHERE o.corso_id = aggiorna_occupazione_corso.corso_id;
+END;
+$$;
+
+
+CREATE OR REPLACE FUNCTION public.trigger_log_iscrizioni() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    -- Inserimenti e cambi di stato registrati dall'applicazione (sezione 9)
+    audit_applicativo boolean := current_setting('uninafoodlab.audit_applicativo', true) = 'on';
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NOT audit_applicativo THEN
+            INSERT INTO log_iscrizioni (iscrizione_id, azione, stato_nuovo, utente_modifica, note)
+            VALUES (NEW.id, 'INSERT', NEW.stato, current_user, 'Nuova iscrizione creata');
+        END IF;
+
+        IF NEW.stato = 'ATTIVA' THEN
+            PERFORM aggiorna_occupazione_corso(NEW.corso_id, 1);
+        END IF;
+        RETURN NEW;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF OLD.stato != NEW.stato AND NOT audit_applicativo THEN
+            INSERT INTO log_iscrizioni (iscrizione_id, azione, stato_precedente, stato_nuovo, utente_modifica, note)
+            VALUES (NEW.id, 'UPDATE', OLD.stato, NEW.stato, current_user, 'Cambio stato iscrizione');
+        END IF;
+
+        IF OLD.stato = 'ATTIVA' AND (NEW.stato IS DISTINCT FROM 'ATTIVA' OR OLD.corso_id <> NEW.corso_id) THEN
+            PERFORM aggiorna_occupazione_corso(OLD.corso_id, -1);
+        END IF;
+        IF NEW.stato = 'ATTIVA' AND (OLD.stato IS DISTINCT FROM 'ATTIVA' OR OLD.corso_id <> NEW.corso_id) THEN
+            PERFORM aggiorna_occupazione_corso(NEW.corso_id, 1);
+        END IF;
+        RETURN NEW;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO log_iscrizioni (iscrizione_id, azione, stato_precedente, utente_modifica, note)
+        VALUES (OLD.id, 'DELETE', OLD.stato, current_user, 'Iscrizione eliminata');
+
+        IF OLD.stato = 'ATTIVA' THEN
+            PERFORM aggiorna_occupazione_corso(OLD.corso_id, -1);
+        END IF;
+        RETURN OLD;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+
+-- Le notifiche sui posti leggono il contatore con una sola join per corso
+CREATE OR REPLACE VIEW public.notifiche_sistema AS
+ SELECT 'corso_inizio_imminente'::text AS tipo_notifica,
+    'warning'::text AS priorita,
+    ((('Il corso "'::text || (corsi.titolo)::text) || '" inizia il '::text) || (corsi.data_inizio)::text) AS messaggio,
+    corsi.chef_id AS destinatario_id,
+    'chef'::text AS tipo_destinatario,
+    CURRENT_TIMESTAMP AS created_at
+   FROM public.corsi
+  WHERE ((corsi.data_inizio >= (CURRENT_DATE + '6 days'::interval)) AND (corsi.data_inizio <= (CURRENT_DATE + '8 days'::interval)))
+UNION ALL
+ SELECT 'posti_limitati'::text AS tipo_notifica,
+    'info'::text AS priorita,
+    (((('Il corso "'::text || (corsi.titolo)::text) || '" ha solo '::text) || (o.posti_totali - o.posti_occupati)) || ' posti disponibili'::text) AS messaggio,
+    corsi.chef_id AS destinatario_id,
+    'chef'::text AS tipo_destinatario,
+    CURRENT_TIMESTAMP AS created_at
+   FROM (public.corsi
+     JOIN public.corsi_occupazione o ON ((o.corso_id = corsi.id)))
+  WHERE (((o.posti_totali - o.posti_occupati) <= 3) AND ((o.posti_totali - o.posti_occupati) > 0))
+UNION ALL
+ SELECT 'corso_pieno'::text AS tipo_notifica,
+    'success'::text AS priorita,
+    (('Il corso "'::text || (corsi.titolo)::text) || '" è al completo!'::text) AS messaggio,
+    corsi.chef_id AS destinatario_id,
+    'chef'::text AS tipo_destinatario,
+    CURRENT_TIMESTAMP AS created_at
+   FROM (public.corsi
+     JOIN public.corsi_occupazione o ON ((o.corso_id = corsi.id)))
+  WHERE (o.posti_occupati >= o.posti_totali);
+
+
+-- =====================================================================
+-- 2. Codice iscrizione da sequence
+--    genera_codice_iscrizione non tenta piu' codici casuali verificandoli
+--    con EXISTS: il numero progressivo della sequence viene permutato con
+--    una biiezione affine modulo 10^8 (codici non consecutivi ma sempre
+--    distinti), quindi l'inserimento costa O(1) qualunque sia il volume.
+--    Formato: UFL + anno + 8 cifre (es. UFL202538475619), compatibile con
+--    varchar(20) e disgiunto dai vecchi codici a 4 cifre.
+-- =====================================================================
+
+CREATE SEQUENCE IF NOT EXISTS public.iscrizioni_codice_seq
+    AS bigint
+    START WITH 1
+    INCREMENT BY 1
+    MINVALUE 1
+    MAXVALUE 99999999
+    NO CYCLE
+    CACHE 1;
+
+COMMENT ON SEQUENCE public.iscrizioni_codice_seq IS 'Progressivo per la generazione dei codici iscrizione';
+
+-- Gia' presente come vincolo UNIQUE negli script di struttura, garantito anche qui
+CREATE UNIQUE INDEX IF NOT EXISTS iscrizioni_codice_iscrizione_key ON public.iscrizioni USING btree (codice_iscrizione);
+
+
+CREATE OR REPLACE FUNCTION public.genera_codice_iscrizione() RETURNS text
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    -- Moltiplicatore coprimo con 10^8 (dispari e non multiplo di 5)
+    moltiplicatore CONSTANT BIGINT := 73939133;
+    offset_codice CONSTANT BIGINT := 20250917;
+    modulo CONSTANT BIGINT := 100000000;
+    progressivo BIGINT;
+BEGIN
+    progressivo := nextval('public.iscrizioni_codice_seq');
+
+    RETURN 'UFL' || TO_CHAR(CURRENT_DATE, 'YYYY') ||
+           LPAD(((progressivo * moltiplicatore + offset_codice) % modulo)::TEXT, 8, '0');
+END;
+$$;
+
+COMMENT ON FUNCTION public.genera_codice_iscrizione() IS 'Genera un codice univoco per le iscrizioni (sequence + permutazione, senza tentativi)';
+
+
+-- =====================================================================
+-- 3. Indici per la paginazione keyset delle tabelle utenti e iscrizioni
+--    Le pagine vengono lette con condizioni sulla tupla (cognome, nome, id)
+--    e (data_iscrizione, id): con questi indici parziali ogni pagina e'
+--    una scansione di indice limitata, indipendente dalla posizione.
+--    Un confronto tra tuple con data_iscrizione NULL non e' mai vero: le
+--    righe senza data non sarebbero raggiungibili, quindi la colonna
+--    diventa NOT NULL (le righe esistenti prendono la data di modifica).
+-- =====================================================================
+
+UPDATE public.iscrizioni
+SET data_iscrizione = COALESCE(modified_at, CURRENT_TIMESTAMP)
+WHERE data_iscrizione IS NULL;
+
+ALTER TABLE public.iscrizioni ALTER COLUMN data_iscrizione SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_utenti_attivi_cognome_nome_id ON public.utenti USING btree (cognome, nome, id) WHERE (attivo = true);
+
+CREATE INDEX IF NOT EXISTS idx_iscrizioni_attive_data_id ON public.iscrizioni USING btree (data_iscrizione DESC, id DESC) WHERE ((stato)::text = 'ATTIVA'::text);
+
+
+-- =====================================================================
+-- 4. Statistiche aggregate per corso e per chef
+--    report_chef e corsi_dettaglio ricalcolano ad ogni lettura COUNT
+--    DISTINCT sulla join chef x corsi x iscrizioni (x sessioni) e una
+--    subquery correlata per corso. corsi_statistiche e chef_statistiche
+--    contengono gli stessi totali, aggiornati per differenza dai trigger
+--    su iscrizioni, sessioni, corsi e chef; le viste *_aggregato li
+--    espongono con le stesse colonne delle viste originali.
+--    Solo corsi_futuri e stato_corso dipendono da CURRENT_DATE e restano
+--    calcolati in lettura (indice su corsi.chef_id).
+--    verifica_statistiche_aggregate() confronta i totali con le viste
+--    originali, ricalcola_statistiche_aggregate() li ricostruisce.
+-- =====================================================================
+
+CREATE TABLE IF NOT EXISTS public.corsi_statistiche (
+    corso_id integer NOT NULL,
+    chef_id integer,
+    prezzo numeric(10,2),
+    iscritti_totali integer DEFAULT 0 NOT NULL,
+    iscritti_attivi integer DEFAULT 0 NOT NULL,
+    iscritti_completati integer DEFAULT 0 NOT NULL,
+    iscritti_annullati integer DEFAULT 0 NOT NULL,
+    sessioni_programmate integer DEFAULT 0 NOT NULL,
+    modified_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT corsi_statistiche_pkey PRIMARY KEY (corso_id),
+    CONSTRAINT corsi_statistiche_corso_id_fkey FOREIGN KEY (corso_id) REFERENCES public.corsi(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE public.corsi_statistiche IS 'Totali iscrizioni e sessioni per corso, mantenuti dai trigger';
+
+
+CREATE TABLE IF NOT EXISTS public.chef_statistiche (
+    chef_id integer NOT NULL,
+    corsi_totali integer DEFAULT 0 NOT NULL,
+    corsi_con_prezzo integer DEFAULT 0 NOT NULL,
+    somma_prezzi numeric(14,2) DEFAULT 0 NOT NULL,
+    iscrizioni_totali integer DEFAULT 0 NOT NULL,
+    iscrizioni_attive integer DEFAULT 0 NOT NULL,
+    iscrizioni_completate integer DEFAULT 0 NOT NULL,
+    ricavo_totale numeric(14,2) DEFAULT 0 NOT NULL,
+    modified_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chef_statistiche_pkey PRIMARY KEY (chef_id),
+    CONSTRAINT chef_statistiche_chef_id_fkey FOREIGN KEY (chef_id) REFERENCES public.chef(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE public.chef_statistiche IS 'Totali corsi, iscrizioni e ricavi per chef, mantenuti dai trigger';
+
+
+CREATE OR REPLACE FUNCTION public.ricalcola_statistiche_aggregate() RETURNS void
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO corsi_statistiche (corso_id, chef_id, prezzo, iscritti_totali, iscritti_attivi,
+                                   iscritti_completati, iscritti_annullati, sessioni_programmate)
+    SELECT c.id, c.chef_id, c.prezzo,
+           COALESCE(i.totali, 0), COALESCE(i.attivi, 0), COALESCE(i.completati, 0), COALESCE(i.annullati, 0),
+           COALESCE(s.sessioni, 0)
+    FROM corsi c
+    LEFT JOIN (
+        SELECT corso_id,
+               COUNT(*) AS totali,
+               COUNT(*) FILTER (WHERE stato = 'ATTIVA') AS attivi,
+               COUNT(*) FILTER (WHERE stato = 'COMPLETATA') AS completati,
+               COUNT(*) FILTER (WHERE stato = 'ANNULLATA') AS annullati
+        FROM iscrizioni
+        GROUP BY corso_id
+    ) i ON i.corso_id = c.id
+    LEFT JOIN (
+        SELECT corso_id, COUNT(*) AS sessioni
+        FROM sessioni
+        GROUP BY corso_id
+    ) s ON s.corso_id = c.id
+    ON CONFLICT (corso_id) DO UPDATE
+    SET chef_id = EXCLUDED.chef_id,
+        prezzo = EXCLUDED.prezzo,
+        iscritti_totali = EXCLUDED.iscritti_totali,
+        iscritti_attivi = EXCLUDED.iscritti_attivi,
+        iscritti_completati = EXCLUDED.iscritti_completati,
+        iscritti_annullati = EXCLUDED.iscritti_annullati,
+        sessioni_programmate = EXCLUDED.sessioni_programmate,
+        modified_at = CURRENT_TIMESTAMP;
+
+    INSERT INTO chef_statistiche (chef_id, corsi_totali, corsi_con_prezzo, somma_prezzi, iscrizioni_totali,
+                                  iscrizioni_attive, iscrizioni_completate, ricavo_totale)
+    SELECT ch.id,
+           COUNT(s.corso_id),
+           COUNT(s.prezzo),
+           COALESCE(SUM(s.prezzo), 0),
+           COALESCE(SUM(s.iscritti_totali), 0),
+           COALESCE(SUM(s.iscritti_attivi), 0),
+           COALESCE(SUM(s.iscritti_completati), 0),
+           COALESCE(SUM(COALESCE(s.prezzo, 0) * (s.iscritti_attivi + s.iscritti_completati)), 0)
+    FROM chef ch
+    LEFT JOIN corsi_statistiche s ON s.chef_id = ch.id
+    GROUP BY ch.id
+    ON CONFLICT (chef_id) DO UPDATE
+    SET corsi_totali = EXCLUDED.corsi_totali,
+        corsi_con_prezzo = EXCLUDED.corsi_con_prezzo,
+        somma_prezzi = EXCLUDED.somma_prezzi,
+        iscrizioni_totali = EXCLUDED.iscrizioni_totali,
+        iscrizioni_attive = EXCLUDED.iscrizioni_attive,
+        iscrizioni_completate = EXCLUDED.iscrizioni_completate,
+        ricavo_totale = EXCLUDED.ricavo_totale,
+        modified_at = CURRENT_TIMESTAMP;
+END;
+$$;
+
+COMMENT ON FUNCTION public.ricalcola_statistiche_aggregate() IS 'Ricostruisce corsi_statistiche e chef_statistiche dalle tabelle di base';
+
+
+-- Applica (segno = 1) o rimuove (segno = -1) il contributo di un corso ai totali del suo chef
+CREATE OR REPLACE FUNCTION public.applica_statistiche_corso_chef(corso_id integer, segno integer) RETURNS void
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    corso RECORD;
+BEGIN
+    -- Il lock attende le iscrizioni concorrenti sullo stesso corso: i totali
+    -- letti includono gia' i loro delta, applicati al chef precedente
+    SELECT * INTO corso
+    FROM corsi_statistiche s
+    WHERE s.corso_id = applica_statistiche_corso_chef.corso_id
+    FOR UPDATE;
+
+    IF NOT FOUND OR corso.chef_id IS NULL THEN
+        RETURN;
+    END IF;
+
+    UPDATE chef_statistiche
+    SET corsi_totali = corsi_totali + segno,
+        corsi_con_prezzo = corsi_con_prezzo + CASE WHEN corso.prezzo IS NOT NULL THEN segno ELSE 0 END,
+        somma_prezzi = somma_prezzi + segno * COALESCE(corso.prezzo, 0),
+        iscrizioni_totali = iscrizioni_totali + segno * corso.iscritti_totali,
+        iscrizioni_attive = iscrizioni_attive + segno * corso.iscritti_attivi,
+        iscrizioni_completate = iscrizioni_completate + segno * corso.iscritti_completati,
+        ricavo_totale = ricavo_totale + segno * COALESCE(corso.prezzo, 0) * (corso.iscritti_attivi + corso.iscritti_completati),
+        modified_at = CURRENT_TIMESTAMP
+    WHERE chef_id = corso.chef_id;
+END;
+$$;
+
+
+-- Applica (segno = 1) o rimuove (segno = -1) una iscrizione dai totali di corso e chef
+CREATE OR REPLACE FUNCTION public.applica_statistiche_iscrizione(corso_id integer, stato character varying, segno integer) RETURNS void
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    delta_attivi INTEGER := CASE WHEN stato = 'ATTIVA' THEN segno ELSE 0 END;
+    delta_completati INTEGER := CASE WHEN stato = 'COMPLETATA' THEN segno ELSE 0 END;
+    delta_annullati INTEGER := CASE WHEN stato = 'ANNULLATA' THEN segno ELSE 0 END;
+    corso_chef_id INTEGER;
+    corso_prezzo NUMERIC;
+BEGIN
+    UPDATE corsi_statistiche s
+    SET iscritti_totali = s.iscritti_totali + segno,
+        iscritti_attivi = s.iscritti_attivi + delta_attivi,
+        iscritti_completati = s.iscritti_completati + delta_completati,
+        iscritti_annullati = s.iscritti_annullati + delta_annullati,
+        modified_at = CURRENT_TIMESTAMP
+    WHERE s.corso_id = applica_statistiche_iscrizione.corso_id
+    RETURNING s.chef_id, s.prezzo INTO corso_chef_id, corso_prezzo;
+
+    -- Corso in eliminazione (statistiche gia' rimosse) o senza chef
+    IF corso_chef_id IS NULL THEN
+        RETURN;
+    END IF;
+
+    UPDATE chef_statistiche
+    SET iscrizioni_totali = iscrizioni_totali + segno,
+        iscrizioni_attive = iscrizioni_attive + delta_attivi,
+        iscrizioni_completate = iscrizioni_completate + delta_completati,
+        ricavo_totale = ricavo_totale + (delta_attivi + delta_completati) * COALESCE(corso_prezzo, 0),
+        modified_at = CURRENT_TIMESTAMP
+    WHERE chef_id = corso_chef_id;
+END;
+$$;
+
+
+CREATE OR REPLACE FUNCTION public.trigger_statistiche_iscrizioni() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM applica_statistiche_iscrizione(NEW.corso_id, NEW.stato, 1);
+        RETURN NEW;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF OLD.stato IS DISTINCT FROM NEW.stato OR OLD.corso_id IS DISTINCT FROM NEW.corso_id THEN
+            PERFORM applica_statistiche_iscrizione(OLD.corso_id, OLD.stato, -1);
+            PERFORM applica_statistiche_iscrizione(NEW.corso_id, NEW.stato, 1);
+        END IF;
+        RETURN NEW;
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM applica_statistiche_iscrizione(OLD.corso_id, OLD.stato, -1);
+        RETURN OLD;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trigger_statistiche_iscrizioni ON public.iscrizioni;
+CREATE TRIGGER trigger_statistiche_iscrizioni AFTER INSERT OR DELETE OR UPDATE ON public.iscrizioni FOR EACH ROW EXECUTE FUNCTION public.trigger_statistiche_iscrizioni();
+
+
+CREATE OR REPLACE FUNCTION public.trigger_statistiche_sessioni() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE corsi_statistiche
+        SET sessioni_programmate = sessioni_programmate + 1,
+            modified_at = CURRENT_TIMESTAMP
+        WHERE corso_id = NEW.corso_id;
+        RETURN NEW;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF OLD.corso_id IS DISTINCT FROM NEW.corso_id THEN
+            UPDATE corsi_statistiche
+            SET sessioni_programmate = sessioni_programmate - 1,
+                modified_at = CURRENT_TIMESTAMP
+            WHERE corso_id = OLD.corso_id;
+
+            UPDATE corsi_statistiche
+            SET sessioni_programmate = sessioni_programmate + 1,
+                modified_at = CURRENT_TIMESTAMP
+            WHERE corso_id = NEW.corso_id;
+        END IF;
+        RETURN NEW;
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE corsi_statistiche
+        SET sessioni_programmate = sessioni_programmate - 1,
+            modified_at = CURRENT_TIMESTAMP
+        WHERE corso_id = OLD.corso_id;
+        RETURN OLD;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trigger_statistiche_sessioni ON public.sessioni;
+CREATE TRIGGER trigger_statistiche_sessioni AFTER INSERT OR DELETE OR UPDATE ON public.sessioni FOR EACH ROW EXECUTE FUNCTION public.trigger_statistiche_sessioni();
+
+
+CREATE OR REPLACE FUNCTION public.trigger_statistiche_corsi() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO corsi_statistiche (corso_id, chef_id, prezzo)
+        VALUES (NEW.id, NEW.chef_id, NEW.prezzo)
+        ON CONFLICT (corso_id) DO NOTHING;
+
+        PERFORM applica_statistiche_corso_chef(NEW.id, 1);
+        RETURN NEW;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF OLD.chef_id IS DISTINCT FROM NEW.chef_id OR OLD.prezzo IS DISTINCT FROM NEW.prezzo THEN
+            PERFORM applica_statistiche_corso_chef(NEW.id, -1);
+
+            UPDATE corsi_statistiche
+            SET chef_id = NEW.chef_id,
+                prezzo = NEW.prezzo,
+                modified_at = CURRENT_TIMESTAMP
+            WHERE corso_id = NEW.id;
+
+            PERFORM applica_statistiche_corso_chef(NEW.id, 1);
+        END IF;
+        RETURN NEW;
+    ELSIF TG_OP = 'DELETE' THEN
+        -- BEFORE DELETE: il contributo viene tolto prima della cancellazione a cascata
+        -- di iscrizioni e sessioni, che trovano le statistiche gia' rimosse
+        PERFORM applica_statistiche_corso_chef(OLD.id, -1);
+        DELETE FROM corsi_statistiche WHERE corso_id = OLD.id;
+        RETURN OLD;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trigger_statistiche_corsi ON public.corsi;
+CREATE TRIGGER trigger_statistiche_corsi AFTER INSERT OR UPDATE ON public.corsi FOR EACH ROW EXECUTE FUNCTION public.trigger_statistiche_corsi();
+
+DROP TRIGGER IF EXISTS trigger_statistiche_corsi_eliminazione ON public.corsi;
+CREATE TRIGGER trigger_statistiche_corsi_eliminazione BEFORE DELETE ON public.corsi FOR EACH ROW EXECUTE FUNCTION public.trigger_statistiche_corsi();
+
+
+CREATE OR REPLACE FUNCTION public.trigger_statistiche_chef() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO chef_statistiche (chef_id) VALUES (NEW.id)
+    ON CONFLICT (chef_id) DO NOTHING;
+    RETURN NEW;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trigger_statistiche_chef ON public.chef;
+CREATE TRIGGER trigger_statistiche_chef AFTER INSERT ON public.chef FOR EACH ROW EXECUTE FUNCTION public.trigger_statistiche_chef();
+
+
+-- Allineamento iniziale (e riallineamento ad ogni riesecuzione dello script)
+SELECT public.ricalcola_statistiche_aggregate();
+
+
+CREATE OR REPLACE VIEW public.corsi_dettaglio_aggregato AS
+ SELECT c.id,
+    c.titolo,
+    c.descrizione,
+    c.data_inizio,
+    c.frequenza,
+    c.numero_sessioni,
+    c.prezzo,
+    (((ch.nome)::text || ' '::text) || (ch.cognome)::text) AS chef_nome,
+    ch.specializzazione AS chef_specializzazione,
+    cat.nome AS categoria,
+    (COALESCE(s.iscritti_attivi, 0))::bigint AS iscritti_attivi,
+    (COALESCE(s.iscritti_completati, 0))::bigint AS iscritti_completati,
+    (COALESCE(s.iscritti_annullati, 0))::bigint AS iscritti_annullati,
+    (COALESCE(s.sessioni_programmate, 0))::bigint AS numero_sessioni_programmate,
+    GREATEST((COALESCE(o.posti_totali, 20) - COALESCE(o.posti_occupati, 0)), 0) AS posti_disponibili,
+        CASE
+            WHEN (c.data_inizio > CURRENT_DATE) THEN 'Programmato'::text
+            WHEN (c.data_inizio <= CURRENT_DATE) THEN 'In Corso'::text
+            ELSE 'Completato'::text
+        END AS stato_corso,
+    (c.prezzo * ((COALESCE(s.iscritti_attivi, 0) + COALESCE(s.iscritti_completati, 0)))::numeric) AS ricavo_corso
+   FROM ((((public.corsi c
+     LEFT JOIN public.chef ch ON ((c.chef_id = ch.id)))
+     LEFT JOIN public.categorie_corsi cat ON ((c.categoria_id = cat.id)))
+     LEFT JOIN public.corsi_statistiche s ON ((s.corso_id = c.id)))
+     LEFT JOIN public.corsi_occupazione o ON ((o.corso_id = c.id)));
+
+COMMENT ON VIEW public.corsi_dettaglio_aggregato IS 'Come corsi_dettaglio, letta da corsi_statistiche senza aggregare iscrizioni e sessioni';
+
+
+CREATE OR REPLACE VIEW public.report_chef_aggregato AS
+ SELECT ch.id AS chef_id,
+    (((ch.nome)::text || ' '::text) || (ch.cognome)::text) AS chef_nome,
+    ch.specializzazione,
+    (COALESCE(st.corsi_totali, 0))::bigint AS corsi_totali,
+    ( SELECT count(*) AS count
+           FROM public.corsi c
+          WHERE ((c.chef_id = ch.id) AND (c.data_inizio >= CURRENT_DATE))) AS corsi_futuri,
+    (COALESCE(st.iscrizioni_totali, 0))::bigint AS iscrizioni_totali,
+    (COALESCE(st.iscrizioni_attive, 0))::bigint AS iscrizioni_attive,
+    (COALESCE(st.iscrizioni_completate, 0))::bigint AS iscrizioni_completate,
+    round(
+        CASE
+            WHEN (st.iscrizioni_totali > 0) THEN (((st.iscrizioni_completate)::numeric / (st.iscrizioni_totali)::numeric) * (100)::numeric)
+            ELSE (0)::numeric
+        END, 2) AS tasso_completamento_percentuale,
+        CASE
+            WHEN (st.corsi_con_prezzo > 0) THEN st.ricavo_totale
+            ELSE NULL::numeric
+        END AS ricavo_totale,
+    (st.somma_prezzi / (NULLIF(st.corsi_con_prezzo, 0))::numeric) AS prezzo_medio_corsi
+   FROM (public.chef ch
+     LEFT JOIN public.chef_statistiche st ON ((st.chef_id = ch.id)));
+
+COMMENT ON VIEW public.report_chef_aggregato IS 'Come report_chef, letta da chef_statistiche senza join sulle iscrizioni';
+
+
+-- Differenze tra le viste aggregate e le viste originali (nessuna riga = allineate).
+-- Il ricavo per chef e' confrontato con la somma dei ricavi dei suoi corsi: in
+-- report_chef ricavo_totale e prezzo_medio_corsi sono moltiplicati dalla join
+-- con le iscrizioni e non sono un riferimento affidabile.
+CREATE OR REPLACE FUNCTION public.verifica_statistiche_aggregate()
+    RETURNS TABLE(tipo text, riferimento_id integer, campo text, valore_aggregato numeric, valore_vista numeric)
+    LANGUAGE sql STABLE
+    AS $$
+    SELECT 'corso', v.id, d.campo, d.aggregato, d.vista
+    FROM corsi_dettaglio v
+    JOIN corsi_dettaglio_aggregato a ON a.id = v.id
+    CROSS JOIN LATERAL (VALUES
+        ('iscritti_attivi', a.iscritti_attivi::numeric, v.iscritti_attivi::numeric),
+        ('iscritti_completati', a.iscritti_completati::numeric, v.iscritti_completati::numeric),
+        ('iscritti_annullati', a.iscritti_annullati::numeric, v.iscritti_annullati::numeric),
+        ('numero_sessioni_programmate', a.numero_sessioni_programmate::numeric, v.numero_sessioni_programmate::numeric),
+        ('ricavo_corso', a.ricavo_corso, v.ricavo_corso)
+    ) AS d(campo, aggregato, vista)
+    WHERE d.aggregato IS DISTINCT FROM d.vista
+    UNION ALL
+    SELECT 'chef', v.chef_id, d.campo, d.aggregato, d.vista
+    FROM report_chef v
+    JOIN report_chef_aggregato a ON a.chef_id = v.chef_id
+    LEFT JOIN (
+        SELECT c.chef_id, SUM(cd.ricavo_corso) AS ricavo
+        FROM corsi_dettaglio cd
+        JOIN corsi c ON c.id = cd.id
+        GROUP BY c.chef_id
+    ) r ON r.chef_id = v.chef_id
+    CROSS JOIN LATERAL (VALUES
+        ('corsi_totali', a.corsi_totali::numeric, v.corsi_totali::numeric),
+        ('corsi_futuri', a.corsi_futuri::numeric, v.corsi_futuri::numeric),
+        ('iscrizioni_totali', a.iscrizioni_totali::numeric, v.iscrizioni_totali::numeric),
+        ('iscrizioni_attive', a.iscrizioni_attive::numeric, v.iscrizioni_attive::numeric),
+        ('iscrizioni_completate', a.iscrizioni_completate::numeric, v.iscrizioni_completate::numeric),
+        ('tasso_completamento_percentuale', a.tasso_completamento_percentuale, v.tasso_completamento_percentuale),
+        ('ricavo_totale', a.ricavo_totale, r.ricavo)
+    ) AS d(campo, aggregato, vista)
+    WHERE d.aggregato IS DISTINCT FROM d.vista;
+$$;
+
+COMMENT ON FUNCTION public.verifica_statistiche_aggregate() IS 'Confronta corsi_statistiche e chef_statistiche con le viste corsi_dettaglio e report_chef';
+
+
+-- =====================================================================
+-- 5. Indici composti per le statistiche mensili
+--    DashboardDAO e ReportDAO filtrano i mesi con intervalli semiaperti
+--    (data >= inizio AND data < fine) invece di EXTRACT(YEAR/MONTH ...),
+--    quindi chef/corso + data diventano condizioni di indice.
+--    Verifica: il piano deve contenere "Index Scan"/"Index Only Scan"
+--    sugli indici seguenti e nessun "Seq Scan" su sessioni, es.
+--      EXPLAIN SELECT s.id FROM sessioni s JOIN corsi c ON s.corso_id = c.id
+--      WHERE c.chef_id = 1 AND s.data_sessione >= '2025-03-01' AND s.data_sessione < '2025-04-01';
+-- =====================================================================
+
+CREATE INDEX IF NOT EXISTS idx_sessioni_corso_data ON public.sessioni USING btree (corso_id, data_sessione);
+
+CREATE INDEX IF NOT EXISTS idx_corsi_chef_data_inizio ON public.corsi USING btree (chef_id, data_inizio);
+
+-- Non esiste un indice su iscrizioni(corso_id): idx_iscrizioni_corso e' su iscrizioni_corsi
+CREATE INDEX IF NOT EXISTS idx_iscrizioni_corso_data ON public.iscrizioni USING btree (corso_id, data_iscrizione);
+
+
+-- =====================================================================
+-- 6. Notifiche delle modifiche per i client (LISTEN/NOTIFY)
+--    Ogni modifica a corsi, ricette e iscrizioni (e utenti, sezione 7) invia sul canale
+--    uninafoodlab_modifiche il payload "tabella:operazione:id:corso_id".
+--    Il client (DatabaseManager) ascolta con una connessione dedicata e
+--    invalida cache e righe delle tabelle a video. Le notifiche partono
+--    solo al commit e quelle identiche nella stessa transazione vengono
+--    unite da PostgreSQL. I caricamenti massivi possono disattivarle con
+--      SET uninafoodlab.notifiche_disattivate = on;
+--    Verifica: in psql eseguire LISTEN uninafoodlab_modifiche; e poi
+--    aggiornare un corso: compare "Asynchronous notification ... received".
+-- =====================================================================
+
+CREATE OR REPLACE FUNCTION public.trigger_notifica_modifica() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    riga_id integer;
+    corso_id integer;
+BEGIN
+    IF current_setting('uninafoodlab.notifiche_disattivate', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        riga_id := OLD.id;
+    ELSE
+        riga_id := NEW.id;
+    END IF;
+
+    IF TG_TABLE_NAME = 'corsi' THEN
+        corso_id := riga_id;
+    ELSIF TG_TABLE_NAME IN ('iscrizioni', 'sessioni') THEN
+        IF TG_OP = 'DELETE' THEN
+            corso_id := OLD.corso_id;
+        ELSE
+            corso_id := NEW.corso_id;
+        END IF;
+
+        -- Riga spostata su un altro corso: avvisa anche chi guarda il corso di partenza
+        IF TG_OP = 'UPDATE' AND OLD.corso_id <> NEW.corso_id THEN
+            PERFORM pg_notify('uninafoodlab_modifiche',
+                TG_TABLE_NAME || ':' || TG_OP || ':' || riga_id || ':' || OLD.corso_id);
+        END IF;
+    END IF;
+
+    PERFORM pg_notify('uninafoodlab_modifiche',
+        TG_TABLE_NAME || ':' || TG_OP || ':' || riga_id || ':' || COALESCE(corso_id::text, ''));
+    RETURN NULL;
+END;
+$$;
+
+COMMENT ON FUNCTION public.trigger_notifica_modifica() IS 'Notifica sul canale uninafoodlab_modifiche le modifiche a corsi, ricette, iscrizioni, utenti, sessioni e ricette delle sessioni';
+
+DROP TRIGGER IF EXISTS trigger_notifica_corsi ON public.corsi;
+CREATE TRIGGER trigger_notifica_corsi AFTER INSERT OR DELETE OR UPDATE ON public.corsi FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+DROP TRIGGER IF EXISTS trigger_notifica_ricette ON public.ricette;
+CREATE TRIGGER trigger_notifica_ricette AFTER INSERT OR DELETE OR UPDATE ON public.ricette FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+DROP TRIGGER IF EXISTS trigger_notifica_iscrizioni ON public.iscrizioni;
+CREATE TRIGGER trigger_notifica_iscrizioni AFTER INSERT OR DELETE OR UPDATE ON public.iscrizioni FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+
+-- =====================================================================
+-- 7. Ricerca testuale con pg_trgm
+--    RicettaDAO.searchByNome e UtenteDAO.searchByName usano ILIKE '%...%'
+--    e l'operatore di similarita' <% (word_similarity), entrambi serviti
+--    dagli indici GIN a trigrammi invece di una scansione sequenziale.
+--    Gli utenti sono indicizzati su "nome cognome", la stessa espressione
+--    usata nella query. Le modifiche agli utenti vengono notificate come
+--    quelle della sezione 6, per tenere aggiornati gli indici in memoria.
+--    pg_trgm e' un'estensione "trusted": basta il permesso CREATE sul database.
+--    Verifica: EXPLAIN SELECT id FROM ricette WHERE nome ILIKE '%pasta%';
+--    deve mostrare "Bitmap Index Scan on idx_ricette_nome_trgm".
+-- =====================================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX IF NOT EXISTS idx_ricette_nome_trgm ON public.ricette USING gin (nome public.gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_utenti_attivi_nome_completo_trgm ON public.utenti USING gin ((nome || ' ' || cognome) public.gin_trgm_ops) WHERE attivo = true;
+
+DROP TRIGGER IF EXISTS trigger_notifica_utenti ON public.utenti;
+CREATE TRIGGER trigger_notifica_utenti AFTER INSERT OR DELETE OR UPDATE ON public.utenti FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+
+-- =====================================================================
+-- 8. Notifiche delle modifiche a sessioni e ricette delle sessioni
+--    I grafici della finestra dei report (sessioni per modalita',
+--    andamento mensile, ricette per difficolta') dipendono anche da queste
+--    tabelle: il client tiene in cache dataset e immagini dei grafici e li
+--    invalida quando arriva una di queste notifiche o una della sezione 6.
+--    Stesso payload "tabella:operazione:id:corso_id"; per sessioni_ricette
+--    corso_id resta vuoto.
+--    Verifica: LISTEN uninafoodlab_modifiche; e poi aggiornare una sessione.
+-- =====================================================================
+
+DROP TRIGGER IF EXISTS trigger_notifica_sessioni ON public.sessioni;
+CREATE TRIGGER trigger_notifica_sessioni AFTER INSERT OR DELETE OR UPDATE ON public.sessioni FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+DROP TRIGGER IF EXISTS trigger_notifica_sessioni_ricette ON public.sessioni_ricette;
+CREATE TRIGGER trigger_notifica_sessioni_ricette AFTER INSERT OR DELETE OR UPDATE ON public.sessioni_ricette FOR EACH ROW EXECUTE FUNCTION public.trigger_notifica_modifica();
+
+
+-- =====================================================================
+-- 9. Audit applicativo di log_iscrizioni
+--    Il client registra inserimenti e cambi di stato delle iscrizioni in
+--    un buffer in memoria e li scrive a blocchi in background, con lo
+--    username dello chef invece dell'utente del pool (AuditIscrizioni).
+--    Le sue connessioni impostano uninafoodlab.audit_applicativo = on
+--    all'avvio (parametro "options" del driver): trigger_log_iscrizioni
+--    (sezione 1) per quelle sessioni registra solo le eliminazioni, che
+--    arrivano anche dalla cancellazione a cascata dei corsi. Le altre
+--    sessioni (psql, generatore di dati) continuano a usare il trigger.
+--    Verifica: SELECT utente_modifica, count(*) FROM log_iscrizioni
+--    GROUP BY 1; dopo qualche iscrizione dal client.
+-- =====================================================================
+
+COMMENT ON COLUMN public.log_iscrizioni.utente_modifica IS 'Username dello chef per le modifiche fatte dal client, utente del database per quelle registrate dal trigger';
@@ -0,0 +1,100 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import it.unina.uninafoodlab.model.Corso;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Popolamento delle liste di TableManager con una vista ordinata collegata,
+ * come avviene quando la tabella è ordinata per colonna. Non richiede il toolkit JavaFX.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableManagerBenchmark {
+
+    private static final int DIMENSIONE_PAGINA = 200;
+    private static final int RIGHE_MASSIME = 1000;
+
+    @Param({"200", "1000", "5000"})
+    private int righe;
+
+    private ObservableList<Corso> lista;
+    private SortedList<Corso> vistaOrdinata;
+    private List<Corso> corsi;
+    private List<Corso> pagina;
+
+    @Setup
+    public void prepara() {
+        lista = new TableManager(null, null).getListaCorsi();
+        vistaOrdinata = new SortedList<>(lista, Comparator.comparing(Corso::getTitolo));
+
+        corsi = new ArrayList<>(righe);
+        for (int i = 0; i < righe; i++) {
+            corsi.add(corso(i));
+        }
+        pagina = new ArrayList<>(DIMENSIONE_PAGINA);
+        for (int i = 0; i < DIMENSIONE_PAGINA; i++) {
+            pagina.add(corso(righe + i));
+        }
+    }
+
+    /**
+     * Sostituzione in blocco, come in caricaInBackground: una sola notifica
+     */
+    @Benchmark
+    public int setAll() {
+        lista.setAll(corsi);
+        return vistaOrdinata.size();
+    }
+
+    /**
+     * Riferimento: clear() seguito da un add() per riga, una notifica per riga
+     */
+    @Benchmark
+    public int addPerRiga() {
+        lista.clear();
+        for (Corso corso : corsi) {
+            lista.add(corso);
+        }
+        return vistaOrdinata.size();
+    }
+
+    /**
+     * Aggiunta di una pagina in coda con taglio della finestra, come PagedTableLoader
+     */
+    @Benchmark
+    public int aggiuntaPagina() {
+        lista.setAll(corsi);
+        lista.addAll(pagina);
+        int eccedenza = lista.size() - RIGHE_MASSIME;
+        if (eccedenza > 0) {
+            lista.remove(0, eccedenza);
+        }
+        return vistaOrdinata.size();
+    }
+
+    private static Corso corso(int indice) {
+        Corso corso = new Corso();
+        corso.setId(indice);
+        corso.setTitolo("Corso " + (indice * 7919 % 10007));
+        corso.setDataInizio(LocalDate.of(2025, 1, 1).plusDays(indice % 365));
+        corso.setPrezzo(new BigDecimal("149.90"));
+        return corso;
+    }
+}
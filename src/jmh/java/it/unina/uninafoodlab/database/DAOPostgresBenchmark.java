@@ -0,0 +1,79 @@
+package it.unina.uninafoodlab.database;
+
+import it.unina.uninafoodlab.model.ChefPerformance;
+import it.unina.uninafoodlab.model.Corso;
+import it.unina.uninafoodlab.model.CorsoDettaglio;
+import it.unina.uninafoodlab.model.Iscrizione;
+import it.unina.uninafoodlab.model.Utente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query dei DAO contro un PostgreSQL locale configurato in database.properties
+ * (popolato ad esempio con sql/setup_with_predata.sql).
+ * Va eseguito esplicitamente: -Djmh.args="DAOPostgres -f 1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DAOPostgresBenchmark {
+
+    @Param({"1"})
+    private int chefId;
+
+    @Param({"200"})
+    private int dimensionePagina;
+
+    private final CorsoDAO corsoDAO = new CorsoDAO();
+    private final UtenteDAO utenteDAO = new UtenteDAO();
+    private final IscrizioneDAOAdvanced iscrizioneDAO = new IscrizioneDAOAdvanced();
+    private final DashboardDAO dashboardDAO = new DashboardDAO();
+
+    @Setup(Level.Trial)
+    public void verificaConnessione() {
+        if (!DatabaseManager.testConnection()) {
+            throw new IllegalStateException("Database non raggiungibile: controllare database.properties");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void chiudi() {
+        DatabaseManager.closeDataSource();
+    }
+
+    @Benchmark
+    public List<Corso> corsiChef() {
+        return corsoDAO.findByChefId(chefId);
+    }
+
+    @Benchmark
+    public List<Utente> primaPaginaUtenti() {
+        return utenteDAO.findAttiviDopo(null, dimensionePagina);
+    }
+
+    @Benchmark
+    public List<Iscrizione> primaPaginaIscrizioni() {
+        return iscrizioneDAO.findAttiveDettagliatoDopo(null, dimensionePagina);
+    }
+
+    @Benchmark
+    public List<CorsoDettaglio> corsiDettaglio() {
+        return dashboardDAO.getCorsiDettaglio();
+    }
+
+    @Benchmark
+    public List<ChefPerformance> reportChef() {
+        return dashboardDAO.getReportChef();
+    }
+}
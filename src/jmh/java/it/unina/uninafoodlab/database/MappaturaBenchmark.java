@@ -0,0 +1,184 @@
+package it.unina.uninafoodlab.database;
+
+import it.unina.uninafoodlab.model.ChefPerformance;
+import it.unina.uninafoodlab.model.Chef;
+import it.unina.uninafoodlab.model.Corso;
+import it.unina.uninafoodlab.model.CorsoDettaglio;
+import it.unina.uninafoodlab.model.Ricetta;
+import it.unina.uninafoodlab.model.Utente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo della conversione riga -> oggetto dei mapper dei DAO, su un ResultSet in memoria.
+ * Il confronto corsiDettaglio / corsiDettaglioComeMappa misura i record rispetto
+ * alla vecchia conversione in Map&lt;String, Object&gt;.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappaturaBenchmark {
+
+    @Param({"200", "1000"})
+    private int righe;
+
+    private final CorsoDAO corsoDAO = new CorsoDAO();
+    private final ChefDAO chefDAO = new ChefDAO();
+    private final RicettaDAO ricettaDAO = new RicettaDAO();
+    private final UtenteDAO utenteDAO = new UtenteDAO();
+
+    private ResultSetInMemoria corsi;
+    private ResultSetInMemoria chef;
+    private ResultSetInMemoria ricette;
+    private ResultSetInMemoria utenti;
+    private ResultSetInMemoria corsiDettaglio;
+    private ResultSetInMemoria chefPerformance;
+
+    @Setup
+    public void preparaDati() {
+        LocalDate oggi = LocalDate.of(2025, 1, 1);
+        LocalDateTime creazione = LocalDateTime.of(2024, 9, 1, 10, 30);
+
+        corsi = genera(new String[]{"id", "chef_id", "categoria_id", "titolo", "descrizione", "data_inizio",
+                "frequenza", "numero_sessioni", "prezzo", "nome_chef", "nome_categoria", "durata_corso",
+                "max_partecipanti", "created_at"},
+            i -> new Object[]{i, i % 20, i % 8, "Corso " + i, "Descrizione del corso " + i, oggi.plusDays(i % 365),
+                "settimanale", 8, new BigDecimal("149.90"), "Mario Rossi", "Cucina Italiana", 120, 15, creazione});
+
+        chef = genera(new String[]{"id", "username", "password", "nome", "cognome", "email",
+                "specializzazione", "created_at"},
+            i -> new Object[]{i, "chef" + i, "hash" + i, "Nome" + i, "Cognome" + i, "chef" + i + "@uninafoodlab.it",
+                "Pasticceria", creazione});
+
+        ricette = genera(new String[]{"id", "chef_id", "nome", "descrizione", "difficolta", "tempo_preparazione",
+                "numero_porzioni", "istruzioni", "nome_chef", "created_at"},
+            i -> new Object[]{i, i % 20, "Ricetta " + i, "Descrizione " + i, i % 5 + 1, 45, 4,
+                "Istruzioni dettagliate della ricetta " + i, "Mario Rossi", creazione});
+
+        utenti = genera(new String[]{"id", "nome", "cognome", "email", "telefono", "data_nascita",
+                "livello_esperienza", "attivo", "created_at"},
+            i -> new Object[]{i, "Nome" + i, "Cognome" + i, "utente" + i + "@mail.it", "3331234567",
+                LocalDate.of(1990, 1, 1).plusDays(i), "PRINCIPIANTE", true, creazione});
+
+        corsiDettaglio = genera(new String[]{"id", "titolo", "descrizione", "data_inizio", "frequenza",
+                "numero_sessioni", "prezzo", "chef_nome", "chef_specializzazione", "categoria", "iscritti_attivi",
+                "iscritti_completati", "iscritti_annullati", "numero_sessioni_programmate", "posti_disponibili",
+                "stato_corso", "ricavo_corso"},
+            i -> new Object[]{i, "Corso " + i, "Descrizione del corso " + i, oggi.plusDays(i % 365), "settimanale",
+                8, new BigDecimal("149.90"), "Mario Rossi", "Cucina Italiana", "Primi piatti", 10, 3, 1, 8, 2,
+                "In corso", new BigDecimal("1948.70")});
+
+        chefPerformance = genera(new String[]{"chef_id", "chef_nome", "specializzazione", "corsi_totali",
+                "corsi_futuri", "iscrizioni_totali", "iscrizioni_attive", "iscrizioni_completate",
+                "tasso_completamento_percentuale", "ricavo_totale", "prezzo_medio_corsi"},
+            i -> new Object[]{i, "Chef " + i, "Pasticceria", 12, 3, 140, 60, 70, new BigDecimal("50.00"),
+                new BigDecimal("20986.00"), new BigDecimal("149.90")});
+    }
+
+    @Benchmark
+    public List<Corso> corsi() throws SQLException {
+        ResultSet rs = corsi.riavvolgi();
+        List<Corso> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(corsoDAO.mapResultSetToCorso(rs));
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<Chef> chef() throws SQLException {
+        ResultSet rs = chef.riavvolgi();
+        List<Chef> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(chefDAO.mapResultSetToChef(rs));
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<Ricetta> ricette() throws SQLException {
+        ResultSet rs = ricette.riavvolgi();
+        List<Ricetta> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(ricettaDAO.mapResultSetToRicetta(rs));
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<Utente> utenti() throws SQLException {
+        ResultSet rs = utenti.riavvolgi();
+        List<Utente> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(utenteDAO.mapResultSetToUtente(rs));
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<CorsoDettaglio> corsiDettaglio() throws SQLException {
+        ResultSet rs = corsiDettaglio.riavvolgi();
+        List<CorsoDettaglio> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(DashboardDAO.MAPPER_CORSO_DETTAGLIO.mappa(rs));
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> corsiDettaglioComeMappa() throws SQLException {
+        ResultSet rs = corsiDettaglio.riavvolgi();
+        ResultSetMetaData metaDati = rs.getMetaData();
+        int colonne = metaDati.getColumnCount();
+        List<Map<String, Object>> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            Map<String, Object> riga = new LinkedHashMap<>();
+            for (int i = 1; i <= colonne; i++) {
+                riga.put(metaDati.getColumnLabel(i), rs.getObject(i));
+            }
+            risultato.add(riga);
+        }
+        return risultato;
+    }
+
+    @Benchmark
+    public List<ChefPerformance> chefPerformance() throws SQLException {
+        ResultSet rs = chefPerformance.riavvolgi();
+        List<ChefPerformance> risultato = new ArrayList<>(righe);
+        while (rs.next()) {
+            risultato.add(DashboardDAO.MAPPER_CHEF_PERFORMANCE.mappa(rs));
+        }
+        return risultato;
+    }
+
+    private ResultSetInMemoria genera(String[] colonne, GeneratoreRiga generatore) {
+        List<Object[]> dati = new ArrayList<>(righe);
+        for (int i = 1; i <= righe; i++) {
+            dati.add(generatore.riga(i));
+        }
+        return new ResultSetInMemoria(colonne, dati);
+    }
+
+    @FunctionalInterface
+    private interface GeneratoreRiga {
+        Object[] riga(int indice);
+    }
+}
@@ -0,0 +1,122 @@
+package it.unina.uninafoodlab.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResultSet in memoria per i benchmark dei mapper, senza database.
+ * Supporta solo i getter usati dai DAO (per indice e per nome colonna);
+ * il costo del proxy è uguale per tutti i mapper, quindi i confronti restano validi.
+ */
+final class ResultSetInMemoria implements InvocationHandler {
+    private final String[] colonne;
+    private final List<Object[]> righe;
+    private final Map<String, Integer> indiciColonne = new HashMap<>();
+    private final ResultSet resultSet;
+    private int rigaCorrente = -1;
+    private boolean ultimoNullo;
+
+    ResultSetInMemoria(String[] colonne, List<Object[]> righe) {
+        this.colonne = colonne;
+        this.righe = righe;
+        for (int i = 0; i < colonne.length; i++) {
+            indiciColonne.put(colonne[i], i + 1);
+        }
+        this.resultSet = (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+    }
+
+    ResultSet resultSet() {
+        return resultSet;
+    }
+
+    /**
+     * Riporta il cursore prima della prima riga, per riusare i dati tra le iterazioni
+     */
+    ResultSet riavvolgi() {
+        rigaCorrente = -1;
+        return resultSet;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method metodo, Object[] argomenti) throws Throwable {
+        String nome = metodo.getName();
+        return switch (nome) {
+            case "next" -> ++rigaCorrente < righe.size();
+            case "wasNull" -> ultimoNullo;
+            case "close" -> null;
+            case "isClosed" -> false;
+            case "getMetaData" -> metaDati();
+            case "findColumn" -> indice(argomenti[0]);
+            case "getObject" -> argomenti.length == 2 && argomenti[1] instanceof Class<?> tipo
+                ? converti(valore(argomenti[0]), tipo)
+                : valore(argomenti[0]);
+            case "getString" -> converti(valore(argomenti[0]), String.class);
+            case "getInt" -> numero(valore(argomenti[0])).intValue();
+            case "getLong" -> numero(valore(argomenti[0])).longValue();
+            case "getDouble" -> numero(valore(argomenti[0])).doubleValue();
+            case "getBigDecimal" -> converti(valore(argomenti[0]), BigDecimal.class);
+            case "getBoolean" -> Boolean.TRUE.equals(valore(argomenti[0]));
+            case "getDate" -> converti(valore(argomenti[0]), Date.class);
+            case "getTimestamp" -> converti(valore(argomenti[0]), Timestamp.class);
+            default -> throw new SQLException("Metodo non supportato dal ResultSet in memoria: " + nome);
+        };
+    }
+
+    private Object valore(Object colonna) throws SQLException {
+        Object valore = righe.get(rigaCorrente)[indice(colonna) - 1];
+        ultimoNullo = valore == null;
+        return valore;
+    }
+
+    private int indice(Object colonna) throws SQLException {
+        if (colonna instanceof Integer indice) {
+            return indice;
+        }
+        Integer indice = indiciColonne.get((String) colonna);
+        if (indice == null) {
+            throw new SQLException("Colonna inesistente: " + colonna);
+        }
+        return indice;
+    }
+
+    private static Number numero(Object valore) {
+        return valore instanceof Number n ? n : 0;
+    }
+
+    private static Object converti(Object valore, Class<?> tipo) {
+        if (valore == null || tipo.isInstance(valore)) {
+            return valore;
+        }
+        if (tipo == String.class) return valore.toString();
+        if (tipo == BigDecimal.class && valore instanceof Number n) return new BigDecimal(n.toString());
+        if (tipo == Date.class && valore instanceof LocalDate d) return Date.valueOf(d);
+        if (tipo == LocalDate.class && valore instanceof Date d) return d.toLocalDate();
+        if (tipo == Timestamp.class && valore instanceof LocalDateTime t) return Timestamp.valueOf(t);
+        if (tipo == LocalDateTime.class && valore instanceof Timestamp t) return t.toLocalDateTime();
+        throw new IllegalArgumentException("Conversione non supportata: " + valore.getClass().getSimpleName() + " -> " + tipo.getSimpleName());
+    }
+
+    private ResultSetMetaData metaDati() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+            ResultSetMetaData.class.getClassLoader(),
+            new Class<?>[]{ResultSetMetaData.class},
+            (proxy, metodo, argomenti) -> switch (metodo.getName()) {
+                case "getColumnCount" -> colonne.length;
+                case "getColumnLabel", "getColumnName" -> colonne[(Integer) argomenti[0] - 1];
+                default -> throw new SQLException("Metodo non supportato: " + metodo.getName());
+            });
+    }
+}
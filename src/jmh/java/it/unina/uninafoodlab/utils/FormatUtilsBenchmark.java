@@ -0,0 +1,52 @@
+package it.unina.uninafoodlab.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formattazioni usate dalle celle delle tabelle, chiamate una volta per cella visibile
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatUtilsBenchmark {
+
+    private final LocalDate data = LocalDate.of(2025, 3, 14);
+    private final LocalDateTime dataOra = LocalDateTime.of(2025, 3, 14, 18, 30);
+    private final Double valore = 1948.7;
+    private final String stato = "IN_ATTESA_CONFERMA";
+    private final String descrizione = "Corso avanzato di pasticceria francese con tecniche di laminazione e temperaggio";
+
+    @Benchmark
+    public String formattaData() {
+        return FormatUtils.formattaData(data);
+    }
+
+    @Benchmark
+    public String formattaDataOra() {
+        return FormatUtils.formattaDataOra(dataOra);
+    }
+
+    @Benchmark
+    public String formattaDecimale() {
+        return FormatUtils.formattaDecimale(valore);
+    }
+
+    @Benchmark
+    public String formattaStato() {
+        return FormatUtils.formattaStato(stato);
+    }
+
+    @Benchmark
+    public String tronca() {
+        return FormatUtils.tronca(descrizione, 40);
+    }
+}
@@ -1,8 +1,10 @@
 package it.unina.uninafoodlab;
 
 import it.unina.uninafoodlab.controller.MainController;
+import it.unina.uninafoodlab.controller.helper.AsyncLoader;
 import it.unina.uninafoodlab.database.DatabaseManager;
 import it.unina.uninafoodlab.model.Chef;
+import it.unina.uninafoodlab.service.UninaFoodLabService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -34,10 +36,30 @@ public void start(Stage stage) throws Exception {
             return;
         }
         
+        verificaStatisticheAggregate();
+        
         // Carica la schermata di login
         showLoginWindow();
     }
     
+    /**
+     * Controlla in background che le statistiche mantenute dai trigger non si siano
+     * discostate dalle viste (es. dopo modifiche con i trigger disattivati) e in caso le ricostruisce
+     */
+    private void verificaStatisticheAggregate() {
+        new AsyncLoader().carica("verifica-statistiche",
+            () -> new UninaFoodLabService().verificaStatisticheAggregate(),
+            allineate -> {
+                if (allineate) {
+                    logger.info("Statistiche aggregate allineate con le viste");
+                } else {
+                    logger.warn("Statistiche aggregate non allineate: ricostruite");
+                }
+            },
+            // L'errore è già registrato da AsyncLoader: l'applicazione funziona comunque
+            errore -> { });
+    }
+    
     /**
      * Mostra la finestra di login
      */
@@ -126,6 +148,11 @@ private static void showErrorAndExit(String title, String message) {
     public void stop() throws Exception {
         logger.info("Chiusura UninaFoodLab");
         
+        // Ferma i caricamenti in background ancora attivi
+        AsyncLoader.shutdown();
+        
+        UninaFoodLabService.getStatisticheCache().forEach(statistica -> logger.info("Cache {}", statistica));
+        
         // Chiudi il pool di connessioni
         try {
             DatabaseManager.closeDataSource();
@@ -1,46 +1,49 @@
 package it.unina.uninafoodlab.controller;
 
+import it.unina.uninafoodlab.controller.helper.AsyncLoader;
+import it.unina.uninafoodlab.controller.helper.CacheGrafici;
+import it.unina.uninafoodlab.controller.helper.DialogHelper;
+import it.unina.uninafoodlab.controller.helper.MessageHelper;
 import it.unina.uninafoodlab.model.Chef;
 import it.unina.uninafoodlab.model.ReportMensile;
+import it.unina.uninafoodlab.model.ReportMensileChef;
+import it.unina.uninafoodlab.model.RisultatoReportMensili;
+import it.unina.uninafoodlab.model.TipoGrafico;
+import it.unina.uninafoodlab.service.ReportSnapshot;
 import it.unina.uninafoodlab.service.UninaFoodLabService;
-import javafx.embed.swing.SwingNode;
+import it.unina.uninafoodlab.utils.FormatUtils;
+import it.unina.uninafoodlab.utils.ImpaginatorePdf;
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.Insets;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
-import org.jfree.chart.ChartFactory;
+import javafx.util.Duration;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.CategoryPlot;
-import org.jfree.chart.plot.PiePlot;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.data.category.DefaultCategoryDataset;
-import org.jfree.data.general.DefaultPieDataset;
-import org.jfree.chart.labels.StandardPieSectionLabelGenerator;
-import java.text.DecimalFormat;
+import org.jfree.data.general.Dataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.*; // Usato per rendering grafici (Font, Color, Dimension)
+import java.awt.*; // Usato per la stampa del grafico (Dimension)
 import java.io.File;
 import java.io.IOException;
-import java.awt.image.BufferedImage;
-
-// PDF
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
 
 import java.net.URL;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.util.Map;
+import java.util.List;
+import java.util.Optional;
 import java.util.ResourceBundle;
 
 /**
@@ -48,9 +51,18 @@
  */
 public class GraficiController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(GraficiController.class);
+    private static final int LARGHEZZA_GRAFICO_PDF = 515;
+    private static final int ALTEZZA_GRAFICO_PDF = 300;
+    private static final int FALLITI_MOSTRATI = 10;
+    // Il grafico si adatta al riquadro a passi di 20 punti, così piccoli ridimensionamenti riusano la cache
+    private static final int PASSO_DIMENSIONE_GRAFICO = 20;
+    private static final int LARGHEZZA_GRAFICO_MINIMA = 300;
+    private static final int ALTEZZA_GRAFICO_MINIMA = 200;
+    private static final int LARGHEZZA_GRAFICO_PREDEFINITA = 600;
+    private static final int ALTEZZA_GRAFICO_PREDEFINITA = 400;
     
     @FXML private BorderPane graficoContainer;
-    @FXML private ComboBox<String> cmbTipoGrafico;
+    @FXML private ComboBox<TipoGrafico> cmbTipoGrafico;
     @FXML private ComboBox<String> cmbMeseAnno;
     @FXML private VBox statistichePanel;
     @FXML private Label lblTotaleCorsi;
@@ -63,13 +75,22 @@ public class GraficiController implements Initializable {
     private Chef chefLoggato;
     private JFreeChart graficoCorrente; // Riferimento al grafico corrente per esportazione/stampa
     private ReportMensile reportCorrente; // Mantiene l'ultimo report caricato
-    private String currentChartType; // Tipo di grafico attualmente visualizzato
+    private ReportSnapshot snapshotCorrente; // Report e dataset dei grafici letti insieme per il mese
+    private CacheGrafici.Chiave chiaveGraficoCorrente; // Grafico mostrato, per evitare di ridisegnarlo
+    private final PauseTransition attesaRidimensionamento = new PauseTransition(Duration.millis(200));
+    private final AsyncLoader asyncLoader = new AsyncLoader(); // Query e grafici fuori dal thread FX
+    private DialogHelper dialogHelper;
       @Override
     public void initialize(URL location, ResourceBundle resources) {
         logger.info("Inizializzazione controller report mensili");
         service = new UninaFoodLabService();
+        dialogHelper = new DialogHelper(service, new MessageHelper());
         inizializzaComboBox();
         inizializzaMesi();
+        // Ridisegna alla nuova dimensione solo quando il ridimensionamento si ferma
+        attesaRidimensionamento.setOnFinished(e -> aggiornaGrafico());
+        graficoContainer.widthProperty().addListener((obs, vecchia, nuova) -> attesaRidimensionamento.playFromStart());
+        graficoContainer.heightProperty().addListener((obs, vecchia, nuova) -> attesaRidimensionamento.playFromStart());
         // Non caricare i dati finché il chef non è impostato
     }
     
@@ -80,13 +101,8 @@ public void setChefLoggato(Chef chef) {
     }
     
     private void inizializzaComboBox() {
-        cmbTipoGrafico.getItems().addAll(
-            "Corsi per Categoria",
-            "Sessioni per Modalità", 
-            "Andamento Mensile Corsi",
-            "Distribuzione Ricette per Difficoltà"
-        );
-        cmbTipoGrafico.setValue("Corsi per Categoria");
+        cmbTipoGrafico.getItems().addAll(TipoGrafico.values());
+        cmbTipoGrafico.setValue(TipoGrafico.CORSI_PER_CATEGORIA);
         cmbTipoGrafico.setOnAction(e -> aggiornaGrafico());
     }
     
@@ -118,17 +134,26 @@ private void caricaReportMese() {
         }
     }
       private void caricaReport(int anno, int mese) {
-        try {
-            Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
-            Map<String, Object> reportData = service.generaReportMensileWrapper(chefId, anno, mese);
-            ReportMensile report = convertiMapAReportMensile(reportData);
-            this.reportCorrente = report;
-            aggiornaStatistiche(report);
-            aggiornaGrafico();
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento del report", e);
-            mostraErrore("Errore nel caricamento del report: " + e.getMessage());
-        }
+        Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
+        
+        // Report e dataset di tutti i grafici in parallelo: i cambi di grafico successivi
+        // non interrogano il database. Un cambio di mese annulla la richiesta precedente
+        asyncLoader.carica("report",
+            () -> service.caricaReportSnapshot(chefId, YearMonth.of(anno, mese)),
+            snapshot -> {
+                this.snapshotCorrente = snapshot;
+                aggiornaGrafico();
+                if (!snapshot.isReportCaricato()) {
+                    mostraErrore("Il report del mese non è stato caricato: errore del database o tempo massimo superato.");
+                    return;
+                }
+                ReportMensile report = snapshot.getReport()
+                    .map(ReportMensileChef::toReportMensile)
+                    .orElseGet(() -> creaReportVuoto(anno, mese));
+                this.reportCorrente = report;
+                aggiornaStatistiche(report);
+            },
+            e -> mostraErrore("Errore nel caricamento del report: " + e.getMessage()));
     }
     
     private void aggiornaStatistiche(ReportMensile report) {
@@ -142,261 +167,110 @@ private void aggiornaStatistiche(ReportMensile report) {
         lblCategoriaPopolare.setText("Cucina Italiana"); // Valore di esempio
     }
     
+    /**
+     * Mostra il grafico selezionato: dalla cache se già disegnato per chef, periodo e dimensione,
+     * altrimenti lo crea e lo disegna in background
+     */
     @FXML
     private void aggiornaGrafico() {
-        String tipoGrafico = cmbTipoGrafico.getValue();
-        if (tipoGrafico == null) return;
-        currentChartType = tipoGrafico;
+        TipoGrafico tipoGrafico = cmbTipoGrafico.getValue();
+        if (tipoGrafico == null || chefLoggato == null) return;
         
-        try {
-            JFreeChart chart = null;
-            
-            switch (tipoGrafico) {
-                case "Corsi per Categoria":
-                    chart = creaGraficoCorsiPerCategoria();
-                    break;
-                case "Sessioni per Modalità":
-                    chart = creaGraficoSessioniPerModalita();
-                    break;
-                case "Andamento Mensile Corsi":
-                    chart = creaGraficoAndamentoMensile();
-                    break;
-                case "Distribuzione Ricette per Difficoltà":
-                    chart = creaGraficoRicettePerDifficolta();
-                    break;
-                default:
-                    chart = creaGraficoCorsiPerCategoria();
-            }
-            
-            if (chart != null) {
-                mostraGrafico(chart);
-            }
-            
-        } catch (Exception e) {
-            logger.error("Errore nella creazione del grafico", e);
-            mostraErrore("Errore nella creazione del grafico: " + e.getMessage());
+        // I valori dei controlli vanno letti sul thread FX prima di passare in background
+        double scala = graficoContainer.getScene() != null && graficoContainer.getScene().getWindow() != null
+            ? graficoContainer.getScene().getWindow().getOutputScaleX() : 1.0;
+        CacheGrafici.Chiave chiave = CacheGrafici.chiave(chefLoggato.getId(), tipoGrafico, meseSelezionato(),
+            dimensioneGrafico(larghezzaDisponibile(), LARGHEZZA_GRAFICO_MINIMA, LARGHEZZA_GRAFICO_PREDEFINITA),
+            dimensioneGrafico(altezzaDisponibile(), ALTEZZA_GRAFICO_MINIMA, ALTEZZA_GRAFICO_PREDEFINITA),
+            scala);
+        if (chiave.equals(chiaveGraficoCorrente)) return;
+        
+        Optional<CacheGrafici.GraficoDisegnato> inCache = CacheGrafici.cerca(chiave);
+        if (inCache.isPresent()) {
+            asyncLoader.annulla("grafico");
+            mostraGrafico(chiave, inCache.get());
+            return;
         }
+        
+        mostraCaricamentoGrafico();
+        ReportSnapshot snapshot = snapshotCorrente;
+        asyncLoader.carica("grafico",
+            () -> CacheGrafici.disegna(chiave, () -> datasetGrafico(snapshot, chiave)),
+            disegnato -> mostraGrafico(chiave, disegnato),
+            e -> mostraErrore("Errore nella creazione del grafico: " + e.getMessage()));
     }
     
-    @SuppressWarnings("unchecked")
-    private JFreeChart creaGraficoCorsiPerCategoria() {
-        try {
-            DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
-            
-            // Recupera i dati reali dal service per lo chef corrente
-            Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
-            Map<String, Integer> distribuzioneCategorie = service.getDistribuzioneCorsiPerCategoria(chefId);
-            
-            if (distribuzioneCategorie.isEmpty()) {
-                dataset.setValue("Nessun corso disponibile", 1);
-            } else {
-                for (Map.Entry<String, Integer> entry : distribuzioneCategorie.entrySet()) {
-                    dataset.setValue(entry.getKey(), entry.getValue());
-                }
-            }
-            
-            JFreeChart chart = ChartFactory.createPieChart(
-                "Distribuzione Corsi per Categoria",
-                dataset,
-                true, // leggenda
-                true, // tooltips
-                false // urls
-            );
-            
-            // Personalizzazione grafico
-            PiePlot<String> plot = (PiePlot<String>) chart.getPlot();
-            plot.setBackgroundPaint(java.awt.Color.WHITE);
-            plot.setLabelFont(new java.awt.Font("Arial", java.awt.Font.PLAIN, 12));
-            
-            return chart;
-            
-        } catch (Exception e) {
-            logger.error("Errore nella creazione del grafico corsi per categoria", e);
-            return creaGraficoVuoto("Errore nel caricamento dati");
-        }
+    /**
+     * Dataset letto con il report se ancora valido, altrimenti dal service (eseguito in background)
+     */
+    private Dataset datasetGrafico(ReportSnapshot snapshot, CacheGrafici.Chiave chiave) {
+        Optional<Dataset> letto = snapshot != null
+            ? snapshot.getDataset(chiave.tipo(), chiave.periodo()) : Optional.empty();
+        return letto.orElseGet(() -> service.getDatasetGrafico(chiave.tipo(), chiave.chefId(), chiave.periodo()));
     }
     
-    private JFreeChart creaGraficoSessioniPerModalita() {
-        try {
-            DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-            
-            // Recupera i dati reali dal service per lo chef corrente
-            Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
-            Map<String, Integer> distribuzioneSessioni = service.getDistribuzioneSessioniPerModalita(chefId);
-            
-            if (distribuzioneSessioni.isEmpty()) {
-                dataset.addValue(0, "Sessioni", "Presenza");
-                dataset.addValue(0, "Sessioni", "Online");
-            } else {
-                for (Map.Entry<String, Integer> entry : distribuzioneSessioni.entrySet()) {
-                    dataset.addValue(entry.getValue(), "Sessioni", entry.getKey());
-                }
-            }
-            
-            JFreeChart chart = ChartFactory.createBarChart(
-                "Sessioni per Modalità (Presenza vs Online)",
-                "Modalità",
-                "Numero Sessioni",
-                dataset,
-                PlotOrientation.VERTICAL,
-                true, // leggenda
-                true, // tooltips
-                false // urls
-            );
-            
-            // Personalizzazione
-            CategoryPlot plot = chart.getCategoryPlot();
-            plot.setBackgroundPaint(java.awt.Color.WHITE);
-            plot.setRangeGridlinePaint(java.awt.Color.GRAY);
-            
-            return chart;
-            
-        } catch (Exception e) {
-            logger.error("Errore nella creazione del grafico sessioni per modalità", e);
-            return creaGraficoVuoto("Errore nel caricamento dati");
-        }
+    private double larghezzaDisponibile() {
+        Insets bordi = graficoContainer.getInsets();
+        return graficoContainer.getWidth() - bordi.getLeft() - bordi.getRight();
     }
     
-    private JFreeChart creaGraficoAndamentoMensile() {
-        try {
-            DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-            
-            // Recupera i dati reali dal service per lo chef corrente
-            Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
-            Map<String, Map<String, Integer>> andamentoMensile = service.getAndamentoMensile(chefId);
-            
-            if (andamentoMensile.isEmpty()) {
-                dataset.addValue(0, "Corsi Creati", "Nessun dato");
-                dataset.addValue(0, "Sessioni Totali", "Nessun dato");
-            } else {
-                // I dati sono già in ordine cronologico crescente (ultimi 12 mesi)
-                andamentoMensile.forEach((mese, dati) -> {
-                    dataset.addValue(dati.getOrDefault("corsi", 0), "Corsi Creati", mese);
-                    dataset.addValue(dati.getOrDefault("sessioni", 0), "Sessioni Totali", mese);
-                });
-            }
-            
-            JFreeChart chart = ChartFactory.createLineChart(
-                "Andamento Mensile - Corsi e Sessioni",
-                "Mese",
-                "Numero",
-                dataset,
-                PlotOrientation.VERTICAL,
-                true, // leggenda
-                true, // tooltips
-                false // urls
-            );
-            
-            // Personalizzazione
-            CategoryPlot plot = chart.getCategoryPlot();
-            plot.setBackgroundPaint(java.awt.Color.WHITE);
-            plot.setRangeGridlinePaint(java.awt.Color.GRAY);
-            
-            return chart;
-            
-        } catch (Exception e) {
-            logger.error("Errore nella creazione del grafico andamento mensile", e);
-            return creaGraficoVuoto("Errore nel caricamento dati");
+    private double altezzaDisponibile() {
+        Insets bordi = graficoContainer.getInsets();
+        return graficoContainer.getHeight() - bordi.getTop() - bordi.getBottom();
+    }
+    
+    /**
+     * Dimensione arrotondata per difetto al passo; prima del primo layout il riquadro misura 0
+     */
+    private static int dimensioneGrafico(double disponibile, int minima, int predefinita) {
+        if (disponibile <= 0) {
+            return predefinita;
         }
+        int arrotondata = (int) disponibile / PASSO_DIMENSIONE_GRAFICO * PASSO_DIMENSIONE_GRAFICO;
+        return Math.max(minima, arrotondata);
     }
     
-    @SuppressWarnings("unchecked")
-    private JFreeChart creaGraficoRicettePerDifficolta() {
-        try {
-            DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
-            
-            // Recupera i dati reali dal service per lo chef corrente
-            Integer chefId = chefLoggato != null ? chefLoggato.getId() : null;
-            // Recupera mese/anno selezionato per considerare solo le ricette usate nelle sessioni del periodo
-            int annoSel;
-            int meseSel;
-            String meseSelezionato = cmbMeseAnno.getValue();
-            if (meseSelezionato != null) {
-                String[] parti = meseSelezionato.split(" ");
-                annoSel = Integer.parseInt(parti[1]);
-                meseSel = java.time.Month.valueOf(parti[0]).getValue();
-            } else {
-                java.time.YearMonth ym = java.time.YearMonth.now();
-                annoSel = ym.getYear();
-                meseSel = ym.getMonthValue();
-            }
-            Map<String, Integer> distribuzioneRicette = service.getDistribuzioneRicettePerDifficoltaMensile(chefId, annoSel, meseSel);
-            
-            if (distribuzioneRicette.isEmpty()) {
-                dataset.setValue("Nessuna ricetta disponibile", 1);
-            } else {
-                // Inserimento in ordine logico
-                int facile = distribuzioneRicette.getOrDefault("FACILE", 0);
-                int medio = distribuzioneRicette.getOrDefault("MEDIO", 0);
-                int difficile = distribuzioneRicette.getOrDefault("DIFFICILE", 0);
-                int sconosciuto = distribuzioneRicette.getOrDefault("SCONOSCIUTO", 0);
-                if (facile+medio+difficile+sconosciuto==0) {
-                    dataset.setValue("Nessuna ricetta", 1);
-                } else {
-                    if (facile>0) dataset.setValue("FACILE", facile);
-                    if (medio>0) dataset.setValue("MEDIO", medio);
-                    if (difficile>0) dataset.setValue("DIFFICILE", difficile);
-                    if (sconosciuto>0) dataset.setValue("SCONOSCIUTO", sconosciuto);
-                }
-            }
-            
-            JFreeChart chart = ChartFactory.createPieChart(
-                "Distribuzione Ricette per Livello di Difficoltà",
-                dataset,
-                true, // leggenda
-                true, // tooltips
-                false // urls
-            );
-            
-            // Personalizzazione
-            PiePlot<String> plot = (PiePlot<String>) chart.getPlot();
-            plot.setBackgroundPaint(java.awt.Color.WHITE);
-            plot.setLabelFont(new java.awt.Font("Arial", java.awt.Font.PLAIN, 12));
-            
-            // Colori personalizzati per difficoltà
-            plot.setSectionPaint("FACILE", java.awt.Color.GREEN);
-            plot.setSectionPaint("MEDIO", java.awt.Color.ORANGE);
-            plot.setSectionPaint("DIFFICILE", java.awt.Color.RED);
-            plot.setSectionPaint("SCONOSCIUTO", java.awt.Color.LIGHT_GRAY);
-            plot.setSimpleLabels(false);
-            plot.setLabelGenerator(new StandardPieSectionLabelGenerator("{0}: {1} ({2})", new DecimalFormat("0"), new DecimalFormat("0.0%")));
-            
-            return chart;
-            
-        } catch (Exception e) {
-            logger.error("Errore nella creazione del grafico ricette per difficoltà", e);
-            return creaGraficoVuoto("Errore nel caricamento dati");
+    /**
+     * Mese selezionato nel formato della combo ("MARCH 2026"), o il mese corrente
+     */
+    private YearMonth meseSelezionato() {
+        String meseSelezionato = cmbMeseAnno.getValue();
+        if (meseSelezionato == null) {
+            return YearMonth.now();
         }
+        String[] parti = meseSelezionato.split(" ");
+        return YearMonth.of(Integer.parseInt(parti[1]), java.time.Month.valueOf(parti[0]));
     }
     
-    private JFreeChart creaGraficoVuoto(String messaggio) {
-        DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
-        dataset.setValue("Nessun dato", 1);
-        
-        JFreeChart chart = ChartFactory.createPieChart(
-            messaggio,
-            dataset,
-            false, // leggenda
-            false, // tooltips
-            false // urls
-        );
-        
-        return chart;
+    /**
+     * Mostra un indicatore di caricamento al posto del grafico
+     */
+    private void mostraCaricamentoGrafico() {
+        chiaveGraficoCorrente = null;
+        VBox caricamento = new VBox(10);
+        caricamento.setAlignment(javafx.geometry.Pos.CENTER);
+        caricamento.setMinSize(0, 0);
+        ProgressIndicator indicatore = new ProgressIndicator();
+        indicatore.setMaxSize(50, 50);
+        Label lblCaricamento = new Label("Caricamento grafico...");
+        lblCaricamento.setStyle("-fx-font-size: 14px; -fx-text-fill: #6C757D;");
+        caricamento.getChildren().addAll(indicatore, lblCaricamento);
+        graficoContainer.setCenter(caricamento);
     }
-      private void mostraGrafico(JFreeChart chart) {
+    
+    private void mostraGrafico(CacheGrafici.Chiave chiave, CacheGrafici.GraficoDisegnato disegnato) {
         // Salva il riferimento al grafico corrente per esportazione/stampa
-        this.graficoCorrente = chart;
-        
-        // Rimuovi il grafico precedente
-        graficoContainer.setCenter(null);
+        this.graficoCorrente = disegnato.grafico();
+        this.chiaveGraficoCorrente = chiave;
         
-        // Crea un nuovo SwingNode per il grafico
-        SwingNode swingNode = new SwingNode();
-        ChartPanel chartPanel = new ChartPanel(chart);
-        chartPanel.setPreferredSize(new Dimension(600, 400));
-        
-        swingNode.setContent(chartPanel);
-        graficoContainer.setCenter(swingNode);
+        // L'immagine è disegnata alla risoluzione dello schermo e mostrata alla dimensione in punti
+        ImageView vista = new ImageView(disegnato.immagine());
+        vista.setFitWidth(chiave.larghezza());
+        vista.setFitHeight(chiave.altezza());
+        // Il riquadro non deve impedire alla finestra di rimpicciolirsi
+        StackPane contenitore = new StackPane(vista);
+        contenitore.setMinSize(0, 0);
+        graficoContainer.setCenter(contenitore);
     }
 
     @FXML
@@ -466,137 +340,128 @@ private void stampaReport() {
         }
     }
 
-    @FXML
+    /**
+     * Report PDF completo: riepilogo del mese, i quattro grafici e le tabelle di tutti i corsi.
+     * Grafici e pagine vengono generati in background con avanzamento e annullamento
+     */
     private void esportaComePDF(FileChooser fileChooser) {
-        File file = fileChooser.showSaveDialog(graficoContainer.getScene().getWindow());
-        if (file == null) return;
-        if (!file.getName().toLowerCase().endsWith(".pdf")) {
-            file = new File(file.getAbsolutePath() + ".pdf");
-        }
-        if (graficoCorrente == null) {
-            mostraErrore("Nessun grafico da esportare.");
+        if (chefLoggato == null) {
+            mostraErrore("Nessuno chef selezionato per il report.");
             return;
         }
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            int imgWidth = 500;
-            int imgHeight = 300;
-            BufferedImage bufferedImage = graficoCorrente.createBufferedImage(imgWidth, imgHeight);
-            PDImageXObject pdImage = PDImageXObject.createFromByteArray(document, bufferedImageToPNGBytes(bufferedImage), "chart");
+        File file = fileChooser.showSaveDialog(graficoContainer.getScene().getWindow());
+        if (file == null) return;
+        File destinazione = file.getName().toLowerCase().endsWith(".pdf") ? file : new File(file.getAbsolutePath() + ".pdf");
 
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                float margin = 40f;
-                float yStart = page.getMediaBox().getHeight() - margin;
+        // Valori dei controlli letti sul thread FX prima di passare in background
+        ReportMensile report = reportCorrente;
+        YearMonth mese = meseSelezionato();
+        String nomeChef = chefLoggato.getNome() + " " + chefLoggato.getCognome();
+        int chefId = chefLoggato.getId();
 
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-                contentStream.newLineAtOffset(margin, yStart);
-                contentStream.showText("Report Mensile UninaFoodLab");
-                contentStream.endText();
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() {
+                updateMessage("Creazione dei grafici...");
+                return service.generaReportCorsiPdf(chefId, "Report corsi - " + nomeChef,
+                    pdf -> scriviCopertina(pdf, chefId, nomeChef, report, mese),
+                    destinazione.toPath(),
+                    (scritti, totali) -> {
+                        updateProgress(scritti, totali);
+                        updateMessage("Corsi impaginati: " + scritti + " di " + totali);
+                    });
+            }
+        };
 
-                yStart -= 24;
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA, 12);
-                contentStream.newLineAtOffset(margin, yStart);
-                String sottotitolo = (currentChartType != null ? currentChartType : "Grafico") + (reportCorrente != null ? " - " + reportCorrente.getMese()+"/"+reportCorrente.getAnno() : "");
-                contentStream.showText(sottotitolo);
-                contentStream.endText();
+        asyncLoader.esegui("reportPdf", task,
+            corsi -> mostraInfo("PDF esportato: " + destinazione.getName() + " (" + corsi + " corsi)"),
+            e -> mostraErrore("Errore esportazione PDF: " + e.getMessage()));
+        dialogHelper.mostraDialogAvanzamento("Esportazione report PDF", task);
+    }
 
-                float imgX = margin;
-                float imgY = yStart - imgHeight - 20;
-                contentStream.drawImage(pdImage, imgX, imgY, imgWidth, imgHeight);
+    /**
+     * Report mensili del mese selezionato per tutti gli chef, in PDF e PNG nella cartella scelta
+     */
+    @FXML
+    private void generaReportTuttiChef() {
+        if (cmbMeseAnno.getValue() == null) return;
+        YearMonth mese = meseSelezionato();
 
-                if (reportCorrente != null) {
-                    float statsY = imgY - 20;
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-                    contentStream.newLineAtOffset(margin, statsY);
-                    contentStream.showText("Statistiche principali:");
-                    contentStream.endText();
-                    statsY -= 14;
-                    statsY = scriviRigaStat(contentStream, margin, statsY, "Corsi totali: "+reportCorrente.getNumeroCorsiTotali());
-                    statsY = scriviRigaStat(contentStream, margin, statsY, "Sessioni online: "+reportCorrente.getNumeroSessioniOnline());
-                    statsY = scriviRigaStat(contentStream, margin, statsY, "Sessioni presenza: "+reportCorrente.getNumeroSessioniPratiche());
-                    scriviRigaStat(contentStream, margin, statsY, "Ricette totali: "+reportCorrente.getRicetteTotali());
-                }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Cartella dei report mensili");
+        File cartella = directoryChooser.showDialog(graficoContainer.getScene().getWindow());
+        if (cartella == null) return;
+
+        Task<RisultatoReportMensili> task = new Task<>() {
+            @Override
+            protected RisultatoReportMensili call() {
+                updateMessage("Lettura delle statistiche di tutti gli chef...");
+                return service.generaReportMensiliTutti(mese, cartella.toPath(), (completati, totali) -> {
+                    updateProgress(completati, totali);
+                    updateMessage("Report generati: " + completati + " di " + totali);
+                });
             }
-            document.save(file);
-            mostraInfo("PDF esportato: " + file.getName());
-        } catch (Exception ex) {
-            logger.error("Errore esportazione PDF", ex);
-            mostraErrore("Errore esportazione PDF: " + ex.getMessage());
-        }
-    }
+        };
 
-    private float scriviRigaStat(PDPageContentStream cs, float margin, float currentY, String testo) throws IOException {
-        cs.beginText();
-        cs.setFont(PDType1Font.HELVETICA, 10);
-        cs.newLineAtOffset(margin, currentY);
-        cs.showText(testo);
-        cs.endText();
-        return currentY - 12;
+        asyncLoader.esegui("reportTuttiChef", task,
+            this::mostraRisultatoReportMensili,
+            e -> mostraErrore("Errore nella generazione dei report mensili: " + e.getMessage()));
+        dialogHelper.mostraDialogAvanzamento("Report mensili di tutti gli chef", task);
     }
 
-    // Converte BufferedImage in array PNG per PDFBox
-    private byte[] bufferedImageToPNGBytes(BufferedImage image) throws IOException {
-        try (java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream()) {
-            javax.imageio.ImageIO.write(image, "png", baos);
-            return baos.toByteArray();
+    private void mostraRisultatoReportMensili(RisultatoReportMensili risultato) {
+        StringBuilder riepilogo = new StringBuilder()
+            .append("Report generati: ").append(risultato.generati()).append(" di ").append(risultato.chefTotali())
+            .append(String.format("%nTempo: %.1f s con %d thread (%.1f report/s, %d KB)",
+                risultato.durataMs() / 1000.0, risultato.thread(), risultato.reportAlSecondo(),
+                risultato.byteScritti() / 1024));
+
+        List<RisultatoReportMensili.ReportFallito> falliti = risultato.falliti();
+        if (!falliti.isEmpty()) {
+            riepilogo.append("\nNon generati: ").append(falliti.size());
+            falliti.stream().limit(FALLITI_MOSTRATI).forEach(fallito -> riepilogo
+                .append("\n  ").append(fallito.nomeChef()).append(": ").append(fallito.motivo()));
+            if (falliti.size() > FALLITI_MOSTRATI) {
+                riepilogo.append("\n  ... e altri ").append(falliti.size() - FALLITI_MOSTRATI);
+            }
+            mostraErrore(riepilogo.toString());
+        } else {
+            mostraInfo(riepilogo.toString());
         }
     }
-    
+
     /**
-     * Converte una Map restituita dal service in un oggetto ReportMensile
+     * Prima pagina del report: riepilogo del mese e grafici, creati e disegnati nel thread del report
      */
-    private ReportMensile convertiMapAReportMensile(Map<String, Object> reportData) {
-        ReportMensile report = new ReportMensile();
-        
-        try {
-            // Estrai i dati dalla mappa e assegnali al report
-            if (reportData.containsKey("mese")) {
-                report.setMese(((Number) reportData.get("mese")).intValue());
-            }
-            if (reportData.containsKey("anno")) {
-                report.setAnno(((Number) reportData.get("anno")).intValue());
-            }
-            if (reportData.containsKey("nomeChef")) {
-                report.setNomeChef((String) reportData.get("nomeChef"));
-            }
-            if (reportData.containsKey("numeroCorsiTotali")) {
-                report.setNumeroCorsiTotali(((Number) reportData.get("numeroCorsiTotali")).intValue());
-            }
-            if (reportData.containsKey("numeroSessioniOnline")) {
-                report.setNumeroSessioniOnline(((Number) reportData.get("numeroSessioniOnline")).intValue());
-            }
-            if (reportData.containsKey("numeroSessioniPratiche")) {
-                report.setNumeroSessioniPratiche(((Number) reportData.get("numeroSessioniPratiche")).intValue());
-            }
-            if (reportData.containsKey("ricetteTotali")) {
-                report.setRicetteTotali(((Number) reportData.get("ricetteTotali")).intValue());
-            }
-            
-            // Se il nome chef non è presente e abbiamo il chef loggato, usalo
-            if (report.getNomeChef() == null && chefLoggato != null) {
-                report.setNomeChef(chefLoggato.getNome() + " " + chefLoggato.getCognome());
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Errore nella conversione dei dati del report", e);
-            // Restituisci un report con valori di default
-            return creaReportVuoto();
+    private void scriviCopertina(ImpaginatorePdf pdf, int chefId, String nomeChef, ReportMensile report,
+                                 YearMonth mese) throws IOException {
+        pdf.titolo("Report Corsi UninaFoodLab - " + nomeChef);
+        pdf.testo("Generato il " + FormatUtils.formattaDataOra(LocalDateTime.now()));
+
+        if (report != null) {
+            pdf.sezione("Riepilogo " + report.getPeriodo());
+            pdf.testo("Corsi totali: " + report.getNumeroCorsiTotali());
+            pdf.testo("Sessioni online: " + report.getNumeroSessioniOnline());
+            pdf.testo("Sessioni presenza: " + report.getNumeroSessioniPratiche());
+            pdf.testo("Ricette totali: " + report.getRicetteTotali());
+        }
+
+        pdf.sezione("Grafici");
+        for (TipoGrafico tipo : TipoGrafico.values()) {
+            JFreeChart chart = CacheGrafici.creaGrafico(tipo, service.getDatasetGrafico(tipo, chefId, mese));
+            // Disegnato al doppio della risoluzione per restare nitido alla dimensione della pagina
+            pdf.immagine(chart.createBufferedImage(2 * LARGHEZZA_GRAFICO_PDF, 2 * ALTEZZA_GRAFICO_PDF,
+                LARGHEZZA_GRAFICO_PDF, ALTEZZA_GRAFICO_PDF, null));
         }
-        
-        return report;
     }
-    
+
     /**
      * Crea un report vuoto con valori di default
      */
-    private ReportMensile creaReportVuoto() {
+    private ReportMensile creaReportVuoto(int anno, int mese) {
         ReportMensile report = new ReportMensile();
-        report.setMese(LocalDate.now().getMonthValue());
-        report.setAnno(LocalDate.now().getYear());
+        report.setMese(mese);
+        report.setAnno(anno);
         report.setNomeChef(chefLoggato != null ? chefLoggato.getNome() + " " + chefLoggato.getCognome() : "N/A");
         report.setNumeroCorsiTotali(0);
         report.setNumeroSessioniOnline(0);
@@ -97,6 +97,7 @@ private void handleLogin() {
                       if (chefOpt.isPresent()) {
                         // Autenticazione riuscita
                         chefAutenticato = chefOpt.get();
+                        UninaFoodLabService.impostaChefCorrente(chefAutenticato);
                         logger.info("Login riuscito per chef: {}", chefAutenticato.getUsername());
                         
                         // Passa alla finestra principale con lo chef
@@ -211,6 +212,7 @@ public static Chef getChefAutenticato() {
      */
     public static void logout() {
         chefAutenticato = null;
+        UninaFoodLabService.impostaChefCorrente(null);
         logger.info("Logout effettuato");
     }
       /**
@@ -4,17 +4,20 @@
 import it.unina.uninafoodlab.App;
 import it.unina.uninafoodlab.model.*;
 import it.unina.uninafoodlab.service.UninaFoodLabService;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
@@ -26,6 +29,10 @@
  */
 public class MainController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
+    private static final int LIMITE_RICERCA = 100;
+    // Utenti proposti all'apertura del dialog di iscrizione, gli altri si cercano per nome
+    private static final int UTENTI_NUOVA_ISCRIZIONE = 200;
+    private static final int RIGHE_SCARTATE_MOSTRATE = 10;
     
     // ==================== DIPENDENZE E HELPER ====================
     private UninaFoodLabService service;
@@ -34,6 +41,9 @@ public class MainController implements Initializable {
     private MessageHelper messageHelper;
     private DialogHelper dialogHelper;
     private TableManager tableManager;
+    private AsyncLoader asyncLoader;
+    private RicercaIncrementale<Ricetta> ricercaRicette;
+    private RicercaIncrementale<Utente> ricercaUtenti;
     
     // ==================== COMPONENTI FXML ====================
     @FXML private TabPane mainTabPane;
@@ -74,6 +84,7 @@ public class MainController implements Initializable {
     @FXML private TableColumn<Ricetta, String> colNomeRicetta;
     @FXML private TableColumn<Ricetta, String> colCategoriaRicetta;    @FXML private TableColumn<Ricetta, String> colDifficolta;
     @FXML private TableColumn<Ricetta, Integer> colTempoPreparazione;
+    @FXML private TextField txtCercaRicette;
     
     @FXML private Button btnNuovaRicetta;
     @FXML private Button btnModificaRicetta;
@@ -87,6 +98,7 @@ public class MainController implements Initializable {
     @FXML private TableColumn<Utente, String> colEmailUtente;
     @FXML private TableColumn<Utente, String> colLivelloEsperienza;
     @FXML private TableColumn<Utente, String> colUtenteAttivo;
+    @FXML private TextField txtCercaUtenti;
     
     @FXML private Button btnNuovoUtente;
     @FXML private Button btnModificaUtente;
@@ -110,6 +122,7 @@ public void initialize(URL url, ResourceBundle resourceBundle) {
         initializeHelpers();
         configuraTabelleEColonne();
         configuraComboBox();
+        configuraRicerche();
         caricaDatiIniziali();
         // Imposta policy di resize vincolata così da usare tutta la larghezza disponibile
         applicaResizePolicy();
@@ -129,6 +142,7 @@ private void applicaResizePolicy() {
         messageHelper = new MessageHelper();
         dialogHelper = new DialogHelper(service, messageHelper);
         tableManager = new TableManager(service, messageHelper);
+        asyncLoader = new AsyncLoader();
     }
       public void setChefLoggato(Chef chef) {
         this.chefLoggato = chef;
@@ -268,25 +282,43 @@ private void configuraTabelleEColonne() {
         // Il FormManager potrebbe gestire questa configurazione, ma per ora la lasciamo vuota
         // dato che cmbFiltraCategoria sarà configurata quando caricheremo le categorie
     }
+    
+    /**
+     * Ricerca mentre si scrive su ricette e utenti; svuotando il campo torna l'elenco completo
+     */
+    private void configuraRicerche() {
+        ricercaRicette = new RicercaIncrementale<>(txtCercaRicette, "ricerca-ricette", asyncLoader,
+            service::cercaRicette,
+            (ricetta, termine) -> RicercaIncrementale.contieneTesto(ricetta.getNome(), termine),
+            LIMITE_RICERCA,
+            tableManager::mostraRisultatiRicette,
+            tableManager::caricaRicette,
+            e -> messageHelper.mostraErrore("Errore nella ricerca delle ricette: " + e.getMessage()));
+        
+        ricercaUtenti = new RicercaIncrementale<>(txtCercaUtenti, "ricerca-utenti", asyncLoader,
+            (termine, limite) -> service.cercaUtenti(termine, limite),
+            (utente, termine) -> RicercaIncrementale.contieneTesto(utente.getNomeCompleto(), termine),
+            LIMITE_RICERCA,
+            tableManager::mostraRisultatiUtenti,
+            tableManager::caricaUtenti,
+            e -> messageHelper.mostraErrore("Errore nella ricerca degli utenti: " + e.getMessage()));
+    }
       private void caricaDatiIniziali() {
+        // Aggiungi opzione "Tutte" per il filtro
+        CategoriaCorso tutte = new CategoriaCorso();
+        tutte.setNome("Tutte le categorie");
+        cmbFiltraCategoria.getItems().add(tutte);
+        cmbFiltraCategoria.setValue(tutte);
+        
         // Carica categorie solo per il filtro, non per il form (che ora è un dialog)
-        try {
-            List<CategoriaCorso> categorie = service.getAllCategorie();
-            cmbFiltraCategoria.getItems().addAll(categorie);
-            
-            // Aggiungi opzione "Tutte" per il filtro
-            CategoriaCorso tutte = new CategoriaCorso();
-            tutte.setNome("Tutte le categorie");
-            cmbFiltraCategoria.getItems().add(0, tutte);
-            cmbFiltraCategoria.setValue(tutte);
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento delle categorie", e);
-            messageHelper.mostraErrore("Errore nel caricamento delle categorie: " + e.getMessage());
-        }
+        asyncLoader.carica("categorie", service::getAllCategorie,
+            categorie -> cmbFiltraCategoria.getItems().addAll(categorie),
+            e -> messageHelper.mostraErrore("Errore nel caricamento delle categorie: " + e.getMessage()));
         
         tableManager.caricaRicette();
         tableManager.caricaUtenti();
         tableManager.caricaIscrizioni();
+        tableManager.ascoltaModifiche();
     }
     
     // ==================== ACTION HANDLERS - NAVIGAZIONE ====================
@@ -295,6 +327,10 @@ private void caricaDatiIniziali() {
     private void logout() {
         logger.info("Logout utente: {}", chefLoggato != null ? chefLoggato.getUsername() : "sconosciuto");
         try {
+            // Interrompe i caricamenti ancora in corso e l'ascolto delle modifiche
+            tableManager.chiudi();
+            asyncLoader.annullaTutti();
+            
             // Resetta stato autenticazione
             LoginController.logout();
             chefLoggato = null;
@@ -386,7 +422,7 @@ private void eliminaCorso() {
                 // Ricarica corsi
                 tableManager.caricaCorsiChef(chefLoggato.getId());
                 // Dopo eliminazione corso: ricarica anche sessioni (svuotate) e iscrizioni
-                tabellaSessioni.getItems().clear();
+                tableManager.svuotaSessioni();
                 // Refresh iscrizioni per riflettere eliminazioni cascade/trigger
                 tableManager.caricaIscrizioni();
                 // Pulisce eventuale selezione residua
@@ -499,7 +535,7 @@ private void eliminaRicetta() {
         if (conferma) {
             try {
                 service.eliminaRicetta(ricettaSelezionata.getId());
-                tableManager.caricaRicette();
+                aggiornaTabellaRicette();
                 messageHelper.mostraSuccesso("Successo", "Ricetta eliminata con successo");
                 logger.info("Ricetta eliminata: {}", ricettaSelezionata.getNome());
             } catch (Exception e) {
@@ -522,11 +558,19 @@ private void aggiornaTabellaCorsi() {
     }
       
     private void aggiornaTabellaRicette() {
-        tableManager.caricaRicette();
+        if (ricercaRicette.isAttiva()) {
+            ricercaRicette.ripeti();
+        } else {
+            tableManager.caricaRicette();
+        }
     }
     
     private void aggiornaTabellaUtenti() {
-        tableManager.caricaUtenti();
+        if (ricercaUtenti.isAttiva()) {
+            ricercaUtenti.ripeti();
+        } else {
+            tableManager.caricaUtenti();
+        }
     }
     
     private void aggiornaTabellaIscrizioni() {
@@ -587,29 +631,97 @@ private void disattivaUtente() {
         }
     }
     
-    // ==================== ACTION HANDLERS - GESTIONE ISCRIZIONI ====================
-      @FXML
-    private void nuovaIscrizione() {
-        try {
-            // Carica utenti e corsi per il dialog
-            var utenti = service.getAllUtenti();
-            var corsi = service.getCorsiChef(chefLoggato.getId(), null);
-            
-            if (utenti.isEmpty()) {
-                messageHelper.mostraAvviso("Attenzione", "Non ci sono utenti registrati nel sistema");
-                return;
-            }
-            
-            if (corsi.isEmpty()) {
-                messageHelper.mostraAvviso("Attenzione", "Non hai corsi disponibili per le iscrizioni");
-                return;
+    @FXML
+    private void importaUtenti() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Importa utenti");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File CSV", "*.csv", "*.txt"));
+        File file = fileChooser.showOpenDialog(mainTabPane.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        // Task con avanzamento: righe lette e byte del file già elaborati
+        Task<RisultatoImportazione> task = new Task<>() {
+            @Override
+            protected RisultatoImportazione call() {
+                updateMessage("Lettura di " + file.getName() + "...");
+                RisultatoImportazione risultato = service.importaUtenti(file.toPath(), (righe, letti, totali) -> {
+                    updateProgress(letti, totali);
+                    updateMessage("Righe lette: " + righe);
+                });
+                updateMessage("Salvataggio degli utenti...");
+                return risultato;
             }
-            
-            dialogHelper.mostraDialogNuovaIscrizione(utenti, corsi, this::aggiornaTabellaIscrizioni);
-        } catch (Exception e) {
-            logger.error("Errore nell'apertura del dialog nuova iscrizione", e);
-            messageHelper.mostraErrore("Errore nell'apertura del dialog: " + e.getMessage());
+        };
+        
+        asyncLoader.esegui("importaUtenti", task,
+            risultato -> {
+                aggiornaTabellaUtenti();
+                mostraRisultatoImportazione(risultato);
+            },
+            e -> messageHelper.mostraErrore("Errore nell'importazione degli utenti: " + e.getMessage()));
+        dialogHelper.mostraDialogAvanzamento("Importazione utenti", task);
+    }
+    
+    private void mostraRisultatoImportazione(RisultatoImportazione risultato) {
+        StringBuilder riepilogo = new StringBuilder()
+            .append("Righe lette: ").append(risultato.righeLette())
+            .append("\nUtenti importati: ").append(risultato.importate())
+            .append("\nRighe scartate: ").append(risultato.scartate());
+        
+        List<RisultatoImportazione.RigaScartata> scarti = risultato.dettaglioScarti();
+        scarti.stream().limit(RIGHE_SCARTATE_MOSTRATE).forEach(scarto -> riepilogo
+            .append("\n  riga ").append(scarto.riga()).append(": ").append(scarto.motivo())
+            .append(scarto.email() != null && !scarto.email().isEmpty() ? " (" + scarto.email() + ")" : ""));
+        if (risultato.scartate() > RIGHE_SCARTATE_MOSTRATE) {
+            riepilogo.append("\n  ... e altre ").append(risultato.scartate() - RIGHE_SCARTATE_MOSTRATE);
         }
+        
+        if (risultato.scartate() > 0) {
+            messageHelper.mostraAvviso("Importazione completata", riepilogo.toString());
+        } else {
+            messageHelper.mostraSuccesso("Importazione completata", riepilogo.toString());
+        }
+    }
+    
+    // ==================== ACTION HANDLERS - GESTIONE ISCRIZIONI ====================
+    
+    /**
+     * Dati caricati in background per il dialog di nuova iscrizione
+     */
+    private record DatiNuovaIscrizione(List<Utente> utenti, List<Corso> corsi) {}
+    
+    @FXML
+    private void nuovaIscrizione() {
+        Integer chefId = chefLoggato.getId();
+        
+        // Carica utenti e corsi per il dialog in background, poi apre il dialog sul thread FX
+        asyncLoader.carica("nuovaIscrizione",
+            () -> new DatiNuovaIscrizione(service.getUtentiPagina(null, UTENTI_NUOVA_ISCRIZIONE),
+                                          service.getCorsiChef(chefId, null)),
+            dati -> {
+                List<Utente> utenti = dati.utenti();
+                List<Corso> corsi = dati.corsi();
+                
+                if (utenti.isEmpty()) {
+                    messageHelper.mostraAvviso("Attenzione", "Non ci sono utenti registrati nel sistema");
+                    return;
+                }
+                
+                if (corsi.isEmpty()) {
+                    messageHelper.mostraAvviso("Attenzione", "Non hai corsi disponibili per le iscrizioni");
+                    return;
+                }
+                
+                try {
+                    dialogHelper.mostraDialogNuovaIscrizione(utenti, corsi, this::aggiornaTabellaIscrizioni);
+                } catch (Exception e) {
+                    logger.error("Errore nell'apertura del dialog nuova iscrizione", e);
+                    messageHelper.mostraErrore("Errore nell'apertura del dialog: " + e.getMessage());
+                }
+            },
+            e -> messageHelper.mostraErrore("Errore nell'apertura del dialog: " + e.getMessage()));
     }
     
     @FXML
@@ -635,4 +747,39 @@ private void annullaIscrizione() {
             }
         }
     }
+    
+    @FXML
+    private void esportaIscrizioni() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Esporta iscrizioni");
+        fileChooser.setInitialFileName("iscrizioni.csv");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("File CSV", "*.csv"),
+            new FileChooser.ExtensionFilter("File CSV compresso", "*.csv.gz"));
+        File file = fileChooser.showSaveDialog(mainTabPane.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        boolean gzip = file.getName().endsWith(".gz")
+            || fileChooser.getSelectedExtensionFilter() != null
+                && fileChooser.getSelectedExtensionFilter().getExtensions().contains("*.csv.gz");
+        File destinazione = gzip && !file.getName().endsWith(".gz") ? new File(file.getPath() + ".gz") : file;
+        
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() {
+                updateMessage("Esportazione in " + destinazione.getName() + "...");
+                return service.esportaIscrizioni(destinazione.toPath(), gzip, (scritte, stimate) -> {
+                    updateProgress(scritte, stimate);
+                    updateMessage("Iscrizioni esportate: " + scritte + " di circa " + stimate);
+                });
+            }
+        };
+        
+        asyncLoader.esegui("esportaIscrizioni", task,
+            righe -> messageHelper.mostraSuccesso("Esportazione completata",
+                "Esportate " + righe + " iscrizioni in " + destinazione.getName()),
+            e -> messageHelper.mostraErrore("Errore nell'esportazione delle iscrizioni: " + e.getMessage()));
+        dialogHelper.mostraDialogAvanzamento("Esportazione iscrizioni", task);
+    }
 }
@@ -0,0 +1,111 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import javafx.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Helper per eseguire le chiamate al database fuori dal JavaFX Application Thread.
+ * Ogni caricamento è identificato da una chiave: una nuova richiesta con la stessa
+ * chiave annulla quella precedente, il cui risultato viene scartato.
+ * I callback di successo ed errore vengono eseguiti sul thread FX
+ * (il Task li pubblica tramite Platform.runLater).
+ */
+public class AsyncLoader {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLoader.class);
+
+    // Inferiore alla dimensione del pool HikariCP per lasciare connessioni alle operazioni sincrone
+    private static final int NUMERO_THREAD = 4;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(NUMERO_THREAD, new ThreadFactory() {
+        private final AtomicInteger contatore = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "uninafoodlab-loader-" + contatore.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // Accesso solo dal thread FX
+    private final Map<String, Task<?>> caricamentiInCorso = new HashMap<>();
+
+    /**
+     * Esegue l'operazione in background annullando l'eventuale caricamento
+     * precedente con la stessa chiave
+     */
+    public <T> Task<T> carica(String chiave, Callable<T> operazione,
+                              Consumer<T> onSuccesso, Consumer<Throwable> onErrore) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return operazione.call();
+            }
+        };
+        return esegui(chiave, task, onSuccesso, onErrore);
+    }
+
+    /**
+     * Come {@link #carica}, per un Task già creato dal chiamante (es. uno che
+     * pubblica l'avanzamento con updateProgress e updateMessage)
+     */
+    public <T> Task<T> esegui(String chiave, Task<T> task,
+                              Consumer<T> onSuccesso, Consumer<Throwable> onErrore) {
+        annulla(chiave);
+
+        task.setOnSucceeded(event -> {
+            if (caricamentiInCorso.get(chiave) == task) {
+                caricamentiInCorso.remove(chiave);
+                onSuccesso.accept(task.getValue());
+            }
+        });
+
+        task.setOnFailed(event -> {
+            if (caricamentiInCorso.get(chiave) == task) {
+                caricamentiInCorso.remove(chiave);
+                logger.error("Errore nel caricamento asincrono '{}'", chiave, task.getException());
+                onErrore.accept(task.getException());
+            }
+        });
+
+        caricamentiInCorso.put(chiave, task);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Annulla il caricamento in corso con la chiave indicata, se presente
+     */
+    public void annulla(String chiave) {
+        Task<?> precedente = caricamentiInCorso.remove(chiave);
+        if (precedente != null && !precedente.isDone()) {
+            precedente.cancel(true);
+            logger.debug("Caricamento '{}' superato da una nuova richiesta", chiave);
+        }
+    }
+
+    /**
+     * Annulla tutti i caricamenti in corso (es. alla chiusura della finestra)
+     */
+    public void annullaTutti() {
+        caricamentiInCorso.values().forEach(task -> task.cancel(true));
+        caricamentiInCorso.clear();
+    }
+
+    /**
+     * Arresta l'executor condiviso (da chiamare alla chiusura dell'applicazione)
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+}
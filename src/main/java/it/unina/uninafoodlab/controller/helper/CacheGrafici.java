@@ -0,0 +1,188 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import it.unina.uninafoodlab.model.TipoGrafico;
+import it.unina.uninafoodlab.service.UninaFoodLabService;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.labels.StandardPieSectionLabelGenerator;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.Dataset;
+import org.jfree.data.general.PieDataset;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.text.DecimalFormat;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Grafici della finestra dei report già disegnati, per chef, tipo, periodo e dimensione.
+ * La chiave contiene la versione dei dati del service: quando corsi, sessioni o ricette
+ * cambiano le immagini vecchie non vengono più trovate ed escono in ordine LRU.
+ * Le modifiche di altri client senza notifiche (db.notifications.enabled=false) non
+ * cambiano la versione: per questo le immagini scadono come i dataset del service.
+ * La ricerca è pensata per il thread FX, il disegno per un thread in background.
+ */
+public final class CacheGrafici {
+    // Un'immagine 1200x800 (schermo HiDPI) occupa circa 4 MB
+    private static final int DIMENSIONE_MASSIMA = 16;
+    private static final long DURATA_NANOS = Duration.ofMinutes(10).toNanos();
+
+    private static final Map<Chiave, Voce> grafici = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Chiave, Voce> eldest) {
+            return size() > DIMENSIONE_MASSIMA;
+        }
+    };
+
+    /**
+     * Identifica un grafico disegnato; larghezza e altezza sono in punti, la scala è quella dello schermo
+     */
+    public record Chiave(Integer chefId, TipoGrafico tipo, YearMonth periodo,
+                         int larghezza, int altezza, double scala, long versioneDati) {}
+
+    /**
+     * Grafico e immagine già convertita per JavaFX; il grafico serve a esportazione e stampa
+     */
+    public record GraficoDisegnato(JFreeChart grafico, Image immagine) {}
+
+    private record Voce(GraficoDisegnato disegnato, long disegnatoNanos) {}
+
+    private CacheGrafici() {}
+
+    /**
+     * Chiave per la versione corrente dei dati; il mese è ignorato per i grafici non mensili
+     */
+    public static Chiave chiave(Integer chefId, TipoGrafico tipo, YearMonth mese,
+                                int larghezza, int altezza, double scala) {
+        return new Chiave(chefId, tipo, tipo.isMensile() ? mese : null, larghezza, altezza, scala,
+            UninaFoodLabService.getVersioneDatiGrafici());
+    }
+
+    public static synchronized Optional<GraficoDisegnato> cerca(Chiave chiave) {
+        Voce voce = grafici.get(chiave);
+        if (voce == null) {
+            return Optional.empty();
+        }
+        if (System.nanoTime() - voce.disegnatoNanos() >= DURATA_NANOS) {
+            grafici.remove(chiave);
+            return Optional.empty();
+        }
+        return Optional.of(voce.disegnato());
+    }
+
+    /**
+     * Crea e disegna il grafico e lo memorizza (eseguito in background: il dataset
+     * può arrivare dal database). Il segnaposto senza dati non viene memorizzato,
+     * così dopo un errore di lettura il grafico viene riletto alla richiesta successiva
+     */
+    public static GraficoDisegnato disegna(Chiave chiave, Supplier<Dataset> dataset) {
+        Optional<GraficoDisegnato> inCache = cerca(chiave);
+        if (inCache.isPresent()) {
+            return inCache.get();
+        }
+
+        Dataset dati = dataset.get();
+        JFreeChart grafico = creaGrafico(chiave.tipo(), dati);
+        int larghezzaPixel = (int) Math.round(chiave.larghezza() * chiave.scala());
+        int altezzaPixel = (int) Math.round(chiave.altezza() * chiave.scala());
+        Image immagine = SwingFXUtils.toFXImage(grafico.createBufferedImage(larghezzaPixel, altezzaPixel,
+            chiave.larghezza(), chiave.altezza(), null), null);
+
+        GraficoDisegnato disegnato = new GraficoDisegnato(grafico, immagine);
+        if (!UninaFoodLabService.isSenzaDati(dati)) {
+            synchronized (CacheGrafici.class) {
+                grafici.put(chiave, new Voce(disegnato, System.nanoTime()));
+            }
+        }
+        return disegnato;
+    }
+
+    /**
+     * Crea il grafico del tipo richiesto sul dataset del service
+     */
+    @SuppressWarnings("unchecked")
+    public static JFreeChart creaGrafico(TipoGrafico tipo, Dataset dataset) {
+        switch (tipo) {
+            case SESSIONI_PER_MODALITA: {
+                JFreeChart chart = ChartFactory.createBarChart(
+                    "Sessioni per Modalità (Presenza vs Online)",
+                    "Modalità",
+                    "Numero Sessioni",
+                    (CategoryDataset) dataset,
+                    PlotOrientation.VERTICAL,
+                    true, // leggenda
+                    true, // tooltips
+                    false // urls
+                );
+                personalizza(chart.getCategoryPlot());
+                return chart;
+            }
+            case ANDAMENTO_MENSILE: {
+                JFreeChart chart = ChartFactory.createLineChart(
+                    "Andamento Mensile - Corsi e Sessioni",
+                    "Mese",
+                    "Numero",
+                    (CategoryDataset) dataset,
+                    PlotOrientation.VERTICAL,
+                    true, // leggenda
+                    true, // tooltips
+                    false // urls
+                );
+                personalizza(chart.getCategoryPlot());
+                return chart;
+            }
+            case RICETTE_PER_DIFFICOLTA: {
+                JFreeChart chart = ChartFactory.createPieChart(
+                    "Distribuzione Ricette per Livello di Difficoltà",
+                    (PieDataset<String>) dataset,
+                    true, // leggenda
+                    true, // tooltips
+                    false // urls
+                );
+                PiePlot<String> plot = (PiePlot<String>) chart.getPlot();
+                personalizza(plot);
+                // Colori personalizzati per difficoltà
+                plot.setSectionPaint("FACILE", Color.GREEN);
+                plot.setSectionPaint("MEDIO", Color.ORANGE);
+                plot.setSectionPaint("DIFFICILE", Color.RED);
+                plot.setSectionPaint("SCONOSCIUTO", Color.LIGHT_GRAY);
+                plot.setSimpleLabels(false);
+                plot.setLabelGenerator(new StandardPieSectionLabelGenerator("{0}: {1} ({2})",
+                    new DecimalFormat("0"), new DecimalFormat("0.0%")));
+                return chart;
+            }
+            case CORSI_PER_CATEGORIA:
+            default: {
+                JFreeChart chart = ChartFactory.createPieChart(
+                    "Distribuzione Corsi per Categoria",
+                    (PieDataset<String>) dataset,
+                    true, // leggenda
+                    true, // tooltips
+                    false // urls
+                );
+                personalizza((PiePlot<String>) chart.getPlot());
+                return chart;
+            }
+        }
+    }
+
+    private static void personalizza(CategoryPlot plot) {
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setRangeGridlinePaint(Color.GRAY);
+    }
+
+    private static void personalizza(PiePlot<String> plot) {
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setLabelFont(new Font("Arial", Font.PLAIN, 12));
+    }
+}
@@ -3,6 +3,8 @@
 import it.unina.uninafoodlab.model.*;
 import it.unina.uninafoodlab.service.UninaFoodLabService;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.*;
@@ -24,6 +26,7 @@
  */
 public class DialogHelper {
     private static final Logger logger = LoggerFactory.getLogger(DialogHelper.class);
+    private static final int LIMITE_RICERCA_UTENTI = 50;
     
     private final UninaFoodLabService service;
     private final MessageHelper messageHelper;
@@ -626,7 +629,8 @@ public void mostraDialogModificaUtente(Utente utente, Runnable onSuccess) {
     // ==================== DIALOGS PER ISCRIZIONI ====================
     
     /**
-     * Mostra dialog per iscrivere un utente a un corso
+     * Mostra dialog per iscrivere un utente a un corso. La lista iniziale degli utenti
+     * è solo la prima pagina: gli altri si trovano con il campo di ricerca
      */
     public void mostraDialogNuovaIscrizione(List<Utente> utenti, List<Corso> corsi, Runnable onSuccess) {
         Dialog<Iscrizione> dialog = new Dialog<>();
@@ -645,6 +649,18 @@ public void mostraDialogNuovaIscrizione(List<Utente> utenti, List<Corso> corsi,
         
         ComboBox<Utente> cmbUtente = new ComboBox<>();
         cmbUtente.getItems().addAll(utenti);
+        
+        TextField txtCercaUtente = new TextField();
+        txtCercaUtente.setPromptText("Cerca utente per nome o cognome");
+        AsyncLoader ricercaLoader = new AsyncLoader();
+        new RicercaIncrementale<>(txtCercaUtente, "ricerca-utenti-iscrizione", ricercaLoader,
+            service::cercaUtenti,
+            (utente, termine) -> RicercaIncrementale.contieneTesto(utente.getNomeCompleto(), termine),
+            LIMITE_RICERCA_UTENTI,
+            risultati -> mostraUtenti(cmbUtente, risultati),
+            () -> mostraUtenti(cmbUtente, utenti),
+            e -> messageHelper.mostraErrore("Errore nella ricerca degli utenti: " + e.getMessage()));
+        dialog.setOnHidden(event -> ricercaLoader.annullaTutti());
         cmbUtente.setConverter(new javafx.util.StringConverter<Utente>() {
             @Override
             public String toString(Utente utente) {
@@ -673,12 +689,14 @@ public Corso fromString(String string) {
         txtNote.setPromptText("Note aggiuntive (opzionale)");
         txtNote.setPrefRowCount(3);
 
-        grid.add(new Label("Utente:"), 0, 0);
-        grid.add(cmbUtente, 1, 0);
-        grid.add(new Label("Corso:"), 0, 1);
-        grid.add(cmbCorso, 1, 1);
-        grid.add(new Label("Note:"), 0, 2);
-        grid.add(txtNote, 1, 2);
+        grid.add(new Label("Cerca:"), 0, 0);
+        grid.add(txtCercaUtente, 1, 0);
+        grid.add(new Label("Utente:"), 0, 1);
+        grid.add(cmbUtente, 1, 1);
+        grid.add(new Label("Corso:"), 0, 2);
+        grid.add(cmbCorso, 1, 2);
+        grid.add(new Label("Note:"), 0, 3);
+        grid.add(txtNote, 1, 3);
 
         dialog.getDialogPane().setContent(grid);
 
@@ -718,6 +736,52 @@ public Corso fromString(String string) {
             }        });
     }
     
+    /**
+     * Sostituisce gli utenti della combo mantenendo la selezione, se ancora presente
+     */
+    private static void mostraUtenti(ComboBox<Utente> cmbUtente, List<Utente> utenti) {
+        Utente selezionato = cmbUtente.getValue();
+        cmbUtente.getItems().setAll(utenti);
+        if (selezionato != null && utenti.contains(selezionato)) {
+            cmbUtente.setValue(selezionato);
+        }
+    }
+    
+    // ==================== DIALOG DI AVANZAMENTO ====================
+    
+    /**
+     * Mostra l'avanzamento di un Task in una finestra non bloccante, che si chiude da sola
+     * al termine; il bottone Annulla interrompe il Task
+     */
+    public void mostraDialogAvanzamento(String titolo, Task<?> task) {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle(titolo);
+        dialog.setHeaderText(titolo);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        
+        ProgressBar barra = new ProgressBar();
+        barra.setPrefWidth(320);
+        barra.progressProperty().bind(task.progressProperty());
+        Label lblMessaggio = new Label();
+        lblMessaggio.textProperty().bind(task.messageProperty());
+        
+        VBox contenuto = new VBox(10, barra, lblMessaggio);
+        contenuto.setPadding(new Insets(20));
+        dialog.getDialogPane().setContent(contenuto);
+        
+        dialog.setOnCloseRequest(event -> {
+            if (task.isRunning() || task.getState() == Worker.State.SCHEDULED) {
+                task.cancel(true);
+            }
+        });
+        task.stateProperty().addListener((obs, vecchio, stato) -> {
+            if (stato == Worker.State.SUCCEEDED || stato == Worker.State.FAILED || stato == Worker.State.CANCELLED) {
+                dialog.close();
+            }
+        });
+        dialog.show();
+    }
+    
     // ==================== DIALOGS PER CORSI ====================
     
     /**
@@ -947,39 +1011,41 @@ public void mostraDialogModificaCorso(Corso corso, Runnable onSuccess) {
             salvaButton.setDisable(newValue.trim().isEmpty());
         });
 
-        // Converte il risultato in un Corso quando Salva è premuto
+        // Converte il risultato in un Corso quando Salva è premuto; si modifica una copia,
+        // così la riga della tabella resta invariata se i dati vengono rifiutati
         dialog.setResultConverter(dialogButton -> {
             if (dialogButton == confermaButtonType) {
+                Corso modificato = new Corso(corso);
                 try {
-                    corso.setTitolo(txtTitolo.getText().trim());
-                    corso.setDescrizione(txtDescrizione.getText().trim());
-                    corso.setCategoriaId(cmbCategoria.getValue().getId());
+                    modificato.setTitolo(txtTitolo.getText().trim());
+                    modificato.setDescrizione(txtDescrizione.getText().trim());
+                    modificato.setCategoriaId(cmbCategoria.getValue().getId());
                     
                     int durataOre = Integer.parseInt(txtDurataOre.getText().trim());
                     if (durataOre < 1 || durataOre > 8) {
                         messageHelper.mostraErrore("La durata del corso deve essere compresa tra 1 e 8 ore");
                         return null;
                     }
-                    corso.setDurata(durataOre);
+                    modificato.setDurata(durataOre);
                     
                     int maxPartecipanti = Integer.parseInt(txtMaxPartecipanti.getText().trim());
                     if (maxPartecipanti < 1 || maxPartecipanti > 50) {
                         messageHelper.mostraErrore("Il numero massimo di partecipanti deve essere compreso tra 1 e 50");
                         return null;
                     }
-                    corso.setMaxPartecipanti(maxPartecipanti);
+                    modificato.setMaxPartecipanti(maxPartecipanti);
                     
                     BigDecimal prezzo = new BigDecimal(txtPrezzo.getText().trim());
-                    corso.setPrezzo(prezzo);
+                    modificato.setPrezzo(prezzo);
                     
-                    corso.setFrequenza(frequencyLabelsEdit.get(cmbFrequenza.getValue()));
+                    modificato.setFrequenza(frequencyLabelsEdit.get(cmbFrequenza.getValue()));
                     
                     int numero_sessioni = Integer.parseInt(txtNumeroSessioni.getText().trim());
-                    corso.setNumeroSessioni(numero_sessioni);
+                    modificato.setNumeroSessioni(numero_sessioni);
                     
-                    corso.setDataInizio(dateInizio.getValue());
+                    modificato.setDataInizio(dateInizio.getValue());
                     
-                    return corso;
+                    return modificato;
                 } catch (NumberFormatException e) {
                     messageHelper.mostraErrore("Inserisci valori numerici validi per durata, partecipanti, prezzo e numero sessioni");
                     return null;
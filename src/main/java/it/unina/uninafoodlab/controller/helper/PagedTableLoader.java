@@ -0,0 +1,291 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Popola una TableView a pagine man mano che l'utente scorre.
+ * Le pagine sono lette con paginazione keyset (riga di riferimento + limite)
+ * e in memoria resta al massimo una finestra di righe: superata la soglia
+ * vengono scartate le righe all'estremità opposta, che saranno rilette
+ * scorrendo nella direzione inversa. Le righe di riferimento sono la prima e
+ * l'ultima della lista, che deve restare nell'ordine della query: mentre il
+ * caricamento a pagine è attivo l'ordinamento delle colonne è disattivato.
+ */
+public class PagedTableLoader<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedTableLoader.class);
+
+    // Frazione della barra di scorrimento oltre la quale si carica la pagina adiacente
+    private static final double SOGLIA_SCORRIMENTO = 0.1;
+
+    /**
+     * Query di una pagina a partire dalla riga di riferimento
+     */
+    @FunctionalInterface
+    public interface Pagina<T> {
+        List<T> carica(T riferimento, int limite) throws Exception;
+    }
+
+    private final String chiave;
+    private final TableView<T> tableView;
+    private final ObservableList<T> lista;
+    private final AsyncLoader asyncLoader;
+    private final Pagina<T> paginaSuccessiva;
+    private final Pagina<T> paginaPrecedente;
+    private final int dimensionePagina;
+    private final int righeMassime;
+    private final Runnable onPrimaPagina;
+    private final Consumer<Throwable> onErrore;
+    // Colonne rese non ordinabili, con il valore da ripristinare alla disattivazione
+    private final Map<TableColumn<T, ?>, Boolean> colonneOrdinabili = new IdentityHashMap<>();
+
+    // Stato accessibile solo dal thread FX
+    private boolean attivo;
+    private boolean inCaricamento;
+    private boolean altreSuccessive;
+    private boolean altrePrecedenti;
+    private boolean scrollAgganciato;
+
+    public PagedTableLoader(String chiave, TableView<T> tableView, ObservableList<T> lista,
+                            AsyncLoader asyncLoader, Pagina<T> paginaSuccessiva, Pagina<T> paginaPrecedente,
+                            int dimensionePagina, int righeMassime,
+                            Runnable onPrimaPagina, Consumer<Throwable> onErrore) {
+        this.chiave = chiave;
+        this.tableView = tableView;
+        this.lista = lista;
+        this.asyncLoader = asyncLoader;
+        this.paginaSuccessiva = paginaSuccessiva;
+        this.paginaPrecedente = paginaPrecedente;
+        this.dimensionePagina = dimensionePagina;
+        this.righeMassime = righeMassime;
+        this.onPrimaPagina = onPrimaPagina;
+        this.onErrore = onErrore;
+
+        // La ScrollBar esiste solo dopo la creazione della skin
+        tableView.skinProperty().addListener((obs, vecchia, nuova) -> agganciaScrollBar());
+        agganciaScrollBar();
+    }
+
+    /**
+     * Svuota la tabella e carica la prima pagina
+     */
+    public void ricarica() {
+        asyncLoader.annulla(chiavePagine());
+        attivo = true;
+        inCaricamento = true;
+        altreSuccessive = true;
+        altrePrecedenti = false;
+        bloccaOrdinamento();
+        lista.clear();
+
+        asyncLoader.carica(chiave, () -> paginaSuccessiva.carica(null, dimensionePagina),
+            pagina -> {
+                inCaricamento = false;
+                lista.setAll(pagina);
+                altreSuccessive = pagina.size() == dimensionePagina;
+                logger.debug("Caricamento '{}': prima pagina di {} righe", chiave, pagina.size());
+                onPrimaPagina.run();
+            },
+            errore -> {
+                inCaricamento = false;
+                onErrore.accept(errore);
+            });
+    }
+
+    /**
+     * Sospende il caricamento a pagine (es. quando la tabella mostra un filtro completo)
+     */
+    public void disattiva() {
+        attivo = false;
+        inCaricamento = false;
+        asyncLoader.annulla(chiavePagine());
+        ripristinaOrdinamento();
+    }
+
+    private void bloccaOrdinamento() {
+        tableView.getSortOrder().clear();
+        for (TableColumn<T, ?> colonna : tableView.getColumns()) {
+            colonneOrdinabili.putIfAbsent(colonna, colonna.isSortable());
+            colonna.setSortable(false);
+        }
+    }
+
+    private void ripristinaOrdinamento() {
+        colonneOrdinabili.forEach(TableColumn::setSortable);
+        colonneOrdinabili.clear();
+    }
+
+    /**
+     * Applica alla finestra in memoria una riga modificata altrove: la riga corrispondente
+     * viene sostituita o rimossa (nuova null). Una riga non ancora in memoria viene inserita
+     * solo se cade tra la prima e l'ultima caricata, altrimenti arriverà scorrendo
+     */
+    public void applicaModifica(Predicate<T> stessaRiga, T nuova, Comparator<T> ordine) {
+        if (!attivo) return;
+
+        if (nuova != null && !nellaFinestra(nuova, ordine)) {
+            nuova = null;
+        }
+        sostituisciOrdinata(lista, stessaRiga, nuova, ordine);
+    }
+
+    private boolean nellaFinestra(T riga, Comparator<T> ordine) {
+        if (lista.isEmpty()) {
+            return !altrePrecedenti && !altreSuccessive;
+        }
+        return (!altrePrecedenti || ordine.compare(riga, lista.get(0)) >= 0)
+            && (!altreSuccessive || ordine.compare(riga, lista.get(lista.size() - 1)) <= 0);
+    }
+
+    /**
+     * Sostituisce in una lista ordinata la riga che soddisfa {@code stessaRiga} con {@code nuova},
+     * spostandola se la chiave di ordinamento è cambiata; con nuova null la riga viene rimossa
+     */
+    static <T> void sostituisciOrdinata(List<T> lista, Predicate<T> stessaRiga, T nuova, Comparator<T> ordine) {
+        int indice = -1;
+        for (int i = 0; i < lista.size(); i++) {
+            if (stessaRiga.test(lista.get(i))) {
+                indice = i;
+                break;
+            }
+        }
+
+        if (nuova == null) {
+            if (indice >= 0) {
+                lista.remove(indice);
+            }
+            return;
+        }
+
+        if (indice >= 0) {
+            // Stessa posizione: set() mantiene la selezione della riga
+            boolean alPosto = (indice == 0 || ordine.compare(lista.get(indice - 1), nuova) <= 0)
+                && (indice == lista.size() - 1 || ordine.compare(nuova, lista.get(indice + 1)) <= 0);
+            if (alPosto) {
+                lista.set(indice, nuova);
+                return;
+            }
+            lista.remove(indice);
+        }
+
+        int posizione = 0;
+        while (posizione < lista.size() && ordine.compare(lista.get(posizione), nuova) <= 0) {
+            posizione++;
+        }
+        lista.add(posizione, nuova);
+    }
+
+    private String chiavePagine() {
+        return chiave + "-pagina";
+    }
+
+    private void agganciaScrollBar() {
+        if (scrollAgganciato || tableView.getSkin() == null) return;
+
+        for (Node nodo : tableView.lookupAll(".scroll-bar")) {
+            if (nodo instanceof ScrollBar barra && barra.getOrientation() == Orientation.VERTICAL) {
+                barra.valueProperty().addListener((obs, vecchio, valore) -> verificaScorrimento(barra));
+                scrollAgganciato = true;
+                return;
+            }
+        }
+    }
+
+    private void verificaScorrimento(ScrollBar barra) {
+        if (!attivo || inCaricamento || lista.isEmpty()) return;
+
+        double intervallo = barra.getMax() - barra.getMin();
+        if (intervallo <= 0) return;
+
+        double posizione = (barra.getValue() - barra.getMin()) / intervallo;
+        if (posizione >= 1 - SOGLIA_SCORRIMENTO && altreSuccessive) {
+            caricaSuccessiva();
+        } else if (posizione <= SOGLIA_SCORRIMENTO && altrePrecedenti) {
+            caricaPrecedente();
+        }
+    }
+
+    private void caricaSuccessiva() {
+        T ultima = lista.get(lista.size() - 1);
+        inCaricamento = true;
+
+        asyncLoader.carica(chiavePagine(), () -> paginaSuccessiva.carica(ultima, dimensionePagina),
+            pagina -> {
+                inCaricamento = false;
+                altreSuccessive = pagina.size() == dimensionePagina;
+                if (pagina.isEmpty()) return;
+
+                int primaVisibile = primaRigaVisibile();
+                lista.addAll(pagina);
+
+                int eccedenza = lista.size() - righeMassime;
+                if (eccedenza > 0) {
+                    lista.remove(0, eccedenza);
+                    altrePrecedenti = true;
+                    tableView.scrollTo(Math.max(primaVisibile - eccedenza, 0));
+                }
+                logger.debug("Caricamento '{}': pagina successiva di {} righe ({} in memoria)",
+                    chiave, pagina.size(), lista.size());
+            },
+            this::gestisciErrorePagina);
+    }
+
+    private void caricaPrecedente() {
+        T prima = lista.get(0);
+        inCaricamento = true;
+
+        asyncLoader.carica(chiavePagine(), () -> paginaPrecedente.carica(prima, dimensionePagina),
+            pagina -> {
+                inCaricamento = false;
+                altrePrecedenti = pagina.size() == dimensionePagina;
+                if (pagina.isEmpty()) return;
+
+                int primaVisibile = primaRigaVisibile();
+                lista.addAll(0, pagina);
+
+                int eccedenza = lista.size() - righeMassime;
+                if (eccedenza > 0) {
+                    lista.remove(lista.size() - eccedenza, lista.size());
+                    altreSuccessive = true;
+                }
+                tableView.scrollTo(primaVisibile + pagina.size());
+                logger.debug("Caricamento '{}': pagina precedente di {} righe ({} in memoria)",
+                    chiave, pagina.size(), lista.size());
+            },
+            this::gestisciErrorePagina);
+    }
+
+    private void gestisciErrorePagina(Throwable errore) {
+        inCaricamento = false;
+        onErrore.accept(errore);
+    }
+
+    /**
+     * Indice della prima riga visibile, usato per mantenere la posizione
+     * quando la finestra viene spostata
+     */
+    private int primaRigaVisibile() {
+        if (tableView.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+            IndexedCell<?> cella = flow.getFirstVisibleCell();
+            if (cella != null) {
+                return cella.getIndex();
+            }
+        }
+        return 0;
+    }
+}
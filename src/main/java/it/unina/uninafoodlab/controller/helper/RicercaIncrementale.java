@@ -0,0 +1,169 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import javafx.animation.PauseTransition;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Ricerca mentre l'utente scrive in un campo di testo. La query parte solo dopo una
+ * pausa nella digitazione, così i tasti ravvicinati producono una sola ricerca, e
+ * una nuova ricerca annulla quella in corso. Se il termine estende quello di una
+ * ricerca già completa (meno righe del limite) i risultati vengono filtrati in
+ * memoria senza interrogare il database. Tutti i metodi vanno chiamati dal thread FX.
+ */
+public class RicercaIncrementale<T> {
+    private static final Logger logger = LoggerFactory.getLogger(RicercaIncrementale.class);
+
+    private static final Duration ATTESA_DIGITAZIONE = Duration.millis(250);
+
+    /**
+     * Ricerca nel service, eseguita fuori dal thread FX
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        List<T> cerca(String termine, int limite) throws Exception;
+    }
+
+    private final String chiave;
+    private final AsyncLoader asyncLoader;
+    private final Query<T> query;
+    private final BiPredicate<T, String> contiene;
+    private final int limite;
+    private final Consumer<List<T>> onRisultati;
+    private final Runnable onVuoto;
+    private final Consumer<Throwable> onErrore;
+    private final PauseTransition attesa = new PauseTransition(ATTESA_DIGITAZIONE);
+
+    private String termineCorrente = "";
+    private String termineInCorso;
+    // Ultima ricerca completata sul database, base per gli affinamenti in memoria
+    private String termineBase;
+    private List<T> risultatiBase = List.of();
+
+    /**
+     * @param contiene vero se la voce contiene il termine (già in minuscolo), usato per gli affinamenti
+     * @param onVuoto chiamato quando il campo viene svuotato, per tornare alla vista completa
+     */
+    public RicercaIncrementale(TextInputControl campo, String chiave, AsyncLoader asyncLoader,
+                               Query<T> query, BiPredicate<T, String> contiene, int limite,
+                               Consumer<List<T>> onRisultati, Runnable onVuoto, Consumer<Throwable> onErrore) {
+        this.chiave = chiave;
+        this.asyncLoader = asyncLoader;
+        this.query = query;
+        this.contiene = contiene;
+        this.limite = limite;
+        this.onRisultati = onRisultati;
+        this.onVuoto = onVuoto;
+        this.onErrore = onErrore;
+
+        attesa.setOnFinished(evento -> esegui());
+        campo.textProperty().addListener((obs, vecchio, nuovo) -> richiedi(nuovo));
+    }
+
+    /**
+     * Vero se il campo contiene un termine e la tabella mostra i risultati della ricerca
+     */
+    public boolean isAttiva() {
+        return !termineCorrente.isEmpty();
+    }
+
+    /**
+     * Ripete subito la ricerca corrente scartando i risultati in memoria (es. dopo una modifica)
+     */
+    public void ripeti() {
+        termineBase = null;
+        risultatiBase = List.of();
+        if (isAttiva()) {
+            attesa.stop();
+            esegui();
+        }
+    }
+
+    private void richiedi(String testo) {
+        termineCorrente = testo == null ? "" : testo.trim().toLowerCase(Locale.ROOT);
+
+        if (termineCorrente.isEmpty()) {
+            annullaInCorso();
+            attesa.stop();
+            onVuoto.run();
+            return;
+        }
+
+        if (filtraInMemoria()) {
+            annullaInCorso();
+            attesa.stop();
+            return;
+        }
+
+        // Una ricerca in corso su un prefisso del termine resta valida come base per il filtro
+        if (termineInCorso != null && !termineCorrente.startsWith(termineInCorso)) {
+            annullaInCorso();
+        }
+        attesa.playFromStart();
+    }
+
+    private void esegui() {
+        String termine = termineCorrente;
+        if (termine.isEmpty() || termine.equals(termineInCorso)) return;
+
+        termineInCorso = termine;
+        asyncLoader.carica(chiave, () -> query.cerca(termine, limite),
+            risultati -> {
+                termineInCorso = null;
+                termineBase = termine;
+                risultatiBase = risultati;
+                logger.debug("Ricerca '{}' per '{}': {} risultati", chiave, termine, risultati.size());
+
+                if (termine.equals(termineCorrente)) {
+                    onRisultati.accept(risultati);
+                } else if (filtraInMemoria()) {
+                    attesa.stop();
+                }
+            },
+            errore -> {
+                termineInCorso = null;
+                onErrore.accept(errore);
+            });
+    }
+
+    /**
+     * Mostra i risultati della base filtrati per il termine corrente, se la base è completa
+     * e il termine la estende. Un filtro vuoto non basta: le voci simili ma non contenenti
+     * il termine si trovano solo con una nuova query
+     */
+    private boolean filtraInMemoria() {
+        if (termineBase == null || risultatiBase.size() >= limite || !termineCorrente.startsWith(termineBase)) {
+            return false;
+        }
+
+        List<T> filtrati = risultatiBase.stream()
+            .filter(voce -> contiene.test(voce, termineCorrente))
+            .toList();
+        if (filtrati.isEmpty()) {
+            return false;
+        }
+        onRisultati.accept(filtrati);
+        return true;
+    }
+
+    private void annullaInCorso() {
+        if (termineInCorso != null) {
+            asyncLoader.annulla(chiave);
+            termineInCorso = null;
+        }
+    }
+
+    /**
+     * Confronto senza maiuscole per il parametro {@code contiene}
+     */
+    public static boolean contieneTesto(String testo, String termine) {
+        return testo != null && testo.toLowerCase(Locale.ROOT).contains(termine);
+    }
+}
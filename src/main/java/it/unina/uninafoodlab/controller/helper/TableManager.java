@@ -1,9 +1,13 @@
 package it.unina.uninafoodlab.controller.helper;
 
+import it.unina.uninafoodlab.database.AscoltatoreModifiche;
+import it.unina.uninafoodlab.database.ModificaEntita;
 import it.unina.uninafoodlab.model.*;
 import it.unina.uninafoodlab.service.UninaFoodLabService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.Node;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -12,7 +16,15 @@
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 /**
  * Manager per la configurazione e gestione delle tabelle
@@ -29,6 +41,51 @@ public class TableManager {
     private final ObservableList<Utente> listaUtenti = FXCollections.observableArrayList();
     private final ObservableList<Iscrizione> listaIscrizioni = FXCollections.observableArrayList();
     
+    // Caricamenti eseguiti fuori dal thread FX
+    private final AsyncLoader asyncLoader = new AsyncLoader();
+    private final Map<TableView<?>, Node> placeholderTabelle = new HashMap<>();
+    
+    private TableView<Corso> tabellaCorsi;
+    private TableView<Sessione> tabellaSessioni;
+    private TableView<Ricetta> tabellaRicette;
+    private TableView<Utente> tabellaUtenti;
+    private TableView<Iscrizione> tabellaIscrizioni;
+    
+    // Utenti e iscrizioni crescono senza limite: caricati a pagine durante lo scorrimento
+    private static final int DIMENSIONE_PAGINA = 200;
+    private static final int RIGHE_MASSIME = 1000;
+    private PagedTableLoader<Utente> paginatoreUtenti;
+    private PagedTableLoader<Iscrizione> paginatoreIscrizioni;
+    
+    // Oltre questa soglia di modifiche notificate su una tabella conviene ricaricarla tutta
+    private static final int SOGLIA_RICARICA = 50;
+    private static final Comparator<Corso> ORDINE_CORSI =
+        Comparator.comparing(Corso::getDataInizio, Comparator.nullsFirst(Comparator.reverseOrder()));
+    private static final Comparator<Ricetta> ORDINE_RICETTE =
+        Comparator.comparing(Ricetta::getNome, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+    private static final Comparator<Iscrizione> ORDINE_ISCRIZIONI =
+        Comparator.comparing(Iscrizione::getDataIscrizione, Comparator.nullsFirst(Comparator.reverseOrder()))
+            .thenComparing(Iscrizione::getId, Comparator.nullsFirst(Comparator.reverseOrder()));
+    
+    // Contenuto attuale delle tabelle, per applicare le modifiche notificate (solo thread FX)
+    private Integer chefCorsi;
+    private Integer categoriaCorsi;
+    private boolean ricetteCaricate;
+    private boolean iscrizioniCaricate;
+    private Integer corsoIscrizioni; // null = iscrizioni attive a pagine
+    
+    private final AscoltatoreModifiche ascoltatoreModifiche = new AscoltatoreModifiche() {
+        @Override
+        public void modifiche(List<ModificaEntita> modifiche) {
+            Platform.runLater(() -> applicaModifiche(modifiche));
+        }
+        
+        @Override
+        public void risincronizza() {
+            Platform.runLater(TableManager.this::ricaricaTabelle);
+        }
+    };
+    
     public TableManager(UninaFoodLabService service, MessageHelper messageHelper) {
         this.service = service;
         this.messageHelper = messageHelper;
@@ -85,6 +142,7 @@ public TableManager(UninaFoodLabService service, MessageHelper messageHelper) {
         });
         
         tabellaCorsi.setItems(listaCorsi);
+        this.tabellaCorsi = tabellaCorsi;
     }
       /**
      * Configura la tabella delle sessioni
@@ -134,6 +192,7 @@ public void configuraTabellaSessioni(TableView<Sessione> tabellaSessioni,
         });
         
         tabellaSessioni.setItems(listaSessioni);
+        this.tabellaSessioni = tabellaSessioni;
     }
     
     /**
@@ -174,6 +233,7 @@ public void configuraTabellaRicette(TableView<Ricetta> tabellaRicette,
         });
         
         tabellaRicette.setItems(listaRicette);
+        this.tabellaRicette = tabellaRicette;
     }
       // ==================== METODO HELPER PER PLACEHOLDER ====================
     
@@ -206,6 +266,7 @@ private <T> void configurePlaceholder(TableView<T> tableView, String titolo, Str
         
         // Imposta il placeholder personalizzato
         tableView.setPlaceholder(placeholder);
+        placeholderTabelle.put(tableView, placeholder);
         
         // Stile base semplice per la tabella (finestra non ridimensionabile)
         tableView.setStyle("-fx-background-color: white; -fx-control-inner-background: white;");
@@ -214,6 +275,78 @@ private <T> void configurePlaceholder(TableView<T> tableView, String titolo, Str
     }
   
     
+    /**
+     * Mostra un indicatore di caricamento al posto del placeholder della tabella
+     */
+    private void mostraCaricamento(TableView<?> tableView) {
+        if (tableView == null) return;
+        
+        javafx.scene.layout.VBox caricamento = new javafx.scene.layout.VBox(10);
+        caricamento.setAlignment(javafx.geometry.Pos.CENTER);
+        caricamento.setStyle("-fx-background-color: white;");
+        
+        javafx.scene.control.ProgressIndicator indicatore = new javafx.scene.control.ProgressIndicator();
+        indicatore.setMaxSize(40, 40);
+        
+        javafx.scene.control.Label lblCaricamento = new javafx.scene.control.Label("Caricamento in corso...");
+        lblCaricamento.setStyle("-fx-font-size: 12px; -fx-text-fill: #6c757d; -fx-font-style: italic;");
+        
+        caricamento.getChildren().addAll(indicatore, lblCaricamento);
+        tableView.setPlaceholder(caricamento);
+    }
+    
+    /**
+     * Ripristina il placeholder originale della tabella
+     */
+    private void ripristinaPlaceholder(TableView<?> tableView) {
+        if (tableView != null && placeholderTabelle.containsKey(tableView)) {
+            tableView.setPlaceholder(placeholderTabelle.get(tableView));
+        }
+    }
+    
+    /**
+     * Esegue la query in background e popola la lista sul thread FX.
+     * Un nuovo caricamento con la stessa chiave annulla quello in corso.
+     */
+    private <T> void caricaInBackground(String chiave, TableView<T> tableView, ObservableList<T> lista,
+                                        Callable<List<T>> query, String messaggioErrore) {
+        mostraCaricamento(tableView);
+        lista.clear();
+        
+        asyncLoader.carica(chiave, query,
+            risultato -> {
+                lista.setAll(risultato);
+                ripristinaPlaceholder(tableView);
+                logger.debug("Caricamento '{}' completato: {} righe", chiave, risultato.size());
+            },
+            errore -> {
+                ripristinaPlaceholder(tableView);
+                messageHelper.mostraErrore(messaggioErrore + ": " + errore.getMessage());
+            });
+    }
+    
+    /**
+     * Annulla tutti i caricamenti in corso
+     */
+    public void annullaCaricamenti() {
+        asyncLoader.annullaTutti();
+    }
+    
+    /**
+     * Aggiorna corsi, ricette e iscrizioni a video quando vengono modificati, anche da altri client
+     */
+    public void ascoltaModifiche() {
+        UninaFoodLabService.ascoltaModifiche(ascoltatoreModifiche);
+    }
+    
+    /**
+     * Smette di ascoltare le modifiche e annulla i caricamenti in corso (es. al logout)
+     */
+    public void chiudi() {
+        UninaFoodLabService.smettiDiAscoltareModifiche(ascoltatoreModifiche);
+        annullaCaricamenti();
+    }
+    
     // ==================== CARICAMENTO DATI ====================
     
     /**
@@ -222,71 +355,68 @@ private <T> void configurePlaceholder(TableView<T> tableView, String titolo, Str
     public void caricaCorsiChef(Integer chefId) {
         if (chefId == null) return;
         
-        try {
-            List<Corso> corsi = service.getCorsiByChef(chefId);
-            listaCorsi.clear();
-            listaCorsi.addAll(corsi);
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento dei corsi", e);
-            messageHelper.mostraErrore("Errore nel caricamento dei corsi: " + e.getMessage());
-        }
+        chefCorsi = chefId;
+        categoriaCorsi = null;
+        caricaInBackground("corsi", tabellaCorsi, listaCorsi,
+            () -> service.getCorsiByChef(chefId),
+            "Errore nel caricamento dei corsi");
     }
     
     /**
      * Carica i corsi filtrati per categoria
      */
     public void caricaCorsiPerCategoria(Integer chefId, Integer categoria_id) {
-        try {
-            List<Corso> corsiFiltrati = service.getCorsiByChefECategoria(chefId, categoria_id);
-            listaCorsi.clear();
-            listaCorsi.addAll(corsiFiltrati);
-        } catch (Exception e) {
-            logger.error("Errore nel filtro per categoria", e);
-            messageHelper.mostraErrore("Errore nel filtro per categoria: " + e.getMessage());
-        }
+        chefCorsi = chefId;
+        categoriaCorsi = categoria_id;
+        caricaInBackground("corsi", tabellaCorsi, listaCorsi,
+            () -> service.getCorsiByChefECategoria(chefId, categoria_id),
+            "Errore nel filtro per categoria");
     }
     
     /**
      * Carica le sessioni di un corso
      */
     public void caricaSessioniCorso(int corso_id) {
-        try {
-            List<Sessione> sessioni = service.getSessioniByCorso(corso_id);
+        caricaInBackground("sessioni", tabellaSessioni, listaSessioni, () -> {
+            // Sessioni e nomi delle ricette associate arrivano da un'unica query
+            List<Sessione> sessioni = service.getSessioniCorsoConRicette(corso_id);
             
-            // Carica le ricette associate per ogni sessione
             for (Sessione sessione : sessioni) {
-                List<Ricetta> ricette = service.getRicetteSessione(sessione.getId());
-                if (ricette != null && !ricette.isEmpty()) {
-                    String nomiRicette = ricette.stream()
-                        .map(Ricetta::getNome)
-                        .reduce((r1, r2) -> r1 + ", " + r2)
-                        .orElse("");
-                    sessione.setRicetteAssociate(nomiRicette);
-                } else {
+                if (sessione.getRicetteAssociate().isEmpty()) {
                     sessione.setRicetteAssociate("Nessuna ricetta associata");
                 }
             }
-            
-            listaSessioni.clear();
-            listaSessioni.addAll(sessioni);
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento delle sessioni", e);
-            messageHelper.mostraErrore("Errore nel caricamento delle sessioni: " + e.getMessage());
-        }
+            return sessioni;
+        }, "Errore nel caricamento delle sessioni");
+    }
+    
+    /**
+     * Svuota la tabella delle sessioni annullando un eventuale caricamento in corso
+     */
+    public void svuotaSessioni() {
+        asyncLoader.annulla("sessioni");
+        ripristinaPlaceholder(tabellaSessioni);
+        listaSessioni.clear();
     }
     
     /**
      * Carica tutte le ricette
      */
     public void caricaRicette() {
-        try {
-            List<Ricetta> ricette = service.getAllRicette();
-            listaRicette.clear();
-            listaRicette.addAll(ricette);
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento delle ricette", e);
-            messageHelper.mostraErrore("Errore nel caricamento delle ricette: " + e.getMessage());
-        }
+        ricetteCaricate = true;
+        caricaInBackground("ricette", tabellaRicette, listaRicette,
+            service::getAllRicette,
+            "Errore nel caricamento delle ricette");
+    }
+    
+    /**
+     * Mostra i risultati di una ricerca al posto dell'elenco completo delle ricette.
+     * Le notifiche di modifica non toccano la tabella finché non si torna all'elenco
+     */
+    public void mostraRisultatiRicette(List<Ricetta> risultati) {
+        asyncLoader.annulla("ricette");
+        ricetteCaricate = false;
+        listaRicette.setAll(risultati);
     }
       // ==================== GETTERS PER LE LISTE ====================
     
@@ -343,6 +473,15 @@ public void configuraTabellaUtenti(TableView<Utente> tabellaUtenti,
         });
         
         tabellaUtenti.setItems(listaUtenti);
+        this.tabellaUtenti = tabellaUtenti;
+        this.paginatoreUtenti = new PagedTableLoader<>("utenti", tabellaUtenti, listaUtenti, asyncLoader,
+            service::getUtentiPagina, service::getUtentiPaginaPrecedente,
+            DIMENSIONE_PAGINA, RIGHE_MASSIME,
+            () -> ripristinaPlaceholder(tabellaUtenti),
+            errore -> {
+                ripristinaPlaceholder(tabellaUtenti);
+                messageHelper.mostraErrore("Errore nel caricamento degli utenti: " + errore.getMessage());
+            });
         
         logger.debug("Tabella utenti configurata");
     }
@@ -385,6 +524,15 @@ public void configuraTabellaUtenti(TableView<Utente> tabellaUtenti,
         });
         
         tabellaIscrizioni.setItems(listaIscrizioni);
+        this.tabellaIscrizioni = tabellaIscrizioni;
+        this.paginatoreIscrizioni = new PagedTableLoader<>("iscrizioni", tabellaIscrizioni, listaIscrizioni, asyncLoader,
+            service::getIscrizioniPagina, service::getIscrizioniPaginaPrecedente,
+            DIMENSIONE_PAGINA, RIGHE_MASSIME,
+            () -> ripristinaPlaceholder(tabellaIscrizioni),
+            errore -> {
+                ripristinaPlaceholder(tabellaIscrizioni);
+                messageHelper.mostraErrore("Errore nel caricamento delle iscrizioni: " + errore.getMessage());
+            });
         
         logger.debug("Tabella iscrizioni configurata");
     }
@@ -392,47 +540,176 @@ public void configuraTabellaUtenti(TableView<Utente> tabellaUtenti,
     // ==================== CARICAMENTO DATI UTENTI E ISCRIZIONI ====================
     
     /**
-     * Carica tutti gli utenti nella tabella
+     * Carica gli utenti nella tabella (prima pagina, le successive durante lo scorrimento)
      */
     public void caricaUtenti() {
-        try {
-            List<Utente> utenti = service.getAllUtenti();
-            listaUtenti.clear();
-            listaUtenti.addAll(utenti);
-            logger.debug("Caricati {} utenti", utenti.size());
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento degli utenti", e);
-            messageHelper.mostraErrore("Errore nel caricamento degli utenti: " + e.getMessage());
+        if (paginatoreUtenti == null) return;
+        
+        mostraCaricamento(tabellaUtenti);
+        paginatoreUtenti.ricarica();
+    }
+    
+    /**
+     * Mostra i risultati di una ricerca al posto delle pagine di utenti
+     */
+    public void mostraRisultatiUtenti(List<Utente> risultati) {
+        if (paginatoreUtenti != null) {
+            paginatoreUtenti.disattiva();
         }
+        asyncLoader.annulla("utenti");
+        listaUtenti.setAll(risultati);
     }
     
     /**
-     * Carica tutte le iscrizioni nella tabella
+     * Carica le iscrizioni attive nella tabella (prima pagina, le successive durante lo scorrimento)
      */
     public void caricaIscrizioni() {
-        try {
-            List<Iscrizione> iscrizioni = service.getAllIscrizioni();
-            listaIscrizioni.clear();
-            listaIscrizioni.addAll(iscrizioni);
-            logger.debug("Caricate {} iscrizioni", iscrizioni.size());
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento delle iscrizioni", e);
-            messageHelper.mostraErrore("Errore nel caricamento delle iscrizioni: " + e.getMessage());
-        }
+        if (paginatoreIscrizioni == null) return;
+        
+        iscrizioniCaricate = true;
+        corsoIscrizioni = null;
+        mostraCaricamento(tabellaIscrizioni);
+        paginatoreIscrizioni.ricarica();
     }
     
     /**
      * Carica le iscrizioni per un corso specifico
      */
     public void caricaIscrizioniCorso(int idCorso) {
-        try {
-            List<Iscrizione> iscrizioni = service.getIscrizioniCorso(idCorso);
-            listaIscrizioni.clear();
-            listaIscrizioni.addAll(iscrizioni);
-            logger.debug("Caricate {} iscrizioni per il corso {}", iscrizioni.size(), idCorso);
-        } catch (Exception e) {
-            logger.error("Errore nel caricamento delle iscrizioni del corso {}", idCorso, e);
-            messageHelper.mostraErrore("Errore nel caricamento delle iscrizioni: " + e.getMessage());
+        if (paginatoreIscrizioni != null) {
+            paginatoreIscrizioni.disattiva();
+        }
+        iscrizioniCaricate = true;
+        corsoIscrizioni = idCorso;
+        caricaInBackground("iscrizioni", tabellaIscrizioni, listaIscrizioni,
+            () -> service.getIscrizioniCorso(idCorso),
+            "Errore nel caricamento delle iscrizioni");
+    }
+    
+    // ==================== MODIFICHE NOTIFICATE DAL DATABASE ====================
+    
+    /**
+     * Aggiorna solo le righe modificate: ogni riga viene riletta per ID e sostituita,
+     * inserita o rimossa secondo il filtro della tabella. Con molte modifiche sulla
+     * stessa tabella (es. import massivi) la ricarica completa costa meno
+     */
+    private void applicaModifiche(List<ModificaEntita> modifiche) {
+        Map<String, Map<Integer, ModificaEntita>> perTabella = raggruppa(modifiche, corsoIscrizioni);
+        
+        Collection<ModificaEntita> corsi = perTabella.getOrDefault(ModificaEntita.CORSI, Map.of()).values();
+        if (chefCorsi != null && !corsi.isEmpty()) {
+            if (corsi.size() > SOGLIA_RICARICA) {
+                caricaCorsiPerCategoria(chefCorsi, categoriaCorsi);
+            } else {
+                corsi.forEach(this::aggiornaCorso);
+            }
+        }
+        
+        Collection<ModificaEntita> ricette = perTabella.getOrDefault(ModificaEntita.RICETTE, Map.of()).values();
+        if (ricetteCaricate && !ricette.isEmpty()) {
+            if (ricette.size() > SOGLIA_RICARICA) {
+                caricaRicette();
+            } else {
+                ricette.forEach(this::aggiornaRicetta);
+            }
+        }
+        
+        Collection<ModificaEntita> iscrizioni = perTabella.getOrDefault(ModificaEntita.ISCRIZIONI, Map.of()).values();
+        if (iscrizioniCaricate && !iscrizioni.isEmpty()) {
+            if (iscrizioni.size() > SOGLIA_RICARICA) {
+                ricaricaIscrizioni();
+            } else {
+                iscrizioni.forEach(this::aggiornaIscrizione);
+            }
+        }
+    }
+    
+    /**
+     * Modifiche per tabella, una per riga. Con le iscrizioni di un solo corso a video quelle
+     * degli altri corsi vengono scartate prima di unire i duplicati: lo spostamento di
+     * un'iscrizione arriva come due notifiche con lo stesso ID, una per il vecchio corso e
+     * una per il nuovo, e quella del corso mostrato non deve essere sostituita dall'altra
+     */
+    static Map<String, Map<Integer, ModificaEntita>> raggruppa(List<ModificaEntita> modifiche, Integer corsoIscrizioni) {
+        Map<String, Map<Integer, ModificaEntita>> perTabella = new HashMap<>();
+        for (ModificaEntita modifica : modifiche) {
+            if (corsoIscrizioni != null && modifica.riguarda(ModificaEntita.ISCRIZIONI)
+                    && !corsoIscrizioni.equals(modifica.corsoId())) {
+                continue;
+            }
+            perTabella.computeIfAbsent(modifica.tabella(), t -> new LinkedHashMap<>()).put(modifica.id(), modifica);
+        }
+        return perTabella;
+    }
+    
+    private void aggiornaCorso(ModificaEntita modifica) {
+        aggiornaRiga(modifica, () -> Optional.ofNullable(service.getCorsoById(modifica.id())),
+            corso -> PagedTableLoader.sostituisciOrdinata(listaCorsi, c -> stessoId(c.getId(), modifica.id()),
+                corso.filter(this::corsoVisibile).orElse(null), ORDINE_CORSI));
+    }
+    
+    private boolean corsoVisibile(Corso corso) {
+        return chefCorsi.equals(corso.getChefId())
+            && (categoriaCorsi == null || categoriaCorsi.equals(corso.getCategoriaId()));
+    }
+    
+    private void aggiornaRicetta(ModificaEntita modifica) {
+        aggiornaRiga(modifica, () -> service.getRicettaById(modifica.id()),
+            ricetta -> PagedTableLoader.sostituisciOrdinata(listaRicette, r -> stessoId(r.getId(), modifica.id()),
+                ricetta.orElse(null), ORDINE_RICETTE));
+    }
+    
+    private void aggiornaIscrizione(ModificaEntita modifica) {
+        aggiornaRiga(modifica, () -> service.getIscrizioneDettagliata(modifica.id()), iscrizione -> {
+            if (corsoIscrizioni != null) {
+                PagedTableLoader.sostituisciOrdinata(listaIscrizioni, i -> stessoId(i.getId(), modifica.id()),
+                    iscrizione.filter(i -> corsoIscrizioni.equals(i.getCorsoId())).orElse(null), ORDINE_ISCRIZIONI);
+            } else if (paginatoreIscrizioni != null) {
+                // La tabella a pagine mostra solo le iscrizioni attive
+                paginatoreIscrizioni.applicaModifica(i -> stessoId(i.getId(), modifica.id()),
+                    iscrizione.filter(i -> "ATTIVA".equals(i.getStato())).orElse(null), ORDINE_ISCRIZIONI);
+            }
+        });
+    }
+    
+    /**
+     * Rilegge la riga in background (un'eliminazione non richiede query) e applica il risultato
+     */
+    private <T> void aggiornaRiga(ModificaEntita modifica, Callable<Optional<T>> lettura,
+                                  Consumer<Optional<T>> applica) {
+        if (modifica.isEliminazione()) {
+            applica.accept(Optional.empty());
+            return;
+        }
+        asyncLoader.carica("modifica-" + modifica.tabella() + "-" + modifica.id(), lettura, applica,
+            errore -> logger.warn("Aggiornamento di {} {} non riuscito: {}",
+                modifica.tabella(), modifica.id(), errore.getMessage()));
+    }
+    
+    private static boolean stessoId(Integer id, int atteso) {
+        return id != null && id == atteso;
+    }
+    
+    /**
+     * Ricarica le tabelle già popolate (notifiche perse durante una disconnessione)
+     */
+    private void ricaricaTabelle() {
+        if (chefCorsi != null) {
+            caricaCorsiPerCategoria(chefCorsi, categoriaCorsi);
+        }
+        if (ricetteCaricate) {
+            caricaRicette();
+        }
+        if (iscrizioniCaricate) {
+            ricaricaIscrizioni();
+        }
+    }
+    
+    private void ricaricaIscrizioni() {
+        if (corsoIscrizioni != null) {
+            caricaIscrizioniCorso(corsoIscrizioni);
+        } else {
+            caricaIscrizioni();
         }
     }
 }
@@ -0,0 +1,21 @@
+package it.unina.uninafoodlab.database;
+
+import java.util.List;
+
+/**
+ * Riceve le modifiche fatte da altri client (o dallo stesso) su corsi, ricette, iscrizioni, utenti e sessioni.
+ * I metodi vengono chiamati dal thread di ascolto, non dal thread JavaFX.
+ */
+public interface AscoltatoreModifiche {
+
+    /**
+     * Modifiche arrivate insieme, nell'ordine di commit
+     */
+    void modifiche(List<ModificaEntita> modifiche);
+
+    /**
+     * La connessione di ascolto è stata ristabilita: le notifiche nel frattempo sono perse
+     * e i dati in memoria vanno considerati tutti non aggiornati
+     */
+    default void risincronizza() {}
+}
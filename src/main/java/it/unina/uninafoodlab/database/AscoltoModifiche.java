@@ -0,0 +1,152 @@
+package it.unina.uninafoodlab.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Thread in ascolto sul canale uninafoodlab_modifiche (LISTEN/NOTIFY). Usa una connessione
+ * dedicata fuori dal pool, perché LISTEN vale solo per la sessione che lo esegue, e in caso
+ * di errore si riconnette con attesa crescente avvisando gli ascoltatori di risincronizzarsi.
+ */
+final class AscoltoModifiche {
+    private static final Logger logger = LoggerFactory.getLogger(AscoltoModifiche.class);
+
+    static final String CANALE = "uninafoodlab_modifiche";
+    private static final int ATTESA_NOTIFICHE_MS = 2000;
+    private static final long RICONNESSIONE_MINIMA_MS = 1000;
+    private static final long RICONNESSIONE_MASSIMA_MS = 30000;
+
+    private final String url;
+    private final Properties credenziali = new Properties();
+    private final List<AscoltatoreModifiche> ascoltatori = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean attivo = true;
+    private volatile Connection connessione;
+
+    AscoltoModifiche(Properties props) {
+        this.url = props.getProperty("db.url");
+        credenziali.setProperty("user", props.getProperty("db.username"));
+        credenziali.setProperty("password", props.getProperty("db.password"));
+        credenziali.setProperty("ApplicationName", "UninaFoodLab notifiche");
+
+        thread = new Thread(this::esegui, "uninafoodlab-notifiche");
+        thread.setDaemon(true);
+    }
+
+    void avvia() {
+        thread.start();
+    }
+
+    void aggiungi(AscoltatoreModifiche ascoltatore) {
+        ascoltatori.add(ascoltatore);
+    }
+
+    void rimuovi(AscoltatoreModifiche ascoltatore) {
+        ascoltatori.remove(ascoltatore);
+    }
+
+    void arresta() {
+        attivo = false;
+        thread.interrupt();
+        chiudiConnessione();
+    }
+
+    private void esegui() {
+        long attesa = RICONNESSIONE_MINIMA_MS;
+        boolean primaConnessione = true;
+
+        while (attivo) {
+            try {
+                connessione = DriverManager.getConnection(url, credenziali);
+                try (Statement stmt = connessione.createStatement()) {
+                    stmt.execute("LISTEN " + CANALE);
+                }
+                logger.info("In ascolto delle modifiche sul canale {}", CANALE);
+
+                // Le notifiche perse mentre la connessione era giù non verranno più inviate
+                if (!primaConnessione) {
+                    ascoltatori.forEach(this::risincronizza);
+                }
+                primaConnessione = false;
+                attesa = RICONNESSIONE_MINIMA_MS;
+
+                PGConnection pg = connessione.unwrap(PGConnection.class);
+                while (attivo) {
+                    PGNotification[] notifiche = pg.getNotifications(ATTESA_NOTIFICHE_MS);
+                    if (notifiche != null && notifiche.length > 0) {
+                        distribuisci(notifiche);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!attivo) {
+                    break;
+                }
+                logger.warn("Connessione di ascolto delle modifiche persa, nuovo tentativo tra {} ms: {}",
+                    attesa, e.getMessage());
+            } finally {
+                chiudiConnessione();
+            }
+
+            try {
+                Thread.sleep(attesa);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            attesa = Math.min(attesa * 2, RICONNESSIONE_MASSIMA_MS);
+        }
+        logger.info("Ascolto delle modifiche terminato");
+    }
+
+    private void distribuisci(PGNotification[] notifiche) {
+        List<ModificaEntita> modifiche = new ArrayList<>(notifiche.length);
+        for (PGNotification notifica : notifiche) {
+            ModificaEntita.da(notifica.getParameter()).ifPresentOrElse(modifiche::add,
+                () -> logger.warn("Notifica non riconosciuta: {}", notifica.getParameter()));
+        }
+        if (modifiche.isEmpty()) {
+            return;
+        }
+
+        logger.debug("Ricevute {} modifiche", modifiche.size());
+        List<ModificaEntita> immutabili = List.copyOf(modifiche);
+        for (AscoltatoreModifiche ascoltatore : ascoltatori) {
+            try {
+                ascoltatore.modifiche(immutabili);
+            } catch (RuntimeException e) {
+                logger.error("Errore in un ascoltatore delle modifiche", e);
+            }
+        }
+    }
+
+    private void risincronizza(AscoltatoreModifiche ascoltatore) {
+        try {
+            ascoltatore.risincronizza();
+        } catch (RuntimeException e) {
+            logger.error("Errore nella risincronizzazione di un ascoltatore", e);
+        }
+    }
+
+    private void chiudiConnessione() {
+        Connection conn = connessione;
+        connessione = null;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.debug("Errore nella chiusura della connessione di ascolto", e);
+            }
+        }
+    }
+}
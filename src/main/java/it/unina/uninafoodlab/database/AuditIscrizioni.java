@@ -0,0 +1,464 @@
+package it.unina.uninafoodlab.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Audit applicativo delle iscrizioni (tabella log_iscrizioni). I DAO registrano ogni
+ * inserimento e cambio di stato in un buffer circolare in memoria, senza attendere il
+ * database e con lo username dello chef invece dell'utente del pool; il thread
+ * {@code uninafoodlab-audit} li scrive a blocchi con un solo INSERT su {@code unnest}.
+ * Se il database è lento o non raggiungibile, o il buffer è pieno, gli eventi vengono
+ * aggiunti a un file locale sincronizzato su disco (formato testo di COPY) e reinviati
+ * con COPY appena il database risponde, anche al riavvio successivo. La consegna è
+ * "almeno una volta": un arresto tra il reinvio del file e la sua cancellazione duplica
+ * quelle righe. Con l'audit attivo le connessioni del pool impostano
+ * {@value #PARAMETRO_SESSIONE} e trigger_log_iscrizioni registra solo le eliminazioni.
+ */
+public final class AuditIscrizioni {
+    private static final Logger logger = LoggerFactory.getLogger(AuditIscrizioni.class);
+
+    static final String PARAMETRO_SESSIONE = "uninafoodlab.audit_applicativo";
+
+    private static final String COLONNE =
+        "iscrizione_id, azione, stato_precedente, stato_nuovo, utente_modifica, timestamp_modifica, note";
+    private static final long ATTESA_MASSIMA_RIPROVA_MS = 60_000;
+    private static final long ATTESA_CHIUSURA_MS = 10_000;
+    private static final int DIMENSIONE_LETTURA = 64 * 1024;
+
+    private static final AuditIscrizioni istanza = new AuditIscrizioni();
+
+    /**
+     * Riga di log_iscrizioni, con l'istante della modifica e non quello della scrittura
+     */
+    record Evento(int iscrizioneId, String azione, String statoPrecedente, String statoNuovo,
+                  String utenteModifica, LocalDateTime timestamp, String note) {}
+
+    // Buffer circolare: inCoda eventi a partire da testa
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition daScrivere = lock.newCondition();
+    private Evento[] anello = new Evento[0];
+    private int testa;
+    private int inCoda;
+    private boolean inChiusura;
+
+    // Serializza le scritture sul file di riversamento e il suo passaggio al reinvio
+    private final Object lockFile = new Object();
+
+    private final AtomicLong registrati = new AtomicLong();
+    private final AtomicLong scritti = new AtomicLong();
+    private final AtomicLong riversati = new AtomicLong();
+    private final AtomicLong reinviati = new AtomicLong();
+
+    private volatile boolean abilitato;
+    private volatile String operatore;
+    private String utenteDatabase;
+    private Path fileRiversamento;
+    private int dimensioneBlocco;
+    private long intervalloMs;
+    private int timeoutSecondi;
+    private Thread scrittore;
+
+    private AuditIscrizioni() {}
+
+    public static AuditIscrizioni getInstance() {
+        return istanza;
+    }
+
+    /**
+     * Legge la configurazione (audit.*); il thread di scrittura parte con {@link #avvia()}
+     */
+    synchronized void configura(Properties props) {
+        abilitato = Boolean.parseBoolean(props.getProperty("audit.enabled", "true"));
+        if (!abilitato) {
+            logger.info("Audit applicativo delle iscrizioni disattivato: log_iscrizioni è scritto dal trigger");
+            return;
+        }
+
+        int capacita = Integer.parseInt(props.getProperty("audit.buffer.size", "8192"));
+        dimensioneBlocco = Integer.parseInt(props.getProperty("audit.batch.size", "500"));
+        intervalloMs = Long.parseLong(props.getProperty("audit.flush.interval.ms", "1000"));
+        timeoutSecondi = Integer.parseInt(props.getProperty("audit.db.timeout.seconds", "5"));
+        fileRiversamento = Path.of(props.getProperty("audit.spill.file",
+            Path.of(System.getProperty("user.home"), ".uninafoodlab", "audit_iscrizioni.spill").toString()));
+        utenteDatabase = props.getProperty("db.username");
+
+        lock.lock();
+        try {
+            anello = new Evento[capacita];
+            testa = 0;
+            inCoda = 0;
+            inChiusura = false;
+        } finally {
+            lock.unlock();
+        }
+
+        logger.info("Audit applicativo delle iscrizioni attivo (buffer {}, blocchi di {}, file {})",
+            capacita, dimensioneBlocco, fileRiversamento);
+    }
+
+    /**
+     * Avvia il thread di scrittura, che reinvia anche gli eventi rimasti su file da un'esecuzione precedente
+     */
+    synchronized void avvia() {
+        if (abilitato && scrittore == null) {
+            scrittore = new Thread(this::esegui, "uninafoodlab-audit");
+            scrittore.setDaemon(true);
+            scrittore.start();
+        }
+    }
+
+    boolean isAbilitato() {
+        return abilitato;
+    }
+
+    /**
+     * Username riportato negli eventi successivi; null (logout) usa l'utente del database
+     */
+    public void impostaOperatore(String username) {
+        operatore = username;
+    }
+
+    /**
+     * Iscrizione appena inserita
+     */
+    void nuovaIscrizione(int iscrizioneId, String stato) {
+        registra(iscrizioneId, "INSERT", null, stato, "Nuova iscrizione creata");
+    }
+
+    /**
+     * Aggiornamento di un'iscrizione: come il trigger, registra solo i cambi di stato
+     */
+    void cambioStato(int iscrizioneId, String statoPrecedente, String statoNuovo) {
+        if (statoPrecedente != null && statoNuovo != null && !statoPrecedente.equals(statoNuovo)) {
+            registra(iscrizioneId, "UPDATE", statoPrecedente, statoNuovo, "Cambio stato iscrizione");
+        }
+    }
+
+    private void registra(int iscrizioneId, String azione, String statoPrecedente, String statoNuovo, String note) {
+        if (!abilitato) {
+            return;
+        }
+        String utente = operatore != null ? operatore : utenteDatabase;
+        // Il timestamp di PostgreSQL arriva ai microsecondi
+        Evento evento = new Evento(iscrizioneId, azione, statoPrecedente, statoNuovo, utente,
+            LocalDateTime.now().truncatedTo(ChronoUnit.MICROS), note);
+        registrati.incrementAndGet();
+
+        boolean accodato = false;
+        lock.lock();
+        try {
+            if (!inChiusura && inCoda < anello.length) {
+                anello[(testa + inCoda) % anello.length] = evento;
+                inCoda++;
+                accodato = true;
+                if (inCoda >= dimensioneBlocco) {
+                    daScrivere.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!accodato) {
+            // Buffer pieno (il database non tiene il passo) o applicazione in chiusura
+            try {
+                riversa(List.of(evento));
+            } catch (IOException e) {
+                logger.error("Evento di audit perso per l'iscrizione {}: {}", iscrizioneId, evento, e);
+            }
+        }
+    }
+
+    /**
+     * Ciclo del thread di scrittura: dopo un errore il database viene riprovato con attesa
+     * crescente e nel frattempo i blocchi vanno direttamente su file
+     */
+    private void esegui() {
+        long prossimoTentativo = 0;
+        long attesaRiprova = intervalloMs;
+        List<Evento> blocco;
+        while ((blocco = prendiBlocco()) != null) {
+            if (System.currentTimeMillis() >= prossimoTentativo) {
+                try {
+                    if (!isInChiusura()) {
+                        reinviaRiversati();
+                    }
+                    if (!blocco.isEmpty()) {
+                        scriviSuDatabase(blocco);
+                    }
+                    prossimoTentativo = 0;
+                    attesaRiprova = intervalloMs;
+                    continue;
+                } catch (SQLException | IOException | RuntimeException e) {
+                    logger.warn("Audit delle iscrizioni su file per {} ms, database non disponibile: {}",
+                        attesaRiprova, e.getMessage());
+                    prossimoTentativo = System.currentTimeMillis() + attesaRiprova;
+                    attesaRiprova = Math.min(attesaRiprova * 2, ATTESA_MASSIMA_RIPROVA_MS);
+                }
+            }
+            if (!blocco.isEmpty()) {
+                try {
+                    riversa(blocco);
+                } catch (IOException e) {
+                    logger.error("{} eventi di audit delle iscrizioni persi: {}", blocco.size(), blocco, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Attende un blocco pieno o la fine dell'intervallo e preleva fino a un blocco di eventi;
+     * null quando l'audit è in chiusura e il buffer è vuoto
+     */
+    private List<Evento> prendiBlocco() {
+        lock.lock();
+        try {
+            long resto = TimeUnit.MILLISECONDS.toNanos(intervalloMs);
+            while (inCoda < dimensioneBlocco && !inChiusura && resto > 0) {
+                resto = daScrivere.awaitNanos(resto);
+            }
+            if (inChiusura && inCoda == 0) {
+                return null;
+            }
+            return preleva(Math.min(inCoda, dimensioneBlocco));
+        } catch (InterruptedException e) {
+            inChiusura = true;
+            return preleva(Math.min(inCoda, dimensioneBlocco));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Da chiamare con il lock acquisito
+    private List<Evento> preleva(int numero) {
+        List<Evento> blocco = new ArrayList<>(numero);
+        for (int i = 0; i < numero; i++) {
+            blocco.add(anello[testa]);
+            anello[testa] = null;
+            testa = (testa + 1) % anello.length;
+        }
+        inCoda -= numero;
+        return blocco;
+    }
+
+    private boolean isInChiusura() {
+        lock.lock();
+        try {
+            return inChiusura;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scriviSuDatabase(List<Evento> blocco) throws SQLException {
+        String sql = """
+            INSERT INTO log_iscrizioni (%s)
+            SELECT * FROM unnest(?::integer[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                                 ?::timestamp[], ?::text[])
+            """.formatted(COLONNE);
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(timeoutSecondi);
+            stmt.setArray(1, conn.createArrayOf("integer",
+                blocco.stream().map(Evento::iscrizioneId).toArray(Integer[]::new)));
+            stmt.setArray(2, conn.createArrayOf("varchar", blocco.stream().map(Evento::azione).toArray()));
+            stmt.setArray(3, conn.createArrayOf("varchar", blocco.stream().map(Evento::statoPrecedente).toArray()));
+            stmt.setArray(4, conn.createArrayOf("varchar", blocco.stream().map(Evento::statoNuovo).toArray()));
+            stmt.setArray(5, conn.createArrayOf("varchar", blocco.stream().map(Evento::utenteModifica).toArray()));
+            stmt.setArray(6, conn.createArrayOf("timestamp",
+                blocco.stream().map(evento -> Timestamp.valueOf(evento.timestamp())).toArray(Timestamp[]::new)));
+            stmt.setArray(7, conn.createArrayOf("text", blocco.stream().map(Evento::note).toArray()));
+            stmt.executeUpdate();
+        }
+        scritti.addAndGet(blocco.size());
+    }
+
+    /**
+     * Aggiunge gli eventi al file di riversamento e lo sincronizza su disco
+     */
+    private void riversa(List<Evento> eventi) throws IOException {
+        StringBuilder righe = new StringBuilder(eventi.size() * 128);
+        for (Evento evento : eventi) {
+            ScrittoreCopy.accodaRiga(righe, evento.iscrizioneId(), evento.azione(), evento.statoPrecedente(),
+                evento.statoNuovo(), evento.utenteModifica(), evento.timestamp(), evento.note());
+        }
+        ByteBuffer dati = ByteBuffer.wrap(righe.toString().getBytes(StandardCharsets.UTF_8));
+
+        synchronized (lockFile) {
+            Path cartella = fileRiversamento.toAbsolutePath().getParent();
+            if (cartella != null) {
+                Files.createDirectories(cartella);
+            }
+            try (FileChannel canale = FileChannel.open(fileRiversamento,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (dati.hasRemaining()) {
+                    canale.write(dati);
+                }
+                canale.force(false);
+            }
+        }
+        riversati.addAndGet(eventi.size());
+    }
+
+    /**
+     * Reinvia con COPY gli eventi finiti su file. Il file viene prima rinominato, così le
+     * nuove aggiunte non attendono il database; se l'invio fallisce resta per il tentativo successivo
+     */
+    private void reinviaRiversati() throws SQLException, IOException {
+        Path inInvio = fileRiversamento.resolveSibling(fileRiversamento.getFileName() + ".invio");
+        if (!Files.exists(inInvio)) {
+            synchronized (lockFile) {
+                if (!Files.exists(fileRiversamento)) {
+                    return;
+                }
+                Files.move(fileRiversamento, inInvio, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        long righe;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            righe = inviaFile(conn, inInvio);
+        }
+        Files.delete(inInvio);
+        reinviati.addAndGet(righe);
+        logger.info("Reinviati {} eventi di audit delle iscrizioni da {}", righe, fileRiversamento);
+    }
+
+    private static long inviaFile(Connection conn, Path file) throws SQLException, IOException {
+        try (FileChannel canale = FileChannel.open(file, StandardOpenOption.READ)) {
+            long lunghezza = lunghezzaRigheComplete(canale);
+            CopyIn copia = conn.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY log_iscrizioni (" + COLONNE + ") FROM STDIN");
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(DIMENSIONE_LETTURA);
+                long inviati = 0;
+                while (inviati < lunghezza) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), lunghezza - inviati));
+                    int letti = canale.read(buffer, inviati);
+                    if (letti < 0) {
+                        break;
+                    }
+                    copia.writeToCopy(buffer.array(), 0, letti);
+                    inviati += letti;
+                }
+                return copia.endCopy();
+            } finally {
+                if (copia.isActive()) {
+                    copia.cancelCopy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lunghezza fino all'ultimo a capo: una riga troncata da un arresto durante la
+     * scrittura viene ignorata invece di far fallire la COPY
+     */
+    private static long lunghezzaRigheComplete(FileChannel canale) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long fine = canale.size();
+        while (fine > 0) {
+            int daLeggere = (int) Math.min(buffer.capacity(), fine);
+            buffer.clear();
+            buffer.limit(daLeggere);
+            int letti;
+            do {
+                letti = canale.read(buffer, fine - daLeggere + buffer.position());
+            } while (letti > 0 && buffer.hasRemaining());
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return fine - daLeggere + i + 1;
+                }
+            }
+            fine -= daLeggere;
+        }
+        return 0;
+    }
+
+    /**
+     * Scrive gli eventi in coda, attendendo al massimo {@value #ATTESA_CHIUSURA_MS} ms;
+     * quelli rimasti vanno su file e vengono reinviati al prossimo avvio
+     */
+    void chiudi() {
+        Thread thread;
+        synchronized (this) {
+            thread = scrittore;
+            scrittore = null;
+        }
+        if (thread == null) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            inChiusura = true;
+            daScrivere.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            thread.join(ATTESA_CHIUSURA_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Evento> rimasti;
+        lock.lock();
+        try {
+            rimasti = preleva(inCoda);
+        } finally {
+            lock.unlock();
+        }
+        if (!rimasti.isEmpty()) {
+            try {
+                riversa(rimasti);
+            } catch (IOException e) {
+                logger.error("{} eventi di audit delle iscrizioni persi alla chiusura: {}", rimasti.size(), rimasti, e);
+            }
+        }
+        logger.info("Audit iscrizioni: {}", descrizione());
+    }
+
+    /**
+     * Riepilogo per il log: eventi registrati, scritti sul database, finiti su file, reinviati e in coda
+     */
+    String descrizione() {
+        int coda;
+        lock.lock();
+        try {
+            coda = inCoda;
+        } finally {
+            lock.unlock();
+        }
+        return String.format("registrati=%d, scritti=%d, su file=%d, reinviati=%d, in coda=%d",
+            registrati.get(), scritti.get(), riversati.get(), reinviati.get(), coda);
+    }
+}
@@ -228,7 +228,7 @@ public boolean delete(Integer id) {
     /**
      * Mappa un ResultSet a un oggetto Chef
      */
-    private Chef mapResultSetToChef(ResultSet rs) throws SQLException {
+    Chef mapResultSetToChef(ResultSet rs) throws SQLException {
         Chef chef = new Chef();
         chef.setId(rs.getInt("id"));
         chef.setUsername(rs.getString("username"));
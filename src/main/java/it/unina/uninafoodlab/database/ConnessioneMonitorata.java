@@ -0,0 +1,201 @@
+package it.unina.uninafoodlab.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Proxy di Connection, Statement e ResultSet che misura ogni esecuzione e
+ * la registra in QueryMetrics. Il resto delle chiamate passa invariato alla
+ * connessione del pool (compreso unwrap, es. per il CopyManager).
+ */
+final class ConnessioneMonitorata {
+
+    private static final String PACKAGE_DAO = "it.unina.uninafoodlab.database.";
+
+    private ConnessioneMonitorata() {}
+
+    static Connection avvolgi(Connection connessione, QueryMetrics metriche) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            new GestoreConnessione(connessione, metriche));
+    }
+
+    private static Object invoca(Object destinazione, Method metodo, Object[] argomenti) throws Throwable {
+        try {
+            return metodo.invoke(destinazione, argomenti);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Primo metodo di un DAO nello stack, usato per attribuire le query
+     */
+    private static String origineChiamata() {
+        return StackWalker.getInstance().walk(frame -> frame
+            .filter(f -> f.getClassName().startsWith(PACKAGE_DAO)
+                && !f.getClassName().startsWith(ConnessioneMonitorata.class.getName())
+                && !f.getClassName().equals(DatabaseManager.class.getName()))
+            .findFirst()
+            .map(f -> f.getClassName().substring(PACKAGE_DAO.length()) + "." + f.getMethodName())
+            .orElse("n/d"));
+    }
+
+    private static final class GestoreConnessione implements InvocationHandler {
+        private final Connection connessione;
+        private final QueryMetrics metriche;
+
+        private GestoreConnessione(Connection connessione, QueryMetrics metriche) {
+            this.connessione = connessione;
+            this.metriche = metriche;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argomenti) throws Throwable {
+            Object risultato = invoca(connessione, metodo, argomenti);
+
+            return switch (metodo.getName()) {
+                case "prepareStatement" -> avvolgiStatement(risultato, PreparedStatement.class, (String) argomenti[0]);
+                case "prepareCall" -> avvolgiStatement(risultato, CallableStatement.class, (String) argomenti[0]);
+                case "createStatement" -> avvolgiStatement(risultato, Statement.class, null);
+                default -> risultato;
+            };
+        }
+
+        private Object avvolgiStatement(Object statement, Class<?> tipo, String sql) {
+            return Proxy.newProxyInstance(
+                tipo.getClassLoader(),
+                new Class<?>[]{tipo},
+                new GestoreStatement((Statement) statement, metriche, sql, origineChiamata()));
+        }
+    }
+
+    private static final class GestoreStatement implements InvocationHandler {
+        private final Statement statement;
+        private final QueryMetrics metriche;
+        private final String origine;
+        private final QueryMetrics.StatisticheQuery statisticheSql;
+        // Parametri correnti, per il log delle query lente (solo tipi, salvo configurazione esplicita)
+        private final Map<Integer, Object> parametri = new TreeMap<>();
+        // Statement semplice: ultima query eseguita, per attribuire getResultSet
+        private QueryMetrics.StatisticheQuery ultimaQuery;
+
+        private GestoreStatement(Statement statement, QueryMetrics metriche, String sql, String origine) {
+            this.statement = statement;
+            this.metriche = metriche;
+            this.origine = origine;
+            this.statisticheSql = sql != null ? metriche.statistichePer(sql, origine) : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argomenti) throws Throwable {
+            String nome = metodo.getName();
+
+            if (nome.startsWith("set") && argomenti != null && argomenti.length >= 2 && argomenti[0] instanceof Integer indice) {
+                parametri.put(indice, nome.equals("setNull") ? null : argomenti[1]);
+            } else if (nome.equals("clearParameters")) {
+                parametri.clear();
+            }
+
+            if (!nome.startsWith("execute")) {
+                Object risultato = invoca(statement, metodo, argomenti);
+                if (nome.equals("getResultSet") && risultato != null) {
+                    return avvolgiResultSet((ResultSet) risultato, ultimaQuery != null ? ultimaQuery : statistiche(argomenti));
+                }
+                return risultato;
+            }
+
+            // Statement semplice: lo SQL arriva come primo argomento di execute*
+            QueryMetrics.StatisticheQuery query = statistiche(argomenti);
+            ultimaQuery = query;
+            long inizio = System.nanoTime();
+            boolean errore = false;
+            Object risultato = null;
+            try {
+                risultato = invoca(statement, metodo, argomenti);
+                return risultato instanceof ResultSet rs ? avvolgiResultSet(rs, query) : risultato;
+            } catch (Throwable t) {
+                errore = true;
+                throw t;
+            } finally {
+                long micros = (System.nanoTime() - inizio) / 1000;
+                metriche.registraEsecuzione(query, micros, righeModificate(risultato), errore, this::copiaParametri);
+            }
+        }
+
+        private QueryMetrics.StatisticheQuery statistiche(Object[] argomenti) {
+            if (statisticheSql != null) {
+                return statisticheSql;
+            }
+            String sql = argomenti != null && argomenti.length > 0 && argomenti[0] instanceof String s ? s : "(batch)";
+            return metriche.statistichePer(sql, origine);
+        }
+
+        private Map<Integer, Object> copiaParametri() {
+            return new TreeMap<>(parametri);
+        }
+
+        private static long righeModificate(Object risultato) {
+            if (risultato instanceof Integer n) return Math.max(n, 0);
+            if (risultato instanceof Long n) return Math.max(n, 0);
+            if (risultato instanceof int[] batch) {
+                long totale = 0;
+                for (int n : batch) totale += Math.max(n, 0);
+                return totale;
+            }
+            if (risultato instanceof long[] batch) {
+                long totale = 0;
+                for (long n : batch) totale += Math.max(n, 0);
+                return totale;
+            }
+            return 0;
+        }
+
+        private static ResultSet avvolgiResultSet(ResultSet resultSet, QueryMetrics.StatisticheQuery query) {
+            return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new GestoreResultSet(resultSet, query));
+        }
+    }
+
+    /**
+     * Conta le righe lette e le aggiunge alle statistiche alla chiusura
+     */
+    private static final class GestoreResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryMetrics.StatisticheQuery query;
+        private long righeLette;
+        private boolean registrato;
+
+        private GestoreResultSet(ResultSet resultSet, QueryMetrics.StatisticheQuery query) {
+            this.resultSet = resultSet;
+            this.query = query;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argomenti) throws Throwable {
+            String nome = metodo.getName();
+            if (nome.equals("close") && !registrato) {
+                registrato = true;
+                query.aggiungiRighe(righeLette);
+            }
+
+            Object risultato = invoca(resultSet, metodo, argomenti);
+            if (nome.equals("next") && Boolean.TRUE.equals(risultato)) {
+                righeLette++;
+            }
+            return risultato;
+        }
+    }
+}
@@ -2,6 +2,7 @@
 
 import it.unina.uninafoodlab.model.Corso;
 import it.unina.uninafoodlab.model.CategoriaCorso;
+import it.unina.uninafoodlab.model.Sessione;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +17,8 @@
 public class CorsoDAO {
     private static final Logger logger = LoggerFactory.getLogger(CorsoDAO.class);
 
+    private final SessioneDAO sessioneDAO = new SessioneDAO();
+
     /**
      * Ottieni tutti i corsi di uno chef
      */
@@ -128,14 +131,55 @@ public Optional<Corso> findById(Integer id) {
      * Salva un nuovo corso
      */
     public Corso save(Corso corso) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return save(conn, corso);
+        } catch (SQLException e) {
+            logger.error("Errore durante il salvataggio del corso", e);
+            throw new RuntimeException(getErrorMessage(e), e);
+        }
+    }
+
+    /**
+     * Salva un nuovo corso insieme alle sue sessioni in un'unica transazione
+     */
+    public Corso saveConSessioni(Corso corso, List<Sessione> sessioni) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                save(conn, corso);
+                for (Sessione sessione : sessioni) {
+                    sessione.setCorsoId(corso.getId());
+                }
+                sessioneDAO.saveAll(conn, sessioni);
+                conn.commit();
+
+                logger.info("Corso ID {} salvato con {} sessioni", corso.getId(), sessioni.size());
+                return corso;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                corso.setId(null);
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.error("Errore durante il salvataggio del corso con sessioni", e);
+            throw new RuntimeException(getErrorMessage(e), e);
+        }
+    }
+
+    /**
+     * Inserisce il corso sulla connessione indicata, senza gestire la transazione
+     */
+    private Corso save(Connection conn, Corso corso) throws SQLException {
         String sql = """
-            INSERT INTO corsi (chef_id, categoria_id, titolo, descrizione, data_inizio, 
+            INSERT INTO corsi (chef_id, categoria_id, titolo, descrizione, data_inizio,
                               frequenza, numero_sessioni, prezzo, durata_corso, max_partecipanti)
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setInt(1, corso.getChefId());
             stmt.setInt(2, corso.getCategoriaId());
@@ -159,9 +203,6 @@ INSERT INTO corsi (chef_id, categoria_id, titolo, descrizione, data_inizio,
                     }
                 }
             }
-        } catch (SQLException e) {
-            logger.error("Errore durante il salvataggio del corso", e);
-            throw new RuntimeException(getErrorMessage(e), e);
         }
 
         throw new RuntimeException("Impossibile salvare il corso");
@@ -261,7 +302,7 @@ public List<CategoriaCorso> findAllCategorie() {
     /**
      * Mappa un ResultSet a un oggetto Corso
      */
-    private Corso mapResultSetToCorso(ResultSet rs) throws SQLException {
+    Corso mapResultSetToCorso(ResultSet rs) throws SQLException {
         Corso corso = new Corso();
         corso.setId(rs.getInt("id"));
         corso.setChefId(rs.getInt("chef_id"));
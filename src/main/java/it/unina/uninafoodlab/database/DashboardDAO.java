@@ -1,15 +1,19 @@
 package it.unina.uninafoodlab.database;
 
+import it.unina.uninafoodlab.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * DAO per la gestione della Dashboard utilizzando le view avanzate del database
@@ -17,132 +21,142 @@
 public class DashboardDAO {
     private static final Logger logger = LoggerFactory.getLogger(DashboardDAO.class);
 
+    // Letture della finestra dei report: oltre questo tempo il server annulla la query, così
+    // una lettura abbandonata da ReportSnapshot (dopo 10 s) non tiene occupata la connessione
+    static final int TIMEOUT_QUERY_REPORT_SECONDI = 15;
+
+    // Mapper delle righe più larghe, condivisi con i benchmark in src/jmh
+    static final RigaMapper<CorsoDettaglio> MAPPER_CORSO_DETTAGLIO = rs -> new CorsoDettaglio(
+        rs.getInt(1),
+        rs.getString(2),
+        rs.getString(3),
+        rs.getObject(4, LocalDate.class),
+        rs.getString(5),
+        rs.getInt(6),
+        rs.getBigDecimal(7),
+        rs.getString(8),
+        rs.getString(9),
+        rs.getString(10),
+        rs.getInt(11),
+        rs.getInt(12),
+        rs.getInt(13),
+        rs.getInt(14),
+        rs.getInt(15),
+        rs.getString(16),
+        rs.getBigDecimal(17));
+
+    static final RigaMapper<ChefPerformance> MAPPER_CHEF_PERFORMANCE = rs -> new ChefPerformance(
+        rs.getInt(1),
+        rs.getString(2),
+        rs.getString(3),
+        rs.getInt(4),
+        rs.getInt(5),
+        rs.getInt(6),
+        rs.getInt(7),
+        rs.getInt(8),
+        rs.getBigDecimal(9),
+        rs.getBigDecimal(10),
+        rs.getBigDecimal(11));
+
     /**
      * Ottieni metriche principali per la dashboard amministratore
      */
-    public List<Map<String, String>> getDashboardMetrics() {
-        List<Map<String, String>> metriche = new ArrayList<>();
+    public List<MetricaDashboard> getDashboardMetrics() {
         String sql = "SELECT metrica, valore, tipo FROM dashboard_admin ORDER BY metrica";
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Map<String, String> metrica = new HashMap<>();
-                metrica.put("metrica", rs.getString("metrica"));
-                metrica.put("valore", rs.getString("valore"));
-                metrica.put("tipo", rs.getString("tipo"));
-                metriche.add(metrica);
-            }
-            
-            logger.debug("Recuperate {} metriche dashboard", metriche.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero metriche dashboard", e);
-        }
-        
-        return metriche;
+        return eseguiLista(sql, ParametriQuery.NESSUNO,
+            rs -> new MetricaDashboard(rs.getString(1), rs.getString(2), rs.getString(3)),
+            "metriche dashboard");
     }
 
     /**
-     * Ottieni dettagli completi dei corsi
+     * Ottieni dettagli completi dei corsi (totali letti da corsi_statistiche)
      */
-    public List<Map<String, Object>> getCorsiDettaglio() {
-        List<Map<String, Object>> corsi = new ArrayList<>();
+    public List<CorsoDettaglio> getCorsiDettaglio() {
         String sql = """
             SELECT id, titolo, descrizione, data_inizio, frequenza, numero_sessioni, prezzo,
                    chef_nome, chef_specializzazione, categoria, iscritti_attivi, 
                    iscritti_completati, iscritti_annullati, numero_sessioni_programmate,
                    posti_disponibili, stato_corso, ricavo_corso
-            FROM corsi_dettaglio 
+            FROM corsi_dettaglio_aggregato 
             ORDER BY data_inizio DESC
             """;
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Map<String, Object> corso = new HashMap<>();
-                corso.put("id", rs.getInt("id"));
-                corso.put("titolo", rs.getString("titolo"));
-                corso.put("descrizione", rs.getString("descrizione"));
-                corso.put("dataInizio", rs.getDate("data_inizio"));
-                corso.put("frequenza", rs.getString("frequenza"));
-                corso.put("numeroSessioni", rs.getInt("numero_sessioni"));
-                corso.put("prezzo", rs.getBigDecimal("prezzo"));
-                corso.put("chefNome", rs.getString("chef_nome"));
-                corso.put("chefSpecializzazione", rs.getString("chef_specializzazione"));
-                corso.put("categoria", rs.getString("categoria"));
-                corso.put("iscrittiAttivi", rs.getInt("iscritti_attivi"));
-                corso.put("iscrittiCompletati", rs.getInt("iscritti_completati"));
-                corso.put("iscrittiAnnullati", rs.getInt("iscritti_annullati"));
-                corso.put("numeroSessioniProgrammate", rs.getInt("numero_sessioni_programmate"));
-                corso.put("postiDisponibili", rs.getInt("posti_disponibili"));
-                corso.put("statoCorso", rs.getString("stato_corso"));
-                corso.put("ricavoCorso", rs.getBigDecimal("ricavo_corso"));
-                
-                corsi.add(corso);
-            }
-            
-            logger.debug("Recuperati {} corsi dettaglio", corsi.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero corsi dettaglio", e);
-        }
-        
-        return corsi;
+        return eseguiLista(sql, ParametriQuery.NESSUNO, MAPPER_CORSO_DETTAGLIO, "corsi dettaglio");
     }
 
     /**
-     * Ottieni report performance dei chef
+     * Ottieni report performance dei chef (totali letti da chef_statistiche)
      */
-    public List<Map<String, Object>> getReportChef() {
-        List<Map<String, Object>> report = new ArrayList<>();
+    public List<ChefPerformance> getReportChef() {
         String sql = """
             SELECT chef_id, chef_nome, specializzazione, corsi_totali, corsi_futuri,
                    iscrizioni_totali, iscrizioni_attive, iscrizioni_completate,
                    tasso_completamento_percentuale, ricavo_totale, prezzo_medio_corsi
-            FROM report_chef 
+            FROM report_chef_aggregato 
             ORDER BY ricavo_totale DESC NULLS LAST
             """;
         
+        return eseguiLista(sql, ParametriQuery.NESSUNO, MAPPER_CHEF_PERFORMANCE, "report chef");
+    }
+
+    /**
+     * Confronta le statistiche aggregate con le viste corsi_dettaglio e report_chef.
+     * Restituisce le differenze trovate (lista vuota = statistiche allineate); a differenza
+     * delle altre letture un errore viene propagato, perché una lista vuota lo farebbe
+     * passare per una verifica riuscita
+     */
+    public List<DifferenzaStatistica> verificaStatisticheAggregate() {
+        String sql = """
+            SELECT tipo, riferimento_id, campo, valore_aggregato, valore_vista
+            FROM verifica_statistiche_aggregate()
+            ORDER BY tipo, riferimento_id, campo
+            """;
+        
+        List<DifferenzaStatistica> differenze = new ArrayList<>();
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                Map<String, Object> chef = new HashMap<>();
-                chef.put("chefId", rs.getInt("chef_id"));
-                chef.put("chefNome", rs.getString("chef_nome"));
-                chef.put("specializzazione", rs.getString("specializzazione"));
-                chef.put("corsiTotali", rs.getInt("corsi_totali"));
-                chef.put("corsiFuturi", rs.getInt("corsi_futuri"));
-                chef.put("iscrizioniTotali", rs.getInt("iscrizioni_totali"));
-                chef.put("iscrizioniAttive", rs.getInt("iscrizioni_attive"));
-                chef.put("iscrizioniCompletate", rs.getInt("iscrizioni_completate"));
-                chef.put("tassoCompletamento", rs.getBigDecimal("tasso_completamento_percentuale"));
-                chef.put("ricavoTotale", rs.getBigDecimal("ricavo_totale"));
-                chef.put("prezzoMedioCorsi", rs.getBigDecimal("prezzo_medio_corsi"));
-                
-                report.add(chef);
+                differenze.add(new DifferenzaStatistica(
+                    rs.getString(1),
+                    rs.getInt(2),
+                    rs.getString(3),
+                    rs.getBigDecimal(4),
+                    rs.getBigDecimal(5)));
             }
             
-            logger.debug("Recuperato report per {} chef", report.size());
-            
         } catch (SQLException e) {
-            logger.error("Errore nel recupero report chef", e);
+            logger.error("Errore nella verifica delle statistiche aggregate", e);
+            throw new RuntimeException("Errore nella verifica delle statistiche aggregate: " + e.getMessage(), e);
         }
         
-        return report;
+        return differenze;
+    }
+
+    /**
+     * Ricostruisce le statistiche aggregate dalle tabelle di base
+     */
+    public void ricalcolaStatisticheAggregate() {
+        String sql = "SELECT ricalcola_statistiche_aggregate()";
+        
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.execute();
+            logger.info("Statistiche aggregate ricalcolate");
+            
+        } catch (SQLException e) {
+            logger.error("Errore nel ricalcolo delle statistiche aggregate", e);
+            throw new RuntimeException("Errore nel ricalcolo delle statistiche aggregate", e);
+        }
     }
 
     /**
      * Ottieni analisi temporale delle iscrizioni
      */
-    public List<Map<String, Object>> getAnalisiTemporale(int limiteRecord) {
-        List<Map<String, Object>> analisi = new ArrayList<>();
+    public List<AnalisiMensile> getAnalisiTemporale(int limiteRecord) {
         String sql = """
             SELECT anno, mese, periodo, totale_iscrizioni, iscrizioni_attive,
                    iscrizioni_completate, iscrizioni_annullate, ricavo_mensile
@@ -151,34 +165,16 @@ public List<Map<String, Object>> getAnalisiTemporale(int limiteRecord) {
             LIMIT ?
             """;
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, limiteRecord);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> record = new HashMap<>();
-                    record.put("anno", rs.getInt("anno"));
-                    record.put("mese", rs.getInt("mese"));
-                    record.put("periodo", rs.getString("periodo"));
-                    record.put("totaleIscrizioni", rs.getInt("totale_iscrizioni"));
-                    record.put("iscrizioniAttive", rs.getInt("iscrizioni_attive"));
-                    record.put("iscrizioniCompletate", rs.getInt("iscritti_completati"));
-                    record.put("iscrizioniAnnullate", rs.getInt("iscrizioni_annullate"));
-                    record.put("ricavoMensile", rs.getBigDecimal("ricavo_mensile"));
-                    
-                    analisi.add(record);
-                }
-            }
-            
-            logger.debug("Recuperata analisi temporale: {} record", analisi.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero analisi temporale", e);
-        }
-        
-        return analisi;
+        return eseguiLista(sql, stmt -> stmt.setInt(1, limiteRecord), rs -> new AnalisiMensile(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getInt(6),
+                rs.getInt(7),
+                rs.getBigDecimal(8)),
+            "analisi temporale");
     }
 
     // Metodo getNotificheSistema rimosso: la sezione/feature 'notifiche' non è più prevista nell'interfaccia.
@@ -186,136 +182,269 @@ public List<Map<String, Object>> getAnalisiTemporale(int limiteRecord) {
     /**
      * Ottieni statistiche generali del sistema
      */
-    public Map<String, Object> getStatisticheGenerali() {
-        Map<String, Object> statistiche = new HashMap<>();
-        
-        // Query per varie statistiche
-        String[] queries = {
-            "SELECT COUNT(*) as totale_utenti FROM utenti WHERE attivo = TRUE",
-            "SELECT COUNT(*) as totale_chef FROM chef",
-            "SELECT COUNT(*) as totale_corsi FROM corsi",
-            "SELECT COUNT(*) as totale_iscrizioni FROM iscrizioni",
-            "SELECT COALESCE(SUM(prezzo), 0) as ricavo_potenziale FROM corsi c JOIN iscrizioni i ON c.id = i.corso_id WHERE i.stato IN ('ATTIVA', 'COMPLETATA')",
-            "SELECT AVG(calcola_eta(data_nascita)) as eta_media_utenti FROM utenti WHERE data_nascita IS NOT NULL"
-        };
-        
-        try (Connection conn = DatabaseManager.getConnection()) {
-            for (String query : queries) {
-                try (PreparedStatement stmt = conn.prepareStatement(query);
-                     ResultSet rs = stmt.executeQuery()) {
-                    
-                    if (rs.next()) {
-                        ResultSetMetaData metaData = rs.getMetaData();
-                        String columnName = metaData.getColumnName(1);
-                        Object value = rs.getObject(1);
-                        statistiche.put(columnName, value);
-                    }
-                }
-            }
-            
-            logger.debug("Calcolate statistiche generali: {}", statistiche);
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel calcolo statistiche generali", e);
-        }
+    public StatisticheGenerali getStatisticheGenerali() {
+        String sql = """
+            SELECT (SELECT COUNT(*) FROM utenti WHERE attivo = TRUE) AS totale_utenti,
+                   (SELECT COUNT(*) FROM chef) AS totale_chef,
+                   (SELECT COUNT(*) FROM corsi) AS totale_corsi,
+                   (SELECT COUNT(*) FROM iscrizioni) AS totale_iscrizioni,
+                   (SELECT COALESCE(SUM(prezzo), 0) FROM corsi c JOIN iscrizioni i ON c.id = i.corso_id
+                    WHERE i.stato IN ('ATTIVA', 'COMPLETATA')) AS ricavo_potenziale,
+                   (SELECT AVG(calcola_eta(data_nascita)) FROM utenti WHERE data_nascita IS NOT NULL) AS eta_media_utenti
+            """;
         
-        return statistiche;
+        List<StatisticheGenerali> risultato = eseguiLista(sql, ParametriQuery.NESSUNO, rs -> new StatisticheGenerali(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getInt(3),
+                rs.getInt(4),
+                rs.getBigDecimal(5),
+                rs.getBigDecimal(6)),
+            "statistiche generali");
+        
+        return risultato.isEmpty()
+            ? new StatisticheGenerali(0, 0, 0, 0, BigDecimal.ZERO, null)
+            : risultato.get(0);
     }
 
     /**
      * Ottieni corsi che necessitano attenzione (pochi posti, inizio imminente, etc.)
+     * I posti disponibili vengono calcolati una sola volta per corso
      */
-    public List<Map<String, Object>> getCorsiAttenzione() {
-        List<Map<String, Object>> corsi = new ArrayList<>();
+    public List<CorsoAttenzione> getCorsiAttenzione() {
         String sql = """
             SELECT c.id, c.titolo, c.data_inizio,
-                   verifica_posti_disponibili(c.id) as posti_disponibili,
-                   EXTRACT(DAYS FROM (c.data_inizio - CURRENT_DATE)) as giorni_inizio,
+                   p.posti_disponibili,
+                   (c.data_inizio - CURRENT_DATE) as giorni_inizio,
                    ch.nome || ' ' || ch.cognome as chef_nome,
                    CASE 
-                       WHEN verifica_posti_disponibili(c.id) = 0 THEN 'PIENO'
-                       WHEN verifica_posti_disponibili(c.id) <= 3 THEN 'POCHI_POSTI'
+                       WHEN p.posti_disponibili = 0 THEN 'PIENO'
+                       WHEN p.posti_disponibili <= 3 THEN 'POCHI_POSTI'
                        WHEN c.data_inizio BETWEEN CURRENT_DATE AND CURRENT_DATE + INTERVAL '7 days' THEN 'INIZIO_IMMINENTE'
                        ELSE 'OK'
                    END as stato_attenzione
             FROM corsi c
             JOIN chef ch ON c.chef_id = ch.id
+            CROSS JOIN LATERAL (SELECT verifica_posti_disponibili(c.id) as posti_disponibili) p
             WHERE c.data_inizio >= CURRENT_DATE
             AND (
-                verifica_posti_disponibili(c.id) <= 3 OR
+                p.posti_disponibili <= 3 OR
                 c.data_inizio BETWEEN CURRENT_DATE AND CURRENT_DATE + INTERVAL '7 days'
             )
             ORDER BY giorni_inizio, posti_disponibili
             """;
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        return eseguiLista(sql, ParametriQuery.NESSUNO, rs -> new CorsoAttenzione(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getObject(3, LocalDate.class),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getString(6),
+                rs.getString(7)),
+            "corsi che necessitano attenzione");
+    }
+
+    // Le query mensili sono costanti per poterne verificare il piano in PianiQueryMensiliTest.
+    // Parametri: tre volte chef e periodo (iscrizioni, sessioni, corsi), poi chef
+    static final String SQL_REPORT_MENSILE = """
+        WITH iscrizioni_mese AS (
+            SELECT COUNT(*) AS totale_iscrizioni,
+                   COUNT(*) FILTER (WHERE i.stato = 'ATTIVA') AS iscrizioni_attive,
+                   COUNT(*) FILTER (WHERE i.stato = 'COMPLETATA') AS iscrizioni_completate,
+                   COALESCE(SUM(c.prezzo) FILTER (WHERE i.stato IN ('ATTIVA', 'COMPLETATA')), 0) AS ricavo_mensile
+            FROM iscrizioni i
+            JOIN corsi c ON i.corso_id = c.id
+            WHERE c.chef_id = ?
+              AND i.data_iscrizione >= ? AND i.data_iscrizione < ?
+        ),
+        sessioni_mese AS (
+            SELECT s.id, s.corso_id, s.tipo
+            FROM sessioni s
+            JOIN corsi c ON s.corso_id = c.id
+            WHERE c.chef_id = ?
+              AND s.data_sessione >= ? AND s.data_sessione < ?
+        ),
+        corsi_mese AS (
+            SELECT COUNT(*) AS numero_corsi
+            FROM corsi c
+            WHERE c.chef_id = ?
+              AND ((c.data_inizio >= ? AND c.data_inizio < ?)
+                   OR c.id IN (SELECT corso_id FROM sessioni_mese))
+        ),
+        sessioni_stats AS (
+            SELECT COUNT(*) FILTER (WHERE tipo = 'online') AS sessioni_online,
+                   COUNT(*) FILTER (WHERE tipo IN ('presenza', 'pratica')) AS sessioni_pratiche,
+                   (SELECT COUNT(sr.ricetta_id)
+                    FROM sessioni_ricette sr
+                    JOIN sessioni_mese sm ON sr.sessione_id = sm.id) AS ricette_totali
+            FROM sessioni_mese
+        )
+        SELECT r.chef_nome, r.specializzazione, r.corsi_totali, r.iscrizioni_totali,
+               r.tasso_completamento_percentuale, r.ricavo_totale,
+               im.totale_iscrizioni, im.iscrizioni_attive, im.iscrizioni_completate, im.ricavo_mensile,
+               cm.numero_corsi, ss.sessioni_online, ss.sessioni_pratiche, ss.ricette_totali
+        FROM report_chef_aggregato r
+        CROSS JOIN iscrizioni_mese im
+        CROSS JOIN corsi_mese cm
+        CROSS JOIN sessioni_stats ss
+        WHERE r.chef_id = ?
+        """;
+
+    /**
+     * Genera report mensile per chef con un'unica query: totali dello chef da
+     * report_chef_aggregato e statistiche del mese calcolate nelle CTE
+     */
+    public Optional<ReportMensileChef> generaReportMensile(Integer chefId, int mese, int anno) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return generaReportMensile(conn, chefId, mese, anno);
+        } catch (SQLException e) {
+            logger.error("Errore nella generazione report mensile per chef {}", chefId, e);
+        }
+        
+        return Optional.empty();
+    }
+
+    /**
+     * Report mensile dello chef sulla connessione indicata; gli errori vengono propagati,
+     * così un errore non si confonde con uno chef inesistente
+     */
+    public Optional<ReportMensileChef> generaReportMensile(Connection conn, Integer chefId, int mese, int anno)
+            throws SQLException {
+        PeriodoMensile periodo = PeriodoMensile.di(anno, mese);
+        
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_REPORT_MENSILE)) {
+            stmt.setQueryTimeout(TIMEOUT_QUERY_REPORT_SECONDI);
             
-            while (rs.next()) {
-                Map<String, Object> corso = new HashMap<>();
-                corso.put("id", rs.getInt("id"));
-                corso.put("titolo", rs.getString("titolo"));
-                corso.put("dataInizio", rs.getDate("data_inizio"));
-                corso.put("postiDisponibili", rs.getInt("posti_disponibili"));
-                corso.put("giorniInizio", rs.getInt("giorni_inizio"));
-                corso.put("chefNome", rs.getString("chef_nome"));
-                corso.put("statoAttenzione", rs.getString("stato_attenzione"));
-                
-                corsi.add(corso);
+            int indice = 1;
+            for (int i = 0; i < 3; i++) {
+                stmt.setInt(indice++, chefId);
+                indice = periodo.imposta(stmt, indice);
             }
+            stmt.setInt(indice, chefId);
             
-            logger.debug("Trovati {} corsi che necessitano attenzione", corsi.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero corsi che necessitano attenzione", e);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    ReportMensileChef report = mappaReportMensile(rs, mese, anno);
+                    
+                    logger.debug("Report mensile generato per chef {}: {}/{}", chefId, mese, anno);
+                    return Optional.of(report);
+                }
+            }
         }
         
-        return corsi;
+        logger.warn("Nessun chef trovato con ID {} per il report mensile", chefId);
+        return Optional.empty();
     }
 
     /**
-     * Genera report mensile per chef utilizzando le view avanzate
+     * Report mensili di tutti gli chef con un'unica query (le stesse statistiche di
+     * {@link #generaReportMensile}, raggruppate per chef), indicizzati per ID chef.
+     * Pensato per la generazione in blocco: a differenza delle altre letture un errore
+     * viene propagato, così il lavoro fallisce invece di produrre zero report
      */
-    public Map<String, Object> generaReportMensile(Integer chefId, int mese, int anno) {
-        Map<String, Object> report = new HashMap<>();
+    public Map<Integer, ReportMensileChef> generaReportMensiliTutti(int mese, int anno) {
+        PeriodoMensile periodo = PeriodoMensile.di(anno, mese);
         
-        // Utilizza la view report_chef per dati base
         String sql = """
-            SELECT chef_nome, specializzazione, corsi_totali, iscrizioni_totali,
-                   tasso_completamento_percentuale, ricavo_totale
-            FROM report_chef 
-            WHERE chef_id = ?
+            WITH iscrizioni_mese AS (
+                SELECT c.chef_id,
+                       COUNT(*) AS totale_iscrizioni,
+                       COUNT(*) FILTER (WHERE i.stato = 'ATTIVA') AS iscrizioni_attive,
+                       COUNT(*) FILTER (WHERE i.stato = 'COMPLETATA') AS iscrizioni_completate,
+                       COALESCE(SUM(c.prezzo) FILTER (WHERE i.stato IN ('ATTIVA', 'COMPLETATA')), 0) AS ricavo_mensile
+                FROM iscrizioni i
+                JOIN corsi c ON i.corso_id = c.id
+                WHERE i.data_iscrizione >= ? AND i.data_iscrizione < ?
+                GROUP BY c.chef_id
+            ),
+            sessioni_mese AS (
+                SELECT s.id, s.corso_id, c.chef_id, s.tipo
+                FROM sessioni s
+                JOIN corsi c ON s.corso_id = c.id
+                WHERE s.data_sessione >= ? AND s.data_sessione < ?
+            ),
+            corsi_mese AS (
+                SELECT c.chef_id, COUNT(*) AS numero_corsi
+                FROM corsi c
+                WHERE (c.data_inizio >= ? AND c.data_inizio < ?)
+                   OR c.id IN (SELECT corso_id FROM sessioni_mese)
+                GROUP BY c.chef_id
+            ),
+            sessioni_stats AS (
+                SELECT chef_id,
+                       COUNT(*) FILTER (WHERE tipo = 'online') AS sessioni_online,
+                       COUNT(*) FILTER (WHERE tipo IN ('presenza', 'pratica')) AS sessioni_pratiche
+                FROM sessioni_mese
+                GROUP BY chef_id
+            ),
+            ricette_mese AS (
+                SELECT sm.chef_id, COUNT(sr.ricetta_id) AS ricette_totali
+                FROM sessioni_ricette sr
+                JOIN sessioni_mese sm ON sr.sessione_id = sm.id
+                GROUP BY sm.chef_id
+            )
+            SELECT r.chef_id, r.chef_nome, r.specializzazione, r.corsi_totali, r.iscrizioni_totali,
+                   r.tasso_completamento_percentuale, r.ricavo_totale,
+                   COALESCE(im.totale_iscrizioni, 0) AS totale_iscrizioni,
+                   COALESCE(im.iscrizioni_attive, 0) AS iscrizioni_attive,
+                   COALESCE(im.iscrizioni_completate, 0) AS iscrizioni_completate,
+                   COALESCE(im.ricavo_mensile, 0) AS ricavo_mensile,
+                   COALESCE(cm.numero_corsi, 0) AS numero_corsi,
+                   COALESCE(ss.sessioni_online, 0) AS sessioni_online,
+                   COALESCE(ss.sessioni_pratiche, 0) AS sessioni_pratiche,
+                   COALESCE(rm.ricette_totali, 0) AS ricette_totali
+            FROM report_chef_aggregato r
+            LEFT JOIN iscrizioni_mese im ON im.chef_id = r.chef_id
+            LEFT JOIN corsi_mese cm ON cm.chef_id = r.chef_id
+            LEFT JOIN sessioni_stats ss ON ss.chef_id = r.chef_id
+            LEFT JOIN ricette_mese rm ON rm.chef_id = r.chef_id
+            ORDER BY r.chef_id
             """;
         
+        Map<Integer, ReportMensileChef> report = new LinkedHashMap<>();
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, chefId);
+            int indice = 1;
+            for (int i = 0; i < 3; i++) {
+                indice = periodo.imposta(stmt, indice);
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    report.put("chefNome", rs.getString("chef_nome"));
-                    report.put("specializzazione", rs.getString("specializzazione"));
-                    report.put("corsiTotali", rs.getInt("corsi_totali"));
-                    report.put("iscrizioniTotali", rs.getInt("iscrizioni_totali"));
-                    report.put("tassoCompletamento", rs.getBigDecimal("tasso_completamento_percentuale"));
-                    report.put("ricavoTotale", rs.getBigDecimal("ricavo_totale"));
+                while (rs.next()) {
+                    report.put(rs.getInt("chef_id"), mappaReportMensile(rs, mese, anno));
                 }
             }
             
-            // Aggiungi statistiche mensili specifiche
-            report.putAll(getStatisticheMensili(chefId, mese, anno));
-            
-            logger.debug("Report mensile generato per chef {}: {}/{}", chefId, mese, anno);
-            
+            logger.debug("Report mensili {}/{} generati per {} chef", mese, anno, report.size());
         } catch (SQLException e) {
-            logger.error("Errore nella generazione report mensile per chef {}", chefId, e);
+            logger.error("Errore nella generazione dei report mensili {}/{}", mese, anno, e);
+            throw new RuntimeException("Errore nella generazione dei report mensili: " + e.getMessage(), e);
         }
         
         return report;
     }
 
+    private static ReportMensileChef mappaReportMensile(ResultSet rs, int mese, int anno) throws SQLException {
+        return new ReportMensileChef(
+            mese, anno,
+            rs.getString("chef_nome"),
+            rs.getString("specializzazione"),
+            rs.getInt("corsi_totali"),
+            rs.getInt("iscrizioni_totali"),
+            rs.getBigDecimal("tasso_completamento_percentuale"),
+            rs.getBigDecimal("ricavo_totale"),
+            rs.getInt("totale_iscrizioni"),
+            rs.getInt("iscrizioni_attive"),
+            rs.getInt("iscrizioni_completate"),
+            rs.getBigDecimal("ricavo_mensile"),
+            rs.getInt("numero_corsi"),
+            rs.getInt("sessioni_online"),
+            rs.getInt("sessioni_pratiche"),
+            rs.getInt("ricette_totali"));
+    }
+
     /**
      * Ottieni mesi disponibili per un chef
      */
@@ -348,106 +477,73 @@ SELECT DISTINCT TO_CHAR(data_inizio, 'MM/YYYY') as mese_anno
         return mesi;
     }
 
+    // Parametri: chef e periodo
+    static final String SQL_STATISTICHE_CORSI = """
+        SELECT titolo, iscritti_attivi, iscritti_completati, 
+               posti_disponibili, ricavo_corso, stato_corso
+        FROM corsi_dettaglio_aggregato 
+        WHERE id IN (
+            SELECT id FROM corsi 
+            WHERE chef_id = ? 
+            AND data_inizio >= ? AND data_inizio < ?
+        )
+        ORDER BY ricavo_corso DESC
+        """;
+
     /**
      * Ottieni statistiche corsi per chef in un periodo
      */
-    public List<Map<String, Object>> getStatisticheCorsi(Integer chefId, int mese, int anno) {
-        List<Map<String, Object>> statistiche = new ArrayList<>();
-        String sql = """
-            SELECT titolo, iscritti_attivi, iscritti_completati, 
-                   posti_disponibili, ricavo_corso, stato_corso
-            FROM corsi_dettaglio 
-            WHERE id IN (
-                SELECT id FROM corsi 
-                WHERE chef_id = ? 
-                AND EXTRACT(MONTH FROM data_inizio) = ? 
-                AND EXTRACT(YEAR FROM data_inizio) = ?
-            )
-            ORDER BY ricavo_corso DESC
-            """;
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> stat = new HashMap<>();
-                    stat.put("titolo", rs.getString("titolo"));
-                    stat.put("iscrittiAttivi", rs.getInt("iscritti_attivi"));
-                    stat.put("iscrittiCompletati", rs.getInt("iscritti_completati"));
-                    stat.put("postiDisponibili", rs.getInt("posti_disponibili"));
-                    stat.put("ricavoCorso", rs.getBigDecimal("ricavo_corso"));
-                    stat.put("statoCorso", rs.getString("stato_corso"));
-                    statistiche.add(stat);
-                }
-            }
-            
-            logger.debug("Trovate statistiche per {} corsi", statistiche.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero statistiche corsi", e);
-        }
-        
-        return statistiche;
+    public List<StatisticaCorsoMese> getStatisticheCorsi(Integer chefId, int mese, int anno) {
+        return eseguiLista(SQL_STATISTICHE_CORSI, stmt -> {
+                stmt.setInt(1, chefId);
+                PeriodoMensile.di(anno, mese).imposta(stmt, 2);
+            },
+            rs -> new StatisticaCorsoMese(
+                rs.getString(1),
+                rs.getInt(2),
+                rs.getInt(3),
+                rs.getInt(4),
+                rs.getBigDecimal(5),
+                rs.getString(6)),
+            "statistiche corsi");
     }
 
+    // Parametri: chef e periodo
+    static final String SQL_STATISTICHE_SESSIONI = """
+        SELECT s.titolo, s.tipo, s.data_sessione, s.durata_minuti,
+               c.titolo as corso_titolo,
+               COUNT(sr.ricetta_id) as numero_ricette
+        FROM sessioni s
+        JOIN corsi c ON s.corso_id = c.id
+        LEFT JOIN sessioni_ricette sr ON s.id = sr.sessione_id
+        WHERE c.chef_id = ?
+        AND s.data_sessione >= ? AND s.data_sessione < ?
+        GROUP BY s.id, s.titolo, s.tipo, s.data_sessione, s.durata_minuti, c.titolo
+        ORDER BY s.data_sessione
+        """;
+
     /**
      * Ottieni statistiche sessioni per chef in un periodo
      */
-    public List<Map<String, Object>> getStatisticheSessioni(Integer chefId, int mese, int anno) {
-        List<Map<String, Object>> statistiche = new ArrayList<>();
-        String sql = """
-            SELECT s.titolo, s.tipo, s.data_sessione, s.durata_minuti,
-                   c.titolo as corso_titolo,
-                   COUNT(sr.ricetta_id) as numero_ricette
-            FROM sessioni s
-            JOIN corsi c ON s.corso_id = c.id
-            LEFT JOIN sessioni_ricette sr ON s.id = sr.sessione_id
-            WHERE c.chef_id = ?
-            AND EXTRACT(MONTH FROM s.data_sessione) = ?
-            AND EXTRACT(YEAR FROM s.data_sessione) = ?
-            GROUP BY s.id, s.titolo, s.tipo, s.data_sessione, s.durata_minuti, c.titolo
-            ORDER BY s.data_sessione
-            """;
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> stat = new HashMap<>();
-                    stat.put("titoloSessione", rs.getString("titolo"));
-                    stat.put("tipo", rs.getString("tipo"));
-                    stat.put("dataSessione", rs.getDate("data_sessione"));
-                    stat.put("durataMinuti", rs.getInt("durata_minuti"));
-                    stat.put("corsoTitolo", rs.getString("corso_titolo"));
-                    stat.put("numeroRicette", rs.getInt("numero_ricette"));
-                    statistiche.add(stat);
-                }
-            }
-            
-            logger.debug("Trovate statistiche per {} sessioni", statistiche.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero statistiche sessioni", e);
-        }
-        
-        return statistiche;
+    public List<StatisticaSessioneMese> getStatisticheSessioni(Integer chefId, int mese, int anno) {
+        return eseguiLista(SQL_STATISTICHE_SESSIONI, stmt -> {
+                stmt.setInt(1, chefId);
+                PeriodoMensile.di(anno, mese).imposta(stmt, 2);
+            },
+            rs -> new StatisticaSessioneMese(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getObject(3, LocalDate.class),
+                rs.getInt(4),
+                rs.getString(5),
+                rs.getInt(6)),
+            "statistiche sessioni");
     }
 
     /**
      * Ottieni distribuzione ricette per chef in un periodo
      */
-    public List<Map<String, Object>> getDistribuzioneRicette(Integer chefId, int mese, int anno) {
-        List<Map<String, Object>> distribuzione = new ArrayList<>();
+    public List<UtilizzoRicetta> getDistribuzioneRicette(Integer chefId, int mese, int anno) {
         String sql = """
             SELECT r.nome as ricetta_nome, r.difficolta, r.tempo_preparazione,
                    COUNT(sr.sessione_id) as utilizzi,
@@ -457,207 +553,22 @@ public List<Map<String, Object>> getDistribuzioneRicette(Integer chefId, int mes
             JOIN sessioni s ON sr.sessione_id = s.id
             JOIN corsi c ON s.corso_id = c.id
             WHERE r.chef_id = ?
-            AND EXTRACT(MONTH FROM s.data_sessione) = ?
-            AND EXTRACT(YEAR FROM s.data_sessione) = ?
+            AND s.data_sessione >= ? AND s.data_sessione < ?
             GROUP BY r.id, r.nome, r.difficolta, r.tempo_preparazione
             ORDER BY utilizzi DESC, r.nome
             """;
         
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> dist = new HashMap<>();
-                    dist.put("ricettaNome", rs.getString("ricetta_nome"));
-                    dist.put("difficolta", rs.getInt("difficolta"));
-                    dist.put("tempoPreparazione", rs.getInt("tempo_preparazione"));
-                    dist.put("utilizzi", rs.getInt("utilizzi"));
-                    dist.put("corsiUtilizzati", rs.getString("corsi_utilizzati"));
-                    distribuzione.add(dist);
-                }
-            }
-            
-            logger.debug("Trovata distribuzione per {} ricette", distribuzione.size());
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero distribuzione ricette", e);
-        }
-        
-        return distribuzione;
-    }
-
-    /**
-     * Metodo helper per statistiche mensili specifiche
-     */
-    private Map<String, Object> getStatisticheMensili(Integer chefId, int mese, int anno) {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Query semplificata per ottenere statistiche mensili per uno specifico chef
-        String sql = """
-            SELECT 
-                COUNT(*) as totale_iscrizioni,
-                COUNT(*) FILTER (WHERE i.stato = 'ATTIVA') as iscrizioni_attive,
-                COUNT(*) FILTER (WHERE i.stato = 'COMPLETATA') as iscrizioni_completate,
-                COALESCE(SUM(c.prezzo) FILTER (WHERE i.stato IN ('ATTIVA', 'COMPLETATA')), 0) as ricavo_mensile
-            FROM iscrizioni i
-            JOIN corsi c ON i.corso_id = c.id
-            WHERE c.chef_id = ?
-            AND EXTRACT(YEAR FROM i.data_iscrizione) = ?
-            AND EXTRACT(MONTH FROM i.data_iscrizione) = ?
-            """;
-        
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, chefId);
-            stmt.setInt(2, anno);
-            stmt.setInt(3, mese);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    stats.put("iscrizioniMensili", rs.getInt("totale_iscrizioni"));
-                    stats.put("iscrizioniAttiveMensili", rs.getInt("iscrizioni_attive"));
-                    stats.put("iscrizioniCompletateMensili", rs.getInt("iscrizioni_completate"));
-                    stats.put("ricavoMensile", rs.getBigDecimal("ricavo_mensile"));
-                } else {
-                    // Valori di default se non ci sono dati
-                    stats.put("iscrizioniMensili", 0);
-                    stats.put("iscrizioniAttiveMensili", 0);
-                    stats.put("iscrizioniCompletateMensili", 0);
-                    stats.put("ricavoMensile", BigDecimal.ZERO);
-                }
-            }
-            
-            // Aggiungi statistiche sui corsi per il mese specifico
-            aggiungiStatisticheCorsiMensili(stats, chefId, mese, anno);
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero statistiche mensili", e);
-            // Valori di default in caso di errore
-            stats.put("iscrizioniMensili", 0);
-            stats.put("iscrizioniAttiveMensili", 0);
-            stats.put("iscrizioniCompletateMensili", 0);
-            stats.put("ricavoMensile", BigDecimal.ZERO);
-        }
-        
-        return stats;
-    }
-    
-    /**
-     * Aggiunge statistiche sui corsi, sessioni e ricette per il mese specifico
-     */
-    private void aggiungiStatisticheCorsiMensili(Map<String, Object> stats, Integer chefId, int mese, int anno) {
-        try {
-            // Query per corsi attivi nel mese
-            String sqlCorsi = """
-                SELECT COUNT(DISTINCT c.id) as numeroCorsiTotali
-                FROM corsi c
-                WHERE c.chef_id = ?
-                AND (
-                    (EXTRACT(YEAR FROM c.data_inizio) = ? AND EXTRACT(MONTH FROM c.data_inizio) = ?)
-                    OR EXISTS (
-                        SELECT 1 FROM sessioni s 
-                        WHERE s.corso_id = c.id 
-                        AND EXTRACT(YEAR FROM s.data_sessione) = ? 
-                        AND EXTRACT(MONTH FROM s.data_sessione) = ?
-                    )
-                )
-                """;
-            
-            // Query per sessioni del mese
-            String sqlSessioni = """
-                SELECT 
-                    COUNT(*) as numeroSessioniTotali,
-                    COUNT(*) FILTER (WHERE tipo = 'online') as numeroSessioniOnline,
-                    COUNT(*) FILTER (WHERE tipo IN ('presenza', 'pratica')) as numeroSessioniPratiche
-                FROM sessioni s
-                JOIN corsi c ON s.corso_id = c.id
-                WHERE c.chef_id = ?
-                AND EXTRACT(YEAR FROM s.data_sessione) = ?
-                AND EXTRACT(MONTH FROM s.data_sessione) = ?
-                """;
-            
-            // Query per ricette associate
-            String sqlRicette = """
-                WITH ricette_sessione AS (
-                    SELECT s.id as sessione_id,
-                           COUNT(sr.ricetta_id) as num_ricette
-                    FROM sessioni s
-                    JOIN corsi c ON s.corso_id = c.id
-                    LEFT JOIN sessioni_ricette sr ON s.id = sr.sessione_id
-                    WHERE c.chef_id = ?
-                      AND EXTRACT(YEAR FROM s.data_sessione) = ?
-                      AND EXTRACT(MONTH FROM s.data_sessione) = ?
-                    GROUP BY s.id
-                )
-                SELECT COALESCE(SUM(num_ricette),0) AS ricetteTotali
-                FROM ricette_sessione
-                """;
-            
-            try (Connection conn = DatabaseManager.getConnection()) {
-                // Esegui query per corsi
-                try (PreparedStatement stmt = conn.prepareStatement(sqlCorsi)) {
-                    stmt.setInt(1, chefId);
-                    stmt.setInt(2, anno);
-                    stmt.setInt(3, mese);
-                    stmt.setInt(4, anno);
-                    stmt.setInt(5, mese);
-                    
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            stats.put("numeroCorsiTotali", rs.getInt("numeroCorsiTotali"));
-                        } else {
-                            stats.put("numeroCorsiTotali", 0);
-                        }
-                    }
-                }
-                
-                // Esegui query per sessioni
-                try (PreparedStatement stmt = conn.prepareStatement(sqlSessioni)) {
-                    stmt.setInt(1, chefId);
-                    stmt.setInt(2, anno);
-                    stmt.setInt(3, mese);
-                    
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            stats.put("numeroSessioniOnline", rs.getInt("numeroSessioniOnline"));
-                            stats.put("numeroSessioniPratiche", rs.getInt("numeroSessioniPratiche"));
-                        } else {
-                            stats.put("numeroSessioniOnline", 0);
-                            stats.put("numeroSessioniPratiche", 0);
-                        }
-                    }
-                }
-                
-                // Esegui query per ricette
-                try (PreparedStatement stmt = conn.prepareStatement(sqlRicette)) {
-                    stmt.setInt(1, chefId);
-                    stmt.setInt(2, anno);
-                    stmt.setInt(3, mese);
-                    
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            stats.put("ricetteTotali", rs.getInt("ricetteTotali"));
-                        } else {
-                            stats.put("ricetteTotali", 0);
-                        }
-                    }
-                }
-            }
-            
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero statistiche corsi mensili", e);
-            // Valori di default in caso di errore
-            stats.put("numeroCorsiTotali", 0);
-            stats.put("numeroSessioniOnline", 0);
-            stats.put("numeroSessioniPratiche", 0);
-            stats.put("ricetteTotali", 0);
-        }
+        return eseguiLista(sql, stmt -> {
+                stmt.setInt(1, chefId);
+                PeriodoMensile.di(anno, mese).imposta(stmt, 2);
+            },
+            rs -> new UtilizzoRicetta(
+                rs.getString(1),
+                rs.getInt(2),
+                rs.getInt(3),
+                rs.getInt(4),
+                rs.getString(5)),
+            "distribuzione ricette");
     }
 
     /**
@@ -682,6 +593,7 @@ HAVING COUNT(c.id) > 0
         
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(TIMEOUT_QUERY_REPORT_SECONDI);
             
             stmt.setInt(1, chefId);
             
@@ -728,6 +640,7 @@ WHEN s.tipo IN ('presenza', 'pratica') THEN 'Presenza'
         
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(TIMEOUT_QUERY_REPORT_SECONDI);
             
             stmt.setInt(1, chefId);
             
@@ -818,8 +731,7 @@ WITH ricette_utilizzate AS (
                 JOIN sessioni_ricette sr ON s.id = sr.sessione_id
                 JOIN ricette r ON sr.ricetta_id = r.id
                 WHERE c.chef_id = ?
-                  AND EXTRACT(YEAR FROM s.data_sessione) = ?
-                  AND EXTRACT(MONTH FROM s.data_sessione) = ?
+                  AND s.data_sessione >= ? AND s.data_sessione < ?
             )
             SELECT CASE 
                         WHEN difficolta = 1 THEN 'FACILE'
@@ -833,9 +745,9 @@ AND EXTRACT(MONTH FROM s.data_sessione) = ?
             """;
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(TIMEOUT_QUERY_REPORT_SECONDI);
             stmt.setInt(1, chefId);
-            stmt.setInt(2, anno);
-            stmt.setInt(3, mese);
+            PeriodoMensile.di(anno, mese).imposta(stmt, 2);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     distribuzione.put(rs.getString("bucket"), rs.getInt("numero_ricette"));
@@ -862,12 +774,15 @@ public Map<String, Map<String, Integer>> getAndamentoMensile(Integer chefId) {
         }
         
         // Recupera sempre gli ultimi 12 mesi (includendo quelli senza dati) in ordine cronologico crescente
-        // Usa generate_series per creare l'elenco dei mesi
+        // Usa generate_series per creare l'elenco dei mesi; corsi e sessioni sono letti solo nell'intervallo
+        YearMonth meseCorrente = YearMonth.now();
+        PeriodoMensile periodo = PeriodoMensile.tra(meseCorrente.minusMonths(11), meseCorrente);
+        
         String sql = """
             WITH mesi AS (
                 SELECT generate_series(
-                    date_trunc('month', CURRENT_DATE) - INTERVAL '11 months',
-                    date_trunc('month', CURRENT_DATE),
+                    date_trunc('month', CAST(? AS date)),
+                    date_trunc('month', CAST(? AS date) - 1),
                     interval '1 month'
                 ) AS primo_giorno
             ),
@@ -875,6 +790,7 @@ corsi_mensili AS (
                 SELECT date_trunc('month', data_inizio) AS mese, COUNT(*) AS numero_corsi
                 FROM corsi
                 WHERE chef_id = ?
+                  AND data_inizio >= ? AND data_inizio < ?
                 GROUP BY date_trunc('month', data_inizio)
             ),
             sessioni_mensili AS (
@@ -882,6 +798,7 @@ SELECT date_trunc('month', s.data_sessione) AS mese, COUNT(*) AS numero_sessioni
                 FROM sessioni s
                 JOIN corsi c ON s.corso_id = c.id
                 WHERE c.chef_id = ?
+                  AND s.data_sessione >= ? AND s.data_sessione < ?
                 GROUP BY date_trunc('month', s.data_sessione)
             )
             SELECT 
@@ -897,9 +814,13 @@ LEFT JOIN sessioni_mensili s ON date_trunc('month', s.mese) = m.primo_giorno
         
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setQueryTimeout(TIMEOUT_QUERY_REPORT_SECONDI);
             
-            stmt.setInt(1, chefId);
-            stmt.setInt(2, chefId);
+            int indice = periodo.imposta(stmt, 1);
+            stmt.setInt(indice++, chefId);
+            indice = periodo.imposta(stmt, indice);
+            stmt.setInt(indice++, chefId);
+            periodo.imposta(stmt, indice);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -933,4 +854,31 @@ LEFT JOIN sessioni_mensili s ON date_trunc('month', s.mese) = m.primo_giorno
         
         return andamento;
     }
+
+    /**
+     * Esegue una query e converte ogni riga con il mapper indicato.
+     * In caso di errore registra il problema e restituisce una lista vuota
+     */
+    private <T> List<T> eseguiLista(String sql, ParametriQuery parametri, RigaMapper<T> mapper, String descrizione) {
+        List<T> risultato = new ArrayList<>();
+        
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            parametri.imposta(stmt);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    risultato.add(mapper.mappa(rs));
+                }
+            }
+            
+            logger.debug("Recuperati {} record: {}", risultato.size(), descrizione);
+            
+        } catch (SQLException e) {
+            logger.error("Errore nel recupero {}", descrizione, e);
+        }
+        
+        return risultato;
+    }
 }
@@ -17,6 +17,8 @@
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     private static HikariDataSource dataSource;
+    private static Properties configurazione;
+    private static AscoltoModifiche ascoltoModifiche;
     
     // Blocco di inizializzazione statico
     static {
@@ -29,6 +31,7 @@ public class DatabaseManager {
     private static void initializeDataSource() {
         try {
             Properties props = loadDatabaseProperties();
+            configurazione = props;
             
             HikariConfig config = new HikariConfig();
             config.setJdbcUrl(props.getProperty("db.url"));
@@ -47,8 +50,23 @@ private static void initializeDataSource() {
             config.addDataSourceProperty("cachePrepStmts", "true");
             config.addDataSourceProperty("prepStmtCacheSize", "250");
             config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            // Riscrive i batch di INSERT in INSERT multi-riga (una sola round trip)
+            config.addDataSourceProperty("reWriteBatchedInserts", "true");
+            
+            // Statistiche del pool (connessioni attive, in attesa...) visibili anche via JMX
+            config.setPoolName("UninaFoodLabPool");
+            config.setRegisterMbeans(true);
+            
+            QueryMetrics.getInstance().configura(props);
+            
+            // Con l'audit applicativo trigger_log_iscrizioni non registra inserimenti e cambi di stato
+            AuditIscrizioni.getInstance().configura(props);
+            if (AuditIscrizioni.getInstance().isAbilitato()) {
+                config.addDataSourceProperty("options", "-c " + AuditIscrizioni.PARAMETRO_SESSIONE + "=on");
+            }
             
             dataSource = new HikariDataSource(config);
+            AuditIscrizioni.getInstance().avvia();
             
             logger.info("Pool di connessioni HikariCP inizializzato con successo");
             
@@ -72,6 +90,10 @@ private static Properties loadDatabaseProperties() throws IOException {
                 props.setProperty("db.pool.maximum", "10");
                 props.setProperty("db.pool.minimum", "2");
                 props.setProperty("db.pool.timeout", "30000");
+                props.setProperty("db.metrics.enabled", "true");
+                props.setProperty("db.metrics.slow.query.ms", "500");
+                props.setProperty("db.metrics.report.interval.seconds", "300");
+                props.setProperty("db.notifications.enabled", "true");
                 logger.warn("File database.properties non trovato, utilizzando configurazione di default");
             } else {
                 props.load(input);
@@ -82,14 +104,34 @@ private static Properties loadDatabaseProperties() throws IOException {
     }
     
     /**
-     * Ottiene una connessione dal pool
+     * Ottiene una connessione dal pool. Con le metriche attive la connessione
+     * misura l'attesa sul pool e la durata di ogni query (vedi QueryMetrics)
      */
     public static Connection getConnection() throws SQLException {
         if (dataSource == null || dataSource.isClosed()) {
             logger.warn("DataSource non disponibile, reinizializzazione...");
             initializeDataSource();
         }
-        return dataSource.getConnection();
+        
+        QueryMetrics metriche = QueryMetrics.getInstance();
+        if (!metriche.isAbilitato()) {
+            return dataSource.getConnection();
+        }
+        
+        long inizio = System.nanoTime();
+        Connection connessione = dataSource.getConnection();
+        metriche.registraAttesaPool((System.nanoTime() - inizio) / 1000);
+        return ConnessioneMonitorata.avvolgi(connessione, metriche);
+    }
+    
+    /**
+     * Numero massimo di connessioni del pool, per dimensionare i lavori in parallelo
+     */
+    public static int getDimensioneMassimaPool() {
+        if (dataSource == null || dataSource.isClosed()) {
+            initializeDataSource();
+        }
+        return dataSource.getMaximumPoolSize();
     }
     
     /**
@@ -113,17 +155,53 @@ public static String getPoolStatus() {
                 dataSource.getHikariPoolMXBean().getActiveConnections(),
                 dataSource.getHikariPoolMXBean().getIdleConnections(),
                 dataSource.getHikariPoolMXBean().getTotalConnections(),
-                dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+                dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection())
+                + String.format(", Attesa media: %.1f ms, p99: %.1f ms",
+                    QueryMetrics.getInstance().getAttesaPoolMediaMs(),
+                    QueryMetrics.getInstance().getAttesaPoolP99Ms());
         }
         return "DataSource non inizializzato";
     }
     
     /**
-     * Chiude il pool di connessioni
+     * Registra un ascoltatore delle modifiche a corsi, ricette, iscrizioni e utenti notificate
+     * dai trigger del database. Il thread di ascolto parte alla prima registrazione; con
+     * db.notifications.enabled=false la registrazione non ha effetto e restituisce false
+     */
+    public static synchronized boolean aggiungiAscoltatoreModifiche(AscoltatoreModifiche ascoltatore) {
+        if (ascoltoModifiche == null) {
+            if (configurazione == null
+                    || !Boolean.parseBoolean(configurazione.getProperty("db.notifications.enabled", "true"))) {
+                logger.info("Notifiche delle modifiche disattivate");
+                return false;
+            }
+            ascoltoModifiche = new AscoltoModifiche(configurazione);
+            ascoltoModifiche.avvia();
+        }
+        ascoltoModifiche.aggiungi(ascoltatore);
+        return true;
+    }
+    
+    public static synchronized void rimuoviAscoltatoreModifiche(AscoltatoreModifiche ascoltatore) {
+        if (ascoltoModifiche != null) {
+            ascoltoModifiche.rimuovi(ascoltatore);
+        }
+    }
+    
+    /**
+     * Chiude il pool di connessioni e l'ascolto delle modifiche
      */
     public static void closeDataSource() {
+        synchronized (DatabaseManager.class) {
+            if (ascoltoModifiche != null) {
+                ascoltoModifiche.arresta();
+                ascoltoModifiche = null;
+            }
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             logger.info("Chiusura pool di connessioni...");
+            AuditIscrizioni.getInstance().chiudi();
+            QueryMetrics.getInstance().arresta();
             dataSource.close();
             logger.info("Pool di connessioni chiuso correttamente");
         }
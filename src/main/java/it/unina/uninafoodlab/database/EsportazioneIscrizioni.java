@@ -0,0 +1,146 @@
+package it.unina.uninafoodlab.database;
+
+import it.unina.uninafoodlab.utils.ScrittoreCsv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Esportazione in CSV della vista iscrizioni_complete. Le righe arrivano a blocchi da un
+ * cursore lato server (fetch size con autocommit disattivato) e vengono scritte subito
+ * su file, quindi la memoria usata è costante qualunque sia il numero di iscrizioni.
+ * Il file viene scritto accanto a quello di destinazione e rinominato solo a fine
+ * esportazione: un errore o un annullamento non lasciano file a metà.
+ */
+public final class EsportazioneIscrizioni {
+    private static final Logger logger = LoggerFactory.getLogger(EsportazioneIscrizioni.class);
+
+    private static final int DIMENSIONE_FETCH = 2000;
+    private static final int INTERVALLO_AVANZAMENTO = 5000;
+    private static final DateTimeFormatter DATA_ORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] INTESTAZIONE = {"id", "codice_iscrizione", "data_iscrizione", "stato", "note",
+        "utente", "email", "telefono", "eta", "livello_esperienza", "corso", "data_inizio_corso", "prezzo",
+        "chef", "categoria", "giorni_anticipo"};
+
+    /**
+     * Avanzamento dell'esportazione; il totale è una stima letta all'inizio
+     */
+    @FunctionalInterface
+    public interface Avanzamento {
+        void aggiorna(long righeScritte, long righeStimate);
+    }
+
+    /**
+     * Esporta tutte le iscrizioni nel file (compresso con gzip se richiesto) e
+     * restituisce il numero di righe scritte
+     */
+    public long esporta(Path file, boolean gzip, Avanzamento avanzamento) {
+        long inizio = System.currentTimeMillis();
+        Path parziale = file.resolveSibling(file.getFileName() + ".parziale");
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            // Senza transazione aperta il driver ignora la fetch size e legge tutto il risultato
+            conn.setAutoCommit(false);
+            try {
+                long righe;
+                try (ScrittoreCsv scrittore = new ScrittoreCsv(parziale, gzip)) {
+                    righe = esporta(conn, scrittore, avanzamento);
+                }
+                conn.commit();
+                Files.move(parziale, file, StandardCopyOption.REPLACE_EXISTING);
+
+                logger.info("Esportate {} iscrizioni in {} ({} ms)", righe, file.getFileName(),
+                    System.currentTimeMillis() - inizio);
+                return righe;
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                Files.deleteIfExists(parziale);
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (SQLException | IOException e) {
+            logger.error("Errore nell'esportazione delle iscrizioni in {}", file, e);
+            throw new RuntimeException("Errore nell'esportazione delle iscrizioni: " + e.getMessage(), e);
+        }
+    }
+
+    private long esporta(Connection conn, ScrittoreCsv scrittore, Avanzamento avanzamento)
+            throws SQLException, IOException {
+        String sql = """
+            SELECT id, codice_iscrizione, data_iscrizione, stato, note,
+                   utente_nome_completo, utente_email, utente_telefono, utente_eta, livello_esperienza,
+                   corso_titolo, corso_data_inizio, corso_prezzo, chef_nome, categoria_corso,
+                   giorni_anticipo_iscrizione
+            FROM iscrizioni_complete
+            """;
+
+        long stimate = stimaRighe(conn);
+        avanzamento.aggiorna(0, stimate);
+        scrittore.riga((Object[]) INTESTAZIONE);
+
+        long righe = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(DIMENSIONE_FETCH);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException("Esportazione annullata");
+                    }
+                    Timestamp dataIscrizione = rs.getTimestamp("data_iscrizione");
+                    BigDecimal prezzo = rs.getBigDecimal("corso_prezzo");
+                    BigDecimal giorniAnticipo = rs.getBigDecimal("giorni_anticipo_iscrizione");
+                    scrittore.riga(
+                        rs.getInt("id"),
+                        rs.getString("codice_iscrizione"),
+                        dataIscrizione != null ? DATA_ORA.format(dataIscrizione.toLocalDateTime()) : null,
+                        rs.getString("stato"),
+                        rs.getString("note"),
+                        rs.getString("utente_nome_completo"),
+                        rs.getString("utente_email"),
+                        rs.getString("utente_telefono"),
+                        rs.getObject("utente_eta"),
+                        rs.getString("livello_esperienza"),
+                        rs.getString("corso_titolo"),
+                        rs.getObject("corso_data_inizio"),
+                        prezzo != null ? prezzo.toPlainString() : null,
+                        rs.getString("chef_nome"),
+                        rs.getString("categoria_corso"),
+                        giorniAnticipo != null ? giorniAnticipo.intValue() : null);
+
+                    if (++righe % INTERVALLO_AVANZAMENTO == 0) {
+                        avanzamento.aggiorna(righe, Math.max(righe, stimate));
+                    }
+                }
+            }
+        }
+        avanzamento.aggiorna(righe, righe);
+        return righe;
+    }
+
+    /**
+     * Righe previste, contate sulla sola tabella iscrizioni per non eseguire due volte i join
+     */
+    private static long stimaRighe(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT count(*) FROM iscrizioni");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,578 @@
+package it.unina.uninafoodlab.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Genera dati sintetici (chef, corsi, sessioni, ricette, sessioni_ricette, utenti,
+ * iscrizioni) con distribuzioni realistiche, per riprodurre in locale volumi di produzione.
+ * I dati vengono aggiunti a quelli esistenti con COPY tramite {@link ScrittoreCopy}.
+ *
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=it.unina.uninafoodlab.database.GeneratoreDatiSintetici \
+ *     -Dexec.args="--chef=10000 --utenti=2000000"
+ * </pre>
+ */
+public final class GeneratoreDatiSintetici {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratoreDatiSintetici.class);
+
+    private static final String[] NOMI = {"Marco", "Laura", "Giuseppe", "Francesca", "Luca", "Giulia", "Antonio",
+        "Chiara", "Alessandro", "Sara", "Matteo", "Valentina", "Davide", "Martina", "Stefano", "Elena", "Andrea",
+        "Federica", "Paolo", "Anna"};
+    private static final String[] COGNOMI = {"Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo",
+        "Ricci", "Marino", "Greco", "Bruno", "Gallo", "Conti", "De Luca", "Mancini", "Costa", "Giordano", "Rizzo",
+        "Lombardi", "Moretti"};
+    private static final String[] SPECIALIZZAZIONI = {"Cucina Italiana", "Cucina Asiatica", "Pasticceria",
+        "Cucina Vegana", "Panificazione", "Cucina di Pesce", "Cucina Regionale", "Cucina Molecolare"};
+    private static final String[] TEMI = {"Pasta Fresca", "Pizza Napoletana", "Sushi", "Dolci al Cucchiaio",
+        "Lievitati", "Cucina di Mare", "Risotti", "Cucina Vegetale", "Cioccolato", "Street Food", "Carni alla Brace",
+        "Antipasti", "Cucina Francese", "Spezie e Curry", "Gelateria"};
+    private static final String[] LIVELLI_CORSO = {"Base", "Intermedio", "Avanzato", "Intensivo"};
+    private static final String[] PIATTI = {"Tagliatelle al Ragù", "Risotto alla Milanese", "Tiramisù", "Gnocchi",
+        "Parmigiana", "Nigiri", "Ramen", "Croissant", "Focaccia", "Cannoli", "Carbonara", "Panna Cotta",
+        "Baccalà Mantecato", "Curry Verde", "Sfogliatella"};
+
+    // Frequenze con il passo in giorni tra le sessioni (come calcolaProximaDataSessione) e il peso relativo
+    private static final String[] FREQUENZE = {"settimanale", "ogni_due_giorni", "giornaliero"};
+    private static final int[] PASSO_FREQUENZA = {7, 2, 1};
+    private static final double[] PESO_FREQUENZA = {0.7, 0.2, 0.1};
+
+    // Posti predefiniti di corsi_occupazione: le iscrizioni ATTIVA di un corso non li superano
+    private static final int POSTI_OCCUPABILI = 20;
+
+    private final Parametri parametri;
+    private final SplittableRandom random;
+    private final LocalDate oggi = LocalDate.now();
+    private final LocalDateTime adesso = LocalDateTime.now().withNano(0);
+
+    private int[] categorie;
+    private int primoChef;
+    private int primaRicetta;
+    private int primoCorso;
+    private int primoUtente;
+
+    // Ricette di ogni chef: [primaRicettaChef[c], primaRicettaChef[c] + ricetteChef[c])
+    private int[] primaRicettaChef;
+    private int[] ricetteChef;
+
+    // Dati dei corsi generati, indicizzati per posizione (id = primoCorso + posizione)
+    private int[] chefCorso;
+    private long[] inizioCorso;
+    private int[] sessioniCorso;
+    private int[] frequenzaCorso;
+    private int[] postiCorso;
+
+    // Tabelle già confermate, per dire cosa resta nel database se la generazione si interrompe
+    private final List<String> tabelleScritte = new ArrayList<>();
+
+    GeneratoreDatiSintetici(Parametri parametri) {
+        this.parametri = parametri;
+        this.random = new SplittableRandom(parametri.seme());
+    }
+
+    public static void main(String[] args) {
+        Parametri parametri;
+        try {
+            parametri = Parametri.da(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Parametri.USO);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            new GeneratoreDatiSintetici(parametri).genera();
+        } catch (SQLException e) {
+            logger.error("Generazione dei dati sintetici fallita", e);
+            System.exit(1);
+        } finally {
+            DatabaseManager.closeDataSource();
+        }
+    }
+
+    /**
+     * Genera tutte le tabelle, una transazione per tabella
+     */
+    void genera() throws SQLException {
+        logger.info("Generazione dati sintetici: {}", parametri);
+        long inizio = System.currentTimeMillis();
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            Exception errore = null;
+            try {
+                // Centinaia di migliaia di righe non devono arrivare ai client come notifiche
+                esegui(conn, "SET uninafoodlab.notifiche_disattivate = on");
+                // Le iscrizioni generate vengono registrate in log_iscrizioni dal trigger
+                esegui(conn, "SET uninafoodlab.audit_applicativo = off");
+                if (parametri.senzaTrigger()) {
+                    esegui(conn, "SET session_replication_role = replica");
+                }
+                conn.commit();
+
+                categorie = leggiCategorie(conn);
+                primoChef = massimoId(conn, "chef") + 1;
+                primaRicetta = massimoId(conn, "ricette") + 1;
+                primoCorso = massimoId(conn, "corsi") + 1;
+                primoUtente = massimoId(conn, "utenti") + 1;
+
+                generaChef(conn);
+                generaRicette(conn);
+                generaCorsi(conn);
+                generaSessioni(conn);
+                generaSessioniRicette(conn);
+                generaUtenti(conn);
+                generaIscrizioni(conn);
+
+                allineaSequenze(conn);
+                if (parametri.senzaTrigger()) {
+                    ricostruisciDatiDerivati(conn);
+                }
+            } catch (SQLException | RuntimeException e) {
+                errore = e;
+                // Ogni tabella è confermata appena caricata: il rollback annulla solo quella in
+                // corso, e un suo errore non deve nascondere quello che ha interrotto la generazione
+                try {
+                    conn.rollback();
+                } catch (SQLException erroreRollback) {
+                    e.addSuppressed(erroreRollback);
+                }
+                logger.error("Generazione interrotta. Tabelle già scritte e confermate: {}{}",
+                    tabelleScritte.isEmpty() ? "nessuna" : String.join(", ", tabelleScritte),
+                    parametri.senzaTrigger() && !tabelleScritte.isEmpty()
+                        ? "; contatori e statistiche aggregate non ricostruiti (ricalcola_statistiche_aggregate())" : "");
+                throw e;
+            } finally {
+                ripristinaSessione(conn, errore);
+            }
+
+            // ANALYZE fuori transazione, così le statistiche del planner vedono i nuovi volumi
+            for (String tabella : List.of("chef", "ricette", "corsi", "sessioni", "sessioni_ricette", "utenti", "iscrizioni")) {
+                esegui(conn, "ANALYZE public." + tabella);
+            }
+        }
+
+        logger.info("Generazione completata in {} s", (System.currentTimeMillis() - inizio) / 1000);
+    }
+
+    // ==================== TABELLE ====================
+
+    private void generaChef(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.chef",
+                "id", "username", "password", "nome", "cognome", "email", "specializzazione", "created_at")) {
+            for (int i = 0; i < parametri.chef(); i++) {
+                int id = primoChef + i;
+                String nome = scegli(NOMI);
+                String cognome = scegli(COGNOMI);
+                copia.riga(id, "chef_syn" + id, "password" + id, nome, cognome,
+                    email(nome, cognome, id, "uninafoodlab.it"), scegli(SPECIALIZZAZIONI),
+                    adesso.minusDays(random.nextInt(1500)));
+            }
+            concludi(conn, copia, "chef", avvio);
+        }
+    }
+
+    private void generaRicette(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        primaRicettaChef = new int[parametri.chef()];
+        ricetteChef = new int[parametri.chef()];
+
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.ricette",
+                "id", "chef_id", "nome", "descrizione", "difficolta", "tempo_preparazione", "numero_porzioni",
+                "istruzioni", "created_at")) {
+            int id = primaRicetta;
+            for (int c = 0; c < parametri.chef(); c++) {
+                primaRicettaChef[c] = id;
+                ricetteChef[c] = quantitaAsimmetrica(parametri.ricettePerChef());
+                for (int r = 0; r < ricetteChef[c]; r++, id++) {
+                    String piatto = scegli(PIATTI);
+                    copia.riga(id, primoChef + c, piatto + " " + id, "Variante della ricetta " + piatto,
+                        1 + random.nextInt(5), 10 + 5 * random.nextInt(36), 2 + random.nextInt(7),
+                        "Preparazione in " + (3 + random.nextInt(8)) + " passaggi",
+                        adesso.minusDays(random.nextInt(1000)));
+                }
+            }
+            concludi(conn, copia, "ricette", avvio);
+        }
+    }
+
+    private void generaCorsi(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+
+        int[] corsiChef = new int[parametri.chef()];
+        int totale = 0;
+        for (int c = 0; c < corsiChef.length; c++) {
+            corsiChef[c] = quantitaAsimmetrica(parametri.corsiPerChef());
+            totale += corsiChef[c];
+        }
+        chefCorso = new int[totale];
+        inizioCorso = new long[totale];
+        sessioniCorso = new int[totale];
+        frequenzaCorso = new int[totale];
+        postiCorso = new int[totale];
+
+        // Date di inizio tra tre anni fa e sei mesi da oggi
+        long primoGiorno = oggi.minusYears(3).toEpochDay();
+        int arcoGiorni = (int) (oggi.plusMonths(6).toEpochDay() - primoGiorno);
+
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.corsi",
+                "id", "chef_id", "categoria_id", "titolo", "descrizione", "data_inizio", "frequenza",
+                "numero_sessioni", "prezzo", "created_at", "durata_corso", "max_partecipanti")) {
+            int posizione = 0;
+            for (int c = 0; c < corsiChef.length; c++) {
+                for (int k = 0; k < corsiChef[c]; k++, posizione++) {
+                    chefCorso[posizione] = c;
+                    inizioCorso[posizione] = primoGiorno + random.nextInt(arcoGiorni);
+                    sessioniCorso[posizione] = 4 + random.nextInt(9);
+                    frequenzaCorso[posizione] = scegliPesato(PESO_FREQUENZA);
+                    postiCorso[posizione] = 8 + random.nextInt(23);
+
+                    LocalDate dataInizio = LocalDate.ofEpochDay(inizioCorso[posizione]);
+                    String tema = scegli(TEMI);
+                    copia.riga(primoCorso + posizione, primoChef + c, categorie[random.nextInt(categorie.length)],
+                        "Corso " + scegli(LIVELLI_CORSO) + " di " + tema, "Percorso pratico dedicato a " + tema,
+                        dataInizio, FREQUENZE[frequenzaCorso[posizione]], sessioniCorso[posizione], prezzo(),
+                        dataInizio.minusDays(15 + random.nextInt(60)).atTime(10, 0),
+                        Math.min(sessioniCorso[posizione], 8), postiCorso[posizione]);
+                }
+            }
+            concludi(conn, copia, "corsi", avvio);
+        }
+    }
+
+    private void generaSessioni(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.sessioni",
+                "corso_id", "numero_sessione", "data_sessione", "tipo", "titolo", "descrizione", "durata_minuti")) {
+            for (int posizione = 0; posizione < chefCorso.length; posizione++) {
+                for (int n = 1; n <= sessioniCorso[posizione]; n++) {
+                    boolean presenza = random.nextInt(10) < 7;
+                    copia.riga(primoCorso + posizione, n, dataSessione(posizione, n), presenza ? "presenza" : "online",
+                        "Lezione " + n, presenza ? "Sessione pratica in laboratorio" : "Lezione teorica online",
+                        presenza ? 180 : 90);
+                }
+            }
+            concludi(conn, copia, "sessioni", avvio);
+        }
+    }
+
+    /**
+     * Associa 1-3 ricette dello chef a ogni sessione in presenza. Gli id delle sessioni
+     * vengono letti dal database per (corso_id, numero_sessione) dopo la COPY
+     */
+    private void generaSessioniRicette(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        List<int[]> righe = new ArrayList<>();
+
+        String sql = "SELECT id, corso_id, numero_sessione FROM public.sessioni WHERE corso_id >= " + primoCorso
+            + " AND tipo = 'presenza'";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    righe.add(new int[]{rs.getInt(1), rs.getInt(2) - primoCorso});
+                }
+            }
+        }
+
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.sessioni_ricette",
+                "sessione_id", "ricetta_id", "ordine_esecuzione")) {
+            Set<Integer> scelte = new HashSet<>();
+            for (int[] sessione : righe) {
+                int chef = chefCorso[sessione[1]];
+                int disponibili = ricetteChef[chef];
+                int numero = Math.min(disponibili, 1 + random.nextInt(3));
+
+                scelte.clear();
+                while (scelte.size() < numero) {
+                    int ricetta = primaRicettaChef[chef] + random.nextInt(disponibili);
+                    if (scelte.add(ricetta)) {
+                        copia.riga(sessione[0], ricetta, scelte.size());
+                    }
+                }
+            }
+            concludi(conn, copia, "sessioni_ricette", avvio);
+        }
+    }
+
+    private void generaUtenti(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.utenti",
+                "id", "nome", "cognome", "email", "telefono", "created_at", "data_nascita", "livello_esperienza",
+                "attivo")) {
+            for (int i = 0; i < parametri.utenti(); i++) {
+                int id = primoUtente + i;
+                String nome = scegli(NOMI);
+                String cognome = scegli(COGNOMI);
+                double livello = random.nextDouble();
+                copia.riga(id, nome, cognome, email(nome, cognome, id, "email.it"),
+                    random.nextInt(10) < 8 ? "3" + (100_000_000 + random.nextInt(900_000_000)) : null,
+                    adesso.minusDays(random.nextInt(1500)).minusMinutes(random.nextInt(1440)),
+                    oggi.minusYears(18 + random.nextInt(50)).minusDays(random.nextInt(365)),
+                    livello < 0.6 ? "PRINCIPIANTE" : livello < 0.9 ? "INTERMEDIO" : "AVANZATO",
+                    random.nextInt(100) < 95);
+            }
+            concludi(conn, copia, "utenti", avvio);
+        }
+    }
+
+    /**
+     * Iscrizioni con popolarità asimmetrica: pochi utenti si iscrivono a molti corsi.
+     * I corsi conclusi hanno iscrizioni COMPLETATA, quelli futuri o in corso ATTIVA,
+     * con una quota di ANNULLATA in entrambi i casi
+     */
+    private void generaIscrizioni(Connection conn) throws SQLException {
+        long avvio = System.currentTimeMillis();
+        int primaIscrizione = massimoId(conn, "iscrizioni") + 1;
+
+        try (ScrittoreCopy copia = ScrittoreCopy.apri(conn, "public.iscrizioni",
+                "id", "utente_id", "corso_id", "data_iscrizione", "stato", "codice_iscrizione")) {
+            Set<Integer> iscritti = new HashSet<>();
+            int id = primaIscrizione;
+            for (int posizione = 0; posizione < chefCorso.length; posizione++) {
+                double riempimento = Math.min(1.0, parametri.riempimento() * (0.3 + 1.4 * random.nextDouble()));
+                int numero = Math.min((int) Math.round(postiCorso[posizione] * riempimento), parametri.utenti());
+                boolean concluso = dataSessione(posizione, sessioniCorso[posizione]).isBefore(oggi);
+                LocalDate dataInizio = LocalDate.ofEpochDay(inizioCorso[posizione]);
+
+                iscritti.clear();
+                int attive = 0;
+                while (iscritti.size() < numero) {
+                    int utente = primoUtente + (int) (parametri.utenti() * Math.pow(random.nextDouble(), 3));
+                    if (!iscritti.add(utente)) {
+                        continue;
+                    }
+
+                    String stato;
+                    if (random.nextInt(100) < 15) {
+                        stato = "ANNULLATA";
+                    } else if (concluso) {
+                        stato = "COMPLETATA";
+                    } else if (attive < POSTI_OCCUPABILI) {
+                        stato = "ATTIVA";
+                        attive++;
+                    } else {
+                        stato = "ANNULLATA";
+                    }
+
+                    LocalDateTime dataIscrizione = dataInizio.minusDays(1 + random.nextInt(60))
+                        .atTime(8 + random.nextInt(14), random.nextInt(60));
+                    if (dataIscrizione.isAfter(adesso)) {
+                        dataIscrizione = adesso.minusMinutes(random.nextInt(7 * 24 * 60));
+                    }
+
+                    // Con i trigger attivi il codice lo assegna trigger_codice_iscrizione
+                    String codice = parametri.senzaTrigger() ? "SYN" + id : null;
+                    copia.riga(id++, utente, primoCorso + posizione, dataIscrizione, stato, codice);
+                }
+            }
+            concludi(conn, copia, "iscrizioni", avvio);
+        }
+    }
+
+    // ==================== ALLINEAMENTO ====================
+
+    private void allineaSequenze(Connection conn) throws SQLException {
+        for (String tabella : List.of("chef", "ricette", "corsi", "sessioni", "sessioni_ricette", "utenti", "iscrizioni")) {
+            esegui(conn, "SELECT setval(pg_get_serial_sequence('public." + tabella + "', 'id'), "
+                + "(SELECT MAX(id) FROM public." + tabella + "))");
+        }
+        conn.commit();
+    }
+
+    /**
+     * Riporta la connessione allo stato del pool: le SET valgono per tutta la sessione e
+     * sono già confermate. Con la generazione fallita un errore qui viene solo aggiunto a
+     * quello originale
+     */
+    private void ripristinaSessione(Connection conn, Exception errore) throws SQLException {
+        try {
+            conn.setAutoCommit(true);
+            if (parametri.senzaTrigger()) {
+                esegui(conn, "RESET session_replication_role");
+            }
+            esegui(conn, "RESET uninafoodlab.notifiche_disattivate");
+            esegui(conn, "RESET uninafoodlab.audit_applicativo");
+        } catch (SQLException e) {
+            if (errore == null) {
+                throw e;
+            }
+            errore.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Con i trigger disattivati ricostruisce contatori e statistiche di performance_upgrade.sql
+     */
+    private void ricostruisciDatiDerivati(Connection conn) throws SQLException {
+        if (esiste(conn, "SELECT to_regclass('public.corsi_occupazione') IS NOT NULL")) {
+            esegui(conn, """
+                INSERT INTO public.corsi_occupazione (corso_id, posti_occupati)
+                SELECT c.id, COUNT(i.id) FILTER (WHERE i.stato = 'ATTIVA')
+                FROM public.corsi c
+                LEFT JOIN public.iscrizioni i ON i.corso_id = c.id
+                GROUP BY c.id
+                ON CONFLICT (corso_id) DO UPDATE
+                SET posti_occupati = EXCLUDED.posti_occupati,
+                    modified_at = CURRENT_TIMESTAMP
+                """);
+        }
+        if (esiste(conn, "SELECT to_regproc('public.ricalcola_statistiche_aggregate') IS NOT NULL")) {
+            esegui(conn, "SELECT public.ricalcola_statistiche_aggregate()");
+        }
+        conn.commit();
+        logger.info("Contatori e statistiche aggregate ricostruiti");
+    }
+
+    // ==================== UTILITÀ ====================
+
+    private void concludi(Connection conn, ScrittoreCopy copia, String tabella, long avvio) throws SQLException {
+        long righe = copia.completa();
+        conn.commit();
+        tabelleScritte.add(tabella);
+        long millisecondi = Math.max(System.currentTimeMillis() - avvio, 1);
+        logger.info("{}: {} righe in {} ms ({} righe/s)", tabella, righe, millisecondi, righe * 1000 / millisecondi);
+    }
+
+    private static int[] leggiCategorie(Connection conn) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM public.categorie_corsi ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new SQLException("Nessuna categoria in categorie_corsi: caricare prima predata_only.sql");
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int massimoId(Connection conn, String tabella) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM public." + tabella)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static boolean esiste(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static void esegui(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private LocalDate dataSessione(int posizione, int numeroSessione) {
+        return LocalDate.ofEpochDay(inizioCorso[posizione] + (long) (numeroSessione - 1) * PASSO_FREQUENZA[frequenzaCorso[posizione]]);
+    }
+
+    /**
+     * Quantità con distribuzione log-normale di media indicata: molti valori piccoli, pochi grandi
+     */
+    private int quantitaAsimmetrica(int media) {
+        double fattore = Math.exp(0.8 * random.nextGaussian() - 0.32);
+        return Math.max(1, (int) Math.round(media * fattore));
+    }
+
+    private BigDecimal prezzo() {
+        double valore = Math.exp(5.4 + 0.5 * random.nextGaussian());
+        return BigDecimal.valueOf(Math.min(Math.max(valore, 29), 1500)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private int scegliPesato(double[] pesi) {
+        double estratto = random.nextDouble();
+        for (int i = 0; i < pesi.length - 1; i++) {
+            estratto -= pesi[i];
+            if (estratto < 0) {
+                return i;
+            }
+        }
+        return pesi.length - 1;
+    }
+
+    private String scegli(String[] valori) {
+        return valori[random.nextInt(valori.length)];
+    }
+
+    private static String email(String nome, String cognome, int id, String dominio) {
+        return (nome + "." + cognome).toLowerCase().replace(" ", "") + "." + id + "@" + dominio;
+    }
+
+    /**
+     * Parametri da riga di comando nella forma --chiave=valore
+     */
+    record Parametri(int chef, int corsiPerChef, int ricettePerChef, int utenti, double riempimento,
+                     long seme, boolean senzaTrigger) {
+
+        static final String USO = """
+            Opzioni (tutte facoltative):
+              --chef=N               chef da generare (default 1000)
+              --corsi-per-chef=N     media dei corsi per chef (default 20)
+              --ricette-per-chef=N   media delle ricette per chef (default 15)
+              --utenti=N             utenti da generare (default 200000)
+              --riempimento=F        riempimento medio dei corsi, 0-1 (default 0.7)
+              --seme=N               seme del generatore casuale (default 42)
+              --senza-trigger        disattiva i trigger durante il caricamento (richiede superuser)
+            """;
+
+        static Parametri da(String[] args) {
+            int chef = 1000;
+            int corsiPerChef = 20;
+            int ricettePerChef = 15;
+            int utenti = 200_000;
+            double riempimento = 0.7;
+            long seme = 42;
+            boolean senzaTrigger = false;
+
+            for (String arg : args) {
+                String[] parti = arg.split("=", 2);
+                String valore = parti.length > 1 ? parti[1] : "";
+                try {
+                    switch (parti[0]) {
+                        case "--chef" -> chef = Integer.parseInt(valore);
+                        case "--corsi-per-chef" -> corsiPerChef = Integer.parseInt(valore);
+                        case "--ricette-per-chef" -> ricettePerChef = Integer.parseInt(valore);
+                        case "--utenti" -> utenti = Integer.parseInt(valore);
+                        case "--riempimento" -> riempimento = Double.parseDouble(valore);
+                        case "--seme" -> seme = Long.parseLong(valore);
+                        case "--senza-trigger" -> senzaTrigger = true;
+                        default -> throw new IllegalArgumentException("Opzione sconosciuta: " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Valore non valido: " + arg);
+                }
+            }
+
+            if (chef < 1 || corsiPerChef < 1 || ricettePerChef < 1 || utenti < 1) {
+                throw new IllegalArgumentException("chef, corsi, ricette e utenti devono essere positivi");
+            }
+            if (riempimento <= 0 || riempimento > 1) {
+                throw new IllegalArgumentException("Il riempimento deve essere compreso tra 0 e 1");
+            }
+            return new Parametri(chef, corsiPerChef, ricettePerChef, utenti, riempimento, seme, senzaTrigger);
+        }
+    }
+}
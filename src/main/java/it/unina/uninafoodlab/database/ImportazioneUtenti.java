@@ -0,0 +1,333 @@
+package it.unina.uninafoodlab.database;
+
+import it.unina.uninafoodlab.model.RisultatoImportazione;
+import it.unina.uninafoodlab.model.RisultatoImportazione.RigaScartata;
+import it.unina.uninafoodlab.utils.FormatUtils;
+import it.unina.uninafoodlab.utils.LettoreCsv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
+
+/**
+ * Importazione di utenti da un file CSV (anche salvato da Excel, con separatore ';').
+ * Il file viene letto in streaming e le righe valide inviate con COPY a una tabella
+ * temporanea; i doppioni, nel file e rispetto agli utenti già registrati, vengono
+ * trovati con query sull'intera tabella temporanea invece che con una query per riga.
+ * Tutto avviene in una transazione: se l'importazione fallisce o viene annullata
+ * (interruzione del thread) non viene inserito nessun utente.
+ */
+public final class ImportazioneUtenti {
+    private static final Logger logger = LoggerFactory.getLogger(ImportazioneUtenti.class);
+
+    // Stessa espressione della funzione valida_email usata dal trigger su utenti
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private static final Set<String> LIVELLI = Set.of("PRINCIPIANTE", "INTERMEDIO", "AVANZATO");
+    private static final int MASSIMO_SCARTI_DETTAGLIATI = 1000;
+    private static final int INTERVALLO_AVANZAMENTO = 1000;
+    private static final int DIMENSIONE_FETCH = 1000;
+
+    private static final Map<String, String> COLONNE = Map.ofEntries(
+        Map.entry("nome", "nome"),
+        Map.entry("cognome", "cognome"),
+        Map.entry("email", "email"),
+        Map.entry("e-mail", "email"),
+        Map.entry("mail", "email"),
+        Map.entry("telefono", "telefono"),
+        Map.entry("cellulare", "telefono"),
+        Map.entry("data_nascita", "data_nascita"),
+        Map.entry("data di nascita", "data_nascita"),
+        Map.entry("livello", "livello_esperienza"),
+        Map.entry("livello_esperienza", "livello_esperienza"));
+
+    /**
+     * Avanzamento dell'importazione, chiamato dal thread che la esegue
+     */
+    @FunctionalInterface
+    public interface Avanzamento {
+        void aggiorna(long righeLette, long byteLetti, long byteTotali);
+    }
+
+    private final List<RigaScartata> dettaglioScarti = new ArrayList<>();
+    private long scartate;
+
+    /**
+     * Importa gli utenti del file; le colonne nome, cognome ed email sono obbligatorie,
+     * telefono, data di nascita (gg/mm/aaaa o aaaa-mm-gg) e livello facoltative
+     */
+    public RisultatoImportazione importa(Path file, Avanzamento avanzamento) {
+        long inizio = System.currentTimeMillis();
+        dettaglioScarti.clear();
+        scartate = 0;
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                RisultatoImportazione risultato = importa(conn, file, avanzamento);
+                conn.commit();
+                logger.info("Importati {} utenti su {} righe da {} in {} ms ({} scartate)",
+                    risultato.importate(), risultato.righeLette(), file.getFileName(),
+                    System.currentTimeMillis() - inizio, risultato.scartate());
+                return risultato;
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (CancellationException | IllegalArgumentException e) {
+            throw e;
+        } catch (SQLException | IOException e) {
+            logger.error("Errore nell'importazione degli utenti da {}", file, e);
+            throw new RuntimeException("Errore nell'importazione degli utenti: " + e.getMessage(), e);
+        }
+    }
+
+    private RisultatoImportazione importa(Connection conn, Path file, Avanzamento avanzamento)
+            throws SQLException, IOException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TEMP TABLE utenti_importazione (
+                    riga bigint NOT NULL,
+                    nome varchar(100) NOT NULL,
+                    cognome varchar(100) NOT NULL,
+                    email varchar(100) NOT NULL,
+                    telefono varchar(20),
+                    data_nascita date,
+                    livello_esperienza varchar(20) NOT NULL
+                ) ON COMMIT DROP
+                """);
+        }
+
+        long byteTotali = Files.size(file);
+        long[] byteLetti = new long[1];
+        long righeLette = 0;
+        long valide;
+
+        try (InputStream ingresso = new ContaByte(Files.newInputStream(file), byteLetti);
+             LettoreCsv lettore = new LettoreCsv(new InputStreamReader(ingresso, StandardCharsets.UTF_8));
+             ScrittoreCopy copia = ScrittoreCopy.apri(conn, "utenti_importazione",
+                 "riga", "nome", "cognome", "email", "telefono", "data_nascita", "livello_esperienza")) {
+
+            Map<String, Integer> indici = indiciColonne(lettore.intestazione());
+            List<String> campi;
+            while ((campi = lettore.prossimaRiga()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Importazione annullata");
+                }
+                righeLette++;
+                importaRiga(copia, lettore.getNumeroRiga(), campi, indici);
+
+                if (righeLette % INTERVALLO_AVANZAMENTO == 0) {
+                    avanzamento.aggiorna(righeLette, byteLetti[0], byteTotali);
+                }
+            }
+            valide = copia.completa();
+        }
+        avanzamento.aggiorna(righeLette, byteTotali, byteTotali);
+
+        long doppioni = scartaDoppioni(conn);
+        long importate = inserisci(conn);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Importazione annullata");
+        }
+
+        // Email registrate da un'altra sessione tra il controllo e l'inserimento (ON CONFLICT)
+        long concorrenti = valide - doppioni - importate;
+        if (concorrenti > 0) {
+            logger.warn("{} email registrate da un'altra sessione durante l'importazione", concorrenti);
+            scartate += concorrenti;
+        }
+
+        return new RisultatoImportazione(righeLette, importate, scartate, List.copyOf(dettaglioScarti));
+    }
+
+    private void importaRiga(ScrittoreCopy copia, long riga, List<String> campi,
+                             Map<String, Integer> indici) throws SQLException {
+        String nome = campo(campi, indici, "nome");
+        String cognome = campo(campi, indici, "cognome");
+        String email = campo(campi, indici, "email");
+        String telefono = campo(campi, indici, "telefono");
+        String dataNascita = campo(campi, indici, "data_nascita");
+        String livello = campo(campi, indici, "livello_esperienza").toUpperCase(Locale.ROOT);
+
+        String motivo = null;
+        LocalDate data = null;
+        if (nome.isEmpty() || cognome.isEmpty()) {
+            motivo = "Nome e cognome obbligatori";
+        } else if (nome.length() > 100 || cognome.length() > 100) {
+            motivo = "Nome o cognome oltre 100 caratteri";
+        } else if (email.isEmpty()) {
+            motivo = "Email mancante";
+        } else if (email.length() > 100 || !EMAIL.matcher(email).matches()) {
+            motivo = "Formato email non valido";
+        } else if (telefono.length() > 20) {
+            motivo = "Telefono oltre 20 caratteri";
+        } else if (!livello.isEmpty() && !LIVELLI.contains(livello)) {
+            motivo = "Livello di esperienza non valido: " + livello;
+        } else if (!dataNascita.isEmpty()) {
+            data = leggiData(dataNascita);
+            if (data == null) {
+                motivo = "Data di nascita non valida: " + dataNascita;
+            }
+        }
+
+        if (motivo != null) {
+            scarta(riga, email, motivo);
+            return;
+        }
+        copia.riga(riga, nome, cognome, email, telefono.isEmpty() ? null : telefono, data,
+            livello.isEmpty() ? "PRINCIPIANTE" : livello);
+    }
+
+    /**
+     * Scarta le righe con email già registrata o ripetuta nel file (resta la prima);
+     * restituisce il numero di righe scartate
+     */
+    private long scartaDoppioni(Connection conn) throws SQLException {
+        String sql = """
+            SELECT riga, email, motivo
+            FROM (
+                SELECT s.riga, s.email,
+                       CASE
+                           WHEN EXISTS (SELECT 1 FROM utenti u WHERE u.email = s.email)
+                               THEN 'Email già registrata'
+                           WHEN s.riga > min(s.riga) OVER (PARTITION BY s.email)
+                               THEN 'Email ripetuta nel file (riga ' || min(s.riga) OVER (PARTITION BY s.email) || ')'
+                       END AS motivo
+                FROM utenti_importazione s
+            ) d
+            WHERE motivo IS NOT NULL
+            ORDER BY riga
+            """;
+
+        long doppioni = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(DIMENSIONE_FETCH);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    scarta(rs.getLong("riga"), rs.getString("email"), rs.getString("motivo"));
+                    doppioni++;
+                }
+            }
+        }
+        return doppioni;
+    }
+
+    /**
+     * Inserisce in ordine di file la prima riga di ogni email non ancora registrata
+     */
+    private long inserisci(Connection conn) throws SQLException {
+        String sql = """
+            INSERT INTO utenti (nome, cognome, email, telefono, data_nascita, livello_esperienza, attivo)
+            SELECT nome, cognome, email, telefono, data_nascita, livello_esperienza, true
+            FROM (
+                SELECT DISTINCT ON (s.email) s.*
+                FROM utenti_importazione s
+                WHERE NOT EXISTS (SELECT 1 FROM utenti u WHERE u.email = s.email)
+                ORDER BY s.email, s.riga
+            ) nuovi
+            ORDER BY riga
+            ON CONFLICT (email) DO NOTHING
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return stmt.executeUpdate();
+        }
+    }
+
+    private void scarta(long riga, String email, String motivo) {
+        scartate++;
+        if (dettaglioScarti.size() < MASSIMO_SCARTI_DETTAGLIATI) {
+            dettaglioScarti.add(new RigaScartata(riga, email, motivo));
+        }
+    }
+
+    private static Map<String, Integer> indiciColonne(List<String> intestazione) {
+        if (intestazione == null) {
+            throw new IllegalArgumentException("Il file è vuoto");
+        }
+
+        Map<String, Integer> indici = new HashMap<>();
+        for (int i = 0; i < intestazione.size(); i++) {
+            String colonna = COLONNE.get(intestazione.get(i).toLowerCase(Locale.ROOT));
+            if (colonna != null) {
+                indici.putIfAbsent(colonna, i);
+            }
+        }
+
+        List<String> mancanti = List.of("nome", "cognome", "email").stream()
+            .filter(colonna -> !indici.containsKey(colonna))
+            .toList();
+        if (!mancanti.isEmpty()) {
+            throw new IllegalArgumentException("Colonne obbligatorie mancanti nell'intestazione: "
+                + String.join(", ", mancanti));
+        }
+        return indici;
+    }
+
+    private static String campo(List<String> campi, Map<String, Integer> indici, String colonna) {
+        Integer indice = indici.get(colonna);
+        return indice != null && indice < campi.size() ? campi.get(indice).trim() : "";
+    }
+
+    private static LocalDate leggiData(String testo) {
+        try {
+            return testo.contains("/") ? LocalDate.parse(testo, FormatUtils.DATE_FORMATTER) : LocalDate.parse(testo);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Conta i byte letti dal file per calcolare l'avanzamento
+     */
+    private static final class ContaByte extends FilterInputStream {
+        private final long[] contatore;
+
+        ContaByte(InputStream ingresso, long[] contatore) {
+            super(ingresso);
+            this.contatore = contatore;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                contatore[0]++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                contatore[0] += n;
+            }
+            return n;
+        }
+    }
+}
@@ -39,13 +39,17 @@ INSERT INTO iscrizioni (utente_id, corso_id, data_iscrizione, stato, note)
                 throw new SQLException("Creazione iscrizione fallita, nessuna riga interessata.");
             }
 
+            // Il driver restituisce l'intera riga inserita: lo stato è quello effettivo
+            String statoInserito;
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    iscrizione.setId(generatedKeys.getInt(1));
+                    iscrizione.setId(generatedKeys.getInt("id"));
+                    statoInserito = generatedKeys.getString("stato");
                 } else {
                     throw new SQLException("Creazione iscrizione fallita, nessun ID ottenuto.");
                 }
             }
+            AuditIscrizioni.getInstance().nuovaIscrizione(iscrizione.getId(), statoInserito);
 
             logger.info("Iscrizione salvata con ID: {}", iscrizione.getId());
             return iscrizione;
@@ -60,10 +64,13 @@ INSERT INTO iscrizioni (utente_id, corso_id, data_iscrizione, stato, note)
      * Aggiorna un'iscrizione esistente
      */
     public Iscrizione update(Iscrizione iscrizione) {
+        // Lo stato precedente serve all'audit: la riga viene bloccata e letta nello stesso statement
         String sql = """
-            UPDATE iscrizioni 
+            UPDATE iscrizioni i
             SET utente_id = ?, corso_id = ?, data_iscrizione = ?, stato = ?, note = ?
-            WHERE id = ?
+            FROM (SELECT id, stato FROM iscrizioni WHERE id = ? FOR UPDATE) precedente
+            WHERE i.id = precedente.id
+            RETURNING precedente.stato AS stato_precedente, i.stato
             """;
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -76,10 +83,12 @@ public Iscrizione update(Iscrizione iscrizione) {
             stmt.setString(5, iscrizione.getNote());
             stmt.setInt(6, iscrizione.getId());
 
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows == 0) {
-                throw new SQLException("Aggiornamento iscrizione fallito, iscrizione non trovata con ID: " + iscrizione.getId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Aggiornamento iscrizione fallito, iscrizione non trovata con ID: " + iscrizione.getId());
+                }
+                AuditIscrizioni.getInstance().cambioStato(iscrizione.getId(),
+                    rs.getString("stato_precedente"), rs.getString("stato"));
             }
 
             logger.info("Iscrizione aggiornata con ID: {}", iscrizione.getId());
@@ -1,14 +1,21 @@
 package it.unina.uninafoodlab.database;
 
+import it.unina.uninafoodlab.model.EsitoIscrizione;
 import it.unina.uninafoodlab.model.Iscrizione;
+import it.unina.uninafoodlab.model.RichiestaIscrizione;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * DAO Avanzato per la gestione delle Iscrizioni con funzionalità del database avanzate
@@ -103,7 +110,8 @@ public Double calcolaPrezzoScontato(Integer corsoId, Double scontoPercentuale) {
     }
 
     /**
-     * Ottieni iscrizioni complete utilizzando JOIN con le tabelle correlate
+     * Ottieni iscrizioni complete utilizzando JOIN con le tabelle correlate.
+     * Carica tutto in memoria: per esportare molte iscrizioni usare {@link EsportazioneIscrizioni}
      */
     public List<Map<String, Object>> getIscrizioniComplete() {
         List<Map<String, Object>> iscrizioni = new ArrayList<>();
@@ -237,7 +245,9 @@ public boolean validaEmail(String email) {
     @Override
     public Iscrizione save(Iscrizione iscrizione) {
         // Il trigger genera automaticamente il codice_iscrizione
-        // Il trigger controlla automaticamente i posti disponibili
+        // Il trigger controlla automaticamente i posti disponibili bloccando
+        // la riga di corsi_occupazione, quindi iscrizioni concorrenti allo
+        // stesso corso vengono serializzate fino al commit
         // Il trigger valida automaticamente l'email se presente
         return super.save(iscrizione);
     }
@@ -329,7 +339,14 @@ public boolean isUtenteIscritto(Integer utenteId, Integer corsoId) {
      * Annulla un'iscrizione
      */
     public boolean annullaIscrizione(Integer iscrizioneId, String motivo) {
-        String sql = "UPDATE iscrizioni SET stato = 'ANNULLATA', note = COALESCE(note, '') || ? || ?, modified_at = CURRENT_TIMESTAMP WHERE id = ?";
+        // Lo stato precedente serve all'audit: la riga viene bloccata e letta nello stesso statement
+        String sql = """
+            UPDATE iscrizioni i
+            SET stato = 'ANNULLATA', note = COALESCE(i.note, '') || ? || ?, modified_at = CURRENT_TIMESTAMP
+            FROM (SELECT id, stato FROM iscrizioni WHERE id = ? FOR UPDATE) precedente
+            WHERE i.id = precedente.id
+            RETURNING precedente.stato AS stato_precedente
+            """;
         
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -339,8 +356,13 @@ public boolean annullaIscrizione(Integer iscrizioneId, String motivo) {
             stmt.setString(2, " - Annullata il " + java.time.LocalDateTime.now());
             stmt.setInt(3, iscrizioneId);
             
-            int affectedRows = stmt.executeUpdate();
-            boolean successo = affectedRows > 0;
+            boolean successo;
+            try (ResultSet rs = stmt.executeQuery()) {
+                successo = rs.next();
+                if (successo) {
+                    AuditIscrizioni.getInstance().cambioStato(iscrizioneId, rs.getString("stato_precedente"), "ANNULLATA");
+                }
+            }
             
             if (successo) {
                 logger.info("Iscrizione {} annullata con successo. Motivo: {}", iscrizioneId, motivo);
@@ -371,6 +393,7 @@ public boolean completaIscrizione(Integer iscrizioneId) {
             boolean successo = affectedRows > 0;
             
             if (successo) {
+                AuditIscrizioni.getInstance().cambioStato(iscrizioneId, "ATTIVA", "COMPLETATA");
                 logger.info("Iscrizione {} completata con successo", iscrizioneId);
             } else {
                 logger.warn("Nessuna iscrizione attiva trovata con ID: {}", iscrizioneId);
@@ -439,22 +462,7 @@ public List<Iscrizione> findAllAttiveDettagliato() {
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Iscrizione iscrizione = new Iscrizione();
-                iscrizione.setId(rs.getInt("id"));
-                iscrizione.setUtenteId(rs.getInt("utente_id"));
-                iscrizione.setCorsoId(rs.getInt("corso_id"));
-                Timestamp ts = rs.getTimestamp("data_iscrizione");
-                if (ts != null) {
-                    iscrizione.setDataIscrizione(ts.toLocalDateTime());
-                }
-                iscrizione.setStato(rs.getString("stato"));
-                iscrizione.setNote(rs.getString("note"));
-                iscrizione.setNomeUtente(rs.getString("nome"));
-                iscrizione.setCognomeUtente(rs.getString("cognome"));
-                iscrizione.setEmailUtente(rs.getString("email"));
-                iscrizione.setLivelloEsperienza(rs.getString("livello_esperienza"));
-                iscrizione.setTitoloCorso(rs.getString("titolo"));
-                result.add(iscrizione);
+                result.add(mapResultSetToIscrizioneDettagliata(rs));
             }
             logger.debug("Recuperate {} iscrizioni attive dettagliate", result.size());
         } catch (SQLException e) {
@@ -462,4 +470,342 @@ public List<Iscrizione> findAllAttiveDettagliato() {
         }
         return result;
     }
+
+    /**
+     * Trova un'iscrizione con i dettagli di utente e corso, qualunque sia lo stato
+     */
+    public Optional<Iscrizione> findDettagliataById(Integer id) {
+        String sql = """
+            SELECT i.id, i.utente_id, i.corso_id, i.data_iscrizione, i.stato, i.note,
+                   u.nome, u.cognome, u.email, u.livello_esperienza,
+                   c.titolo
+            FROM iscrizioni i
+            JOIN utenti u ON i.utente_id = u.id
+            JOIN corsi c ON i.corso_id = c.id
+            WHERE i.id = ?
+            """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToIscrizioneDettagliata(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Errore nella ricerca dell'iscrizione dettagliata con ID: {}", id, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Ottieni una pagina di iscrizioni attive dettagliate successiva a quella indicata
+     * (paginazione keyset su data_iscrizione, id decrescenti; ultima null = prima pagina)
+     */
+    public List<Iscrizione> findAttiveDettagliatoDopo(Iscrizione ultima, int limite) {
+        String sql = ultima == null ? """
+            SELECT i.id, i.utente_id, i.corso_id, i.data_iscrizione, i.stato, i.note,
+                   u.nome, u.cognome, u.email, u.livello_esperienza,
+                   c.titolo
+            FROM iscrizioni i
+            JOIN utenti u ON i.utente_id = u.id
+            JOIN corsi c ON i.corso_id = c.id
+            WHERE i.stato = 'ATTIVA'
+            ORDER BY i.data_iscrizione DESC, i.id DESC
+            LIMIT ?
+            """ : """
+            SELECT i.id, i.utente_id, i.corso_id, i.data_iscrizione, i.stato, i.note,
+                   u.nome, u.cognome, u.email, u.livello_esperienza,
+                   c.titolo
+            FROM iscrizioni i
+            JOIN utenti u ON i.utente_id = u.id
+            JOIN corsi c ON i.corso_id = c.id
+            WHERE i.stato = 'ATTIVA'
+              AND (i.data_iscrizione, i.id) < (?, ?)
+            ORDER BY i.data_iscrizione DESC, i.id DESC
+            LIMIT ?
+            """;
+
+        return findPaginaDettagliata(sql, ultima, limite, false);
+    }
+
+    /**
+     * Ottieni una pagina di iscrizioni attive dettagliate precedente a quella indicata,
+     * restituita nello stesso ordine di findAttiveDettagliatoDopo
+     */
+    public List<Iscrizione> findAttiveDettagliatoPrima(Iscrizione prima, int limite) {
+        String sql = """
+            SELECT i.id, i.utente_id, i.corso_id, i.data_iscrizione, i.stato, i.note,
+                   u.nome, u.cognome, u.email, u.livello_esperienza,
+                   c.titolo
+            FROM iscrizioni i
+            JOIN utenti u ON i.utente_id = u.id
+            JOIN corsi c ON i.corso_id = c.id
+            WHERE i.stato = 'ATTIVA'
+              AND (i.data_iscrizione, i.id) > (?, ?)
+            ORDER BY i.data_iscrizione, i.id
+            LIMIT ?
+            """;
+
+        return findPaginaDettagliata(sql, prima, limite, true);
+    }
+
+    /**
+     * Esegue una query di paginazione keyset sulle iscrizioni dettagliate
+     */
+    private List<Iscrizione> findPaginaDettagliata(String sql, Iscrizione riferimento, int limite, boolean invertiOrdine) {
+        List<Iscrizione> result = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int indice = 1;
+            if (riferimento != null) {
+                // Colonna NOT NULL dopo performance_upgrade.sql (sezione 3)
+                if (riferimento.getDataIscrizione() == null) {
+                    throw new SQLException("Iscrizione " + riferimento.getId()
+                        + " senza data_iscrizione: eseguire performance_upgrade.sql");
+                }
+                stmt.setTimestamp(indice++, Timestamp.valueOf(riferimento.getDataIscrizione()));
+                stmt.setInt(indice++, riferimento.getId());
+            }
+            stmt.setInt(indice, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(mapResultSetToIscrizioneDettagliata(rs));
+                }
+            }
+
+            if (invertiOrdine) {
+                Collections.reverse(result);
+            }
+            logger.debug("Caricata pagina di {} iscrizioni attive dettagliate", result.size());
+        } catch (SQLException e) {
+            logger.error("Errore nel recupero della pagina di iscrizioni attive dettagliate", e);
+        }
+        return result;
+    }
+
+    /**
+     * Iscrive più utenti a più corsi in un'unica transazione e restituisce l'esito di ogni
+     * riga, nello stesso ordine della richiesta. I contatori dei posti dei corsi coinvolti
+     * vengono bloccati all'inizio (in ordine di ID, come il trigger sui posti), poi tutte le
+     * righe sono validate con una sola query e quelle valide inserite con un batch: i posti
+     * vengono assegnati in ordine di richiesta e le righe oltre la capienza risultano
+     * CORSO_PIENO invece di far fallire l'intera transazione nel trigger.
+     */
+    public List<EsitoIscrizione> iscriviTutti(List<RichiestaIscrizione> richieste) {
+        if (richieste.isEmpty()) {
+            return List.of();
+        }
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<EsitoIscrizione> esiti = iscriviTutti(conn, richieste);
+                conn.commit();
+                // Audit solo dopo il commit: le righe annullate dal rollback non vanno registrate
+                for (EsitoIscrizione esito : esiti) {
+                    if (esito.iscrizioneId() != null) {
+                        AuditIscrizioni.getInstance().nuovaIscrizione(esito.iscrizioneId(), "ATTIVA");
+                    }
+                }
+                return esiti;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.error("Errore nell'iscrizione multipla di {} righe", richieste.size(), e);
+            throw new RuntimeException("Errore nell'iscrizione multipla", e);
+        }
+    }
+
+    private List<EsitoIscrizione> iscriviTutti(Connection conn, List<RichiestaIscrizione> richieste) throws SQLException {
+        Integer[] utenti = richieste.stream().map(RichiestaIscrizione::utenteId).toArray(Integer[]::new);
+        Integer[] corsi = richieste.stream().map(RichiestaIscrizione::corsoId).distinct().toArray(Integer[]::new);
+
+        Map<Integer, Integer> postiDisponibili = bloccaPosti(conn, corsi);
+        List<ValidazioneRiga> validazioni = validaRichieste(conn, utenti,
+            richieste.stream().map(RichiestaIscrizione::corsoId).toArray(Integer[]::new));
+
+        // Esiti in ordine di richiesta; null = riga da inserire
+        EsitoIscrizione.Esito[] esiti = new EsitoIscrizione.Esito[richieste.size()];
+        Set<Long> coppieRichieste = new HashSet<>();
+        List<Integer> daInserire = new ArrayList<>();
+        for (int i = 0; i < richieste.size(); i++) {
+            RichiestaIscrizione richiesta = richieste.get(i);
+            ValidazioneRiga validazione = validazioni.get(i);
+            Integer posti = postiDisponibili.get(richiesta.corsoId());
+
+            if (!validazione.utenteValido()) {
+                esiti[i] = EsitoIscrizione.Esito.UTENTE_NON_VALIDO;
+            } else if (posti == null) {
+                esiti[i] = EsitoIscrizione.Esito.CORSO_NON_TROVATO;
+            } else if (validazione.giaIscritto()) {
+                esiti[i] = EsitoIscrizione.Esito.GIA_ISCRITTO;
+            } else if (!coppieRichieste.add(((long) richiesta.utenteId() << 32) | richiesta.corsoId())) {
+                esiti[i] = EsitoIscrizione.Esito.DUPLICATO;
+            } else if (posti <= 0) {
+                esiti[i] = EsitoIscrizione.Esito.CORSO_PIENO;
+            } else {
+                postiDisponibili.put(richiesta.corsoId(), posti - 1);
+                daInserire.add(i);
+            }
+        }
+
+        Integer[] idCreati = inserisciBatch(conn, richieste, daInserire);
+
+        List<EsitoIscrizione> risultato = new ArrayList<>(richieste.size());
+        for (int i = 0; i < richieste.size(); i++) {
+            risultato.add(esiti[i] != null
+                ? new EsitoIscrizione(richieste.get(i), esiti[i], null)
+                : new EsitoIscrizione(richieste.get(i), EsitoIscrizione.Esito.ISCRITTO, idCreati[i]));
+        }
+        logger.info("Iscrizione multipla: {} righe, {} iscritte", richieste.size(), daInserire.size());
+        return risultato;
+    }
+
+    /**
+     * Blocca fino al commit il contatore dei posti di ogni corso esistente tra quelli indicati
+     * e restituisce i posti ancora liberi; i corsi inesistenti non compaiono nella mappa
+     */
+    private Map<Integer, Integer> bloccaPosti(Connection conn, Integer[] corsi) throws SQLException {
+        String inizializza = """
+            INSERT INTO corsi_occupazione (corso_id)
+            SELECT c.id FROM corsi c WHERE c.id = ANY(?)
+            ON CONFLICT (corso_id) DO NOTHING
+            """;
+        String blocca = """
+            SELECT corso_id, GREATEST(posti_totali - posti_occupati, 0) AS posti_disponibili
+            FROM corsi_occupazione
+            WHERE corso_id = ANY(?)
+            ORDER BY corso_id
+            FOR UPDATE
+            """;
+
+        Array arrayCorsi = conn.createArrayOf("integer", corsi);
+        try (PreparedStatement stmt = conn.prepareStatement(inizializza)) {
+            stmt.setArray(1, arrayCorsi);
+            stmt.executeUpdate();
+        }
+
+        Map<Integer, Integer> posti = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(blocca)) {
+            stmt.setArray(1, arrayCorsi);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    posti.put(rs.getInt("corso_id"), rs.getInt("posti_disponibili"));
+                }
+            }
+        }
+        return posti;
+    }
+
+    /**
+     * Stato di utente e iscrizione esistente per ogni coppia, con una sola query; come
+     * isUtenteIscritto conta solo le iscrizioni ATTIVA o COMPLETATA. Una riga per richiesta
+     */
+    private List<ValidazioneRiga> validaRichieste(Connection conn, Integer[] utenti, Integer[] corsi) throws SQLException {
+        String sql = """
+            SELECT r.riga, COALESCE(u.attivo, false) AS utente_valido,
+                   EXISTS (
+                       SELECT 1 FROM iscrizioni i
+                       WHERE i.utente_id = r.utente_id AND i.corso_id = r.corso_id
+                         AND i.stato IN ('ATTIVA', 'COMPLETATA')
+                   ) AS gia_iscritto
+            FROM unnest(?::integer[], ?::integer[]) WITH ORDINALITY AS r(utente_id, corso_id, riga)
+            LEFT JOIN utenti u ON u.id = r.utente_id
+            ORDER BY r.riga
+            """;
+
+        List<ValidazioneRiga> validazioni = new ArrayList<>(utenti.length);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", utenti));
+            stmt.setArray(2, conn.createArrayOf("integer", corsi));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    validazioni.add(new ValidazioneRiga(rs.getBoolean("utente_valido"), rs.getBoolean("gia_iscritto")));
+                }
+            }
+        }
+        // L'esito viene associato alla richiesta per posizione
+        if (validazioni.size() != utenti.length) {
+            throw new SQLException("Validazione delle iscrizioni: " + validazioni.size()
+                + " righe per " + utenti.length + " richieste");
+        }
+        return validazioni;
+    }
+
+    /**
+     * Inserisce le righe indicate con un batch; restituisce gli ID creati per indice di riga
+     */
+    private Integer[] inserisciBatch(Connection conn, List<RichiestaIscrizione> richieste,
+                                     List<Integer> righe) throws SQLException {
+        Integer[] idCreati = new Integer[richieste.size()];
+        if (righe.isEmpty()) {
+            return idCreati;
+        }
+
+        String sql = """
+            INSERT INTO iscrizioni (utente_id, corso_id, data_iscrizione, stato, note)
+            VALUES (?, ?, ?, 'ATTIVA', ?)
+            """;
+
+        Timestamp adesso = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement stmt = conn.prepareStatement(sql, new String[] {"id"})) {
+            for (int riga : righe) {
+                RichiestaIscrizione richiesta = richieste.get(riga);
+                stmt.setInt(1, richiesta.utenteId());
+                stmt.setInt(2, richiesta.corsoId());
+                stmt.setTimestamp(3, adesso);
+                stmt.setString(4, richiesta.note());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+
+            // Le chiavi generate arrivano nello stesso ordine delle righe inserite
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                for (int riga : righe) {
+                    if (!rs.next()) {
+                        throw new SQLException("ID non restituito per l'iscrizione della riga " + riga);
+                    }
+                    idCreati[riga] = rs.getInt(1);
+                }
+            }
+        }
+        return idCreati;
+    }
+
+    private record ValidazioneRiga(boolean utenteValido, boolean giaIscritto) {}
+
+    /**
+     * Mappa un ResultSet con i dati di utente e corso a un oggetto Iscrizione
+     */
+    private Iscrizione mapResultSetToIscrizioneDettagliata(ResultSet rs) throws SQLException {
+        Iscrizione iscrizione = new Iscrizione();
+        iscrizione.setId(rs.getInt("id"));
+        iscrizione.setUtenteId(rs.getInt("utente_id"));
+        iscrizione.setCorsoId(rs.getInt("corso_id"));
+        Timestamp ts = rs.getTimestamp("data_iscrizione");
+        if (ts != null) {
+            iscrizione.setDataIscrizione(ts.toLocalDateTime());
+        }
+        iscrizione.setStato(rs.getString("stato"));
+        iscrizione.setNote(rs.getString("note"));
+        iscrizione.setNomeUtente(rs.getString("nome"));
+        iscrizione.setCognomeUtente(rs.getString("cognome"));
+        iscrizione.setEmailUtente(rs.getString("email"));
+        iscrizione.setLivelloEsperienza(rs.getString("livello_esperienza"));
+        iscrizione.setTitoloCorso(rs.getString("titolo"));
+        return iscrizione;
+    }
 }
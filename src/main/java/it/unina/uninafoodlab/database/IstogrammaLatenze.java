@@ -0,0 +1,94 @@
+package it.unina.uninafoodlab.database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Istogramma delle latenze in microsecondi a bucket log-lineari: 16 bucket per
+ * ogni potenza di due, quindi errore relativo massimo ~6% con memoria fissa
+ * (circa 5 KB) indipendente dal numero di campioni. Thread-safe senza lock.
+ */
+class IstogrammaLatenze {
+    private static final int BIT_SOTTO_BUCKET = 4;
+    private static final int SOTTO_BUCKET = 1 << BIT_SOTTO_BUCKET;
+    // Fino a 2^40 µs (circa 12 giorni), oltre finisce nell'ultimo bucket
+    private static final int ESPONENTE_MASSIMO = 40;
+    private static final int NUMERO_BUCKET = (ESPONENTE_MASSIMO - BIT_SOTTO_BUCKET + 2) * SOTTO_BUCKET;
+
+    private final AtomicLongArray bucket = new AtomicLongArray(NUMERO_BUCKET);
+    private final AtomicLong conteggio = new AtomicLong();
+    private final AtomicLong totaleMicros = new AtomicLong();
+    private final AtomicLong massimoMicros = new AtomicLong();
+
+    void registra(long micros) {
+        long valore = Math.max(micros, 0);
+        bucket.incrementAndGet(indice(valore));
+        conteggio.incrementAndGet();
+        totaleMicros.addAndGet(valore);
+        massimoMicros.accumulateAndGet(valore, Math::max);
+    }
+
+    long getConteggio() {
+        return conteggio.get();
+    }
+
+    long getTotaleMicros() {
+        return totaleMicros.get();
+    }
+
+    long getMassimoMicros() {
+        return massimoMicros.get();
+    }
+
+    double getMediaMicros() {
+        long n = conteggio.get();
+        return n > 0 ? (double) totaleMicros.get() / n : 0;
+    }
+
+    /**
+     * Valore (limite superiore del bucket) sotto il quale cade la percentuale indicata dei campioni
+     */
+    long percentile(double percentuale) {
+        long n = conteggio.get();
+        if (n == 0) return 0;
+
+        long obiettivo = Math.max(1, (long) Math.ceil(percentuale / 100.0 * n));
+        long cumulato = 0;
+        for (int i = 0; i < NUMERO_BUCKET; i++) {
+            cumulato += bucket.get(i);
+            if (cumulato >= obiettivo) {
+                // L'ultimo bucket raccoglie anche i valori fuori scala
+                return i == NUMERO_BUCKET - 1 ? massimoMicros.get() : Math.min(limiteSuperiore(i), massimoMicros.get());
+            }
+        }
+        return massimoMicros.get();
+    }
+
+    void azzera() {
+        for (int i = 0; i < NUMERO_BUCKET; i++) {
+            bucket.set(i, 0);
+        }
+        conteggio.set(0);
+        totaleMicros.set(0);
+        massimoMicros.set(0);
+    }
+
+    private static int indice(long valore) {
+        if (valore < SOTTO_BUCKET) {
+            return (int) valore;
+        }
+        int esponente = Math.min(63 - Long.numberOfLeadingZeros(valore), ESPONENTE_MASSIMO);
+        int sotto = (int) ((valore >> (esponente - BIT_SOTTO_BUCKET)) & (SOTTO_BUCKET - 1));
+        return (esponente - BIT_SOTTO_BUCKET + 1) * SOTTO_BUCKET + sotto;
+    }
+
+    private static long limiteSuperiore(int indice) {
+        if (indice < SOTTO_BUCKET) {
+            return indice;
+        }
+        int esponente = indice / SOTTO_BUCKET + BIT_SOTTO_BUCKET - 1;
+        long sotto = indice % SOTTO_BUCKET;
+        long larghezza = 1L << (esponente - BIT_SOTTO_BUCKET);
+        return ((SOTTO_BUCKET + sotto) << (esponente - BIT_SOTTO_BUCKET)) + larghezza - 1;
+    }
+}
@@ -0,0 +1,39 @@
+package it.unina.uninafoodlab.database;
+
+import java.util.Optional;
+
+/**
+ * Modifica di una riga notificata dal database (trigger_notifica_modifica) sul canale
+ * uninafoodlab_modifiche. Il payload ha la forma {@code tabella:operazione:id:corso_id},
+ * dove corso_id è valorizzato per corsi, iscrizioni e sessioni.
+ */
+public record ModificaEntita(String tabella, String operazione, int id, Integer corsoId) {
+
+    public static final String CORSI = "corsi";
+    public static final String RICETTE = "ricette";
+    public static final String ISCRIZIONI = "iscrizioni";
+    public static final String UTENTI = "utenti";
+    public static final String SESSIONI = "sessioni";
+    public static final String SESSIONI_RICETTE = "sessioni_ricette";
+
+    public boolean isEliminazione() {
+        return "DELETE".equals(operazione);
+    }
+
+    public boolean riguarda(String nomeTabella) {
+        return tabella.equals(nomeTabella);
+    }
+
+    static Optional<ModificaEntita> da(String payload) {
+        String[] parti = payload.split(":", -1);
+        if (parti.length < 3) {
+            return Optional.empty();
+        }
+        try {
+            Integer corsoId = parti.length > 3 && !parti[3].isEmpty() ? Integer.valueOf(parti[3]) : null;
+            return Optional.of(new ModificaEntita(parti[0], parti[1], Integer.parseInt(parti[2]), corsoId));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
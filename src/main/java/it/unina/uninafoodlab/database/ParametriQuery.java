@@ -0,0 +1,14 @@
+package it.unina.uninafoodlab.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Imposta i parametri di una query preparata
+ */
+@FunctionalInterface
+interface ParametriQuery {
+    ParametriQuery NESSUNO = stmt -> { };
+
+    void imposta(PreparedStatement stmt) throws SQLException;
+}
@@ -0,0 +1,38 @@
+package it.unina.uninafoodlab.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Intervallo semiaperto [inizio, fine) di un mese, usato nei filtri per data
+ * al posto di EXTRACT(YEAR/MONTH ...) così che le query possano usare gli indici
+ */
+record PeriodoMensile(LocalDate inizio, LocalDate fine) {
+
+    static PeriodoMensile di(int anno, int mese) {
+        return di(YearMonth.of(anno, mese));
+    }
+
+    static PeriodoMensile di(YearMonth mese) {
+        return new PeriodoMensile(mese.atDay(1), mese.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Intervallo dal primo giorno di {@code primo} al primo giorno del mese successivo a {@code ultimo}
+     */
+    static PeriodoMensile tra(YearMonth primo, YearMonth ultimo) {
+        return new PeriodoMensile(primo.atDay(1), ultimo.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Imposta inizio e fine come parametri consecutivi a partire da {@code indice};
+     * restituisce l'indice del parametro successivo
+     */
+    int imposta(PreparedStatement stmt, int indice) throws SQLException {
+        stmt.setObject(indice, inizio);
+        stmt.setObject(indice + 1, fine);
+        return indice + 2;
+    }
+}
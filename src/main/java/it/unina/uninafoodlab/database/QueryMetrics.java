@@ -0,0 +1,294 @@
+package it.unina.uninafoodlab.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Raccoglie le metriche delle query eseguite tramite DatabaseManager:
+ * istogramma delle latenze, righe e errori per ogni statement SQL, attesa
+ * sul pool di connessioni e log delle query lente con i tipi dei parametri
+ * (i valori solo su richiesta esplicita, mai per colonne sensibili).
+ * Le metriche sono esposte via JMX e riepilogate periodicamente nel log.
+ */
+public final class QueryMetrics implements QueryMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetrics.class);
+
+    private static final String NOME_JMX = "it.unina.uninafoodlab:type=QueryMetrics";
+    private static final int QUERY_NEL_REPORT = 10;
+    private static final int LUNGHEZZA_MASSIMA_SQL = 120;
+    private static final String VALORE_NASCOSTO = "***";
+    // Statement che toccano queste colonne non mostrano mai i valori testuali dei parametri
+    private static final Pattern COLONNE_SENSIBILI = Pattern.compile("password|email|token|segreto",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final QueryMetrics istanza = new QueryMetrics();
+
+    private final Map<String, StatisticheQuery> statistiche = new ConcurrentHashMap<>();
+    private final IstogrammaLatenze attesaPool = new IstogrammaLatenze();
+    private final AtomicLong queryLente = new AtomicLong();
+    private final AtomicLong queryAlReportPrecedente = new AtomicLong();
+
+    private volatile boolean abilitato = true;
+    private volatile long sogliaQueryLentaMs = 500;
+    private volatile boolean valoriParametri = false;
+    private ScheduledExecutorService reporter;
+
+    private QueryMetrics() {}
+
+    public static QueryMetrics getInstance() {
+        return istanza;
+    }
+
+    /**
+     * Legge la configurazione (db.metrics.*), registra il bean JMX e avvia il report periodico
+     */
+    synchronized void configura(Properties props) {
+        abilitato = Boolean.parseBoolean(props.getProperty("db.metrics.enabled", "true"));
+        sogliaQueryLentaMs = Long.parseLong(props.getProperty("db.metrics.slow.query.ms", "500"));
+        long intervalloReport = Long.parseLong(props.getProperty("db.metrics.report.interval.seconds", "300"));
+        valoriParametri = Boolean.parseBoolean(props.getProperty("db.metrics.log.parameter.values", "false"));
+
+        if (!abilitato) {
+            logger.info("Metriche delle query disabilitate");
+            return;
+        }
+
+        registraJmx();
+
+        if (intervalloReport > 0 && reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "uninafoodlab-metriche");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(this::scriviReport, intervalloReport, intervalloReport, TimeUnit.SECONDS);
+        }
+
+        logger.info("Metriche delle query attive (soglia query lente: {} ms, report ogni {} s)",
+            sogliaQueryLentaMs, intervalloReport);
+        if (valoriParametri) {
+            logger.warn("Valori dei parametri delle query lente scritti nel log (db.metrics.log.parameter.values)");
+        }
+    }
+
+    /**
+     * Ferma il report periodico scrivendo un ultimo riepilogo
+     */
+    synchronized void arresta() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+            scriviReport();
+        }
+    }
+
+    boolean isAbilitato() {
+        return abilitato;
+    }
+
+    void registraAttesaPool(long micros) {
+        attesaPool.registra(micros);
+    }
+
+    /**
+     * Statistiche dello statement, create al primo utilizzo. L'origine è il metodo
+     * DAO che ha preparato lo statement per primo
+     */
+    StatisticheQuery statistichePer(String sql, String origine) {
+        return statistiche.computeIfAbsent(normalizza(sql), chiave -> new StatisticheQuery(chiave, origine));
+    }
+
+    /**
+     * Registra un'esecuzione e, se supera la soglia, la scrive nel log delle query lente
+     * (i parametri, per indice, vengono letti solo in quel caso; null per SQL NULL)
+     */
+    void registraEsecuzione(StatisticheQuery query, long micros, long righe, boolean errore,
+                            Supplier<Map<Integer, Object>> parametri) {
+        query.latenze.registra(micros);
+        if (righe > 0) {
+            query.righe.addAndGet(righe);
+        }
+        if (errore) {
+            query.errori.incrementAndGet();
+        }
+
+        if (micros >= sogliaQueryLentaMs * 1000) {
+            queryLente.incrementAndGet();
+            logger.warn("Query lenta ({} ms) da {}: {} - parametri {}",
+                micros / 1000, query.origine, abbrevia(query.sql), descriviParametri(query, parametri.get()));
+        }
+    }
+
+    /**
+     * Tipi dei parametri; i valori solo con db.metrics.log.parameter.values=true e, negli
+     * statement su colonne sensibili (password, email...), solo quelli non testuali
+     */
+    Map<Integer, String> descriviParametri(StatisticheQuery query, Map<Integer, Object> parametri) {
+        Map<Integer, String> descrizione = new TreeMap<>();
+        parametri.forEach((indice, valore) -> {
+            String testo;
+            if (valore == null) {
+                testo = "NULL";
+            } else if (!valoriParametri) {
+                testo = valore.getClass().getSimpleName();
+            } else if (query.sensibile && (valore instanceof CharSequence || valore instanceof char[])) {
+                testo = VALORE_NASCOSTO;
+            } else {
+                testo = String.valueOf(valore);
+            }
+            descrizione.put(indice, testo);
+        });
+        return descrizione;
+    }
+
+    // ==================== JMX ====================
+
+    @Override
+    public long getNumeroQuery() {
+        return statistiche.values().stream().mapToLong(q -> q.latenze.getConteggio()).sum();
+    }
+
+    @Override
+    public long getNumeroQueryLente() {
+        return queryLente.get();
+    }
+
+    @Override
+    public long getNumeroErrori() {
+        return statistiche.values().stream().mapToLong(q -> q.errori.get()).sum();
+    }
+
+    @Override
+    public long getSogliaQueryLentaMs() {
+        return sogliaQueryLentaMs;
+    }
+
+    @Override
+    public void setSogliaQueryLentaMs(long sogliaMs) {
+        this.sogliaQueryLentaMs = sogliaMs;
+        logger.info("Soglia query lente impostata a {} ms", sogliaMs);
+    }
+
+    @Override
+    public double getAttesaPoolMediaMs() {
+        return attesaPool.getMediaMicros() / 1000.0;
+    }
+
+    @Override
+    public double getAttesaPoolP99Ms() {
+        return attesaPool.percentile(99) / 1000.0;
+    }
+
+    @Override
+    public String[] getRiepilogoQuery() {
+        return ordinatePerTempoTotale().stream()
+            .map(StatisticheQuery::descrizione)
+            .toArray(String[]::new);
+    }
+
+    @Override
+    public void azzera() {
+        statistiche.clear();
+        attesaPool.azzera();
+        queryLente.set(0);
+        queryAlReportPrecedente.set(0);
+        logger.info("Metriche delle query azzerate");
+    }
+
+    // ==================== UTILITÀ ====================
+
+    private void registraJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName(NOME_JMX);
+            if (!server.isRegistered(nome)) {
+                server.registerMBean(this, nome);
+            }
+        } catch (Exception e) {
+            logger.warn("Impossibile registrare le metriche delle query su JMX", e);
+        }
+    }
+
+    private void scriviReport() {
+        long totale = getNumeroQuery();
+        if (totale == queryAlReportPrecedente.getAndSet(totale)) {
+            return; // nessuna query dall'ultimo report
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Metriche query - totale: %d, lente: %d, errori: %d, attesa pool media/p99: %.1f/%.1f ms",
+            totale, getNumeroQueryLente(), getNumeroErrori(), getAttesaPoolMediaMs(), getAttesaPoolP99Ms()));
+
+        ordinatePerTempoTotale().stream()
+            .limit(QUERY_NEL_REPORT)
+            .forEach(q -> report.append(System.lineSeparator()).append("  ").append(q.descrizione()));
+
+        logger.info(report.toString());
+    }
+
+    private List<StatisticheQuery> ordinatePerTempoTotale() {
+        return statistiche.values().stream()
+            .sorted(Comparator.comparingLong((StatisticheQuery q) -> q.latenze.getTotaleMicros()).reversed())
+            .toList();
+    }
+
+    private static String normalizza(String sql) {
+        return sql == null ? "" : sql.strip().replaceAll("\\s+", " ");
+    }
+
+    private static String abbrevia(String sql) {
+        return sql.length() <= LUNGHEZZA_MASSIMA_SQL ? sql : sql.substring(0, LUNGHEZZA_MASSIMA_SQL) + "...";
+    }
+
+    /**
+     * Contatori di un singolo statement SQL
+     */
+    static final class StatisticheQuery {
+        private final String sql;
+        private final String origine;
+        private final boolean sensibile;
+        private final IstogrammaLatenze latenze = new IstogrammaLatenze();
+        private final AtomicLong righe = new AtomicLong();
+        private final AtomicLong errori = new AtomicLong();
+
+        private StatisticheQuery(String sql, String origine) {
+            this.sql = sql;
+            this.origine = origine;
+            this.sensibile = COLONNE_SENSIBILI.matcher(sql).find();
+        }
+
+        void aggiungiRighe(long numero) {
+            righe.addAndGet(numero);
+        }
+
+        private String descrizione() {
+            return String.format("%s: n=%d, media=%.2f ms, p50=%.2f ms, p95=%.2f ms, p99=%.2f ms, max=%.2f ms, righe=%d, errori=%d - %s",
+                origine,
+                latenze.getConteggio(),
+                latenze.getMediaMicros() / 1000.0,
+                latenze.percentile(50) / 1000.0,
+                latenze.percentile(95) / 1000.0,
+                latenze.percentile(99) / 1000.0,
+                latenze.getMassimoMicros() / 1000.0,
+                righe.get(),
+                errori.get(),
+                abbrevia(sql));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package it.unina.uninafoodlab.database;
+
+/**
+ * Metriche delle query esposte via JMX (it.unina.uninafoodlab:type=QueryMetrics)
+ */
+public interface QueryMetricsMXBean {
+
+    long getNumeroQuery();
+
+    long getNumeroQueryLente();
+
+    long getNumeroErrori();
+
+    long getSogliaQueryLentaMs();
+
+    void setSogliaQueryLentaMs(long sogliaMs);
+
+    double getAttesaPoolMediaMs();
+
+    double getAttesaPoolP99Ms();
+
+    /**
+     * Una riga per query, ordinate per tempo totale decrescente
+     */
+    String[] getRiepilogoQuery();
+
+    void azzera();
+}
@@ -0,0 +1,320 @@
+package it.unina.uninafoodlab.database;
+
+import it.unina.uninafoodlab.utils.FormatUtils;
+import it.unina.uninafoodlab.utils.ImpaginatorePdf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Report PDF di tutti i corsi di uno chef, con le tabelle di sessioni, ricette e
+ * iscrizioni di ogni corso. I corsi vengono letti a blocchi (paginazione keyset) e per
+ * ogni blocco bastano tre query con {@code corso_id = ANY(?)}; ogni blocco viene
+ * impaginato e scartato prima di leggere il successivo, mentre le pagine finiscono nel
+ * file temporaneo di {@link ImpaginatorePdf}. La memoria usata non dipende quindi dal
+ * numero di corsi. Le letture avvengono in una sola transazione REPEATABLE READ, così
+ * il report descrive un'unica istantanea del database.
+ */
+public final class ReportCorsiPdf {
+    private static final Logger logger = LoggerFactory.getLogger(ReportCorsiPdf.class);
+
+    private static final int DIMENSIONE_BLOCCO = 25;
+
+    private static final String[] COLONNE_SESSIONI = {"N.", "Data", "Tipo", "Titolo", "Durata", "Ricette"};
+    private static final float[] PESI_SESSIONI = {0.6f, 1.4f, 1.2f, 5f, 1.1f, 1f};
+    private static final String[] COLONNE_RICETTE = {"Ricetta", "Difficoltà", "Preparazione", "Porzioni", "Sessioni"};
+    private static final float[] PESI_RICETTE = {5f, 1.3f, 1.5f, 1.1f, 1.1f};
+    private static final String[] COLONNE_ISCRIZIONI = {"Codice", "Partecipante", "Email", "Data", "Stato"};
+    private static final float[] PESI_ISCRIZIONI = {1.6f, 2.8f, 3.2f, 2f, 1.4f};
+
+    /**
+     * Prima parte del report (titolo, riepilogo, grafici), scritta dal chiamante
+     * nello stesso thread del report prima delle pagine dei corsi
+     */
+    @FunctionalInterface
+    public interface Copertina {
+        void scrivi(ImpaginatorePdf pdf) throws IOException;
+    }
+
+    /**
+     * Avanzamento della generazione, in corsi completati
+     */
+    @FunctionalInterface
+    public interface Avanzamento {
+        void aggiorna(int corsiScritti, int corsiTotali);
+    }
+
+    private record CorsoReport(int id, String titolo, String categoria, LocalDate dataInizio, String frequenza,
+                               int numeroSessioni, BigDecimal prezzo, int maxPartecipanti) { }
+
+    private record SessioneReport(int numero, LocalDate data, String tipo, String titolo, Integer durataMinuti,
+                                  int ricette) { }
+
+    private record RicettaReport(String nome, Integer difficolta, Integer tempoPreparazione, Integer porzioni,
+                                 int sessioni) { }
+
+    private record IscrizioneReport(String codice, String partecipante, String email, Timestamp data,
+                                    String stato) { }
+
+    /**
+     * Genera il report nel file e restituisce il numero di corsi inclusi
+     *
+     * @param titolo titolo del documento, ripetuto a piè di pagina
+     */
+    public int esporta(int chefId, String titolo, Copertina copertina, Path file, Avanzamento avanzamento) {
+        long inizio = System.currentTimeMillis();
+        Path parziale = file.resolveSibling(file.getFileName() + ".parziale");
+
+        try (ImpaginatorePdf pdf = new ImpaginatorePdf(titolo)) {
+            copertina.scrivi(pdf);
+            int corsi = scriviCorsi(pdf, chefId, avanzamento);
+            pdf.salva(parziale);
+            Files.move(parziale, file, StandardCopyOption.REPLACE_EXISTING);
+
+            logger.info("Report PDF di {} corsi ({} pagine) per chef {} in {} ms", corsi, pdf.getNumeroPagine(),
+                chefId, System.currentTimeMillis() - inizio);
+            return corsi;
+        } catch (SQLException | IOException e) {
+            eliminaParziale(parziale);
+            logger.error("Errore nella generazione del report PDF in {}", file, e);
+            throw new RuntimeException("Errore nella generazione del report PDF: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            eliminaParziale(parziale);
+            throw e;
+        }
+    }
+
+    private int scriviCorsi(ImpaginatorePdf pdf, int chefId, Avanzamento avanzamento)
+            throws SQLException, IOException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            int isolamento = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try {
+                int scritti = scriviCorsi(conn, pdf, chefId, avanzamento);
+                conn.commit();
+                return scritti;
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                conn.setTransactionIsolation(isolamento);
+            }
+        }
+    }
+
+    private int scriviCorsi(Connection conn, ImpaginatorePdf pdf, int chefId, Avanzamento avanzamento)
+            throws SQLException, IOException {
+        int totali = contaCorsi(conn, chefId);
+        avanzamento.aggiorna(0, totali);
+        if (totali == 0) {
+            pdf.sezione("Corsi");
+            pdf.testo("Nessun corso registrato.");
+            return 0;
+        }
+
+        int scritti = 0;
+        int ultimoId = 0;
+        List<CorsoReport> blocco;
+        while (!(blocco = leggiCorsi(conn, chefId, ultimoId)).isEmpty()) {
+            Integer[] ids = blocco.stream().map(CorsoReport::id).toArray(Integer[]::new);
+            Array arrayCorsi = conn.createArrayOf("integer", ids);
+            Map<Integer, List<SessioneReport>> sessioni = leggiSessioni(conn, arrayCorsi);
+            Map<Integer, List<RicettaReport>> ricette = leggiRicette(conn, arrayCorsi);
+            Map<Integer, List<IscrizioneReport>> iscrizioni = leggiIscrizioni(conn, arrayCorsi);
+
+            for (CorsoReport corso : blocco) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Generazione del report annullata");
+                }
+                scriviCorso(pdf, corso,
+                    sessioni.getOrDefault(corso.id(), List.of()),
+                    ricette.getOrDefault(corso.id(), List.of()),
+                    iscrizioni.getOrDefault(corso.id(), List.of()));
+                avanzamento.aggiorna(++scritti, Math.max(scritti, totali));
+            }
+            ultimoId = blocco.get(blocco.size() - 1).id();
+        }
+        return scritti;
+    }
+
+    private static void scriviCorso(ImpaginatorePdf pdf, CorsoReport corso, List<SessioneReport> sessioni,
+                                    List<RicettaReport> ricette, List<IscrizioneReport> iscrizioni)
+            throws IOException {
+        long attive = iscrizioni.stream().filter(i -> "ATTIVA".equals(i.stato())).count();
+
+        pdf.sezione(corso.titolo());
+        pdf.testo("Categoria: " + (corso.categoria() != null ? corso.categoria() : "-")
+            + "   Inizio: " + FormatUtils.formattaData(corso.dataInizio())
+            + "   Frequenza: " + corso.frequenza()
+            + "   Sessioni: " + corso.numeroSessioni()
+            + "   Prezzo: " + (corso.prezzo() != null ? "€ " + corso.prezzo().toPlainString() : "-")
+            + "   Iscritti attivi: " + attive + "/" + corso.maxPartecipanti());
+
+        pdf.sottosezione("Sessioni");
+        if (sessioni.isEmpty()) {
+            pdf.testo("Nessuna sessione programmata.");
+        } else {
+            pdf.tabella(COLONNE_SESSIONI, PESI_SESSIONI);
+            for (SessioneReport s : sessioni) {
+                pdf.riga(s.numero(), FormatUtils.formattaData(s.data()), s.tipo(), s.titolo(),
+                    s.durataMinuti() != null ? s.durataMinuti() + " min" : null, s.ricette());
+            }
+            pdf.fineTabella();
+        }
+
+        pdf.sottosezione("Ricette");
+        if (ricette.isEmpty()) {
+            pdf.testo("Nessuna ricetta associata alle sessioni.");
+        } else {
+            pdf.tabella(COLONNE_RICETTE, PESI_RICETTE);
+            for (RicettaReport r : ricette) {
+                pdf.riga(r.nome(), r.difficolta() != null ? r.difficolta() + "/5" : null,
+                    r.tempoPreparazione() != null ? r.tempoPreparazione() + " min" : null,
+                    r.porzioni(), r.sessioni());
+            }
+            pdf.fineTabella();
+        }
+
+        pdf.sottosezione("Iscrizioni");
+        if (iscrizioni.isEmpty()) {
+            pdf.testo("Nessuna iscrizione.");
+        } else {
+            pdf.tabella(COLONNE_ISCRIZIONI, PESI_ISCRIZIONI);
+            for (IscrizioneReport i : iscrizioni) {
+                pdf.riga(i.codice(), i.partecipante(), i.email(),
+                    i.data() != null ? FormatUtils.formattaDataOra(i.data().toLocalDateTime()) : null, i.stato());
+            }
+            pdf.fineTabella();
+        }
+    }
+
+    private static int contaCorsi(Connection conn, int chefId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT count(*) FROM corsi WHERE chef_id = ?")) {
+            stmt.setInt(1, chefId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static List<CorsoReport> leggiCorsi(Connection conn, int chefId, int dopoId) throws SQLException {
+        String sql = """
+            SELECT c.id, c.titolo, cat.nome, c.data_inizio, c.frequenza, c.numero_sessioni,
+                   c.prezzo, c.max_partecipanti
+            FROM corsi c
+            LEFT JOIN categorie_corsi cat ON cat.id = c.categoria_id
+            WHERE c.chef_id = ? AND c.id > ?
+            ORDER BY c.id
+            LIMIT ?
+            """;
+
+        List<CorsoReport> corsi = new ArrayList<>(DIMENSIONE_BLOCCO);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, chefId);
+            stmt.setInt(2, dopoId);
+            stmt.setInt(3, DIMENSIONE_BLOCCO);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    corsi.add(new CorsoReport(rs.getInt(1), rs.getString(2), rs.getString(3),
+                        rs.getDate(4).toLocalDate(), rs.getString(5), rs.getInt(6), rs.getBigDecimal(7),
+                        rs.getInt(8)));
+                }
+            }
+        }
+        return corsi;
+    }
+
+    private static Map<Integer, List<SessioneReport>> leggiSessioni(Connection conn, Array corsi)
+            throws SQLException {
+        String sql = """
+            SELECT s.corso_id, s.numero_sessione, s.data_sessione, s.tipo, s.titolo, s.durata_minuti,
+                   count(sr.ricetta_id)
+            FROM sessioni s
+            LEFT JOIN sessioni_ricette sr ON sr.sessione_id = s.id
+            WHERE s.corso_id = ANY(?)
+            GROUP BY s.id
+            ORDER BY s.corso_id, s.numero_sessione
+            """;
+        return perCorso(conn, sql, corsi, rs -> {
+            Date data = rs.getDate(3);
+            return new SessioneReport(rs.getInt(2), data != null ? data.toLocalDate() : null, rs.getString(4),
+                rs.getString(5), (Integer) rs.getObject(6), rs.getInt(7));
+        });
+    }
+
+    private static Map<Integer, List<RicettaReport>> leggiRicette(Connection conn, Array corsi)
+            throws SQLException {
+        String sql = """
+            SELECT s.corso_id, r.nome, r.difficolta, r.tempo_preparazione, r.numero_porzioni,
+                   count(DISTINCT s.id)
+            FROM sessioni s
+            JOIN sessioni_ricette sr ON sr.sessione_id = s.id
+            JOIN ricette r ON r.id = sr.ricetta_id
+            WHERE s.corso_id = ANY(?)
+            GROUP BY s.corso_id, r.id
+            ORDER BY s.corso_id, r.nome
+            """;
+        return perCorso(conn, sql, corsi, rs -> new RicettaReport(rs.getString(2), (Integer) rs.getObject(3),
+            (Integer) rs.getObject(4), (Integer) rs.getObject(5), rs.getInt(6)));
+    }
+
+    private static Map<Integer, List<IscrizioneReport>> leggiIscrizioni(Connection conn, Array corsi)
+            throws SQLException {
+        String sql = """
+            SELECT i.corso_id, i.codice_iscrizione, u.cognome || ' ' || u.nome, u.email,
+                   i.data_iscrizione, i.stato
+            FROM iscrizioni i
+            JOIN utenti u ON u.id = i.utente_id
+            WHERE i.corso_id = ANY(?)
+            ORDER BY i.corso_id, u.cognome, u.nome
+            """;
+        return perCorso(conn, sql, corsi, rs -> new IscrizioneReport(rs.getString(2), rs.getString(3),
+            rs.getString(4), rs.getTimestamp(5), rs.getString(6)));
+    }
+
+    /**
+     * Esegue una query del blocco e raggruppa le righe per corso (prima colonna)
+     */
+    private static <T> Map<Integer, List<T>> perCorso(Connection conn, String sql, Array corsi,
+                                                      RigaMapper<T> mapper) throws SQLException {
+        Map<Integer, List<T>> righe = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, corsi);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    righe.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(mapper.mappa(rs));
+                }
+            }
+        }
+        return righe;
+    }
+
+    private static void eliminaParziale(Path parziale) {
+        try {
+            Files.deleteIfExists(parziale);
+        } catch (IOException e) {
+            logger.warn("Impossibile eliminare il file parziale {}", parziale, e);
+        }
+    }
+}
@@ -15,53 +15,51 @@
 public class ReportDAO {
     private static final Logger logger = LoggerFactory.getLogger(ReportDAO.class);
 
+    // Costante per PianiQueryMensiliTest. Parametri: chef, periodo dei corsi, periodo delle sessioni, chef
+    static final String SQL_REPORT_MENSILE = """
+        WITH corsi_del_mese AS (
+            SELECT c.id, c.chef_id, c.titolo
+            FROM corsi c
+            WHERE c.chef_id = ? 
+            AND c.data_inizio >= ? AND c.data_inizio < ?
+        ),
+        sessioni_del_mese AS (
+            SELECT s.id, s.corso_id, s.tipo,
+                   (SELECT COUNT(*) FROM sessioni_ricette sr WHERE sr.sessione_id = s.id) as num_ricette
+            FROM sessioni s
+            JOIN corsi_del_mese c ON s.corso_id = c.id
+            WHERE s.data_sessione >= ? AND s.data_sessione < ?
+        ),
+        stats AS (
+            SELECT 
+                COUNT(DISTINCT cdm.id) as numero_corsi_totali,
+                COUNT(CASE WHEN sdm.tipo = 'online' THEN 1 END) as numero_sessioni_online,
+                COUNT(CASE WHEN sdm.tipo = 'presenza' THEN 1 END) as numero_sessioni_pratiche,
+                COALESCE(AVG(CASE WHEN sdm.tipo = 'presenza' AND sdm.num_ricette > 0 THEN sdm.num_ricette END), 0) as media_ricette_per_sessione,
+                COALESCE(MAX(CASE WHEN sdm.tipo = 'presenza' THEN sdm.num_ricette END), 0) as massimo_ricette_per_sessione,
+                COALESCE(MIN(CASE WHEN sdm.tipo = 'presenza' AND sdm.num_ricette > 0 THEN sdm.num_ricette END), 0) as minimo_ricette_per_sessione
+            FROM corsi_del_mese cdm
+            LEFT JOIN sessioni_del_mese sdm ON cdm.id = sdm.corso_id
+        )
+        SELECT 
+            stats.*,
+            ch.nome || ' ' || ch.cognome as nome_chef
+        FROM stats
+        CROSS JOIN chef ch
+        WHERE ch.id = ?
+        """;
+
     /**
      * Genera il report mensile per uno chef specifico
      */
     public Optional<ReportMensile> generaReportMensile(Integer chefId, int mese, int anno) {
-        String sql = """
-            WITH corsi_del_mese AS (
-                SELECT c.id, c.chef_id, c.titolo
-                FROM corsi c
-                WHERE c.chef_id = ? 
-                AND EXTRACT(MONTH FROM c.data_inizio) = ? 
-                AND EXTRACT(YEAR FROM c.data_inizio) = ?
-            ),
-            sessioni_del_mese AS (
-                SELECT s.id, s.corso_id, s.tipo,
-                       (SELECT COUNT(*) FROM sessioni_ricette sr WHERE sr.sessione_id = s.id) as num_ricette
-                FROM sessioni s
-                JOIN corsi_del_mese c ON s.corso_id = c.id
-                WHERE EXTRACT(MONTH FROM s.data_sessione) = ? 
-                AND EXTRACT(YEAR FROM s.data_sessione) = ?
-            ),
-            stats AS (
-                SELECT 
-                    COUNT(DISTINCT cdm.id) as numero_corsi_totali,
-                    COUNT(CASE WHEN sdm.tipo = 'online' THEN 1 END) as numero_sessioni_online,
-                    COUNT(CASE WHEN sdm.tipo = 'presenza' THEN 1 END) as numero_sessioni_pratiche,
-                    COALESCE(AVG(CASE WHEN sdm.tipo = 'presenza' AND sdm.num_ricette > 0 THEN sdm.num_ricette END), 0) as media_ricette_per_sessione,
-                    COALESCE(MAX(CASE WHEN sdm.tipo = 'presenza' THEN sdm.num_ricette END), 0) as massimo_ricette_per_sessione,
-                    COALESCE(MIN(CASE WHEN sdm.tipo = 'presenza' AND sdm.num_ricette > 0 THEN sdm.num_ricette END), 0) as minimo_ricette_per_sessione
-                FROM corsi_del_mese cdm
-                LEFT JOIN sessioni_del_mese sdm ON cdm.id = sdm.corso_id
-            )
-            SELECT 
-                stats.*,
-                ch.nome || ' ' || ch.cognome as nome_chef
-            FROM stats
-            CROSS JOIN chef ch
-            WHERE ch.id = ?
-            """;
-
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SQL_REPORT_MENSILE)) {
 
+            PeriodoMensile periodo = PeriodoMensile.di(anno, mese);
             stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
-            stmt.setInt(4, mese);
-            stmt.setInt(5, anno);
+            periodo.imposta(stmt, 2);
+            periodo.imposta(stmt, 4);
             stmt.setInt(6, chefId);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -140,8 +138,7 @@ public List<Object[]> getStatisticheCorsi(Integer chefId, int mese, int anno) {
             FROM corsi c
             JOIN categorie_corsi cat ON c.categoria_id = cat.id
             WHERE c.chef_id = ? 
-            AND EXTRACT(MONTH FROM c.data_inizio) = ? 
-            AND EXTRACT(YEAR FROM c.data_inizio) = ?
+            AND c.data_inizio >= ? AND c.data_inizio < ?
             GROUP BY cat.nome
             ORDER BY numero_corsi DESC
             """;
@@ -150,8 +147,7 @@ AND EXTRACT(YEAR FROM c.data_inizio) = ?
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
+            PeriodoMensile.di(anno, mese).imposta(stmt, 2);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -183,8 +179,7 @@ public List<Object[]> getStatisticheSessioni(Integer chefId, int mese, int anno)
             FROM sessioni s
             JOIN corsi c ON s.corso_id = c.id
             WHERE c.chef_id = ? 
-            AND EXTRACT(MONTH FROM s.data_sessione) = ? 
-            AND EXTRACT(YEAR FROM s.data_sessione) = ?
+            AND s.data_sessione >= ? AND s.data_sessione < ?
             GROUP BY s.tipo
             ORDER BY numero_sessioni DESC
             """;
@@ -193,8 +188,7 @@ AND EXTRACT(YEAR FROM s.data_sessione) = ?
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
+            PeriodoMensile.di(anno, mese).imposta(stmt, 2);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -232,8 +226,7 @@ WITH sessioni_ricette_count AS (
                 LEFT JOIN sessioni_ricette sr ON s.id = sr.sessione_id
                 WHERE c.chef_id = ? 
                 AND s.tipo = 'presenza'
-                AND EXTRACT(MONTH FROM s.data_sessione) = ? 
-                AND EXTRACT(YEAR FROM s.data_sessione) = ?
+                AND s.data_sessione >= ? AND s.data_sessione < ?
                 GROUP BY s.id
             )
             SELECT 
@@ -249,8 +242,7 @@ AND EXTRACT(YEAR FROM s.data_sessione) = ?
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, chefId);
-            stmt.setInt(2, mese);
-            stmt.setInt(3, anno);
+            PeriodoMensile.di(anno, mese).imposta(stmt, 2);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
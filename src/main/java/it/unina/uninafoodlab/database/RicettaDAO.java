@@ -53,6 +53,19 @@ public List<Ricetta> findByChefId(Integer chefId) {
      * Ottieni tutte le ricette disponibili nel sistema
      */
     public List<Ricetta> findAll() {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return findAll(conn);
+        } catch (SQLException e) {
+            logger.error("Errore durante il recupero di tutte le ricette", e);
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Ottieni tutte le ricette sulla connessione indicata; gli errori vengono propagati
+     */
+    public List<Ricetta> findAll(Connection conn) throws SQLException {
         List<Ricetta> ricette = new ArrayList<>();
         String sql = """
             SELECT r.id, r.chef_id, r.nome, r.descrizione, r.difficolta, 
@@ -63,19 +76,15 @@ public List<Ricetta> findAll() {
             ORDER BY r.nome
             """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
                 ricette.add(mapResultSetToRicetta(rs));
             }
-
-            logger.debug("Trovate {} ricette totali", ricette.size());
-        } catch (SQLException e) {
-            logger.error("Errore durante il recupero di tutte le ricette", e);
         }
 
+        logger.debug("Trovate {} ricette totali", ricette.size());
         return ricette;
     }
 
@@ -83,6 +92,14 @@ public List<Ricetta> findAll() {
      * Cerca ricette per nome (ricerca parziale)
      */
     public List<Ricetta> searchByNome(String nome) {
+        return searchByNome(nome, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cerca ricette il cui nome contiene il termine o gli somiglia (pg_trgm, indice
+     * idx_ricette_nome_trgm): prima i nomi che iniziano con il termine, poi per similarità
+     */
+    public List<Ricetta> searchByNome(String nome, int limite) {
         List<Ricetta> ricette = new ArrayList<>();
         String sql = """
             SELECT r.id, r.chef_id, r.nome, r.descrizione, r.difficolta, 
@@ -90,14 +107,16 @@ public List<Ricetta> searchByNome(String nome) {
                    ch.nome || ' ' || ch.cognome as nome_chef
             FROM ricette r
             JOIN chef ch ON r.chef_id = ch.id
-            WHERE LOWER(r.nome) LIKE LOWER(?)
-            ORDER BY r.nome
+            WHERE r.nome ILIKE ? OR ? <% r.nome
+            ORDER BY r.nome ILIKE ? DESC, word_similarity(?, r.nome) DESC, r.nome
+            LIMIT ?
             """;
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, "%" + nome + "%");
+            int indice = TermineRicerca.di(nome).imposta(stmt, 1);
+            stmt.setInt(indice, limite);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -105,7 +124,7 @@ WHERE LOWER(r.nome) LIKE LOWER(?)
                 }
             }
 
-            logger.debug("Trovate {} ricette con nome contenente: {}", ricette.size(), nome);
+            logger.debug("Trovate {} ricette con nome simile a: {}", ricette.size(), nome);
         } catch (SQLException e) {
             logger.error("Errore durante la ricerca ricette per nome: " + nome, e);
         }
@@ -117,6 +136,19 @@ WHERE LOWER(r.nome) LIKE LOWER(?)
      * Trova una ricetta per ID
      */
     public Optional<Ricetta> findById(Integer id) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return findById(conn, id);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca della ricetta con ID: " + id, e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Trova una ricetta per ID sulla connessione indicata; gli errori vengono propagati
+     */
+    public Optional<Ricetta> findById(Connection conn, Integer id) throws SQLException {
         String sql = """
             SELECT r.id, r.chef_id, r.nome, r.descrizione, r.difficolta, 
                    r.tempo_preparazione, r.numero_porzioni, r.istruzioni, r.created_at,
@@ -126,9 +158,7 @@ public Optional<Ricetta> findById(Integer id) {
             WHERE r.id = ?
             """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -136,8 +166,6 @@ public Optional<Ricetta> findById(Integer id) {
                     return Optional.of(mapResultSetToRicetta(rs));
                 }
             }
-        } catch (SQLException e) {
-            logger.error("Errore durante la ricerca della ricetta con ID: " + id, e);
         }
 
         return Optional.empty();
@@ -285,7 +313,7 @@ AND r.id NOT IN (
     /**
      * Mappa un ResultSet a un oggetto Ricetta
      */
-    private Ricetta mapResultSetToRicetta(ResultSet rs) throws SQLException {
+    Ricetta mapResultSetToRicetta(ResultSet rs) throws SQLException {
         Ricetta ricetta = new Ricetta();
         ricetta.setId(rs.getInt("id"));
         ricetta.setChefId(rs.getInt("chef_id"));
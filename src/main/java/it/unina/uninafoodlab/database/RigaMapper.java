@@ -0,0 +1,13 @@
+package it.unina.uninafoodlab.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converte la riga corrente di un ResultSet in un oggetto.
+ * I mapper leggono le colonne per posizione: l'ordine deve seguire la SELECT associata
+ */
+@FunctionalInterface
+interface RigaMapper<T> {
+    T mappa(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,115 @@
+package it.unina.uninafoodlab.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Scrive righe in una tabella con COPY ... FROM STDIN (formato testo) tramite il
+ * CopyManager del driver, inviando i dati a blocchi senza tenerli in memoria.
+ * Se la chiusura avviene senza {@link #completa()} la COPY viene annullata.
+ */
+final class ScrittoreCopy implements AutoCloseable {
+    private static final int DIMENSIONE_BLOCCO = 64 * 1024;
+
+    private final CopyIn copia;
+    private final StringBuilder buffer = new StringBuilder(DIMENSIONE_BLOCCO + 1024);
+    private long righeInviate;
+
+    private ScrittoreCopy(CopyIn copia) {
+        this.copia = copia;
+    }
+
+    /**
+     * Avvia la COPY sulla tabella e sulle colonne indicate
+     */
+    static ScrittoreCopy apri(Connection conn, String tabella, String... colonne) throws SQLException {
+        String sql = "COPY " + tabella + " (" + String.join(", ", colonne) + ") FROM STDIN";
+        return new ScrittoreCopy(conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql));
+    }
+
+    void riga(Object... valori) throws SQLException {
+        accodaRiga(buffer, valori);
+        righeInviate++;
+
+        if (buffer.length() >= DIMENSIONE_BLOCCO) {
+            invia();
+        }
+    }
+
+    long getRigheInviate() {
+        return righeInviate;
+    }
+
+    /**
+     * Invia i dati rimasti e chiude la COPY; restituisce le righe inserite dal server
+     */
+    long completa() throws SQLException {
+        invia();
+        return copia.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copia.isActive()) {
+            copia.cancelCopy();
+        }
+    }
+
+    private void invia() throws SQLException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] dati = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copia.writeToCopy(dati, 0, dati.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Accoda una riga nel formato testo di COPY (tabulazioni, \\N per NULL, caratteri speciali con escape)
+     */
+    static void accodaRiga(StringBuilder buffer, Object... valori) {
+        for (int i = 0; i < valori.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            accoda(buffer, valori[i]);
+        }
+        buffer.append('\n');
+    }
+
+    private static void accoda(StringBuilder buffer, Object valore) {
+        if (valore == null) {
+            buffer.append("\\N");
+        } else if (valore instanceof Boolean b) {
+            buffer.append(b ? 't' : 'f');
+        } else if (valore instanceof BigDecimal d) {
+            buffer.append(d.toPlainString());
+        } else if (valore instanceof LocalDateTime t) {
+            buffer.append(t.toLocalDate()).append(' ').append(t.toLocalTime());
+        } else if (valore instanceof Number || valore instanceof LocalDate) {
+            buffer.append(valore);
+        } else {
+            accodaTesto(buffer, valore.toString());
+        }
+    }
+
+    private static void accodaTesto(StringBuilder buffer, String testo) {
+        for (int i = 0; i < testo.length(); i++) {
+            char c = testo.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
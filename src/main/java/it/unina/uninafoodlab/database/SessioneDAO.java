@@ -50,6 +50,47 @@ public List<Sessione> findByCorsoId(Integer corso_id) {
         return sessioni;
     }
 
+    /**
+     * Ottieni tutte le sessioni di un corso con i nomi delle ricette associate,
+     * aggregati in un'unica query (ordinati per ordine di esecuzione)
+     */
+    public List<Sessione> findByCorsoIdWithRicette(Integer corso_id) {
+        List<Sessione> sessioni = new ArrayList<>();
+        String sql = """
+            SELECT s.id, s.corso_id, s.numero_sessione, s.data_sessione,
+                   s.tipo, s.titolo, s.descrizione, s.durata_minuti, s.completata, s.created_at,
+                   c.titolo as titolo_corso,
+                   string_agg(r.nome, ', ' ORDER BY sr.ordine_esecuzione, r.nome) as ricette_associate
+            FROM sessioni s
+            JOIN corsi c ON s.corso_id = c.id
+            LEFT JOIN sessioni_ricette sr ON sr.sessione_id = s.id
+            LEFT JOIN ricette r ON r.id = sr.ricetta_id
+            WHERE s.corso_id = ?
+            GROUP BY s.id, c.titolo
+            ORDER BY s.numero_sessione
+            """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, corso_id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Sessione sessione = mapResultSetToSessione(rs);
+                    sessione.setRicetteAssociate(rs.getString("ricette_associate"));
+                    sessioni.add(sessione);
+                }
+            }
+
+            logger.debug("Trovate {} sessioni con ricette per corso ID: {}", sessioni.size(), corso_id);
+        } catch (SQLException e) {
+            logger.error("Errore durante il recupero delle sessioni con ricette per corso ID: " + corso_id, e);
+        }
+
+        return sessioni;
+    }
+
     /**
      * Ottieni solo le sessioni pratiche di un corso
      */
@@ -155,6 +196,78 @@ INSERT INTO sessioni (corso_id, numero_sessione, data_sessione, tipo,
         throw new RuntimeException("Impossibile salvare la sessione");
     }
 
+    /**
+     * Salva più sessioni in un'unica transazione con un inserimento batch
+     */
+    public List<Sessione> saveAll(List<Sessione> sessioni) {
+        if (sessioni.isEmpty()) {
+            return sessioni;
+        }
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                saveAll(conn, sessioni);
+                conn.commit();
+                return sessioni;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.error("Errore durante il salvataggio batch delle sessioni", e);
+            throw new RuntimeException("Errore durante il salvataggio delle sessioni", e);
+        }
+    }
+
+    /**
+     * Salva più sessioni con un inserimento batch sulla connessione indicata.
+     * La gestione della transazione resta al chiamante.
+     */
+    public List<Sessione> saveAll(Connection conn, List<Sessione> sessioni) throws SQLException {
+        if (sessioni.isEmpty()) {
+            return sessioni;
+        }
+
+        String sql = """
+            INSERT INTO sessioni (corso_id, numero_sessione, data_sessione, tipo,
+                                 titolo, descrizione, durata_minuti, completata)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, new String[] {"id"})) {
+            for (Sessione sessione : sessioni) {
+                stmt.setInt(1, sessione.getCorsoId());
+                stmt.setInt(2, sessione.getNumeroSessione());
+                stmt.setDate(3, Date.valueOf(sessione.getDataSessione()));
+                stmt.setString(4, sessione.getTipo());
+                stmt.setString(5, sessione.getTitolo());
+                stmt.setString(6, sessione.getDescrizione());
+                stmt.setInt(7, sessione.getDurataMinuti() != null ? sessione.getDurataMinuti() : 120);
+                stmt.setBoolean(8, sessione.getCompletata() != null ? sessione.getCompletata() : false);
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+
+            // Le chiavi generate arrivano nello stesso ordine delle righe inserite
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                for (Sessione sessione : sessioni) {
+                    if (!rs.next()) {
+                        throw new SQLException("ID non restituito per la sessione " + sessione.getNumeroSessione());
+                    }
+                    sessione.setId(rs.getInt(1));
+                }
+            }
+        }
+
+        logger.info("Salvate {} sessioni in batch", sessioni.size());
+        return sessioni;
+    }
+
     /**
      * Aggiorna una sessione esistente
      */
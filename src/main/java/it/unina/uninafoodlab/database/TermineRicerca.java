@@ -0,0 +1,40 @@
+package it.unina.uninafoodlab.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Termine di una ricerca testuale con pg_trgm. I caratteri speciali di LIKE
+ * vengono protetti, così "50%" cerca proprio il testo "50%"
+ */
+record TermineRicerca(String testo) {
+
+    static TermineRicerca di(String testo) {
+        return new TermineRicerca(testo.trim());
+    }
+
+    String contiene() {
+        return "%" + protetto() + "%";
+    }
+
+    String iniziaCon() {
+        return protetto() + "%";
+    }
+
+    /**
+     * Imposta i parametri delle query di ricerca nell'ordine: pattern "contiene",
+     * termine per l'operatore {@code <%}, pattern "inizia con", termine per
+     * word_similarity; restituisce l'indice del parametro successivo
+     */
+    int imposta(PreparedStatement stmt, int indice) throws SQLException {
+        stmt.setString(indice, contiene());
+        stmt.setString(indice + 1, testo);
+        stmt.setString(indice + 2, iniziaCon());
+        stmt.setString(indice + 3, testo);
+        return indice + 4;
+    }
+
+    private String protetto() {
+        return testo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
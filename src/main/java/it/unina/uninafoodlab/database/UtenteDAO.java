@@ -7,6 +7,7 @@
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,10 +47,117 @@ public List<Utente> findAllAttivi() {
         return utenti;
     }
 
+    /**
+     * Ottieni una pagina di utenti attivi successiva all'utente indicato
+     * (paginazione keyset su cognome, nome, id; ultimo null = prima pagina)
+     */
+    public List<Utente> findAttiviDopo(Utente ultimo, int limite) {
+        return findPagina(sqlAttiviDopo(ultimo), ultimo, limite, false);
+    }
+
+    /**
+     * Come findAttiviDopo, sulla connessione indicata; gli errori vengono propagati
+     */
+    public List<Utente> findAttiviDopo(Connection conn, Utente ultimo, int limite) throws SQLException {
+        return findPagina(conn, sqlAttiviDopo(ultimo), ultimo, limite, false);
+    }
+
+    private static String sqlAttiviDopo(Utente ultimo) {
+        return ultimo == null ? """
+            SELECT id, nome, cognome, email, telefono, data_nascita, 
+                   livello_esperienza, attivo, created_at
+            FROM utenti 
+            WHERE attivo = true
+            ORDER BY cognome, nome, id
+            LIMIT ?
+            """ : """
+            SELECT id, nome, cognome, email, telefono, data_nascita, 
+                   livello_esperienza, attivo, created_at
+            FROM utenti 
+            WHERE attivo = true
+              AND (cognome, nome, id) > (?, ?, ?)
+            ORDER BY cognome, nome, id
+            LIMIT ?
+            """;
+    }
+
+    /**
+     * Ottieni una pagina di utenti attivi precedente all'utente indicato,
+     * restituita nello stesso ordine di findAttiviDopo
+     */
+    public List<Utente> findAttiviPrima(Utente primo, int limite) {
+        String sql = """
+            SELECT id, nome, cognome, email, telefono, data_nascita, 
+                   livello_esperienza, attivo, created_at
+            FROM utenti 
+            WHERE attivo = true
+              AND (cognome, nome, id) < (?, ?, ?)
+            ORDER BY cognome DESC, nome DESC, id DESC
+            LIMIT ?
+            """;
+
+        return findPagina(sql, primo, limite, true);
+    }
+
+    /**
+     * Esegue una query di paginazione keyset sugli utenti
+     */
+    private List<Utente> findPagina(String sql, Utente riferimento, int limite, boolean invertiOrdine) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return findPagina(conn, sql, riferimento, limite, invertiOrdine);
+        } catch (SQLException e) {
+            logger.error("Errore nel recupero della pagina di utenti attivi", e);
+        }
+
+        return new ArrayList<>();
+    }
+
+    private List<Utente> findPagina(Connection conn, String sql, Utente riferimento, int limite,
+                                    boolean invertiOrdine) throws SQLException {
+        List<Utente> utenti = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            if (riferimento != null) {
+                stmt.setString(indice++, riferimento.getCognome());
+                stmt.setString(indice++, riferimento.getNome());
+                stmt.setInt(indice++, riferimento.getId());
+            }
+            stmt.setInt(indice, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    utenti.add(mapResultSetToUtente(rs));
+                }
+            }
+
+        }
+
+        if (invertiOrdine) {
+            Collections.reverse(utenti);
+        }
+
+        logger.debug("Caricata pagina di {} utenti attivi", utenti.size());
+        return utenti;
+    }
+
     /**
      * Trova un utente per ID
      */
     public Optional<Utente> findById(Integer id) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return findById(conn, id);
+        } catch (SQLException e) {
+            logger.error("Errore nel recupero dell'utente con ID: {}", id, e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Trova un utente per ID sulla connessione indicata; gli errori vengono propagati
+     */
+    public Optional<Utente> findById(Connection conn, Integer id) throws SQLException {
         String sql = """
             SELECT id, nome, cognome, email, telefono, data_nascita, 
                    livello_esperienza, attivo, created_at
@@ -57,9 +165,7 @@ public Optional<Utente> findById(Integer id) {
             WHERE id = ?
             """;
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -67,9 +173,6 @@ public Optional<Utente> findById(Integer id) {
                     return Optional.of(mapResultSetToUtente(rs));
                 }
             }
-
-        } catch (SQLException e) {
-            logger.error("Errore nel recupero dell'utente con ID: {}", id, e);
         }
 
         return Optional.empty();
@@ -223,22 +326,32 @@ public boolean disattiva(Integer id) {
      * Cerca utenti per nome o cognome
      */
     public List<Utente> searchByName(String searchTerm) {
+        return searchByName(searchTerm, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cerca utenti attivi il cui "nome cognome" contiene il termine o gli somiglia
+     * (pg_trgm, indice idx_utenti_attivi_nome_completo_trgm), dai più pertinenti
+     */
+    public List<Utente> searchByName(String searchTerm, int limite) {
         List<Utente> utenti = new ArrayList<>();
         String sql = """
             SELECT id, nome, cognome, email, telefono, data_nascita, 
                    livello_esperienza, attivo, created_at
             FROM utenti 
             WHERE attivo = true 
-              AND (LOWER(nome) LIKE LOWER(?) OR LOWER(cognome) LIKE LOWER(?))
-            ORDER BY cognome, nome
+              AND ((nome || ' ' || cognome) ILIKE ? OR ? <% (nome || ' ' || cognome))
+            ORDER BY (nome || ' ' || cognome) ILIKE ? DESC,
+                     word_similarity(?, nome || ' ' || cognome) DESC,
+                     cognome, nome, id
+            LIMIT ?
             """;
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            String searchPattern = "%" + searchTerm + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
+            int indice = TermineRicerca.di(searchTerm).imposta(stmt, 1);
+            stmt.setInt(indice, limite);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -289,7 +402,7 @@ public boolean isEmailUsed(String email, Integer excludeId) {
     /**
      * Mappa un ResultSet a un oggetto Utente
      */
-    private Utente mapResultSetToUtente(ResultSet rs) throws SQLException {
+    Utente mapResultSetToUtente(ResultSet rs) throws SQLException {
         Utente utente = new Utente();
         utente.setId(rs.getInt("id"));
         utente.setNome(rs.getString("nome"));
@@ -0,0 +1,17 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Iscrizioni e ricavi di un mese (vista analisi_iscrizioni_mensili)
+ */
+public record AnalisiMensile(
+        int anno,
+        int mese,
+        String periodo,
+        int totaleIscrizioni,
+        int iscrizioniAttive,
+        int iscrizioniCompletate,
+        int iscrizioniAnnullate,
+        BigDecimal ricavoMensile) {
+}
@@ -18,6 +18,11 @@ public CategoriaCorso(Integer id, String nome, String descrizione) {
         this.descrizione = descrizione;
     }
 
+    // Costruttore di copia
+    public CategoriaCorso(CategoriaCorso altra) {
+        this(altra.id, altra.nome, altra.descrizione);
+    }
+
     // Costruttore senza ID
     public CategoriaCorso(String nome, String descrizione) {
         this.nome = nome;
@@ -31,6 +31,12 @@ public Chef(Integer id, String username, String password, String nome, String co
         this.created_at = created_at;
     }
 
+    // Costruttore di copia
+    public Chef(Chef altro) {
+        this(altro.id, altro.username, altro.password, altro.nome, altro.cognome,
+             altro.email, altro.specializzazione, altro.created_at);
+    }
+
     // Costruttore per nuovo chef (senza ID)
     public Chef(String username, String password, String nome, String cognome, 
                 String email, String specializzazione) {
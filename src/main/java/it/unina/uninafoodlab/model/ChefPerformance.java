@@ -0,0 +1,20 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Totali di corsi, iscrizioni e ricavi di uno chef
+ */
+public record ChefPerformance(
+        int chefId,
+        String chefNome,
+        String specializzazione,
+        int corsiTotali,
+        int corsiFuturi,
+        int iscrizioniTotali,
+        int iscrizioniAttive,
+        int iscrizioniCompletate,
+        BigDecimal tassoCompletamento,
+        BigDecimal ricavoTotale,
+        BigDecimal prezzoMedioCorsi) {
+}
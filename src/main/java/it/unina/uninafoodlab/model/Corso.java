@@ -50,6 +50,14 @@ public Corso(Integer id, Integer chefId, String nomeChef, Integer categoria_id,
         this.created_at = created_at;
     }
 
+    // Costruttore di copia
+    public Corso(Corso altro) {
+        this(altro.id, altro.chefId, altro.nomeChef, altro.categoria_id, altro.nomeCategoria, altro.titolo,
+             altro.descrizione, altro.data_inizio, altro.frequenza, altro.numero_sessioni, altro.prezzo,
+             altro.durata, altro.maxPartecipanti, altro.created_at);
+        this.stato = altro.stato;
+    }
+
     // Costruttore per nuovo corso (compatibilità)
     public Corso(Integer chefId, Integer categoria_id, String titolo, String descrizione,
                  LocalDate data_inizio, String frequenza, Integer numero_sessioni, BigDecimal prezzo) {
@@ -0,0 +1,16 @@
+package it.unina.uninafoodlab.model;
+
+import java.time.LocalDate;
+
+/**
+ * Corso futuro con pochi posti o in partenza entro una settimana
+ */
+public record CorsoAttenzione(
+        int id,
+        String titolo,
+        LocalDate dataInizio,
+        int postiDisponibili,
+        int giorniInizio,
+        String chefNome,
+        String statoAttenzione) {
+}
@@ -0,0 +1,27 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Riga della vista dei corsi con chef, categoria e statistiche di iscrizione
+ */
+public record CorsoDettaglio(
+        int id,
+        String titolo,
+        String descrizione,
+        LocalDate dataInizio,
+        String frequenza,
+        int numeroSessioni,
+        BigDecimal prezzo,
+        String chefNome,
+        String chefSpecializzazione,
+        String categoria,
+        int iscrittiAttivi,
+        int iscrittiCompletati,
+        int iscrittiAnnullati,
+        int numeroSessioniProgrammate,
+        int postiDisponibili,
+        String statoCorso,
+        BigDecimal ricavoCorso) {
+}
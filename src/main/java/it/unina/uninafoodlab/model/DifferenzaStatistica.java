@@ -0,0 +1,14 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Differenza tra una statistica aggregata e il valore calcolato dalla vista originale
+ */
+public record DifferenzaStatistica(
+        String tipo,
+        int riferimentoId,
+        String campo,
+        BigDecimal valoreAggregato,
+        BigDecimal valoreVista) {
+}
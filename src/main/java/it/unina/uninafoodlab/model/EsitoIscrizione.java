@@ -0,0 +1,34 @@
+package it.unina.uninafoodlab.model;
+
+/**
+ * Esito di una riga di un'iscrizione multipla: l'ID dell'iscrizione creata
+ * oppure il motivo per cui la riga è stata scartata
+ */
+public record EsitoIscrizione(
+        RichiestaIscrizione richiesta,
+        Esito esito,
+        Integer iscrizioneId) {
+
+    public enum Esito {
+        ISCRITTO("Iscritto"),
+        UTENTE_NON_VALIDO("Utente non trovato o non attivo"),
+        CORSO_NON_TROVATO("Corso non trovato"),
+        GIA_ISCRITTO("Utente già iscritto a questo corso"),
+        DUPLICATO("Riga ripetuta nella richiesta"),
+        CORSO_PIENO("Non ci sono posti disponibili");
+
+        private final String descrizione;
+
+        Esito(String descrizione) {
+            this.descrizione = descrizione;
+        }
+
+        public String getDescrizione() {
+            return descrizione;
+        }
+    }
+
+    public boolean isIscritto() {
+        return esito == Esito.ISCRITTO;
+    }
+}
@@ -0,0 +1,7 @@
+package it.unina.uninafoodlab.model;
+
+/**
+ * Metrica della dashboard amministratore (vista dashboard_admin)
+ */
+public record MetricaDashboard(String metrica, String valore, String tipo) {
+}
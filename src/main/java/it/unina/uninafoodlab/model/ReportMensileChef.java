@@ -0,0 +1,34 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Report mensile completo di uno chef: totali generali e statistiche del mese
+ * (iscrizioni, corsi, sessioni e ricette)
+ */
+public record ReportMensileChef(
+        int mese,
+        int anno,
+        String nomeChef,
+        String specializzazione,
+        int corsiTotali,
+        int iscrizioniTotali,
+        BigDecimal tassoCompletamento,
+        BigDecimal ricavoTotale,
+        int iscrizioniMensili,
+        int iscrizioniAttiveMensili,
+        int iscrizioniCompletateMensili,
+        BigDecimal ricavoMensile,
+        int numeroCorsiMese,
+        int numeroSessioniOnline,
+        int numeroSessioniPratiche,
+        int ricetteTotali) {
+
+    /**
+     * Converte nel modello usato dalla schermata dei grafici
+     */
+    public ReportMensile toReportMensile() {
+        return new ReportMensile(mese, anno, nomeChef, numeroCorsiMese,
+                                 numeroSessioniOnline, numeroSessioniPratiche, ricetteTotali);
+    }
+}
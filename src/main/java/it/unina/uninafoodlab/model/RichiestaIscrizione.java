@@ -0,0 +1,14 @@
+package it.unina.uninafoodlab.model;
+
+/**
+ * Coppia utente-corso da iscrivere in un'iscrizione multipla
+ */
+public record RichiestaIscrizione(
+        int utenteId,
+        int corsoId,
+        String note) {
+
+    public RichiestaIscrizione(int utenteId, int corsoId) {
+        this(utenteId, corsoId, null);
+    }
+}
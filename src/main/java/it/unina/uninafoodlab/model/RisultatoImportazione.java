@@ -0,0 +1,19 @@
+package it.unina.uninafoodlab.model;
+
+import java.util.List;
+
+/**
+ * Riepilogo di un'importazione di utenti da file. Il dettaglio delle righe scartate
+ * è limitato alle prime, il totale è sempre in {@code scartate}
+ */
+public record RisultatoImportazione(
+        long righeLette,
+        long importate,
+        long scartate,
+        List<RigaScartata> dettaglioScarti) {
+
+    /**
+     * Riga del file non importata, con il numero di riga e il motivo
+     */
+    public record RigaScartata(long riga, String email, String motivo) {}
+}
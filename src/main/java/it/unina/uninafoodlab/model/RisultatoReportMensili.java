@@ -0,0 +1,28 @@
+package it.unina.uninafoodlab.model;
+
+import java.util.List;
+
+/**
+ * Riepilogo della generazione in blocco dei report mensili: report prodotti,
+ * chef per cui la generazione è fallita e throughput
+ */
+public record RisultatoReportMensili(
+        int chefTotali,
+        int generati,
+        List<ReportFallito> falliti,
+        long byteScritti,
+        long durataMs,
+        int thread) {
+
+    /**
+     * Report completati al secondo (PDF e PNG di uno chef contano come uno)
+     */
+    public double reportAlSecondo() {
+        return durataMs > 0 ? generati * 1000.0 / durataMs : generati;
+    }
+
+    /**
+     * Chef il cui report non è stato scritto, con il motivo
+     */
+    public record ReportFallito(int chefId, String nomeChef, String motivo) {}
+}
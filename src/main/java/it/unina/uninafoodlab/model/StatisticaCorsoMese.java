@@ -0,0 +1,15 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Statistiche di un corso iniziato nel mese selezionato
+ */
+public record StatisticaCorsoMese(
+        String titolo,
+        int iscrittiAttivi,
+        int iscrittiCompletati,
+        int postiDisponibili,
+        BigDecimal ricavoCorso,
+        String statoCorso) {
+}
@@ -0,0 +1,15 @@
+package it.unina.uninafoodlab.model;
+
+import java.time.LocalDate;
+
+/**
+ * Sessione del mese selezionato con il numero di ricette associate
+ */
+public record StatisticaSessioneMese(
+        String titoloSessione,
+        String tipo,
+        LocalDate dataSessione,
+        int durataMinuti,
+        String corsoTitolo,
+        int numeroRicette) {
+}
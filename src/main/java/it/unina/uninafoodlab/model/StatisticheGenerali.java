@@ -0,0 +1,15 @@
+package it.unina.uninafoodlab.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Totali generali del sistema
+ */
+public record StatisticheGenerali(
+        int totaleUtenti,
+        int totaleChef,
+        int totaleCorsi,
+        int totaleIscrizioni,
+        BigDecimal ricavoPotenziale,
+        BigDecimal etaMediaUtenti) {
+}
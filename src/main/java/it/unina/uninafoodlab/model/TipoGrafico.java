@@ -0,0 +1,33 @@
+package it.unina.uninafoodlab.model;
+
+/**
+ * Grafici della finestra dei report. I grafici mensili dipendono dal mese selezionato,
+ * gli altri solo dallo chef
+ */
+public enum TipoGrafico {
+    CORSI_PER_CATEGORIA("Corsi per Categoria", false),
+    SESSIONI_PER_MODALITA("Sessioni per Modalità", false),
+    ANDAMENTO_MENSILE("Andamento Mensile Corsi", false),
+    RICETTE_PER_DIFFICOLTA("Distribuzione Ricette per Difficoltà", true);
+
+    private final String etichetta;
+    private final boolean mensile;
+
+    TipoGrafico(String etichetta, boolean mensile) {
+        this.etichetta = etichetta;
+        this.mensile = mensile;
+    }
+
+    public String getEtichetta() {
+        return etichetta;
+    }
+
+    public boolean isMensile() {
+        return mensile;
+    }
+
+    @Override
+    public String toString() {
+        return etichetta;
+    }
+}
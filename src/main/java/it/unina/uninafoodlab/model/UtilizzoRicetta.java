@@ -0,0 +1,12 @@
+package it.unina.uninafoodlab.model;
+
+/**
+ * Ricetta usata nelle sessioni del mese, con il numero di utilizzi e i corsi coinvolti
+ */
+public record UtilizzoRicetta(
+        String ricettaNome,
+        int difficolta,
+        int tempoPreparazione,
+        int utilizzi,
+        String corsiUtilizzati) {
+}
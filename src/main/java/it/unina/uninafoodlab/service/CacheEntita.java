@@ -0,0 +1,114 @@
+package it.unina.uninafoodlab.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache read-through di dimensione limitata per entità lette spesso e modificate di rado.
+ * Le voci più vecchie escono in ordine LRU oppure alla scadenza del TTL; le risposte
+ * vuote non vengono memorizzate. Thread-safe: il caricamento avviene fuori dal lock,
+ * quindi due letture concorrenti della stessa chiave possono interrogare entrambe il database.
+ */
+final class CacheEntita<K, V> {
+    private final String nome;
+    private final int dimensioneMassima;
+    private final long ttlNanos;
+    private final Map<K, Voce<V>> voci;
+
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+    private final AtomicLong rimozioni = new AtomicLong();
+    // Incrementata a ogni invalidazione: un caricamento iniziato prima non viene memorizzato
+    private long versione;
+
+    CacheEntita(String nome, int dimensioneMassima, Duration ttl) {
+        this.nome = nome;
+        this.dimensioneMassima = dimensioneMassima;
+        this.ttlNanos = ttl.toNanos();
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Voce<V>> eldest) {
+                boolean rimuovi = size() > CacheEntita.this.dimensioneMassima;
+                if (rimuovi) {
+                    rimozioni.incrementAndGet();
+                }
+                return rimuovi;
+            }
+        };
+    }
+
+    /**
+     * Restituisce il valore in cache o lo carica con {@code caricatore} e lo memorizza
+     */
+    Optional<V> get(K chiave, Function<K, Optional<V>> caricatore) {
+        long versioneLettura;
+        synchronized (voci) {
+            versioneLettura = versione;
+            Voce<V> voce = voci.get(chiave);
+            if (voce != null) {
+                if (System.nanoTime() - voce.caricataNanos() < ttlNanos) {
+                    hit.incrementAndGet();
+                    return Optional.of(voce.valore());
+                }
+                voci.remove(chiave);
+                rimozioni.incrementAndGet();
+            }
+        }
+
+        miss.incrementAndGet();
+        Optional<V> caricato = caricatore.apply(chiave);
+        caricato.ifPresent(valore -> {
+            synchronized (voci) {
+                if (versione == versioneLettura) {
+                    voci.put(chiave, new Voce<>(valore, System.nanoTime()));
+                }
+            }
+        });
+        return caricato;
+    }
+
+    void invalida(K chiave) {
+        if (chiave == null) {
+            return;
+        }
+        synchronized (voci) {
+            voci.remove(chiave);
+            versione++;
+        }
+    }
+
+    void invalidaTutto() {
+        synchronized (voci) {
+            voci.clear();
+            versione++;
+        }
+    }
+
+    long getHit() {
+        return hit.get();
+    }
+
+    long getMiss() {
+        return miss.get();
+    }
+
+    /**
+     * Riepilogo per il log: voci, hit, miss, percentuale di hit e rimozioni (LRU o TTL)
+     */
+    String descrizione() {
+        int dimensione;
+        synchronized (voci) {
+            dimensione = voci.size();
+        }
+        long totale = hit.get() + miss.get();
+        double percentualeHit = totale > 0 ? hit.get() * 100.0 / totale : 0;
+        return String.format("%s: voci=%d/%d, hit=%d, miss=%d (%.1f%% hit), rimozioni=%d",
+            nome, dimensione, dimensioneMassima, hit.get(), miss.get(), percentualeHit, rimozioni.get());
+    }
+
+    private record Voce<V>(V valore, long caricataNanos) {}
+}
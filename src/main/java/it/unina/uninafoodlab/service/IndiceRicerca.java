@@ -0,0 +1,357 @@
+package it.unina.uninafoodlab.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertito a trigrammi, in memoria, per la ricerca testuale a ogni tasto.
+ * I trigrammi sono calcolati come in pg_trgm (parole in minuscolo con due spazi
+ * prima e uno dopo), così risultati e ordinamento sono vicini a quelli delle query
+ * con pg_trgm: prima le voci che iniziano con il termine, poi quelle con una parola
+ * che inizia con il termine, poi quelle che lo contengono e infine quelle simili
+ * (quota di trigrammi in comune almeno {@link #SOGLIA_SIMILARITA}).
+ * Thread-safe: più ricerche concorrenti, aggiornamenti esclusivi.
+ */
+final class IndiceRicerca<T> {
+    // Come word_similarity_threshold di pg_trgm
+    static final double SOGLIA_SIMILARITA = 0.6;
+    private static final Pattern SEPARATORI = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTI = Pattern.compile("\\p{M}");
+
+    private final Function<T, Integer> id;
+    private final Function<T, String> testo;
+    private final Map<Integer, Voce<T>> voci = new HashMap<>();
+    private final Map<String, ListaId> trigrammi = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    IndiceRicerca(Function<T, Integer> id, Function<T, String> testo) {
+        this.id = id;
+        this.testo = testo;
+    }
+
+    /**
+     * Sostituisce l'intero contenuto dell'indice
+     */
+    void ricostruisci(Collection<T> elementi) {
+        // In ordine di ID le liste dei trigrammi crescono solo in coda
+        List<T> ordinati = new ArrayList<>(elementi);
+        ordinati.sort(Comparator.comparing(id));
+
+        lock.writeLock().lock();
+        try {
+            voci.clear();
+            trigrammi.clear();
+            ordinati.forEach(this::inserisci);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void aggiorna(T elemento) {
+        lock.writeLock().lock();
+        try {
+            rimuoviVoce(id.apply(elemento));
+            inserisci(elemento);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rimuovi(Integer idElemento) {
+        lock.writeLock().lock();
+        try {
+            rimuoviVoce(idElemento);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int dimensione() {
+        lock.readLock().lock();
+        try {
+            return voci.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Voci che contengono il termine o gli sono simili, dalla più pertinente, al massimo {@code limite}
+     */
+    List<T> cerca(String termine, int limite) {
+        String normalizzato = normalizza(termine).trim();
+        if (normalizzato.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Risultato<T>> risultati = new ArrayList<>();
+            Set<Integer> trovati = new HashSet<>();
+            if (normalizzato.length() < 3) {
+                // Termine corto: di norma basta l'inizio delle parole, il resto solo se non bastano
+                aggiungiSottostringhe(inizioParole(normalizzato), normalizzato, risultati, trovati);
+                if (risultati.size() < limite) {
+                    aggiungiSottostringhe(voci.keySet(), normalizzato, risultati, trovati);
+                }
+                return ordina(risultati, limite);
+            }
+
+            aggiungiSottostringhe(candidatiPerSottostringa(normalizzato), normalizzato, risultati, trovati);
+            // Le voci simili vengono dopo tutte quelle che contengono il termine
+            if (risultati.size() < limite) {
+                aggiungiSimili(normalizzato, risultati, trovati);
+            }
+            return ordina(risultati, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aggiungiSottostringhe(Iterable<Integer> candidati, String termine,
+                                       List<Risultato<T>> risultati, Set<Integer> trovati) {
+        for (Integer candidato : candidati) {
+            if (trovati.contains(candidato)) continue;
+
+            Voce<T> voce = voci.get(candidato);
+            int pertinenza = pertinenzaSottostringa(voce.testo(), termine);
+            if (pertinenza >= 0) {
+                risultati.add(new Risultato<>(voce, pertinenza, 1.0));
+                trovati.add(candidato);
+            }
+        }
+    }
+
+    /**
+     * Voci con almeno {@link #SOGLIA_SIMILARITA} dei trigrammi del termine. Una voce simile
+     * contiene per forza almeno uno dei trigrammi più rari oltre la quota non necessaria,
+     * quindi solo quelli vengono scorsi per trovare i candidati
+     */
+    private void aggiungiSimili(String termine, List<Risultato<T>> risultati, Set<Integer> trovati) {
+        List<ListaId> liste = new ArrayList<>();
+        for (String trigramma : trigrammi(termine)) {
+            liste.add(trigrammi.getOrDefault(trigramma, ListaId.VUOTA));
+        }
+        if (liste.isEmpty()) {
+            // Termine senza lettere né cifre ("---"): non ha trigrammi da confrontare
+            return;
+        }
+        liste.sort(Comparator.comparingInt(ListaId::dimensione));
+
+        int necessari = (int) Math.ceil(liste.size() * SOGLIA_SIMILARITA);
+        Set<Integer> candidati = new HashSet<>();
+        for (ListaId lista : liste.subList(0, liste.size() - necessari + 1)) {
+            lista.perOgni(candidati::add);
+        }
+
+        for (Integer candidato : candidati) {
+            if (trovati.contains(candidato)) continue;
+
+            int comuni = 0;
+            for (ListaId lista : liste) {
+                if (lista.contiene(candidato)) {
+                    comuni++;
+                }
+            }
+            if (comuni >= necessari) {
+                risultati.add(new Risultato<>(voci.get(candidato), 3, (double) comuni / liste.size()));
+            }
+        }
+    }
+
+    private static <T> List<T> ordina(List<Risultato<T>> risultati, int limite) {
+        return risultati.stream()
+            .sorted(Comparator.<Risultato<T>>comparingInt(Risultato::pertinenza)
+                .thenComparing(Risultato::similarita, Comparator.reverseOrder())
+                .thenComparingInt(r -> r.voce().testo().length())
+                .thenComparing(r -> r.voce().testo()))
+            .limit(limite)
+            .map(r -> r.voce().elemento())
+            .toList();
+    }
+
+    /**
+     * Voci con una parola che inizia con il termine (uno o due caratteri)
+     */
+    private Iterable<Integer> inizioParole(String termine) {
+        String trigramma = termine.length() == 1 ? "  " + termine : " " + termine;
+        return trigrammi.getOrDefault(trigramma, ListaId.VUOTA);
+    }
+
+    /**
+     * Voci che possono contenere il termine: intersezione dei trigrammi interni delle
+     * parole lunghe almeno tre caratteri, partendo dalla lista più corta
+     */
+    private Iterable<Integer> candidatiPerSottostringa(String termine) {
+        List<ListaId> liste = new ArrayList<>();
+        for (String parola : SEPARATORI.split(termine)) {
+            for (int i = 0; i + 3 <= parola.length(); i++) {
+                liste.add(trigrammi.getOrDefault(parola.substring(i, i + 3), ListaId.VUOTA));
+            }
+        }
+        if (liste.isEmpty()) {
+            return voci.keySet();
+        }
+        liste.sort(Comparator.comparingInt(ListaId::dimensione));
+
+        List<Integer> candidati = new ArrayList<>();
+        liste.get(0).perOgni(candidato -> {
+            for (int i = 1; i < liste.size(); i++) {
+                if (!liste.get(i).contiene(candidato)) return;
+            }
+            candidati.add(candidato);
+        });
+        return candidati;
+    }
+
+    /**
+     * 0 = il testo inizia con il termine, 1 = una parola inizia con il termine,
+     * 2 = lo contiene altrove, -1 = non lo contiene
+     */
+    private static int pertinenzaSottostringa(String testo, String termine) {
+        int posizione = testo.indexOf(termine);
+        if (posizione < 0) {
+            return -1;
+        }
+        if (posizione == 0) {
+            return 0;
+        }
+        for (int i = posizione; i >= 0; i = testo.indexOf(termine, i + 1)) {
+            if (!Character.isLetterOrDigit(testo.charAt(i - 1))) {
+                return 1;
+            }
+        }
+        return 2;
+    }
+
+    private void inserisci(T elemento) {
+        Integer chiave = id.apply(elemento);
+        String normalizzato = normalizza(testo.apply(elemento));
+        voci.put(chiave, new Voce<>(elemento, normalizzato));
+        for (String trigramma : trigrammi(normalizzato)) {
+            trigrammi.computeIfAbsent(trigramma, t -> new ListaId()).aggiungi(chiave);
+        }
+    }
+
+    private void rimuoviVoce(Integer chiave) {
+        Voce<T> vecchia = voci.remove(chiave);
+        if (vecchia == null) {
+            return;
+        }
+        for (String trigramma : trigrammi(vecchia.testo())) {
+            ListaId lista = trigrammi.get(trigramma);
+            if (lista != null) {
+                lista.rimuovi(chiave);
+                if (lista.dimensione() == 0) {
+                    trigrammi.remove(trigramma);
+                }
+            }
+        }
+    }
+
+    /**
+     * Minuscolo e senza accenti, così "pere" trova anche "Perè"
+     */
+    static String normalizza(String testo) {
+        if (testo == null) {
+            return "";
+        }
+        for (int i = 0; i < testo.length(); i++) {
+            if (testo.charAt(i) > 0x7F) {
+                return ACCENTI.matcher(Normalizer.normalize(testo, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+            }
+        }
+        return testo.toLowerCase();
+    }
+
+    static Set<String> trigrammi(String normalizzato) {
+        Set<String> risultato = new LinkedHashSet<>();
+        for (String parola : SEPARATORI.split(normalizzato)) {
+            if (parola.isEmpty()) {
+                continue;
+            }
+            String conBordi = "  " + parola + " ";
+            for (int i = 0; i + 3 <= conBordi.length(); i++) {
+                risultato.add(conBordi.substring(i, i + 3));
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * ID ordinati in un array di int: 4 byte per voce invece di un Integer in un HashSet,
+     * ricerca binaria per l'appartenenza
+     */
+    private static final class ListaId implements Iterable<Integer> {
+        static final ListaId VUOTA = new ListaId();
+
+        private int[] valori = new int[4];
+        private int dimensione;
+
+        int dimensione() {
+            return dimensione;
+        }
+
+        boolean contiene(int valore) {
+            return Arrays.binarySearch(valori, 0, dimensione, valore) >= 0;
+        }
+
+        void aggiungi(int valore) {
+            if (dimensione == 0 || valori[dimensione - 1] < valore) {
+                inserisci(dimensione, valore);
+                return;
+            }
+            int posizione = Arrays.binarySearch(valori, 0, dimensione, valore);
+            if (posizione < 0) {
+                inserisci(-posizione - 1, valore);
+            }
+        }
+
+        void rimuovi(int valore) {
+            int posizione = Arrays.binarySearch(valori, 0, dimensione, valore);
+            if (posizione >= 0) {
+                System.arraycopy(valori, posizione + 1, valori, posizione, dimensione - posizione - 1);
+                dimensione--;
+            }
+        }
+
+        void perOgni(IntConsumer azione) {
+            for (int i = 0; i < dimensione; i++) {
+                azione.accept(valori[i]);
+            }
+        }
+
+        private void inserisci(int posizione, int valore) {
+            if (dimensione == valori.length) {
+                valori = Arrays.copyOf(valori, dimensione * 2);
+            }
+            System.arraycopy(valori, posizione, valori, posizione + 1, dimensione - posizione);
+            valori[posizione] = valore;
+            dimensione++;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return Arrays.stream(valori, 0, dimensione).iterator();
+        }
+    }
+
+    private record Voce<T>(T elemento, String testo) {}
+
+    private record Risultato<T>(Voce<T> voce, int pertinenza, double similarita) {}
+}
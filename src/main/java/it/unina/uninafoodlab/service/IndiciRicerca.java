@@ -0,0 +1,197 @@
+package it.unina.uninafoodlab.service;
+
+import it.unina.uninafoodlab.database.AscoltatoreModifiche;
+import it.unina.uninafoodlab.database.DatabaseManager;
+import it.unina.uninafoodlab.database.ModificaEntita;
+import it.unina.uninafoodlab.database.RicettaDAO;
+import it.unina.uninafoodlab.database.UtenteDAO;
+import it.unina.uninafoodlab.model.Ricetta;
+import it.unina.uninafoodlab.model.Utente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Indici in memoria di ricette e utenti attivi per la ricerca a ogni tasto.
+ * Vengono costruiti in background e tenuti aggiornati dalle notifiche del database,
+ * rileggendo per ID le righe modificate. Finché un indice non è pronto, o se le
+ * righe superano {@link #MASSIMO_VOCI}, la ricerca resta sulle query pg_trgm.
+ * Un errore del database in lettura lascia l'indice non pronto fino alla
+ * ricostruzione successiva (risincronizzazione dopo la riconnessione).
+ */
+final class IndiciRicerca implements AscoltatoreModifiche {
+    private static final Logger logger = LoggerFactory.getLogger(IndiciRicerca.class);
+
+    private static final int MASSIMO_VOCI = 200_000;
+    private static final int PAGINA_UTENTI = 10_000;
+    private static final int SOGLIA_RICOSTRUZIONE = 1000;
+
+    private final RicettaDAO ricettaDAO = new RicettaDAO();
+    private final UtenteDAO utenteDAO = new UtenteDAO();
+    private final IndiceRicerca<Ricetta> ricette = new IndiceRicerca<>(Ricetta::getId, Ricetta::getNome);
+    private final IndiceRicerca<Utente> utenti = new IndiceRicerca<>(Utente::getId, Utente::getNomeCompleto);
+    private volatile boolean ricettePronte;
+    private volatile boolean utentiPronti;
+
+    // Costruzione e aggiornamenti in sequenza su un solo thread
+    private final ExecutorService esecutore = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "uninafoodlab-indici-ricerca");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void costruisci() {
+        esecutore.execute(this::ricostruisci);
+    }
+
+    Optional<List<Ricetta>> cercaRicette(String termine, int limite) {
+        return ricettePronte ? Optional.of(ricette.cerca(termine, limite)) : Optional.empty();
+    }
+
+    Optional<List<Utente>> cercaUtenti(String termine, int limite) {
+        return utentiPronti ? Optional.of(utenti.cerca(termine, limite)) : Optional.empty();
+    }
+
+    @Override
+    public void modifiche(List<ModificaEntita> modifiche) {
+        // Dopo un'importazione massiva costa meno ricostruire che rileggere riga per riga
+        long indicizzate = modifiche.stream()
+            .filter(m -> m.riguarda(ModificaEntita.RICETTE) || m.riguarda(ModificaEntita.UTENTI))
+            .count();
+        if (indicizzate > SOGLIA_RICOSTRUZIONE) {
+            esecutore.execute(this::ricostruisci);
+            return;
+        }
+        for (ModificaEntita modifica : modifiche) {
+            if (modifica.riguarda(ModificaEntita.RICETTE)) {
+                esecutore.execute(() -> aggiornaRicetta(modifica));
+            } else if (modifica.riguarda(ModificaEntita.UTENTI)) {
+                esecutore.execute(() -> aggiornaUtente(modifica));
+            }
+        }
+    }
+
+    @Override
+    public void risincronizza() {
+        esecutore.execute(this::ricostruisci);
+    }
+
+    private void ricostruisci() {
+        ricostruisciRicette();
+        ricostruisciUtenti();
+    }
+
+    /**
+     * L'indice viene dichiarato pronto solo dopo essere stato riempito; durante una
+     * ricostruzione la ricerca continua sul contenuto precedente
+     */
+    private void ricostruisciRicette() {
+        long inizio = System.currentTimeMillis();
+        List<Ricetta> tutteRicette;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            tutteRicette = ricettaDAO.findAll(conn);
+        } catch (SQLException e) {
+            logger.warn("Indice delle ricette non costruito, ricerca su database", e);
+            ricettePronte = false;
+            ricette.ricostruisci(List.of());
+            return;
+        }
+
+        boolean entroMassimo = tutteRicette.size() <= MASSIMO_VOCI;
+        if (!entroMassimo) {
+            ricettePronte = false;
+        }
+        ricette.ricostruisci(entroMassimo ? tutteRicette : List.of());
+        ricettePronte = entroMassimo;
+        logger.info("Indice delle ricette costruito in {} ms: {} ricette{}", System.currentTimeMillis() - inizio,
+            tutteRicette.size(), entroMassimo ? "" : " (troppe, ricerca su database)");
+    }
+
+    private void ricostruisciUtenti() {
+        long inizio = System.currentTimeMillis();
+        List<Utente> attivi;
+        try {
+            attivi = caricaUtentiAttivi();
+        } catch (SQLException e) {
+            logger.warn("Indice degli utenti non costruito, ricerca su database", e);
+            utentiPronti = false;
+            utenti.ricostruisci(List.of());
+            return;
+        }
+
+        boolean entroMassimo = attivi.size() <= MASSIMO_VOCI;
+        if (!entroMassimo) {
+            utentiPronti = false;
+        }
+        utenti.ricostruisci(entroMassimo ? attivi : List.of());
+        utentiPronti = entroMassimo;
+        logger.info("Indice degli utenti costruito in {} ms: {} utenti{}", System.currentTimeMillis() - inizio,
+            attivi.size(), entroMassimo ? "" : " (troppi, ricerca su database)");
+    }
+
+    /**
+     * Utenti attivi a pagine keyset su una sola connessione; si ferma appena superato il massimo
+     */
+    private List<Utente> caricaUtentiAttivi() throws SQLException {
+        List<Utente> attivi = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            List<Utente> pagina;
+            do {
+                Utente ultimo = attivi.isEmpty() ? null : attivi.get(attivi.size() - 1);
+                pagina = utenteDAO.findAttiviDopo(conn, ultimo, PAGINA_UTENTI);
+                attivi.addAll(pagina);
+            } while (pagina.size() == PAGINA_UTENTI && attivi.size() <= MASSIMO_VOCI);
+        }
+        return attivi;
+    }
+
+    /**
+     * Se la rilettura fallisce lo stato della riga è ignoto: l'indice torna alla ricerca
+     * su database e viene ricostruito
+     */
+    private void aggiornaRicetta(ModificaEntita modifica) {
+        if (!ricettePronte) return;
+
+        Optional<Ricetta> ricetta = Optional.empty();
+        if (!modifica.isEliminazione()) {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                ricetta = ricettaDAO.findById(conn, modifica.id());
+            } catch (SQLException e) {
+                logger.warn("Ricetta {} non riletta, ricostruzione dell'indice", modifica.id(), e);
+                ricettePronte = false;
+                esecutore.execute(this::ricostruisciRicette);
+                return;
+            }
+        }
+        ricetta.ifPresentOrElse(ricette::aggiorna, () -> ricette.rimuovi(modifica.id()));
+    }
+
+    private void aggiornaUtente(ModificaEntita modifica) {
+        if (!utentiPronti) return;
+
+        Optional<Utente> utente = Optional.empty();
+        if (!modifica.isEliminazione()) {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                utente = utenteDAO.findById(conn, modifica.id()).filter(Utente::isAttivo);
+            } catch (SQLException e) {
+                logger.warn("Utente {} non riletto, ricostruzione dell'indice", modifica.id(), e);
+                utentiPronti = false;
+                esecutore.execute(this::ricostruisciUtenti);
+                return;
+            }
+        }
+        utente.ifPresentOrElse(utenti::aggiorna, () -> utenti.rimuovi(modifica.id()));
+    }
+
+    String descrizione() {
+        return String.format("indici di ricerca: ricette=%s, utenti=%s",
+            ricettePronte ? ricette.dimensione() : "database", utentiPronti ? utenti.dimensione() : "database");
+    }
+}
@@ -0,0 +1,262 @@
+package it.unina.uninafoodlab.service;
+
+import it.unina.uninafoodlab.database.DashboardDAO;
+import it.unina.uninafoodlab.database.DatabaseManager;
+import it.unina.uninafoodlab.model.ReportMensileChef;
+import it.unina.uninafoodlab.model.RisultatoReportMensili;
+import it.unina.uninafoodlab.model.RisultatoReportMensili.ReportFallito;
+import it.unina.uninafoodlab.utils.FormatUtils;
+import it.unina.uninafoodlab.utils.ImpaginatorePdf;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generazione a fine mese dei report mensili di tutti gli chef, in PDF e PNG.
+ * Le statistiche di tutti gli chef arrivano da una sola query
+ * ({@link DashboardDAO#generaReportMensiliTutti}); grafici e file vengono poi prodotti in
+ * parallelo. Il pool di thread è limitato dal numero di processori e dalla dimensione del
+ * pool HikariCP (una connessione resta all'interfaccia), con una coda di lunghezza fissa:
+ * quando è piena il thread che distribuisce il lavoro genera il report da sé, così i
+ * report in attesa non si accumulano in memoria. Un errore su uno chef non ferma gli altri.
+ */
+public final class ReportMensiliBatch {
+    private static final Logger logger = LoggerFactory.getLogger(ReportMensiliBatch.class);
+
+    // Il grafico occupa 515x300 punti nel PDF: viene disegnato al doppio per restare nitido
+    private static final int LARGHEZZA_GRAFICO = 1030;
+    private static final int ALTEZZA_GRAFICO = 600;
+
+    /**
+     * Avanzamento della generazione; può essere chiamato da più thread
+     */
+    @FunctionalInterface
+    public interface Avanzamento {
+        void aggiorna(int completati, int totali);
+    }
+
+    private final DashboardDAO dashboardDAO;
+
+    public ReportMensiliBatch(DashboardDAO dashboardDAO) {
+        this.dashboardDAO = dashboardDAO;
+    }
+
+    /**
+     * Genera nella cartella un PDF e un PNG per ogni chef e restituisce il riepilogo.
+     * L'interruzione del thread chiamante annulla i report non ancora scritti
+     */
+    public RisultatoReportMensili genera(YearMonth mese, Path cartella, Avanzamento avanzamento) {
+        long inizio = System.currentTimeMillis();
+        Map<Integer, ReportMensileChef> reportPerChef =
+            dashboardDAO.generaReportMensiliTutti(mese.getMonthValue(), mese.getYear());
+        int totali = reportPerChef.size();
+        avanzamento.aggiorna(0, totali);
+
+        int numeroThread = numeroThread();
+        ThreadPoolExecutor esecutore = creaEsecutore(numeroThread);
+        AtomicInteger completati = new AtomicInteger();
+        AtomicLong byteScritti = new AtomicLong();
+        List<ReportFallito> falliti = new ArrayList<>();
+
+        try {
+            Files.createDirectories(cartella);
+
+            List<Future<?>> lavori = new ArrayList<>(totali);
+            List<Map.Entry<Integer, ReportMensileChef>> voci = new ArrayList<>(reportPerChef.entrySet());
+            for (Map.Entry<Integer, ReportMensileChef> voce : voci) {
+                verificaInterruzione();
+                lavori.add(esecutore.submit(() -> {
+                    verificaInterruzione();
+                    byteScritti.addAndGet(scriviReport(voce.getKey(), voce.getValue(), mese, cartella));
+                    avanzamento.aggiorna(completati.incrementAndGet(), totali);
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < lavori.size(); i++) {
+                try {
+                    lavori.get(i).get();
+                } catch (ExecutionException e) {
+                    Map.Entry<Integer, ReportMensileChef> voce = voci.get(i);
+                    Throwable causa = e.getCause();
+                    logger.error("Report mensile {} non generato per chef {}", mese, voce.getKey(), causa);
+                    falliti.add(new ReportFallito(voce.getKey(), voce.getValue().nomeChef(),
+                        causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName()));
+                    avanzamento.aggiorna(completati.incrementAndGet(), totali);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Generazione dei report annullata");
+        } catch (IOException e) {
+            logger.error("Impossibile creare la cartella dei report {}", cartella, e);
+            throw new RuntimeException("Errore nella creazione della cartella dei report: " + e.getMessage(), e);
+        } finally {
+            esecutore.shutdownNow();
+        }
+
+        RisultatoReportMensili risultato = new RisultatoReportMensili(totali, totali - falliti.size(),
+            List.copyOf(falliti), byteScritti.get(), System.currentTimeMillis() - inizio, numeroThread);
+        logger.info("Report mensili {}: {} di {} chef in {} ms con {} thread ({} report/s, {} KB), {} falliti",
+            mese, risultato.generati(), totali, risultato.durataMs(), numeroThread,
+            String.format("%.1f", risultato.reportAlSecondo()), risultato.byteScritti() / 1024, falliti.size());
+        return risultato;
+    }
+
+    private static int numeroThread() {
+        int processori = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(processori, DatabaseManager.getDimensioneMassimaPool() - 1));
+    }
+
+    private static ThreadPoolExecutor creaEsecutore(int numeroThread) {
+        ThreadFactory fabbrica = new ThreadFactory() {
+            private final AtomicInteger contatore = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "uninafoodlab-report-" + contatore.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(numeroThread, numeroThread, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(2 * numeroThread), fabbrica, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static void verificaInterruzione() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Scrive PDF e PNG di uno chef e restituisce i byte scritti. Il grafico viene disegnato
+     * una volta sola e usato per entrambi i file
+     */
+    private static long scriviReport(int chefId, ReportMensileChef report, YearMonth mese, Path cartella)
+            throws IOException {
+        String nome = String.format("report_%d-%02d_chef_%d", mese.getYear(), mese.getMonthValue(), chefId);
+        Path png = cartella.resolve(nome + ".png");
+        Path pdf = cartella.resolve(nome + ".pdf");
+
+        BufferedImage grafico = creaGrafico(report).createBufferedImage(LARGHEZZA_GRAFICO, ALTEZZA_GRAFICO,
+            LARGHEZZA_GRAFICO / 2.0, ALTEZZA_GRAFICO / 2.0, null);
+
+        scriviConRinomina(png, parziale -> ImageIO.write(grafico, "png", parziale.toFile()));
+        scriviConRinomina(pdf, parziale -> {
+            try (ImpaginatorePdf documento = new ImpaginatorePdf("Report mensile - " + report.nomeChef())) {
+                scriviPdf(documento, report, grafico);
+                documento.salva(parziale);
+            }
+        });
+        return Files.size(png) + Files.size(pdf);
+    }
+
+    @FunctionalInterface
+    private interface Scrittura {
+        void scrivi(Path file) throws IOException;
+    }
+
+    /**
+     * Scrive accanto al file e lo rinomina a scrittura riuscita, così una cartella
+     * interrotta a metà non contiene file incompleti
+     */
+    private static void scriviConRinomina(Path file, Scrittura scrittura) throws IOException {
+        Path parziale = file.resolveSibling(file.getFileName() + ".parziale");
+        try {
+            scrittura.scrivi(parziale);
+            Files.move(parziale, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(parziale);
+            throw e;
+        }
+    }
+
+    private static void scriviPdf(ImpaginatorePdf pdf, ReportMensileChef report, BufferedImage grafico)
+            throws IOException {
+        pdf.titolo("Report Mensile UninaFoodLab - " + report.nomeChef());
+        pdf.testo(report.toReportMensile().getPeriodo()
+            + (report.specializzazione() != null ? "   Specializzazione: " + report.specializzazione() : "")
+            + "   Generato il " + FormatUtils.formattaDataOra(LocalDateTime.now()));
+
+        pdf.sezione("Statistiche del mese");
+        pdf.tabella(new String[] {"Voce", "Valore"}, new float[] {3f, 1f});
+        pdf.riga("Corsi attivi nel mese", report.numeroCorsiMese());
+        pdf.riga("Sessioni online", report.numeroSessioniOnline());
+        pdf.riga("Sessioni in presenza", report.numeroSessioniPratiche());
+        pdf.riga("Ricette nelle sessioni", report.ricetteTotali());
+        pdf.riga("Nuove iscrizioni", report.iscrizioniMensili());
+        pdf.riga("di cui attive", report.iscrizioniAttiveMensili());
+        pdf.riga("di cui completate", report.iscrizioniCompletateMensili());
+        pdf.riga("Ricavo del mese", importo(report.ricavoMensile()));
+        pdf.fineTabella();
+
+        pdf.sezione("Totali");
+        pdf.tabella(new String[] {"Voce", "Valore"}, new float[] {3f, 1f});
+        pdf.riga("Corsi", report.corsiTotali());
+        pdf.riga("Iscrizioni", report.iscrizioniTotali());
+        pdf.riga("Tasso di completamento",
+            report.tassoCompletamento() != null ? report.tassoCompletamento().toPlainString() + "%" : "-");
+        pdf.riga("Ricavo totale", importo(report.ricavoTotale()));
+        pdf.fineTabella();
+
+        pdf.sezione("Attività del mese");
+        pdf.immagine(grafico);
+    }
+
+    private static String importo(BigDecimal valore) {
+        return valore != null ? "€ " + valore.toPlainString() : "-";
+    }
+
+    private static JFreeChart creaGrafico(ReportMensileChef report) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        dataset.addValue(report.numeroCorsiMese(), "Mese", "Corsi");
+        dataset.addValue(report.numeroSessioniOnline(), "Mese", "Sessioni online");
+        dataset.addValue(report.numeroSessioniPratiche(), "Mese", "Sessioni presenza");
+        dataset.addValue(report.ricetteTotali(), "Mese", "Ricette");
+        dataset.addValue(report.iscrizioniMensili(), "Mese", "Iscrizioni");
+
+        JFreeChart chart = ChartFactory.createBarChart(
+            "Attività " + report.toReportMensile().getPeriodo() + " - " + report.nomeChef(),
+            null,
+            "Numero",
+            dataset,
+            PlotOrientation.VERTICAL,
+            false, // leggenda
+            false, // tooltips
+            false // urls
+        );
+
+        CategoryPlot plot = chart.getCategoryPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setRangeGridlinePaint(Color.GRAY);
+        return chart;
+    }
+}
@@ -0,0 +1,155 @@
+package it.unina.uninafoodlab.service;
+
+import it.unina.uninafoodlab.model.ReportMensileChef;
+import it.unina.uninafoodlab.model.TipoGrafico;
+import org.jfree.data.general.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dati della finestra dei report per uno chef e un mese: il report mensile e i dataset
+ * dei quattro grafici, letti in parallelo all'apertura della finestra e al cambio di mese.
+ * Le query hanno un tempo massimo complessivo: quelle non concluse vengono annullate (il
+ * thread viene interrotto, quelle in coda non partono) e i relativi grafici vengono caricati
+ * quando servono. Una query già inviata termina al più al timeout impostato da DashboardDAO,
+ * quindi cambi di mese ripetuti su un database lento non accumulano lavoro. I dataset
+ * valgono finché la versione dei dati dei grafici non cambia.
+ */
+public final class ReportSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(ReportSnapshot.class);
+
+    private static final Duration TEMPO_MASSIMO = Duration.ofSeconds(10);
+
+    // Una query per thread; con i 4 thread di AsyncLoader restano libere connessioni del pool HikariCP (10)
+    private static final int NUMERO_THREAD = TipoGrafico.values().length + 1;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(NUMERO_THREAD, new ThreadFactory() {
+        private final AtomicInteger contatore = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "uninafoodlab-snapshot-" + contatore.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final YearMonth mese;
+    private final long versioneDati;
+    private final boolean reportCaricato;
+    private final ReportMensileChef report;
+    private final Map<TipoGrafico, Dataset> dataset;
+
+    private ReportSnapshot(YearMonth mese, long versioneDati, boolean reportCaricato,
+                           ReportMensileChef report, Map<TipoGrafico, Dataset> dataset) {
+        this.mese = mese;
+        this.versioneDati = versioneDati;
+        this.reportCaricato = reportCaricato;
+        this.report = report;
+        this.dataset = dataset;
+    }
+
+    /**
+     * Legge report e dataset in parallelo e attende al massimo {@link #TEMPO_MASSIMO}.
+     * Alla scadenza o all'interruzione del thread chiamante annulla i caricamenti non conclusi
+     */
+    static ReportSnapshot carica(UninaFoodLabService service, Integer chefId, YearMonth mese) {
+        long inizio = System.currentTimeMillis();
+        long scadenza = System.nanoTime() + TEMPO_MASSIMO.toNanos();
+        long versioneDati = UninaFoodLabService.getVersioneDatiGrafici();
+
+        // submit e non CompletableFuture: cancel(true) interrompe davvero il thread
+        Future<Optional<ReportMensileChef>> futuroReport = executor.submit(
+            () -> service.leggiReportMensile(chefId, mese));
+        Map<TipoGrafico, Future<Dataset>> futuriDataset = new EnumMap<>(TipoGrafico.class);
+        for (TipoGrafico tipo : TipoGrafico.values()) {
+            futuriDataset.put(tipo, executor.submit(() -> service.getDatasetGrafico(tipo, chefId, mese)));
+        }
+
+        try {
+            Optional<Optional<ReportMensileChef>> report = attendi(futuroReport, scadenza, "report", mese, chefId);
+            Map<TipoGrafico, Dataset> dataset = new EnumMap<>(TipoGrafico.class);
+            for (Map.Entry<TipoGrafico, Future<Dataset>> futuro : futuriDataset.entrySet()) {
+                // Il segnaposto non viene tenuto: il grafico verrà riletto quando serve
+                attendi(futuro.getValue(), scadenza, futuro.getKey().getEtichetta(), mese, chefId)
+                    .filter(valore -> !UninaFoodLabService.isSenzaDati(valore))
+                    .ifPresent(valore -> dataset.put(futuro.getKey(), valore));
+            }
+
+            logger.debug("Dati dei report di {} per chef {}: report {}, {} grafici su {} in {} ms", mese, chefId,
+                report.isPresent() ? "letto" : "mancante", dataset.size(), futuriDataset.size(),
+                System.currentTimeMillis() - inizio);
+            return new ReportSnapshot(mese, versioneDati, report.isPresent(),
+                report.flatMap(valore -> valore).orElse(null), dataset);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Caricamento dei report annullato");
+        } finally {
+            // Dopo la scadenza o un'interruzione nessun caricamento resta in coda o in esecuzione
+            futuroReport.cancel(true);
+            futuriDataset.values().forEach(futuro -> futuro.cancel(true));
+        }
+    }
+
+    /**
+     * Valore del caricamento se concluso senza errori entro la scadenza comune
+     */
+    private static <T> Optional<T> attendi(Future<T> futuro, long scadenza, String descrizione,
+                                           YearMonth mese, Integer chefId) throws InterruptedException {
+        try {
+            return Optional.of(futuro.get(Math.max(scadenza - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            logger.warn("{} di {} per chef {} non letto entro {} s", descrizione, mese, chefId,
+                TEMPO_MASSIMO.toSeconds());
+        } catch (ExecutionException e) {
+            logger.error("Errore nel caricamento di {} di {} per chef {}", descrizione, mese, chefId, e.getCause());
+        }
+        return Optional.empty();
+    }
+
+    public YearMonth getMese() {
+        return mese;
+    }
+
+    /**
+     * Falso se la lettura del report non si è conclusa nel tempo massimo o è fallita
+     */
+    public boolean isReportCaricato() {
+        return reportCaricato;
+    }
+
+    /**
+     * Report del mese; vuoto se lo chef non ha dati o se la lettura non si è conclusa
+     */
+    public Optional<ReportMensileChef> getReport() {
+        return Optional.ofNullable(report);
+    }
+
+    /**
+     * Copia del dataset del grafico, se letto e ancora valido: il mese deve coincidere per i
+     * grafici mensili e i dati non devono essere cambiati dopo la lettura
+     */
+    public Optional<Dataset> getDataset(TipoGrafico tipo, YearMonth meseGrafico) {
+        Dataset letto = dataset.get(tipo);
+        if (letto == null || versioneDati != UninaFoodLabService.getVersioneDatiGrafici()
+                || (tipo.isMensile() && !mese.equals(meseGrafico))) {
+            return Optional.empty();
+        }
+        return Optional.of(UninaFoodLabService.copiaDataset(letto));
+    }
+}
@@ -2,14 +2,27 @@
 
 import it.unina.uninafoodlab.database.*;
 import it.unina.uninafoodlab.model.*;
+import org.jfree.data.general.Dataset;
+import org.jfree.data.general.DatasetGroup;
+import org.jfree.data.general.DefaultPieDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.chart.util.PublicCloneable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service per la gestione della logica di business di UninaFoodLab
@@ -25,6 +38,48 @@ public class UninaFoodLabService {
     private final UtenteDAO utenteDAO;
     private final IscrizioneDAOAdvanced iscrizioneDAO; // Aggiornato con funzionalità avanzate
 
+    // Cache condivise da tutte le istanze del service: i controller ne creano una ciascuno.
+    // I chiamanti ricevono copie: gli oggetti in cache non escono dal service
+    private static final String CHIAVE_CATEGORIE = "tutte";
+    private static final CacheEntita<Integer, Corso> cacheCorsi = new CacheEntita<>("corsi", 500, Duration.ofMinutes(5));
+    private static final CacheEntita<Integer, Chef> cacheChef = new CacheEntita<>("chef", 100, Duration.ofMinutes(30));
+    private static final CacheEntita<String, List<CategoriaCorso>> cacheCategorie =
+        new CacheEntita<>("categorie", 1, Duration.ofMinutes(30));
+    private static final CacheEntita<ChiaveDatasetGrafico, Dataset> cacheDatasetGrafici =
+        new CacheEntita<>("dataset grafici", 200, Duration.ofMinutes(10));
+    // Incrementata quando cambiano i dati dei grafici: chi memorizza le immagini la usa nella chiave
+    private static final AtomicLong versioneDatiGrafici = new AtomicLong();
+    private static final DatasetGroup GRUPPO_SENZA_DATI = new DatasetGroup("SENZA_DATI");
+
+    // Le modifiche fatte da altri client arrivano come notifiche dal database
+    private static final AscoltatoreModifiche invalidazioneCache = new AscoltatoreModifiche() {
+        @Override
+        public void modifiche(List<ModificaEntita> modifiche) {
+            for (ModificaEntita modifica : modifiche) {
+                if (modifica.riguarda(ModificaEntita.CORSI)) {
+                    cacheCorsi.invalida(modifica.id());
+                }
+            }
+            // Le notifiche non riportano lo chef: si scartano i dataset di tutti
+            if (modifiche.stream().anyMatch(UninaFoodLabService::riguardaGrafici)) {
+                invalidaDatiGrafici();
+            }
+        }
+
+        @Override
+        public void risincronizza() {
+            cacheCorsi.invalidaTutto();
+            cacheChef.invalidaTutto();
+            cacheCategorie.invalidaTutto();
+            invalidaDatiGrafici();
+        }
+    };
+    private static boolean invalidazioneRegistrata;
+    
+    // Ricerca a ogni tasto: indici in memoria se le notifiche li possono tenere aggiornati
+    private static final int LIMITE_RICERCA = 100;
+    private static final IndiciRicerca indiciRicerca = new IndiciRicerca();
+
     public UninaFoodLabService() {
         this.chefDAO = new ChefDAO();
         this.corsoDAO = new CorsoDAO();
@@ -33,6 +88,31 @@ public UninaFoodLabService() {
         this.dashboardDAO = new DashboardDAO(); // Nuovo DAO avanzato
         this.utenteDAO = new UtenteDAO();
         this.iscrizioneDAO = new IscrizioneDAOAdvanced(); // Nuovo DAO avanzato
+        registraInvalidazioneCache();
+    }
+
+    private static boolean riguardaGrafici(ModificaEntita modifica) {
+        return modifica.riguarda(ModificaEntita.CORSI) || modifica.riguarda(ModificaEntita.SESSIONI)
+            || modifica.riguarda(ModificaEntita.SESSIONI_RICETTE) || modifica.riguarda(ModificaEntita.RICETTE);
+    }
+
+    /**
+     * Scarta i dataset dei grafici; chiamata dalle notifiche e dalle modifiche fatte da
+     * questo client, così i grafici sono aggiornati anche con db.notifications.enabled=false
+     */
+    private static void invalidaDatiGrafici() {
+        cacheDatasetGrafici.invalidaTutto();
+        versioneDatiGrafici.incrementAndGet();
+    }
+
+    private static synchronized void registraInvalidazioneCache() {
+        if (!invalidazioneRegistrata) {
+            if (DatabaseManager.aggiungiAscoltatoreModifiche(invalidazioneCache)
+                    && DatabaseManager.aggiungiAscoltatoreModifiche(indiciRicerca)) {
+                indiciRicerca.costruisci();
+            }
+            invalidazioneRegistrata = true;
+        }
     }
 
     // === AUTENTICAZIONE ===
@@ -66,10 +146,14 @@ public Corso creaCorso(Integer chefId, Integer categoria_id, String titolo, Stri
         }
 
         Corso corso = new Corso(chefId, categoria_id, titolo, descrizione, data_inizio, frequenza, numero_sessioni, prezzo);
-        corso = corsoDAO.save(corso);
         
-        // Genera automaticamente le sessioni del corso
-        generaSessioniCorso(corso);
+        // Corso e sessioni generate vengono salvati nella stessa transazione
+        try {
+            corso = corsoDAO.saveConSessioni(corso, generaSessioniCorso(corso));
+        } finally {
+            invalidaDatiGrafici();
+        }
+        cacheCorsi.invalida(corso.getId());
         
         logger.info("Corso creato con successo: {}", corso.getTitolo());
         return corso;
@@ -90,7 +174,11 @@ public List<Corso> getCorsiChef(Integer chefId, Integer categoria_id) {
      * Ottieni tutte le categorie corsi disponibili
      */
     public List<CategoriaCorso> getCategorieCorsi() {
-        return corsoDAO.findAllCategorie();
+        List<CategoriaCorso> categorie = cacheCategorie.get(CHIAVE_CATEGORIE, chiave -> {
+            List<CategoriaCorso> lette = corsoDAO.findAllCategorie();
+            return lette.isEmpty() ? Optional.empty() : Optional.of(List.copyOf(lette));
+        }).orElse(List.of());
+        return categorie.stream().map(CategoriaCorso::new).collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
@@ -121,7 +209,12 @@ public boolean aggiornaCorso(Corso corso) {
                 throw new IllegalArgumentException("Il prezzo non può essere negativo");
             }
 
-            Corso corsoAggiornato = corsoDAO.update(corso);
+            Corso corsoAggiornato;
+            try {
+                corsoAggiornato = corsoDAO.update(corso);
+            } finally {
+                invalidaDatiGrafici();
+            }
             boolean successo = corsoAggiornato != null;
             
             if (successo) {
@@ -132,6 +225,9 @@ public boolean aggiornaCorso(Corso corso) {
         } catch (Exception e) {
             logger.error("Errore nell'aggiornamento del corso", e);
             throw new RuntimeException(e.getMessage());
+        } finally {
+            // Anche se la modifica viene rifiutata: il chiamante può aver già cambiato l'oggetto
+            cacheCorsi.invalida(corso.getId());
         }
     }
 
@@ -144,6 +240,13 @@ public List<Sessione> getSessioniCorso(Integer corso_id) {
         return sessioneDAO.findByCorsoId(corso_id);
     }
 
+    /**
+     * Ottieni le sessioni di un corso con i nomi delle ricette associate (una sola query)
+     */
+    public List<Sessione> getSessioniCorsoConRicette(Integer corso_id) {
+        return sessioneDAO.findByCorsoIdWithRicette(corso_id);
+    }
+
     /**
      * Ottieni solo le sessioni pratiche di un corso
      */
@@ -173,7 +276,12 @@ public boolean creaSessione(Sessione sessione) {
                 throw new IllegalArgumentException("Il tipo di sessione è obbligatorio");
             }
 
-            Sessione nuovaSessione = sessioneDAO.save(sessione);
+            Sessione nuovaSessione;
+            try {
+                nuovaSessione = sessioneDAO.save(sessione);
+            } finally {
+                invalidaDatiGrafici();
+            }
             return nuovaSessione != null;
         } catch (Exception e) {
             logger.error("Errore nella creazione della sessione", e);
@@ -200,7 +308,12 @@ public boolean aggiornaSessione(Sessione sessione) {
                 throw new IllegalArgumentException("Il tipo di sessione è obbligatorio");
             }
 
-            Sessione sessioneAggiornata = sessioneDAO.update(sessione);
+            Sessione sessioneAggiornata;
+            try {
+                sessioneAggiornata = sessioneDAO.update(sessione);
+            } finally {
+                invalidaDatiGrafici();
+            }
             return sessioneAggiornata != null;
         } catch (Exception e) {
             logger.error("Errore nell'aggiornamento della sessione", e);
@@ -238,7 +351,12 @@ public boolean associaRicettaASessione(Integer sessione_id, Integer ricetta_id,
             }
             
             // Esegui associazione
-            boolean result = sessioneDAO.associaRicetta(sessione_id, ricetta_id, ordineEsecuzione);
+            boolean result;
+            try {
+                result = sessioneDAO.associaRicetta(sessione_id, ricetta_id, ordineEsecuzione);
+            } finally {
+                invalidaDatiGrafici();
+            }
             
             if (result) {
                 logger.info("Ricetta '{}' associata con successo alla sessione '{}'", 
@@ -295,7 +413,12 @@ public boolean creaRicetta(Ricetta ricetta) {
                 ricetta.setNumeroPortions(4); // Default 4 porzioni
             }
 
-            Ricetta nuovaRicetta = ricettaDAO.save(ricetta);
+            Ricetta nuovaRicetta;
+            try {
+                nuovaRicetta = ricettaDAO.save(ricetta);
+            } finally {
+                invalidaDatiGrafici();
+            }
             return nuovaRicetta != null;
         } catch (Exception e) {
             logger.error("Errore nella creazione della ricetta", e);
@@ -328,7 +451,12 @@ public boolean aggiornaRicetta(Ricetta ricetta) {
                 ricetta.setNumeroPortions(4); // Default 4 porzioni
             }
 
-            Ricetta ricettaAggiornata = ricettaDAO.update(ricetta);
+            Ricetta ricettaAggiornata;
+            try {
+                ricettaAggiornata = ricettaDAO.update(ricetta);
+            } finally {
+                invalidaDatiGrafici();
+            }
             return ricettaAggiornata != null;
         } catch (Exception e) {
             logger.error("Errore nell'aggiornamento della ricetta", e);
@@ -341,9 +469,19 @@ public boolean aggiornaRicetta(Ricetta ricetta) {
     /**
      * Genera report mensile per uno chef utilizzando il nuovo DashboardDAO
      */
-    public Map<String, Object> generaReportMensile(Integer chefId, int mese, int anno) {
+    public Optional<ReportMensileChef> generaReportMensile(Integer chefId, int mese, int anno) {
         return dashboardDAO.generaReportMensile(chefId, mese, anno);
     }
+    
+    /**
+     * Come {@link #generaReportMensile}, ma un errore del database viene propagato invece di
+     * diventare un report vuoto (usato da ReportSnapshot)
+     */
+    Optional<ReportMensileChef> leggiReportMensile(Integer chefId, YearMonth mese) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return dashboardDAO.generaReportMensile(conn, chefId, mese.getMonthValue(), mese.getYear());
+        }
+    }
 
     /**
      * Ottieni i periodi disponibili per i report di uno chef
@@ -355,7 +493,7 @@ public List<String> getPeriodiDisponibili(Integer chefId) {
     /**
      * Ottieni dati per grafici - distribuzione corsi per categoria
      */
-    public List<Map<String, Object>> getStatisticheCorsi(Integer chefId, int mese, int anno) {
+    public List<StatisticaCorsoMese> getStatisticheCorsi(Integer chefId, int mese, int anno) {
         return dashboardDAO.getStatisticheCorsi(chefId, mese, anno);
     }
 
@@ -394,31 +532,212 @@ public Map<String, Map<String, Integer>> getAndamentoMensile(Integer chefId) {
         return dashboardDAO.getAndamentoMensile(chefId);
     }
 
+    /**
+     * Dataset del grafico per lo chef; il mese conta solo per i grafici mensili.
+     * I dataset restano in cache fino alla modifica di corsi, sessioni o ricette:
+     * ogni chiamata riceve una copia, perché il grafico registra i propri listener sul dataset.
+     * Senza dati (anche per un errore di lettura, che i DAO non distinguono) si mostra un
+     * dataset segnaposto che non viene memorizzato
+     */
+    public Dataset getDatasetGrafico(TipoGrafico tipo, Integer chefId, YearMonth mese) {
+        ChiaveDatasetGrafico chiave = new ChiaveDatasetGrafico(chefId, tipo, tipo.isMensile() ? mese : null);
+        return cacheDatasetGrafici.get(chiave, this::creaDatasetGrafico)
+            .map(UninaFoodLabService::copiaDataset)
+            .orElseGet(() -> datasetSenzaDati(tipo));
+    }
+
+    static Dataset copiaDataset(Dataset dataset) {
+        try {
+            return (Dataset) ((PublicCloneable) dataset).clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Dataset non copiabile: " + dataset.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Report del mese e dataset di tutti i grafici dello chef, letti in parallelo
+     * con un tempo massimo complessivo
+     */
+    public ReportSnapshot caricaReportSnapshot(Integer chefId, YearMonth mese) {
+        return ReportSnapshot.carica(this, chefId, mese);
+    }
+
+    /**
+     * Versione corrente dei dati dei grafici, incrementata a ogni invalidazione dei dataset
+     */
+    public static long getVersioneDatiGrafici() {
+        return versioneDatiGrafici.get();
+    }
+
+    /**
+     * Dataset letto dal database; vuoto se non ci sono dati da mostrare
+     */
+    private Optional<Dataset> creaDatasetGrafico(ChiaveDatasetGrafico chiave) {
+        Integer chefId = chiave.chefId();
+        switch (chiave.tipo()) {
+            case SESSIONI_PER_MODALITA: {
+                Map<String, Integer> distribuzione = dashboardDAO.getDistribuzioneSessioniPerModalita(chefId);
+                if (distribuzione.isEmpty()) {
+                    return Optional.empty();
+                }
+                DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+                distribuzione.forEach((modalita, numero) -> dataset.addValue(numero, "Sessioni", modalita));
+                return Optional.of(dataset);
+            }
+            case ANDAMENTO_MENSILE: {
+                // Gli ultimi 12 mesi ci sono sempre, anche senza corsi: vuoto solo per errore
+                Map<String, Map<String, Integer>> andamento = dashboardDAO.getAndamentoMensile(chefId);
+                if (andamento.isEmpty()) {
+                    return Optional.empty();
+                }
+                DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+                // I dati sono già in ordine cronologico crescente (ultimi 12 mesi)
+                andamento.forEach((mese, dati) -> {
+                    dataset.addValue(dati.getOrDefault("corsi", 0), "Corsi Creati", mese);
+                    dataset.addValue(dati.getOrDefault("sessioni", 0), "Sessioni Totali", mese);
+                });
+                return Optional.of(dataset);
+            }
+            case RICETTE_PER_DIFFICOLTA: {
+                DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
+                YearMonth mese = chiave.mese() != null ? chiave.mese() : YearMonth.now();
+                Map<String, Integer> distribuzione = dashboardDAO.getDistribuzioneRicettePerDifficoltaMensile(
+                    chefId, mese.getYear(), mese.getMonthValue());
+                // Inserimento in ordine logico
+                for (String difficolta : List.of("FACILE", "MEDIO", "DIFFICILE", "SCONOSCIUTO")) {
+                    int numero = distribuzione.getOrDefault(difficolta, 0);
+                    if (numero > 0) {
+                        dataset.setValue(difficolta, numero);
+                    }
+                }
+                return dataset.getItemCount() == 0 ? Optional.empty() : Optional.of(dataset);
+            }
+            case CORSI_PER_CATEGORIA:
+            default: {
+                Map<String, Integer> distribuzione = dashboardDAO.getDistribuzioneCorsiPerCategoria(chefId);
+                if (distribuzione.isEmpty()) {
+                    return Optional.empty();
+                }
+                DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
+                distribuzione.forEach(dataset::setValue);
+                return Optional.of(dataset);
+            }
+        }
+    }
+
+    /**
+     * Dataset segnaposto mostrato quando non ci sono dati o la lettura è fallita
+     */
+    public static Dataset datasetSenzaDati(TipoGrafico tipo) {
+        Dataset dataset;
+        switch (tipo) {
+            case SESSIONI_PER_MODALITA: {
+                DefaultCategoryDataset categorie = new DefaultCategoryDataset();
+                categorie.addValue(0, "Sessioni", "Presenza");
+                categorie.addValue(0, "Sessioni", "Online");
+                dataset = categorie;
+                break;
+            }
+            case ANDAMENTO_MENSILE: {
+                DefaultCategoryDataset categorie = new DefaultCategoryDataset();
+                categorie.addValue(0, "Corsi Creati", "Nessun dato");
+                categorie.addValue(0, "Sessioni Totali", "Nessun dato");
+                dataset = categorie;
+                break;
+            }
+            case RICETTE_PER_DIFFICOLTA: {
+                DefaultPieDataset<String> torta = new DefaultPieDataset<>();
+                torta.setValue("Nessuna ricetta", 1);
+                dataset = torta;
+                break;
+            }
+            case CORSI_PER_CATEGORIA:
+            default: {
+                DefaultPieDataset<String> torta = new DefaultPieDataset<>();
+                torta.setValue("Nessun corso disponibile", 1);
+                dataset = torta;
+                break;
+            }
+        }
+        dataset.setGroup(GRUPPO_SENZA_DATI);
+        return dataset;
+    }
+
+    /**
+     * Vero per il segnaposto di {@link #datasetSenzaDati}: non va memorizzato, perché
+     * può nascondere un errore di lettura
+     */
+    public static boolean isSenzaDati(Dataset dataset) {
+        return dataset.getGroup() == GRUPPO_SENZA_DATI;
+    }
+
+    private record ChiaveDatasetGrafico(Integer chefId, TipoGrafico tipo, YearMonth mese) {}
+
+    /**
+     * Genera il report PDF di tutti i corsi dello chef (sessioni, ricette e iscrizioni di
+     * ogni corso) dopo la copertina scritta dal chiamante; restituisce i corsi inclusi.
+     * Da eseguire fuori dal thread FX
+     */
+    public int generaReportCorsiPdf(int chefId, String titolo, ReportCorsiPdf.Copertina copertina, Path file,
+                                    ReportCorsiPdf.Avanzamento avanzamento) {
+        return new ReportCorsiPdf().esporta(chefId, titolo, copertina, file, avanzamento);
+    }
+
+    /**
+     * Genera nella cartella i report mensili (PDF e PNG) di tutti gli chef, in parallelo,
+     * e restituisce report prodotti, errori e throughput. Da eseguire fuori dal thread FX
+     */
+    public RisultatoReportMensili generaReportMensiliTutti(YearMonth mese, Path cartella,
+                                                           ReportMensiliBatch.Avanzamento avanzamento) {
+        return new ReportMensiliBatch(dashboardDAO).genera(mese, cartella, avanzamento);
+    }
+
     /**
      * Ottieni dati per grafici - distribuzione sessioni per tipo
      */
-    public List<Map<String, Object>> getStatisticheSessioni(Integer chefId, int mese, int anno) {
+    public List<StatisticaSessioneMese> getStatisticheSessioni(Integer chefId, int mese, int anno) {
         return dashboardDAO.getStatisticheSessioni(chefId, mese, anno);
     }
 
+    /**
+     * Ottieni i dettagli di tutti i corsi con le statistiche di iscrizione
+     */
+    public List<CorsoDettaglio> getCorsiDettaglio() {
+        return dashboardDAO.getCorsiDettaglio();
+    }
+
+    /**
+     * Ottieni le performance di tutti gli chef
+     */
+    public List<ChefPerformance> getReportChef() {
+        return dashboardDAO.getReportChef();
+    }
+
+    /**
+     * Ottieni l'andamento delle iscrizioni negli ultimi mesi
+     */
+    public List<AnalisiMensile> getAnalisiTemporale(int numeroMesi) {
+        return dashboardDAO.getAnalisiTemporale(numeroMesi);
+    }
+
     /**
      * Ottieni dati per grafici - distribuzione ricette per sessione
      */
-    public List<Map<String, Object>> getDistribuzioneRicette(Integer chefId, int mese, int anno) {
+    public List<UtilizzoRicetta> getDistribuzioneRicette(Integer chefId, int mese, int anno) {
         return dashboardDAO.getDistribuzioneRicette(chefId, mese, anno);
     }
 
     // === METODI PRIVATI DI UTILITÀ ===
 
     /**
-     * Genera automaticamente le sessioni per un corso
+     * Genera automaticamente le sessioni per un corso (il salvataggio avviene in batch)
      */
-    private void generaSessioniCorso(Corso corso) {
+    private List<Sessione> generaSessioniCorso(Corso corso) {
+        List<Sessione> sessioni = new ArrayList<>(corso.getNumeroSessioni());
         LocalDate dataCorrente = corso.getDataInizio();
         
         for (int i = 1; i <= corso.getNumeroSessioni(); i++) {
             Sessione sessione = new Sessione();
-            sessione.setCorsoId(corso.getId());
             sessione.setNumeroSessione(i);
             sessione.setDataSessione(dataCorrente);
             
@@ -435,13 +754,14 @@ private void generaSessioniCorso(Corso corso) {
             
             sessione.setDurataMinuti(120); // 2 ore di default
             
-            sessioneDAO.save(sessione);
+            sessioni.add(sessione);
             
             // Calcola la prossima data in base alla frequenza
             dataCorrente = calcolaProximaDataSessione(dataCorrente, corso.getFrequenza());
         }
         
-        logger.info("Generate {} sessioni per il corso: {}", corso.getNumeroSessioni(), corso.getTitolo());
+        logger.info("Generate {} sessioni per il corso: {}", sessioni.size(), corso.getTitolo());
+        return sessioni;
     }
 
     /**
@@ -520,8 +840,22 @@ public List<Corso> getCorsiByChef(Integer chefId) {
      * Ottieni un corso per ID
      */
     public Corso getCorsoById(Integer id) {
-        Optional<Corso> corso = corsoDAO.findById(id);
-        return corso.orElse(null);
+        Optional<Corso> corso = cacheCorsi.get(id, corsoDAO::findById);
+        return corso.map(Corso::new).orElse(null);
+    }
+    
+    /**
+     * Ottieni uno chef per ID
+     */
+    public Optional<Chef> getChefById(Integer id) {
+        return cacheChef.get(id, chefDAO::findById).map(Chef::new);
+    }
+    
+    /**
+     * Ottieni una ricetta per ID
+     */
+    public Optional<Ricetta> getRicettaById(Integer id) {
+        return ricettaDAO.findById(id);
     }
     
     /**
@@ -562,14 +896,17 @@ public boolean creaCorso(Corso corso) {
                 throw new IllegalArgumentException(validation.getErrorMessage());
             }
             
-            Corso nuovoCorso = corsoDAO.save(corso);
-            
-            // Genera automaticamente le sessioni del corso
-            if (nuovoCorso != null && nuovoCorso.getId() != null) {
-                generaSessioniCorso(nuovoCorso);
-                return true;
+            // Corso e sessioni generate vengono salvati nella stessa transazione
+            Corso nuovoCorso;
+            try {
+                nuovoCorso = corsoDAO.saveConSessioni(corso, generaSessioniCorso(corso));
+            } finally {
+                invalidaDatiGrafici();
             }
-            return false;
+            if (nuovoCorso != null) {
+                cacheCorsi.invalida(nuovoCorso.getId());
+            }
+            return nuovoCorso != null && nuovoCorso.getId() != null;
         } catch (Exception e) {
             logger.error("Errore nella creazione del corso", e);
             return false;
@@ -585,6 +922,9 @@ public boolean eliminaCorso(Integer corso_id) {
         } catch (Exception e) {
             logger.error("Errore nell'eliminazione del corso", e);
             return false;
+        } finally {
+            cacheCorsi.invalida(corso_id);
+            invalidaDatiGrafici();
         }
     }
     
@@ -597,12 +937,27 @@ public boolean eliminaRicetta(Integer ricetta_id) {
         } catch (Exception e) {
             logger.error("Errore nell'eliminazione della ricetta", e);
             return false;
+        } finally {
+            invalidaDatiGrafici();
         }
-    }    /**
-     * Genera report mensile - versione che ritorna Map per compatibilità con i nuovi DAO
+    }
+    
+    /**
+     * Verifica che le statistiche aggregate di corsi e chef coincidano con le viste
+     * originali; in caso di differenze le ricostruisce. Restituisce true se erano allineate.
+     * Se la verifica non può essere eseguita lancia RuntimeException. Eseguita all'avvio
+     * in background da App, da non chiamare sul thread FX
      */
-    public Map<String, Object> generaReportMensileWrapper(Integer chefId, int anno, int mese) {
-        return generaReportMensile(chefId, mese, anno);
+    public boolean verificaStatisticheAggregate() {
+        List<DifferenzaStatistica> differenze = dashboardDAO.verificaStatisticheAggregate();
+        if (differenze.isEmpty()) {
+            return true;
+        }
+        
+        differenze.forEach(d -> logger.warn("Statistica {} {} non allineata su {}: aggregato={}, vista={}",
+            d.tipo(), d.riferimentoId(), d.campo(), d.valoreAggregato(), d.valoreVista()));
+        dashboardDAO.ricalcolaStatisticheAggregate();
+        return false;
     }
     
     // === GESTIONE UTENTI ===
@@ -614,6 +969,20 @@ public List<Utente> getAllUtenti() {
         return utenteDAO.findAllAttivi();
     }
     
+    /**
+     * Ottieni la pagina di utenti attivi successiva all'utente indicato (null = prima pagina)
+     */
+    public List<Utente> getUtentiPagina(Utente ultimo, int limite) {
+        return utenteDAO.findAttiviDopo(ultimo, limite);
+    }
+    
+    /**
+     * Ottieni la pagina di utenti attivi precedente all'utente indicato
+     */
+    public List<Utente> getUtentiPaginaPrecedente(Utente primo, int limite) {
+        return utenteDAO.findAttiviPrima(primo, limite);
+    }
+    
     /**
      * Trova un utente per ID
      */
@@ -661,6 +1030,15 @@ public boolean creaUtente(Utente utente) {
         }
     }
     
+    /**
+     * Importa utenti da un file CSV in un'unica transazione: le righe non valide o con
+     * email già registrata vengono scartate e riportate nel risultato. Da eseguire
+     * fuori dal thread FX; l'interruzione del thread annulla l'importazione
+     */
+    public RisultatoImportazione importaUtenti(Path file, ImportazioneUtenti.Avanzamento avanzamento) {
+        return new ImportazioneUtenti().importa(file, avanzamento);
+    }
+    
     /**
      * Aggiorna un utente esistente
      */
@@ -713,7 +1091,31 @@ public List<Utente> cercaUtenti(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return getAllUtenti();
         }
-        return utenteDAO.searchByName(searchTerm.trim());
+        return cercaUtenti(searchTerm, LIMITE_RICERCA);
+    }
+    
+    /**
+     * Cerca utenti attivi per nome o cognome, dai più pertinenti, al massimo {@code limite}
+     */
+    public List<Utente> cercaUtenti(String termine, int limite) {
+        if (termine == null || termine.isBlank()) {
+            return List.of();
+        }
+        String ripulito = termine.trim();
+        return indiciRicerca.cercaUtenti(ripulito, limite)
+            .orElseGet(() -> utenteDAO.searchByName(ripulito, limite));
+    }
+    
+    /**
+     * Cerca ricette per nome, dalle più pertinenti, al massimo {@code limite}
+     */
+    public List<Ricetta> cercaRicette(String termine, int limite) {
+        if (termine == null || termine.isBlank()) {
+            return List.of();
+        }
+        String ripulito = termine.trim();
+        return indiciRicerca.cercaRicette(ripulito, limite)
+            .orElseGet(() -> ricettaDAO.searchByNome(ripulito, limite));
     }
     
     // === GESTIONE ISCRIZIONI ===
@@ -752,7 +1154,7 @@ public boolean iscriviUtenteACorso(Integer utente_id, Integer corso_id, String n
             }
             
             // Verifica che il corso esista
-            Optional<Corso> corsoOpt = corsoDAO.findById(corso_id);
+            Optional<Corso> corsoOpt = cacheCorsi.get(corso_id, corsoDAO::findById);
             if (corsoOpt.isEmpty()) {
                 throw new IllegalArgumentException("Corso non trovato");
             }
@@ -774,6 +1176,26 @@ public boolean iscriviUtenteACorso(Integer utente_id, Integer corso_id, String n
         }
     }
     
+    /**
+     * Iscrive più utenti a più corsi in un'unica transazione (es. un gruppo aziendale).
+     * Le righe non valide, già iscritte o oltre i posti disponibili non fanno fallire
+     * le altre: l'esito di ogni riga è restituito nello stesso ordine della richiesta
+     */
+    public List<EsitoIscrizione> iscriviUtentiACorsi(List<RichiestaIscrizione> richieste) {
+        if (richieste == null || richieste.isEmpty()) {
+            return List.of();
+        }
+        return iscrizioneDAO.iscriviTutti(richieste);
+    }
+    
+    /**
+     * Esporta tutte le iscrizioni (vista iscrizioni_complete) in un file CSV, anche compresso
+     * con gzip, a memoria costante; restituisce le righe scritte. Da eseguire fuori dal thread FX
+     */
+    public long esportaIscrizioni(Path file, boolean gzip, EsportazioneIscrizioni.Avanzamento avanzamento) {
+        return new EsportazioneIscrizioni().esporta(file, gzip, avanzamento);
+    }
+    
     /**
      * Annulla un'iscrizione
      */
@@ -832,8 +1254,58 @@ public List<Iscrizione> getAllIscrizioni() {
         return iscrizioneDAO.findAllAttive();
     }
     
+    /**
+     * Ottieni un'iscrizione con nome dell'utente e titolo del corso
+     */
+    public Optional<Iscrizione> getIscrizioneDettagliata(Integer iscrizioneId) {
+        return iscrizioneDAO.findDettagliataById(iscrizioneId);
+    }
+    
+    /**
+     * Ottieni la pagina di iscrizioni attive successiva a quella indicata (null = prima pagina)
+     */
+    public List<Iscrizione> getIscrizioniPagina(Iscrizione ultima, int limite) {
+        return iscrizioneDAO.findAttiveDettagliatoDopo(ultima, limite);
+    }
+    
+    /**
+     * Ottieni la pagina di iscrizioni attive precedente a quella indicata
+     */
+    public List<Iscrizione> getIscrizioniPaginaPrecedente(Iscrizione prima, int limite) {
+        return iscrizioneDAO.findAttiveDettagliatoPrima(prima, limite);
+    }
+    
     // === METODI DI UTILITÀ ===
     
+    /**
+     * Registra un ascoltatore delle modifiche a corsi, ricette e iscrizioni fatte da
+     * qualsiasi client; le cache del service sono già invalidate quando viene chiamato
+     */
+    public static void ascoltaModifiche(AscoltatoreModifiche ascoltatore) {
+        registraInvalidazioneCache();
+        DatabaseManager.aggiungiAscoltatoreModifiche(ascoltatore);
+    }
+    
+    /**
+     * Chef riportato come autore nel log delle iscrizioni; null al logout
+     */
+    public static void impostaChefCorrente(Chef chef) {
+        AuditIscrizioni.getInstance().impostaOperatore(chef != null ? chef.getUsername() : null);
+    }
+    
+    public static void smettiDiAscoltareModifiche(AscoltatoreModifiche ascoltatore) {
+        DatabaseManager.rimuoviAscoltatoreModifiche(ascoltatore);
+    }
+    
+    /**
+     * Riepilogo di hit e miss delle cache di corsi, chef, categorie e dataset dei grafici
+     * e stato degli indici di ricerca
+     */
+    public static List<String> getStatisticheCache() {
+        return List.of(cacheCorsi.descrizione(), cacheChef.descrizione(), cacheCategorie.descrizione(),
+            cacheDatasetGrafici.descrizione(), indiciRicerca.descrizione());
+    }
+    
     /**
      * Valida formato email
      */    private boolean isValidEmail(String email) {
@@ -0,0 +1,333 @@
+package it.unina.uninafoodlab.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Impaginazione di un PDF A4 dall'alto verso il basso: titoli, testo, immagini e
+ * tabelle che continuano sulle pagine successive ripetendo l'intestazione.
+ * Il documento usa un file temporaneo come buffer (MemoryUsageSetting) e ogni pagina
+ * viene chiusa prima di aprire la successiva, quindi contenuti e immagini già scritti
+ * non restano nello heap. Non è thread-safe: va usato da un solo thread alla volta.
+ */
+public final class ImpaginatorePdf implements Closeable {
+    private static final float MARGINE = 40f;
+    private static final float MARGINE_BASSO = 50f;
+    private static final float DIMENSIONE_TITOLO = 16f;
+    private static final float DIMENSIONE_SEZIONE = 13f;
+    private static final float DIMENSIONE_SOTTOSEZIONE = 11f;
+    private static final float DIMENSIONE_TESTO = 10f;
+    private static final float DIMENSIONE_TABELLA = 8.5f;
+    private static final float DIMENSIONE_PIE_PAGINA = 8f;
+    private static final float ALTEZZA_RIGA_TABELLA = 14f;
+    private static final float SPAZIATURA_CELLA = 3f;
+    private static final Color SFONDO_INTESTAZIONE = new Color(0xDE, 0xE2, 0xE6);
+    private static final Color SFONDO_RIGA_ALTERNATA = new Color(0xF8, 0xF9, 0xFA);
+    private static final Color TESTO_SECONDARIO = new Color(0x6C, 0x75, 0x7D);
+
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final PDFont FONT_GRASSETTO = PDType1Font.HELVETICA_BOLD;
+
+    private final PDDocument documento;
+    private final String titoloDocumento;
+    private final float larghezzaUtile = PDRectangle.A4.getWidth() - 2 * MARGINE;
+    // I font standard coprono solo WinAnsi: i caratteri fuori codifica diventano '?'
+    private final Map<Integer, Boolean> caratteriCodificabili = new HashMap<>();
+
+    private PDPageContentStream contenuto;
+    private float y;
+    private int numeroPagine;
+
+    private String[] intestazioniTabella;
+    private float[] larghezzeTabella;
+    private int righeTabella;
+
+    /**
+     * @param titoloDocumento ripetuto a piè di pagina insieme al numero di pagina
+     */
+    public ImpaginatorePdf(String titoloDocumento) throws IOException {
+        this.documento = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+        this.titoloDocumento = titoloDocumento;
+        nuovaPagina();
+    }
+
+    public int getNumeroPagine() {
+        return numeroPagine;
+    }
+
+    /**
+     * Chiude la pagina corrente e ne apre una nuova
+     */
+    public void nuovaPagina() throws IOException {
+        chiudiPagina();
+        PDPage pagina = new PDPage(PDRectangle.A4);
+        documento.addPage(pagina);
+        numeroPagine++;
+        contenuto = new PDPageContentStream(documento, pagina);
+        y = PDRectangle.A4.getHeight() - MARGINE;
+        scriviPiePagina();
+    }
+
+    public void titolo(String testo) throws IOException {
+        richiediSpazio(DIMENSIONE_TITOLO * 3);
+        scrivi(FONT_GRASSETTO, DIMENSIONE_TITOLO, MARGINE, y - DIMENSIONE_TITOLO, testo, Color.BLACK);
+        y -= DIMENSIONE_TITOLO + 10;
+    }
+
+    /**
+     * Intestazione di sezione; se in fondo alla pagina resta poco spazio passa alla successiva,
+     * per non lasciare il titolo separato dal suo contenuto
+     */
+    public void sezione(String testo) throws IOException {
+        richiediSpazio(DIMENSIONE_SEZIONE + 6 * ALTEZZA_RIGA_TABELLA);
+        y -= 6;
+        scrivi(FONT_GRASSETTO, DIMENSIONE_SEZIONE, MARGINE, y - DIMENSIONE_SEZIONE, testo, Color.BLACK);
+        y -= DIMENSIONE_SEZIONE + 4;
+        contenuto.setStrokingColor(TESTO_SECONDARIO);
+        contenuto.setLineWidth(0.5f);
+        contenuto.moveTo(MARGINE, y);
+        contenuto.lineTo(MARGINE + larghezzaUtile, y);
+        contenuto.stroke();
+        y -= 6;
+    }
+
+    public void sottosezione(String testo) throws IOException {
+        richiediSpazio(DIMENSIONE_SOTTOSEZIONE + 3 * ALTEZZA_RIGA_TABELLA);
+        y -= 4;
+        scrivi(FONT_GRASSETTO, DIMENSIONE_SOTTOSEZIONE, MARGINE, y - DIMENSIONE_SOTTOSEZIONE, testo, Color.BLACK);
+        y -= DIMENSIONE_SOTTOSEZIONE + 4;
+    }
+
+    /**
+     * Paragrafo di testo, diviso su più righe alla larghezza della pagina
+     */
+    public void testo(String testo) throws IOException {
+        float interlinea = DIMENSIONE_TESTO + 3;
+        for (String riga : dividiInRighe(pulisci(testo), FONT, DIMENSIONE_TESTO, larghezzaUtile)) {
+            richiediSpazio(interlinea);
+            scrivi(FONT, DIMENSIONE_TESTO, MARGINE, y - DIMENSIONE_TESTO, riga, Color.BLACK);
+            y -= interlinea;
+        }
+        y -= 2;
+    }
+
+    /**
+     * Disegna un'immagine larga quanto la pagina con le proporzioni originali.
+     * I pixel vengono compressi subito nel buffer del documento: dopo la chiamata
+     * l'immagine può essere liberata
+     */
+    public void immagine(BufferedImage immagine) throws IOException {
+        float larghezza = larghezzaUtile;
+        float altezza = larghezza * immagine.getHeight() / immagine.getWidth();
+        richiediSpazio(altezza + 8);
+
+        PDImageXObject oggetto = LosslessFactory.createFromImage(documento, immagine);
+        contenuto.drawImage(oggetto, MARGINE, y - altezza, larghezza, altezza);
+        y -= altezza + 8;
+    }
+
+    /**
+     * Inizia una tabella; le righe si aggiungono con {@link #riga}
+     *
+     * @param pesi larghezze relative delle colonne
+     */
+    public void tabella(String[] intestazioni, float[] pesi) throws IOException {
+        float totale = 0;
+        for (float peso : pesi) {
+            totale += peso;
+        }
+        larghezzeTabella = new float[pesi.length];
+        for (int i = 0; i < pesi.length; i++) {
+            larghezzeTabella[i] = larghezzaUtile * pesi[i] / totale;
+        }
+        intestazioniTabella = intestazioni;
+        righeTabella = 0;
+
+        richiediSpazio(2 * ALTEZZA_RIGA_TABELLA);
+        scriviIntestazioneTabella();
+    }
+
+    /**
+     * Aggiunge una riga alla tabella corrente. Il testo troppo lungo per la colonna viene
+     * troncato; a fine pagina la tabella prosegue sulla successiva con l'intestazione
+     */
+    public void riga(Object... valori) throws IOException {
+        if (intestazioniTabella == null) {
+            throw new IllegalStateException("Nessuna tabella iniziata");
+        }
+        if (y - ALTEZZA_RIGA_TABELLA < MARGINE_BASSO) {
+            nuovaPagina();
+            scriviIntestazioneTabella();
+        }
+
+        if (righeTabella++ % 2 == 1) {
+            riempi(SFONDO_RIGA_ALTERNATA, y - ALTEZZA_RIGA_TABELLA, ALTEZZA_RIGA_TABELLA);
+        }
+        scriviCelle(FONT, valori);
+    }
+
+    /**
+     * Termina la tabella corrente lasciando un po' di spazio sotto
+     */
+    public void fineTabella() {
+        intestazioniTabella = null;
+        larghezzeTabella = null;
+        y -= 6;
+    }
+
+    public void salva(Path file) throws IOException {
+        chiudiPagina();
+        documento.save(file.toFile());
+    }
+
+    /**
+     * Chiude il documento ed elimina il file temporaneo usato come buffer
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            chiudiPagina();
+        } finally {
+            documento.close();
+        }
+    }
+
+    private void chiudiPagina() throws IOException {
+        if (contenuto != null) {
+            contenuto.close();
+            contenuto = null;
+        }
+    }
+
+    private void richiediSpazio(float altezza) throws IOException {
+        if (y - altezza < MARGINE_BASSO) {
+            nuovaPagina();
+        }
+    }
+
+    private void scriviPiePagina() throws IOException {
+        String testo = titoloDocumento + " - pagina " + numeroPagine;
+        scrivi(FONT, DIMENSIONE_PIE_PAGINA, MARGINE, MARGINE_BASSO - 25, testo, TESTO_SECONDARIO);
+    }
+
+    private void scriviIntestazioneTabella() throws IOException {
+        riempi(SFONDO_INTESTAZIONE, y - ALTEZZA_RIGA_TABELLA, ALTEZZA_RIGA_TABELLA);
+        scriviCelle(FONT_GRASSETTO, (Object[]) intestazioniTabella);
+    }
+
+    private void scriviCelle(PDFont font, Object... valori) throws IOException {
+        float x = MARGINE;
+        float base = y - ALTEZZA_RIGA_TABELLA + 4;
+        for (int i = 0; i < larghezzeTabella.length; i++) {
+            if (i < valori.length && valori[i] != null) {
+                float disponibile = larghezzeTabella[i] - 2 * SPAZIATURA_CELLA;
+                String testo = tronca(pulisci(valori[i].toString()), font, DIMENSIONE_TABELLA, disponibile);
+                scrivi(font, DIMENSIONE_TABELLA, x + SPAZIATURA_CELLA, base, testo, Color.BLACK);
+            }
+            x += larghezzeTabella[i];
+        }
+        y -= ALTEZZA_RIGA_TABELLA;
+    }
+
+    private void riempi(Color colore, float yBasso, float altezza) throws IOException {
+        contenuto.setNonStrokingColor(colore);
+        contenuto.addRect(MARGINE, yBasso, larghezzaUtile, altezza);
+        contenuto.fill();
+    }
+
+    private void scrivi(PDFont font, float dimensione, float x, float yBase, String testo, Color colore)
+            throws IOException {
+        contenuto.setNonStrokingColor(colore);
+        contenuto.beginText();
+        contenuto.setFont(font, dimensione);
+        contenuto.newLineAtOffset(x, yBase);
+        contenuto.showText(pulisci(testo));
+        contenuto.endText();
+    }
+
+    /**
+     * Sostituisce a capo e tabulazioni con spazi e i caratteri che i font standard non
+     * possono rappresentare con '?' (showText altrimenti lancia un'eccezione)
+     */
+    private String pulisci(String testo) {
+        if (testo.chars().allMatch(c -> c >= 0x20 && c <= 0x7E)) {
+            return testo;
+        }
+        StringBuilder pulito = new StringBuilder(testo.length());
+        testo.codePoints().forEach(c -> {
+            if (Character.isWhitespace(c)) {
+                pulito.append(' ');
+            } else if (c >= 0x20 && c <= 0x7E || codificabile(c)) {
+                pulito.appendCodePoint(c);
+            } else {
+                pulito.append('?');
+            }
+        });
+        return pulito.toString();
+    }
+
+    private boolean codificabile(int carattere) {
+        return caratteriCodificabili.computeIfAbsent(carattere, codice -> {
+            String testo = new String(Character.toChars(codice));
+            try {
+                FONT.encode(testo);
+                FONT_GRASSETTO.encode(testo);
+                return true;
+            } catch (IllegalArgumentException | IOException e) {
+                return false;
+            }
+        });
+    }
+
+    private static String tronca(String testo, PDFont font, float dimensione, float larghezza) throws IOException {
+        if (larghezzaTesto(testo, font, dimensione) <= larghezza) {
+            return testo;
+        }
+        String puntini = "...";
+        int fine = testo.length();
+        while (fine > 0 && larghezzaTesto(testo.substring(0, fine) + puntini, font, dimensione) > larghezza) {
+            fine--;
+        }
+        return testo.substring(0, fine).stripTrailing() + puntini;
+    }
+
+    private static List<String> dividiInRighe(String testo, PDFont font, float dimensione, float larghezza)
+            throws IOException {
+        List<String> righe = new ArrayList<>();
+        StringBuilder corrente = new StringBuilder();
+        for (String parola : testo.split(" +")) {
+            String candidata = corrente.isEmpty() ? parola : corrente + " " + parola;
+            if (!corrente.isEmpty() && larghezzaTesto(candidata, font, dimensione) > larghezza) {
+                righe.add(tronca(corrente.toString(), font, dimensione, larghezza));
+                corrente.setLength(0);
+                corrente.append(parola);
+            } else {
+                corrente.setLength(0);
+                corrente.append(candidata);
+            }
+        }
+        righe.add(tronca(corrente.toString(), font, dimensione, larghezza));
+        return righe;
+    }
+
+    private static float larghezzaTesto(String testo, PDFont font, float dimensione) throws IOException {
+        return font.getStringWidth(testo) / 1000f * dimensione;
+    }
+}
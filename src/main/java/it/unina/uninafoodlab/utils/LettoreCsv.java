@@ -0,0 +1,201 @@
+package it.unina.uninafoodlab.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lettore CSV in streaming (RFC 4180): legge una riga alla volta, quindi la memoria
+ * usata non dipende dalla dimensione del file. Gestisce campi tra virgolette anche su
+ * più righe, il BOM iniziale e il separatore ';' dei file salvati da Excel in italiano,
+ * rilevato dall'intestazione.
+ */
+public final class LettoreCsv implements Closeable {
+    // Oltre questa lunghezza la riga è quasi certamente una virgoletta non chiusa
+    private static final int MASSIMO_CARATTERI_RIGA = 64 * 1024;
+
+    private final Reader sorgente;
+    private final char[] buffer = new char[8192];
+    private int posizione;
+    private int letti;
+    private char separatore;
+    private long rigaFisica = 1;
+    private long rigaRecord;
+    private List<String> intestazione;
+
+    public LettoreCsv(Reader sorgente) {
+        this.sorgente = sorgente;
+    }
+
+    /**
+     * Prima riga del file, con i nomi delle colonne (null se il file è vuoto)
+     */
+    public List<String> intestazione() throws IOException {
+        if (intestazione == null) {
+            String primaRiga = leggiPrimaRiga();
+            if (primaRiga == null) {
+                return null;
+            }
+            separatore = rilevaSeparatore(primaRiga);
+            intestazione = dividi(primaRiga);
+        }
+        return intestazione;
+    }
+
+    /**
+     * Riga successiva divisa in campi, o null a fine file. Le righe vuote vengono saltate
+     */
+    public List<String> prossimaRiga() throws IOException {
+        if (intestazione() == null) {
+            return null;
+        }
+
+        while (true) {
+            rigaRecord = rigaFisica;
+            List<String> campi = leggiRecord();
+            if (campi == null) {
+                return null;
+            }
+            if (campi.size() > 1 || !campi.get(0).isBlank()) {
+                return campi;
+            }
+        }
+    }
+
+    /**
+     * Numero (da 1) della riga del file in cui inizia l'ultima riga restituita
+     */
+    public long getNumeroRiga() {
+        return rigaRecord;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sorgente.close();
+    }
+
+    private String leggiPrimaRiga() throws IOException {
+        StringBuilder riga = new StringBuilder();
+        int c = leggi();
+        if (c == '\uFEFF') {
+            c = leggi();
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                riga.append((char) c);
+            }
+            c = leggi();
+        }
+        if (c == -1 && riga.isEmpty()) {
+            return null;
+        }
+        rigaFisica++;
+        rigaRecord = 1;
+        return riga.toString();
+    }
+
+    private static char rilevaSeparatore(String riga) {
+        int virgole = 0;
+        int puntiEVirgola = 0;
+        for (int i = 0; i < riga.length(); i++) {
+            if (riga.charAt(i) == ',') virgole++;
+            else if (riga.charAt(i) == ';') puntiEVirgola++;
+        }
+        return puntiEVirgola > virgole ? ';' : ',';
+    }
+
+    /**
+     * Divide l'intestazione, che non può contenere a capo tra virgolette
+     */
+    private List<String> dividi(String riga) {
+        List<String> campi = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean traVirgolette = false;
+        for (int i = 0; i < riga.length(); i++) {
+            char c = riga.charAt(i);
+            if (c == '"') {
+                if (traVirgolette && i + 1 < riga.length() && riga.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    traVirgolette = !traVirgolette;
+                }
+            } else if (c == separatore && !traVirgolette) {
+                campi.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campi.add(campo.toString().trim());
+        return campi;
+    }
+
+    private List<String> leggiRecord() throws IOException {
+        int c = leggi();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> campi = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean traVirgolette = false;
+        int caratteri = 0;
+
+        while (true) {
+            if (c == -1) {
+                if (traVirgolette) {
+                    throw new IOException("Virgolette non chiuse nella riga " + rigaRecord);
+                }
+                break;
+            }
+            if (++caratteri > MASSIMO_CARATTERI_RIGA) {
+                throw new IOException("Riga " + rigaRecord + " troppo lunga (virgolette non chiuse?)");
+            }
+
+            if (traVirgolette) {
+                if (c == '"') {
+                    int successivo = leggi();
+                    if (successivo == '"') {
+                        campo.append('"');
+                    } else {
+                        traVirgolette = false;
+                        c = successivo;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') rigaFisica++;
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                traVirgolette = true;
+            } else if (c == separatore) {
+                campi.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                rigaFisica++;
+                break;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+            c = leggi();
+        }
+
+        campi.add(campo.toString());
+        return campi;
+    }
+
+    private int leggi() throws IOException {
+        if (posizione == letti) {
+            letti = sorgente.read(buffer, 0, buffer.length);
+            posizione = 0;
+            if (letti <= 0) {
+                letti = 0;
+                return -1;
+            }
+        }
+        return buffer[posizione++];
+    }
+}
@@ -0,0 +1,124 @@
+package it.unina.uninafoodlab.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Scrittore CSV su un FileChannel con buffer di dimensione fissa, eventualmente
+ * compresso con gzip. Usa il separatore ';' e il BOM UTF-8, così Excel in italiano
+ * apre il file già diviso in colonne; {@link LettoreCsv} lo rilegge senza modifiche.
+ */
+public final class ScrittoreCsv implements Closeable {
+    private static final char SEPARATORE = ';';
+    private static final int DIMENSIONE_BUFFER = 64 * 1024;
+
+    private final FileChannel canale;
+    private final OutputStream compresso;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CharBuffer caratteri = CharBuffer.allocate(DIMENSIONE_BUFFER);
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(DIMENSIONE_BUFFER * 3);
+
+    public ScrittoreCsv(Path file, boolean gzip) throws IOException {
+        this.canale = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.compresso = gzip ? new GZIPOutputStream(Channels.newOutputStream(canale), DIMENSIONE_BUFFER) : null;
+        accoda('\uFEFF');
+    }
+
+    /**
+     * Scrive una riga; null diventa un campo vuoto
+     */
+    public void riga(Object... valori) throws IOException {
+        for (int i = 0; i < valori.length; i++) {
+            if (i > 0) {
+                accoda(SEPARATORE);
+            }
+            if (valori[i] != null) {
+                accodaCampo(valori[i].toString());
+            }
+        }
+        accoda('\r');
+        accoda('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            svuota();
+            if (compresso != null) {
+                compresso.close();
+            }
+        } finally {
+            canale.close();
+        }
+    }
+
+    private void accodaCampo(String testo) throws IOException {
+        boolean virgolette = false;
+        for (int i = 0; i < testo.length() && !virgolette; i++) {
+            char c = testo.charAt(i);
+            virgolette = c == SEPARATORE || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!virgolette) {
+            accoda(testo);
+            return;
+        }
+        accoda('"');
+        accoda(testo.replace("\"", "\"\""));
+        accoda('"');
+    }
+
+    private void accoda(char c) throws IOException {
+        if (!caratteri.hasRemaining()) {
+            svuota();
+        }
+        caratteri.put(c);
+    }
+
+    private void accoda(String testo) throws IOException {
+        int inizio = 0;
+        while (inizio < testo.length()) {
+            if (!caratteri.hasRemaining()) {
+                svuota();
+            }
+            int fine = Math.min(testo.length(), inizio + caratteri.remaining());
+            caratteri.put(testo, inizio, fine);
+            inizio = fine;
+        }
+    }
+
+    /**
+     * Codifica i caratteri accumulati e li scrive sul canale (o nel flusso gzip)
+     */
+    private void svuota() throws IOException {
+        caratteri.flip();
+        CoderResult esito = encoder.encode(caratteri, byteBuffer, false);
+        if (esito.isError()) {
+            esito.throwException();
+        }
+        // Un surrogato alto in fondo al buffer resta per il blocco successivo
+        caratteri.compact();
+
+        byteBuffer.flip();
+        if (compresso != null) {
+            compresso.write(byteBuffer.array(), 0, byteBuffer.limit());
+        } else {
+            while (byteBuffer.hasRemaining()) {
+                canale.write(byteBuffer);
+            }
+        }
+        byteBuffer.clear();
+    }
+}
@@ -0,0 +1,33 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import it.unina.uninafoodlab.model.TipoGrafico;
+import it.unina.uninafoodlab.service.UninaFoodLabService;
+import org.jfree.data.general.DefaultPieDataset;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheGraficiTest {
+    private static final YearMonth MESE = YearMonth.of(2024, 3);
+
+    @Test
+    void graficoConDatiMemorizzato() {
+        CacheGrafici.Chiave chiave = CacheGrafici.chiave(1, TipoGrafico.CORSI_PER_CATEGORIA, MESE, 300, 200, 1.0);
+        DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
+        dataset.setValue("Cucina italiana", 3);
+
+        CacheGrafici.disegna(chiave, () -> dataset);
+        assertTrue(CacheGrafici.cerca(chiave).isPresent());
+    }
+
+    @Test
+    void segnapostoNonMemorizzato() {
+        CacheGrafici.Chiave chiave = CacheGrafici.chiave(2, TipoGrafico.CORSI_PER_CATEGORIA, MESE, 300, 200, 1.0);
+
+        // Dopo un errore di lettura il service restituisce il segnaposto
+        CacheGrafici.disegna(chiave, () -> UninaFoodLabService.datasetSenzaDati(TipoGrafico.CORSI_PER_CATEGORIA));
+        assertTrue(CacheGrafici.cerca(chiave).isEmpty());
+    }
+}
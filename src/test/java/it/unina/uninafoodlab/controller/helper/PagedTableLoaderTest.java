@@ -0,0 +1,60 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PagedTableLoaderTest {
+    private record Riga(int id, int chiave) {}
+
+    private static final Comparator<Riga> ORDINE = Comparator.comparingInt(Riga::chiave).thenComparingInt(Riga::id);
+
+    private static List<Riga> lista() {
+        return new ArrayList<>(List.of(new Riga(1, 10), new Riga(2, 20), new Riga(3, 30)));
+    }
+
+    private static List<Integer> id(List<Riga> lista) {
+        return lista.stream().map(Riga::id).toList();
+    }
+
+    @Test
+    void sostituisceAlPosto() {
+        List<Riga> lista = lista();
+        Riga nuova = new Riga(2, 25);
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 2, nuova, ORDINE);
+        assertEquals(List.of(1, 2, 3), id(lista));
+        assertSame(nuova, lista.get(1));
+    }
+
+    @Test
+    void spostaSeCambiaLaChiave() {
+        List<Riga> lista = lista();
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 1, new Riga(1, 35), ORDINE);
+        assertEquals(List.of(2, 3, 1), id(lista));
+
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 1, new Riga(1, 5), ORDINE);
+        assertEquals(List.of(1, 2, 3), id(lista));
+    }
+
+    @Test
+    void inserisceInOrdine() {
+        List<Riga> lista = lista();
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 4, new Riga(4, 20), ORDINE);
+        assertEquals(List.of(1, 2, 4, 3), id(lista));
+    }
+
+    @Test
+    void rimuove() {
+        List<Riga> lista = lista();
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 2, null, ORDINE);
+        assertEquals(List.of(1, 3), id(lista));
+
+        PagedTableLoader.sostituisciOrdinata(lista, r -> r.id() == 9, null, ORDINE);
+        assertEquals(List.of(1, 3), id(lista));
+    }
+}
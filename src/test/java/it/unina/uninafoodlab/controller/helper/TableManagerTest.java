@@ -0,0 +1,41 @@
+package it.unina.uninafoodlab.controller.helper;
+
+import it.unina.uninafoodlab.database.ModificaEntita;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TableManagerTest {
+    // Iscrizione 7 spostata dal corso 1 al corso 2: il trigger notifica entrambi i corsi
+    private static final ModificaEntita VECCHIO_CORSO = new ModificaEntita("iscrizioni", "UPDATE", 7, 1);
+    private static final ModificaEntita NUOVO_CORSO = new ModificaEntita("iscrizioni", "UPDATE", 7, 2);
+
+    private static List<ModificaEntita> iscrizioni(List<ModificaEntita> modifiche, Integer corso) {
+        return List.copyOf(TableManager.raggruppa(modifiche, corso)
+            .getOrDefault(ModificaEntita.ISCRIZIONI, Map.of()).values());
+    }
+
+    @Test
+    void spostamentoVistoDalVecchioCorso() {
+        assertEquals(List.of(VECCHIO_CORSO), iscrizioni(List.of(VECCHIO_CORSO, NUOVO_CORSO), 1));
+    }
+
+    @Test
+    void spostamentoVistoDalNuovoCorso() {
+        assertEquals(List.of(NUOVO_CORSO), iscrizioni(List.of(VECCHIO_CORSO, NUOVO_CORSO), 2));
+    }
+
+    @Test
+    void tutteLeIscrizioniUnaPerRiga() {
+        assertEquals(List.of(NUOVO_CORSO), iscrizioni(List.of(VECCHIO_CORSO, NUOVO_CORSO), null));
+    }
+
+    @Test
+    void filtroSoloSulleIscrizioni() {
+        ModificaEntita corso = new ModificaEntita("corsi", "UPDATE", 3, 3);
+        assertEquals(Map.of(3, corso), TableManager.raggruppa(List.of(corso), 1).get(ModificaEntita.CORSI));
+    }
+}
@@ -0,0 +1,38 @@
+package it.unina.uninafoodlab.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModificaEntitaTest {
+
+    @Test
+    void payloadCompleto() {
+        ModificaEntita modifica = ModificaEntita.da("iscrizioni:UPDATE:42:7").orElseThrow();
+        assertEquals(new ModificaEntita("iscrizioni", "UPDATE", 42, 7), modifica);
+        assertTrue(modifica.riguarda(ModificaEntita.ISCRIZIONI));
+        assertFalse(modifica.isEliminazione());
+    }
+
+    @Test
+    void corsoAssente() {
+        ModificaEntita ricetta = ModificaEntita.da("ricette:DELETE:5:").orElseThrow();
+        assertNull(ricetta.corsoId());
+        assertTrue(ricetta.isEliminazione());
+
+        assertNull(ModificaEntita.da("utenti:INSERT:3").orElseThrow().corsoId());
+    }
+
+    @Test
+    void payloadNonValidi() {
+        assertEquals(Optional.empty(), ModificaEntita.da("corsi:UPDATE"));
+        assertEquals(Optional.empty(), ModificaEntita.da("corsi:UPDATE:abc:1"));
+        assertEquals(Optional.empty(), ModificaEntita.da("corsi:UPDATE:1:x"));
+        assertEquals(Optional.empty(), ModificaEntita.da(""));
+    }
+}
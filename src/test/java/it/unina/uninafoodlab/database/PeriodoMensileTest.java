@@ -0,0 +1,32 @@
+package it.unina.uninafoodlab.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PeriodoMensileTest {
+
+    @Test
+    void meseSemiaperto() {
+        PeriodoMensile periodo = PeriodoMensile.di(2024, 2);
+        assertEquals(LocalDate.of(2024, 2, 1), periodo.inizio());
+        assertEquals(LocalDate.of(2024, 3, 1), periodo.fine());
+    }
+
+    @Test
+    void dicembreFinisceAGennaio() {
+        PeriodoMensile periodo = PeriodoMensile.di(YearMonth.of(2023, 12));
+        assertEquals(LocalDate.of(2023, 12, 1), periodo.inizio());
+        assertEquals(LocalDate.of(2024, 1, 1), periodo.fine());
+    }
+
+    @Test
+    void intervalloDiPiuMesi() {
+        PeriodoMensile periodo = PeriodoMensile.tra(YearMonth.of(2023, 11), YearMonth.of(2024, 10));
+        assertEquals(LocalDate.of(2023, 11, 1), periodo.inizio());
+        assertEquals(LocalDate.of(2024, 11, 1), periodo.fine());
+    }
+}
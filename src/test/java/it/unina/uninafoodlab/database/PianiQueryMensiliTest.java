@@ -0,0 +1,141 @@
+package it.unina.uninafoodlab.database;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.abort;
+
+/**
+ * Piani delle query mensili di DashboardDAO e ReportDAO, eseguite con il testo delle DAO:
+ * i filtri a intervallo semiaperto devono arrivare agli indici composti di
+ * performance_upgrade.sql (sezione 5) come Index Cond.
+ * Richiede il database di database.properties con l'aggiornamento eseguito, altrimenti
+ * i test vengono saltati. Le scansioni sequenziali sono disattivate perché sulle tabelle
+ * piccole dei dati di esempio il planner le preferirebbe comunque.
+ */
+class PianiQueryMensiliTest {
+    private static final PeriodoMensile PERIODO = PeriodoMensile.di(YearMonth.of(2024, 3));
+    private static final int CHEF = 1;
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void connetti() throws Exception {
+        Properties props = new Properties();
+        try (InputStream input = PianiQueryMensiliTest.class.getResourceAsStream("/database.properties")) {
+            if (input == null) {
+                abort("database.properties non trovato");
+            }
+            props.load(input);
+        }
+
+        try {
+            conn = DriverManager.getConnection(props.getProperty("db.url"),
+                props.getProperty("db.username"), props.getProperty("db.password"));
+        } catch (SQLException e) {
+            abort("Database non disponibile: " + e.getMessage());
+        }
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                 SELECT count(*) FROM pg_indexes
+                 WHERE indexname IN ('idx_sessioni_corso_data', 'idx_corsi_chef_data_inizio', 'idx_iscrizioni_corso_data')
+                 """)) {
+            rs.next();
+            if (rs.getInt(1) < 3) {
+                abort("performance_upgrade.sql non eseguito sul database di test");
+            }
+        }
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCAL enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void chiudi() throws SQLException {
+        if (conn != null) {
+            conn.rollback();
+            conn.close();
+        }
+    }
+
+    @Test
+    void reportMensileDashboard() throws SQLException {
+        List<String> piano = spiega(DashboardDAO.SQL_REPORT_MENSILE, stmt -> {
+            int indice = 1;
+            for (int i = 0; i < 3; i++) {
+                stmt.setInt(indice++, CHEF);
+                indice = PERIODO.imposta(stmt, indice);
+            }
+            stmt.setInt(indice, CHEF);
+        });
+        assertCondizioneIndice(piano, "data_iscrizione");
+        assertCondizioneIndice(piano, "data_sessione");
+    }
+
+    @Test
+    void statisticheCorsiDashboard() throws SQLException {
+        assertCondizioneIndice(spiega(DashboardDAO.SQL_STATISTICHE_CORSI, PianiQueryMensiliTest::chefEPeriodo),
+            "data_inizio");
+    }
+
+    @Test
+    void statisticheSessioniDashboard() throws SQLException {
+        assertCondizioneIndice(spiega(DashboardDAO.SQL_STATISTICHE_SESSIONI, PianiQueryMensiliTest::chefEPeriodo),
+            "data_sessione");
+    }
+
+    @Test
+    void reportMensile() throws SQLException {
+        List<String> piano = spiega(ReportDAO.SQL_REPORT_MENSILE, stmt -> {
+            stmt.setInt(1, CHEF);
+            PERIODO.imposta(stmt, 2);
+            PERIODO.imposta(stmt, 4);
+            stmt.setInt(6, CHEF);
+        });
+        assertCondizioneIndice(piano, "data_inizio");
+    }
+
+    private static void chefEPeriodo(PreparedStatement stmt) throws SQLException {
+        stmt.setInt(1, CHEF);
+        PERIODO.imposta(stmt, 2);
+    }
+
+    /**
+     * Piano testuale della query della DAO con i parametri impostati come nella DAO
+     */
+    private static List<String> spiega(String sql, ParametriQuery parametri) throws SQLException {
+        List<String> righe = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            parametri.imposta(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    righe.add(rs.getString(1));
+                }
+            }
+        }
+        return righe;
+    }
+
+    private static void assertCondizioneIndice(List<String> piano, String colonna) {
+        boolean trovata = piano.stream()
+            .anyMatch(riga -> riga.contains("Index Cond:") && riga.contains(colonna + " >="));
+        assertTrue(trovata, "Il filtro su " + colonna + " non usa un indice:\n" + String.join("\n", piano));
+    }
+}
@@ -0,0 +1,85 @@
+package it.unina.uninafoodlab.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CacheEntitaTest {
+
+    @Test
+    void caricaUnaVoltaSola() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger letture = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Optional.of("uno"), cache.get(1, chiave -> {
+                letture.incrementAndGet();
+                return Optional.of("uno");
+            }));
+        }
+        assertEquals(1, letture.get());
+        assertEquals(2, cache.getHit());
+        assertEquals(1, cache.getMiss());
+    }
+
+    @Test
+    void risposteVuoteNonMemorizzate() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 10, Duration.ofMinutes(1));
+
+        assertEquals(Optional.empty(), cache.get(1, chiave -> Optional.empty()));
+        assertEquals(Optional.of("uno"), cache.get(1, chiave -> Optional.of("uno")));
+        assertEquals(0, cache.getHit());
+    }
+
+    @Test
+    void invalidazioneDuranteIlCaricamento() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 10, Duration.ofMinutes(1));
+
+        // Il valore letto prima dell'invalidazione è vecchio e non va memorizzato
+        cache.get(1, chiave -> {
+            cache.invalida(chiave);
+            return Optional.of("vecchio");
+        });
+        assertEquals(Optional.of("nuovo"), cache.get(1, chiave -> Optional.of("nuovo")));
+    }
+
+    @Test
+    void invalidaEInvalidaTutto() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 10, Duration.ofMinutes(1));
+        cache.get(1, chiave -> Optional.of("uno"));
+        cache.get(2, chiave -> Optional.of("due"));
+
+        cache.invalida(1);
+        assertEquals(Optional.of("uno bis"), cache.get(1, chiave -> Optional.of("uno bis")));
+        assertEquals(Optional.of("due"), cache.get(2, chiave -> Optional.of("altro")));
+
+        cache.invalidaTutto();
+        assertEquals(Optional.of("due bis"), cache.get(2, chiave -> Optional.of("due bis")));
+    }
+
+    @Test
+    void rimozioneLru() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 2, Duration.ofMinutes(1));
+        cache.get(1, chiave -> Optional.of("uno"));
+        cache.get(2, chiave -> Optional.of("due"));
+        cache.get(1, chiave -> Optional.of("non letto"));
+        cache.get(3, chiave -> Optional.of("tre"));
+
+        // La 2 è la meno usata di recente
+        assertEquals(Optional.of("uno"), cache.get(1, chiave -> Optional.of("non letto")));
+        assertEquals(Optional.of("due bis"), cache.get(2, chiave -> Optional.of("due bis")));
+    }
+
+    @Test
+    void scadenza() {
+        CacheEntita<Integer, String> cache = new CacheEntita<>("test", 10, Duration.ZERO);
+        cache.get(1, chiave -> Optional.of("uno"));
+
+        assertEquals(Optional.of("riletto"), cache.get(1, chiave -> Optional.of("riletto")));
+        assertEquals(0, cache.getHit());
+    }
+}
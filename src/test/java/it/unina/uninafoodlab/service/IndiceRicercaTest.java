@@ -0,0 +1,76 @@
+package it.unina.uninafoodlab.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceRicercaTest {
+    private record Voce(Integer id, String nome) {}
+
+    private IndiceRicerca<Voce> indice;
+
+    @BeforeEach
+    void costruisci() {
+        indice = new IndiceRicerca<>(Voce::id, Voce::nome);
+        indice.ricostruisci(List.of(
+            new Voce(1, "Pasta al pesto"),
+            new Voce(2, "Pesto genovese"),
+            new Voce(3, "Risotto ai funghi"),
+            new Voce(4, "Spaghetti alla carbonara"),
+            new Voce(5, "Crème brûlée")));
+    }
+
+    private List<Integer> cerca(String termine) {
+        return indice.cerca(termine, 10).stream().map(Voce::id).toList();
+    }
+
+    @Test
+    void primaChiIniziaConIlTermine() {
+        assertEquals(List.of(2, 1), cerca("pesto"));
+    }
+
+    @Test
+    void sottostringaSenzaMaiuscoleNeAccenti() {
+        assertEquals(List.of(3), cerca("FUNGH"));
+        assertEquals(List.of(5), cerca("creme"));
+    }
+
+    @Test
+    void terminiCorti() {
+        assertEquals(List.of(4), cerca("sp"));
+        assertTrue(cerca("ri").contains(3));
+    }
+
+    @Test
+    void termineSimile() {
+        assertEquals(List.of(4), cerca("spagheti"));
+    }
+
+    @Test
+    void aggiornamentoERimozione() {
+        indice.aggiorna(new Voce(3, "Risotto alla milanese"));
+        assertEquals(List.of(), cerca("funghi"));
+        assertEquals(List.of(3), cerca("milanese"));
+
+        indice.rimuovi(2);
+        assertEquals(List.of(1), cerca("pesto"));
+        assertEquals(4, indice.dimensione());
+    }
+
+    @Test
+    void limiteETermineVuoto() {
+        assertEquals(1, indice.cerca("pesto", 1).size());
+        assertEquals(List.of(), cerca("   "));
+    }
+
+    @Test
+    void soloPunteggiatura() {
+        assertEquals(List.of(), cerca("---"));
+        assertEquals(List.of(), cerca("!!!"));
+        assertEquals(List.of(), cerca("..."));
+    }
+}
@@ -0,0 +1,76 @@
+package it.unina.uninafoodlab.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ScrittoreCsv e LettoreCsv: quello che viene scritto deve essere riletto uguale
+ */
+class CsvTest {
+    private static final List<List<String>> RIGHE = List.of(
+        List.of("id", "nome", "note"),
+        List.of("1", "Mario; Rossi", "dice \"ciao\""),
+        List.of("2", "Élodie", "prima riga\nseconda riga"),
+        List.of("3", "", "🍝 pasta"));
+
+    @TempDir
+    Path cartella;
+
+    @Test
+    void andataERitorno() throws IOException {
+        Path file = cartella.resolve("iscrizioni.csv");
+        scrivi(file, false);
+        assertEquals(RIGHE, leggi(Files.newInputStream(file)));
+    }
+
+    @Test
+    void andataERitornoGzip() throws IOException {
+        Path file = cartella.resolve("iscrizioni.csv.gz");
+        scrivi(file, true);
+        assertEquals(RIGHE, leggi(new GZIPInputStream(Files.newInputStream(file))));
+    }
+
+    @Test
+    void nullDiventaCampoVuoto() throws IOException {
+        Path file = cartella.resolve("null.csv");
+        try (ScrittoreCsv scrittore = new ScrittoreCsv(file, false)) {
+            scrittore.riga("a", "b");
+            scrittore.riga("1", null);
+        }
+        assertEquals(List.of(List.of("a", "b"), List.of("1", "")), leggi(Files.newInputStream(file)));
+    }
+
+    private static void scrivi(Path file, boolean gzip) throws IOException {
+        try (ScrittoreCsv scrittore = new ScrittoreCsv(file, gzip)) {
+            for (List<String> riga : RIGHE) {
+                scrittore.riga(riga.toArray());
+            }
+        }
+    }
+
+    private static List<List<String>> leggi(InputStream input) throws IOException {
+        List<List<String>> righe = new ArrayList<>();
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+             LettoreCsv lettore = new LettoreCsv(reader)) {
+            righe.add(lettore.intestazione());
+            List<String> riga;
+            while ((riga = lettore.prossimaRiga()) != null) {
+                righe.add(riga);
+            }
+        }
+        return righe;
+    }
+}
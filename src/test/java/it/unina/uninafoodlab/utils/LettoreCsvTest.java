@@ -0,0 +1,32 @@
+package it.unina.uninafoodlab.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LettoreCsvTest {
+
+    @Test
+    void separatoreVirgolaERigheVuote() throws IOException {
+        try (LettoreCsv lettore = new LettoreCsv(new StringReader("nome,email\r\n\r\nAnna,\"a,b@x.it\"\r\n"))) {
+            assertEquals(List.of("nome", "email"), lettore.intestazione());
+            assertEquals(List.of("Anna", "a,b@x.it"), lettore.prossimaRiga());
+            assertEquals(3, lettore.getNumeroRiga());
+            assertNull(lettore.prossimaRiga());
+        }
+    }
+
+    @Test
+    void virgoletteNonChiuse() throws IOException {
+        try (LettoreCsv lettore = new LettoreCsv(new StringReader("a;b\n1;\"aperta\n"))) {
+            lettore.intestazione();
+            assertThrows(IOException.class, lettore::prossimaRiga);
+        }
+    }
+}